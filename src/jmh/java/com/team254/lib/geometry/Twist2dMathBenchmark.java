@@ -0,0 +1,66 @@
+package com.team254.lib.geometry;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// The primitive exp, log and discretization against the Pose2d.exp, Pose2d.log and ChassisSpeeds.discretize paths
+// they replaced, at a rotation step on each side of the series switch and one well inside the closed forms
+// Run with the gc profiler (enabled in build.gradle) to read gc.alloc.rate.norm, the bytes allocated per operation
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Twist2dMathBenchmark {
+    private static final double DT = 0.02;
+
+    @Param({"0.005", "0.05", "0.5"})
+    public double dtheta;
+
+    private final MutPose2d pose = new MutPose2d();
+    private final MutTwist2d twist = new MutTwist2d();
+    private final Pose2d origin = new Pose2d();
+    private double vx;
+    private double vy;
+
+    @Setup
+    public void setup() {
+        vx = 3.0;
+        vy = -2.0;
+    }
+
+    @Benchmark
+    public MutPose2d expInto() {
+        return Twist2dMath.expInto(vx * DT, vy * DT, dtheta, pose);
+    }
+
+    @Benchmark
+    public Pose2d wpiExp() {
+        return origin.exp(new edu.wpi.first.math.geometry.Twist2d(vx * DT, vy * DT, dtheta));
+    }
+
+    @Benchmark
+    public MutTwist2d logInto() {
+        return Twist2dMath.logInto(vx * DT, vy * DT, dtheta, twist);
+    }
+
+    @Benchmark
+    public edu.wpi.first.math.geometry.Twist2d wpiLog() {
+        return origin.log(new Pose2d(vx * DT, vy * DT, new Rotation2d(dtheta)));
+    }
+
+    @Benchmark
+    public MutTwist2d discretizeInto() {
+        return Twist2dMath.discretizeInto(vx, vy, dtheta / DT, DT, twist);
+    }
+
+    @Benchmark
+    public ChassisSpeeds wpiDiscretize() {
+        return ChassisSpeeds.discretize(vx, vy, dtheta / DT, DT);
+    }
+}
@@ -0,0 +1,129 @@
+package com.team254.lib.swerve;
+
+import com.team254.lib.util.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Times the drive and steering limit solves of SwerveSetpointEngine against the recursive regula falsi they replaced,
+// and the opt-in closed form for wheels speeding up, over a fixed set of module velocity pairs
+// Run with the gc profiler (enabled in build.gradle) to read gc.alloc.rate.norm, the bytes allocated per solve
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwerveSetpointSolverBenchmark {
+    private static final int CASES = 1024;
+    private static final double MAX_VEL_STEP = 0.2;
+    private static final double MAX_THETA_STEP = 0.24;
+
+    @FunctionalInterface
+    private interface Function2d {
+        double f(double x, double y);
+    }
+
+    private final double[] x0 = new double[CASES];
+    private final double[] y0 = new double[CASES];
+    private final double[] x1 = new double[CASES];
+    private final double[] y1 = new double[CASES];
+    private final double[] driveGuesses = new double[11];
+    private final boolean[] driveUpper = new boolean[11];
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(6941);
+        for (int i = 0; i < CASES; i++) {
+            x0[i] = random.nextGaussian() * 3.0;
+            y0[i] = random.nextGaussian() * 3.0;
+            x1[i] = random.nextGaussian() * 3.0;
+            y1[i] = random.nextGaussian() * 3.0;
+        }
+    }
+
+    @Benchmark
+    public double driveIterative() {
+        int i = advance();
+        return SwerveSetpointEngine.findDriveMaxS(x0[i], y0[i], Math.hypot(x0[i], y0[i]),
+                x1[i], y1[i], Math.hypot(x1[i], y1[i]), MAX_VEL_STEP, 10, driveGuesses, driveUpper);
+    }
+
+    @Benchmark
+    public double driveSpeedingUpClosedForm() {
+        int i = advance();
+        return SwerveSetpointEngine.findDriveMaxSSpeedingUp(x0[i], y0[i], Math.hypot(x0[i], y0[i]),
+                x1[i], y1[i], Math.hypot(x1[i], y1[i]), MAX_VEL_STEP);
+    }
+
+    @Benchmark
+    public double driveRecursive() {
+        int i = advance();
+        double f_0 = Math.hypot(x0[i], y0[i]);
+        double f_1 = Math.hypot(x1[i], y1[i]);
+        double diff = f_1 - f_0;
+        if (Math.abs(diff) <= MAX_VEL_STEP) {
+            return 1.0;
+        }
+        double offset = f_0 + Math.signum(diff) * MAX_VEL_STEP;
+        Function2d func = (x, y) -> Math.hypot(x, y) - offset;
+        return findRoot(func, x0[i], y0[i], f_0 - offset, x1[i], y1[i], f_1 - offset, 10);
+    }
+
+    @Benchmark
+    public double steeringIterative() {
+        int i = advance();
+        return SwerveSetpointEngine.findSteeringMaxS(x0[i], y0[i], Math.atan2(y0[i], x0[i]),
+                x1[i], y1[i], Math.atan2(y1[i], x1[i]), MAX_THETA_STEP, 8);
+    }
+
+    @Benchmark
+    public double steeringRecursive() {
+        int i = advance();
+        double f_0 = Math.atan2(y0[i], x0[i]);
+        double f_1 = unwrapAngle(f_0, Math.atan2(y1[i], x1[i]));
+        double diff = f_1 - f_0;
+        if (Math.abs(diff) <= MAX_THETA_STEP) {
+            return 1.0;
+        }
+        double offset = f_0 + Math.signum(diff) * MAX_THETA_STEP;
+        Function2d func = (x, y) -> unwrapAngle(f_0, Math.atan2(y, x)) - offset;
+        return findRoot(func, x0[i], y0[i], f_0 - offset, x1[i], y1[i], f_1 - offset, 8);
+    }
+
+    private int advance() {
+        int i = next;
+        next = next + 1 == CASES ? 0 : next + 1;
+        return i;
+    }
+
+    // The recursive solver the engine replaced
+    private static double findRoot(Function2d func, double x_0, double y_0, double f_0, double x_1, double y_1,
+                                   double f_1, int iterations_left) {
+        if (iterations_left < 0 || Util.epsilonEquals(f_0, f_1)) {
+            return 1.0;
+        }
+        double s_guess = Math.max(0.0, Math.min(1.0, -f_0 / (f_1 - f_0)));
+        double x_guess = (x_1 - x_0) * s_guess + x_0;
+        double y_guess = (y_1 - y_0) * s_guess + y_0;
+        double f_guess = func.f(x_guess, y_guess);
+        if (Math.signum(f_0) == Math.signum(f_guess)) {
+            return s_guess + (1.0 - s_guess) * findRoot(func, x_guess, y_guess, f_guess, x_1, y_1, f_1, iterations_left - 1);
+        } else {
+            return s_guess * findRoot(func, x_0, y_0, f_0, x_guess, y_guess, f_guess, iterations_left - 1);
+        }
+    }
+
+    private static double unwrapAngle(double ref, double angle) {
+        double diff = angle - ref;
+        if (diff > Math.PI) {
+            return angle - 2.0 * Math.PI;
+        } else if (diff < -Math.PI) {
+            return angle + 2.0 * Math.PI;
+        } else {
+            return angle;
+        }
+    }
+}
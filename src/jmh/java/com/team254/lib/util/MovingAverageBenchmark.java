@@ -0,0 +1,109 @@
+package com.team254.lib.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+// Adds one sample and reads the average, against the boxed ArrayList and LinkedList filters the rings replaced
+// Run with the gc profiler (enabled in build.gradle) to read gc.alloc.rate.norm, the bytes allocated per operation
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MovingAverageBenchmark {
+    @Param({"10", "50", "250"})
+    public int window;
+
+    private MovingAverage movingAverage;
+    private CircularBuffer circularBuffer;
+    private MovingVariance movingVariance;
+    private MovingMedian movingMedian;
+    private ArrayList<Double> arrayList;
+    private LinkedList<Double> linkedList;
+    private double linkedListSum;
+    private double sample;
+
+    @Setup
+    public void setup() {
+        movingAverage = new MovingAverage(window);
+        circularBuffer = new CircularBuffer(window);
+        movingVariance = new MovingVariance(window);
+        movingMedian = new MovingMedian(window);
+        arrayList = new ArrayList<>();
+        linkedList = new LinkedList<>();
+        linkedListSum = 0.0;
+        for (int i = 0; i < window; i++) {
+            double value = next();
+            movingAverage.addNumber(value);
+            circularBuffer.addValue(value);
+            movingVariance.addNumber(value);
+            movingMedian.addNumber(value);
+            arrayList.add(value);
+            linkedList.addLast(value);
+            linkedListSum += value;
+        }
+    }
+
+    // Cheap deterministic stream of samples spread over a few orders of magnitude
+    private double next() {
+        sample = sample * 1.000001 + 0.37;
+        if (sample > 1000.0) {
+            sample -= 1000.0;
+        }
+        return sample;
+    }
+
+    @Benchmark
+    public double movingAverage() {
+        movingAverage.addNumber(next());
+        return movingAverage.getAverage();
+    }
+
+    // The ArrayList MovingAverage: append, drop the head and sum the whole window on read
+    @Benchmark
+    public double arrayListMovingAverage() {
+        arrayList.add(next());
+        if (arrayList.size() > window) {
+            arrayList.remove(0);
+        }
+        double total = 0;
+        for (double number : arrayList) {
+            total += number;
+        }
+        return total / arrayList.size();
+    }
+
+    @Benchmark
+    public double circularBuffer() {
+        circularBuffer.addValue(next());
+        return circularBuffer.getAverage();
+    }
+
+    // The LinkedList CircularBuffer: running sum over boxed samples
+    @Benchmark
+    public double linkedListCircularBuffer() {
+        double value = next();
+        linkedList.addLast(value);
+        linkedListSum += value;
+        if (linkedList.size() > window) {
+            linkedListSum -= linkedList.removeFirst();
+        }
+        return linkedListSum / linkedList.size();
+    }
+
+    @Benchmark
+    public double movingVariance() {
+        movingVariance.addNumber(next());
+        return movingVariance.getVariance();
+    }
+
+    @Benchmark
+    public double movingMedian() {
+        movingMedian.addNumber(next());
+        return movingMedian.getMedian();
+    }
+}
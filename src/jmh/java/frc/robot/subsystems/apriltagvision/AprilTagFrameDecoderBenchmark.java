@@ -0,0 +1,103 @@
+package frc.robot.subsystems.apriltagvision;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Quaternion;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import frc.robot.FieldConstants;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Decodes the frames two cameras at 120 fps deliver in one 20 ms loop, 5 frames in total
+// Run with the gc profiler (enabled in build.gradle) to read gc.alloc.rate.norm, the bytes allocated per loop
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AprilTagFrameDecoderBenchmark {
+    private static final int CAMERAS = 2;
+    private static final int FRAMES_PER_LOOP = 5;
+    private static final int[] TAG_IDS = {6, 7, 8};
+
+    private AprilTagFrameDecoder decoder;
+    private AprilTagFieldLayout layout;
+    private final double[][] frames = new double[FRAMES_PER_LOOP][];
+    private final int[] frameInstances = new int[FRAMES_PER_LOOP];
+    private final Transform3d[] cameraToRobot = new Transform3d[CAMERAS];
+
+    @Setup
+    public void setup() {
+        decoder = new AprilTagFrameDecoder(AprilTagVisionConstants.cameraPoses.length, timestamp -> 0.0);
+        layout = new AprilTagFieldLayout(List.of(
+                new AprilTag(6, new Pose3d(8.0, 3.0, 0.3, new Rotation3d())),
+                new AprilTag(7, new Pose3d(8.0, 4.0, 0.3, new Rotation3d())),
+                new AprilTag(8, new Pose3d(8.0, 5.0, 0.3, new Rotation3d()))),
+                FieldConstants.fieldLength, FieldConstants.fieldWidth);
+        decoder.setLayout(layout);
+        for (int camera = 0; camera < CAMERAS; camera++) {
+            cameraToRobot[camera] =
+                    new Transform3d(new Pose3d(), AprilTagVisionConstants.cameraPoses[camera]).inverse();
+        }
+        for (int i = 0; i < FRAMES_PER_LOOP; i++) {
+            int camera = i % CAMERAS;
+            Pose3d robot = new Pose3d(4.0 + 0.01 * i, 3.0, 0.0, new Rotation3d(0.0, 0.0, 0.3));
+            Pose3d cameraPose = robot.transformBy(
+                    new Transform3d(new Pose3d(), AprilTagVisionConstants.cameraPoses[camera]));
+            Quaternion q = cameraPose.getRotation().getQuaternion();
+            double[] frame = new double[9 + TAG_IDS.length];
+            frame[0] = 1;
+            frame[1] = 0.0;
+            frame[2] = cameraPose.getX();
+            frame[3] = cameraPose.getY();
+            frame[4] = cameraPose.getZ();
+            frame[5] = q.getW();
+            frame[6] = q.getX();
+            frame[7] = q.getY();
+            frame[8] = q.getZ();
+            for (int t = 0; t < TAG_IDS.length; t++) {
+                frame[9 + t] = TAG_IDS[t];
+            }
+            frames[i] = frame;
+            frameInstances[i] = camera;
+        }
+    }
+
+    // The pooled primitive path AprilTagVision runs
+    @Benchmark
+    public int decoder() {
+        decoder.resetPool();
+        for (int i = 0; i < FRAMES_PER_LOOP; i++) {
+            AprilTagFrameDecoder.Observation out = decoder.next();
+            if (decoder.decode(frameInstances[i], 1.0, frames[i], 1.0, out)) {
+                decoder.commit();
+            }
+        }
+        return decoder.getObservationCount();
+    }
+
+    // The Pose3d/Transform3d chain the decoder replaced, for comparison
+    @Benchmark
+    public void pose3dChain(Blackhole blackhole) {
+        for (int i = 0; i < FRAMES_PER_LOOP; i++) {
+            double[] frame = frames[i];
+            Pose3d cameraPose = new Pose3d(frame[2], frame[3], frame[4],
+                    new Rotation3d(new Quaternion(frame[5], frame[6], frame[7], frame[8])));
+            Pose3d robotPose = cameraPose.transformBy(cameraToRobot[frameInstances[i]]);
+            double totalDistance = 0.0;
+            for (int t = 9; t < frame.length; t++) {
+                Translation3d tag = layout.getTagPose((int) frame[t]).get().getTranslation();
+                totalDistance += cameraPose.getTranslation().getDistance(tag);
+            }
+            blackhole.consume(robotPose);
+            blackhole.consume(totalDistance);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.frcteam6941.control;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Times one re-planning cycle of the reef alignment profile against the 3 ms budget OnlineReplanner drops plans at:
+// planning from a new start state, publishing the plan by copy and sampling it the way the control loop does
+// Run with the gc profiler (enabled in build.gradle) to read gc.alloc.rate.norm, the bytes allocated per operation
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HolonomicMotionProfileBenchmark {
+    private static final int STARTS = 1024;
+    private static final double MAX_VELOCITY = 3.0;
+    private static final double MAX_ACCELERATION = 4.0;
+    private static final double MAX_ANGULAR_VELOCITY = 2.0 * Math.PI;
+    private static final double MAX_ANGULAR_ACCELERATION = 4.0 * Math.PI;
+
+    private final HolonomicMotionProfile working = new HolonomicMotionProfile();
+    private final HolonomicMotionProfile published = new HolonomicMotionProfile();
+    // x0, y0, theta0, vx0, vy0, omega0 per start, all planning to the same goal like one alignment does
+    private double[][] starts;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(6941);
+        starts = new double[STARTS][];
+        for (int i = 0; i < STARTS; i++) {
+            double speed = MAX_VELOCITY * random.nextDouble();
+            double direction = 2.0 * Math.PI * random.nextDouble();
+            starts[i] = new double[]{
+                    4.0 * random.nextDouble() - 2.0, 4.0 * random.nextDouble() - 2.0,
+                    2.0 * Math.PI * random.nextDouble() - Math.PI,
+                    speed * Math.cos(direction), speed * Math.sin(direction),
+                    MAX_ANGULAR_VELOCITY * (2.0 * random.nextDouble() - 1.0)
+            };
+        }
+        next = 0;
+        plan(working);
+    }
+
+    private void plan(HolonomicMotionProfile profile) {
+        double[] start = starts[next];
+        next = (next + 1) & (STARTS - 1);
+        profile.plan(start[0], start[1], start[2], start[3], start[4], start[5], 0.0, 0.0, 0.0,
+                MAX_VELOCITY, MAX_ACCELERATION, MAX_ANGULAR_VELOCITY, MAX_ANGULAR_ACCELERATION);
+    }
+
+    @Benchmark
+    public HolonomicMotionProfile plan() {
+        plan(working);
+        return working;
+    }
+
+    @Benchmark
+    public double sample() {
+        working.sample(0.37 * working.getTotalTime());
+        return working.getX() + working.getVx() + working.getTheta();
+    }
+
+    @Benchmark
+    public double replanCycle() {
+        plan(working);
+        published.copyFrom(working);
+        published.sample(0.02);
+        return published.getX() + published.getVx() + published.getTheta();
+    }
+}
@@ -0,0 +1,127 @@
+package org.frcteam6941.swerve;
+
+import com.team254.lib.swerve.SwerveDriveKinematics;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// One setpoint per call from each adapter over the shared engine, driving a closed loop towards a goal that changes
+// every few cycles so the steering and acceleration limits stay active
+// Run with the gc profiler (enabled in build.gradle) to read gc.alloc.rate.norm, the bytes allocated per setpoint
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwerveSetpointAdapterBenchmark {
+    private static final double DT = 0.02;
+    private static final int GOAL_PERIOD = 16;
+    private static final double[][] MODULES = {{0.3, 0.3}, {0.3, -0.3}, {-0.3, 0.3}, {-0.3, -0.3}};
+    private static final double[][] GOALS = {
+            {3.0, 0.0, 0.0},
+            {-2.5, 1.0, 0.0},
+            {0.0, 0.0, 4.0},
+            {1.2, -2.2, 2.5},
+            {0.0, 0.0, 0.0},
+    };
+
+    private SwerveSetpointGenerator wpiGenerator;
+    private SwerveSetpointGenerator.KinematicLimits wpiLimits;
+    private SwerveSetpoint wpiPrevious;
+    private SwerveSetpoint wpiNext;
+    private final ChassisSpeeds[] wpiGoals = new ChassisSpeeds[GOALS.length];
+
+    private com.team254.lib.swerve.SwerveSetpointGenerator lib254Generator;
+    private com.team254.lib.swerve.SwerveSetpointGenerator.KinematicLimits lib254Limits;
+    private com.team254.lib.swerve.SwerveSetpoint lib254Previous;
+    private com.team254.lib.swerve.SwerveSetpoint lib254Next;
+    private final com.team254.lib.swerve.ChassisSpeeds[] lib254Goals =
+            new com.team254.lib.swerve.ChassisSpeeds[GOALS.length];
+
+    private int cycle = 0;
+
+    @Setup
+    public void setup() {
+        Translation2d[] wpiModules = new Translation2d[MODULES.length];
+        com.team254.lib.geometry.Translation2d[] lib254Modules =
+                new com.team254.lib.geometry.Translation2d[MODULES.length];
+        for (int i = 0; i < MODULES.length; i++) {
+            wpiModules[i] = new Translation2d(MODULES[i][0], MODULES[i][1]);
+            lib254Modules[i] = new com.team254.lib.geometry.Translation2d(MODULES[i][0], MODULES[i][1]);
+        }
+        wpiGenerator = new SwerveSetpointGenerator(wpiModules);
+        wpiLimits = new SwerveSetpointGenerator.KinematicLimits(4.5, 30.0, 200.0);
+        wpiPrevious = wpiSetpoint();
+        wpiNext = wpiSetpoint();
+
+        lib254Generator = new com.team254.lib.swerve.SwerveSetpointGenerator(new SwerveDriveKinematics(lib254Modules));
+        lib254Limits = new com.team254.lib.swerve.SwerveSetpointGenerator.KinematicLimits();
+        lib254Limits.kMaxDriveVelocity = 4.5;
+        lib254Limits.kMaxDriveAcceleration = 30.0;
+        lib254Limits.kMaxSteeringVelocity = 200.0;
+        lib254Previous = lib254Setpoint();
+        lib254Next = lib254Setpoint();
+
+        for (int i = 0; i < GOALS.length; i++) {
+            wpiGoals[i] = new ChassisSpeeds(GOALS[i][0], GOALS[i][1], GOALS[i][2]);
+            lib254Goals[i] = new com.team254.lib.swerve.ChassisSpeeds(GOALS[i][0], GOALS[i][1], GOALS[i][2]);
+        }
+    }
+
+    private int goal() {
+        cycle++;
+        return (cycle / GOAL_PERIOD) % GOALS.length;
+    }
+
+    @Benchmark
+    public SwerveSetpoint wpiInto() {
+        wpiGenerator.generateSetpoint(wpiLimits, wpiPrevious, wpiGoals[goal()], DT, wpiNext);
+        SwerveSetpoint swap = wpiPrevious;
+        wpiPrevious = wpiNext;
+        wpiNext = swap;
+        return wpiPrevious;
+    }
+
+    @Benchmark
+    public SwerveSetpoint wpiAllocating() {
+        wpiPrevious = wpiGenerator.generateSetpoint(wpiLimits, wpiPrevious, wpiGoals[goal()], DT);
+        return wpiPrevious;
+    }
+
+    @Benchmark
+    public com.team254.lib.swerve.SwerveSetpoint lib254Into() {
+        lib254Generator.generateSetpoint(lib254Limits, lib254Previous, lib254Goals[goal()], DT, lib254Next);
+        com.team254.lib.swerve.SwerveSetpoint swap = lib254Previous;
+        lib254Previous = lib254Next;
+        lib254Next = swap;
+        return lib254Previous;
+    }
+
+    @Benchmark
+    public com.team254.lib.swerve.SwerveSetpoint lib254Allocating() {
+        lib254Previous = lib254Generator.generateSetpoint(lib254Limits, lib254Previous, lib254Goals[goal()], DT);
+        return lib254Previous;
+    }
+
+    private static SwerveSetpoint wpiSetpoint() {
+        SwerveModuleState[] states = new SwerveModuleState[MODULES.length];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new SwerveModuleState(0.0, new Rotation2d());
+        }
+        return new SwerveSetpoint(new ChassisSpeeds(), states);
+    }
+
+    private static com.team254.lib.swerve.SwerveSetpoint lib254Setpoint() {
+        com.team254.lib.swerve.SwerveModuleState[] states =
+                new com.team254.lib.swerve.SwerveModuleState[MODULES.length];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new com.team254.lib.swerve.SwerveModuleState(0.0, new com.team254.lib.geometry.Rotation2d());
+        }
+        return new com.team254.lib.swerve.SwerveSetpoint(new com.team254.lib.swerve.ChassisSpeeds(), states);
+    }
+}
@@ -0,0 +1,103 @@
+package org.frcteam6941.utils;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Compares PoseTimeSeries against the trimmed TreeMap<Double, Pose2d> history it replaced, at 50, 250 and 1000
+// entries: appending one odometry sample and reading the pose at a vision timestamp between two samples
+// Run with the gc profiler (enabled in build.gradle) to read gc.alloc.rate.norm, the bytes allocated per operation
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PoseTimeSeriesBenchmark {
+    private static final double PERIOD = 0.004;
+
+    @Param({"50", "250", "1000"})
+    public int entries;
+
+    private PoseTimeSeries series;
+    private PoseTimeSeries snapshot;
+    private TreeMap<Double, Pose2d> treeMap;
+    private final double[] out = new double[3];
+    private double nextTime;
+    private double queryTime;
+
+    @Setup
+    public void setup() {
+        series = new PoseTimeSeries(entries);
+        snapshot = new PoseTimeSeries(entries);
+        treeMap = new TreeMap<>();
+        for (int i = 0; i < entries; i++) {
+            double time = i * PERIOD;
+            Pose2d pose = new Pose2d(0.01 * i, 0.005 * i, new Rotation2d(0.002 * i));
+            series.add(time, pose);
+            treeMapPut(time, pose);
+        }
+        nextTime = entries * PERIOD;
+        // Between two samples around the middle, the usual place of a delayed vision measurement
+        queryTime = (entries / 2 + 0.4) * PERIOD;
+    }
+
+    @Benchmark
+    public void seriesAdd() {
+        series.add(nextTime, 1.0, 2.0, 0.5);
+        nextTime += PERIOD;
+    }
+
+    @Benchmark
+    public Pose2d treeMapAdd() {
+        Pose2d pose = new Pose2d(1.0, 2.0, new Rotation2d(0.5));
+        treeMapPut(nextTime, pose);
+        nextTime += PERIOD;
+        return pose;
+    }
+
+    @Benchmark
+    public double[] seriesSample() {
+        series.sample(queryTime, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] seriesSampleConcurrent() {
+        series.sampleConcurrent(queryTime, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] seriesSnapshotThenSample() {
+        series.snapshotTo(snapshot);
+        snapshot.sample(queryTime, out);
+        return out;
+    }
+
+    @Benchmark
+    public Pose2d seriesGetInterpolated() {
+        return series.getInterpolated(queryTime);
+    }
+
+    @Benchmark
+    public Pose2d treeMapGetInterpolated() {
+        Double bottom = treeMap.floorKey(queryTime);
+        Double top = treeMap.ceilingKey(queryTime);
+        if (bottom == null || top == null || bottom.equals(top)) {
+            return treeMap.get(bottom == null ? top : bottom);
+        }
+        return treeMap.get(bottom).interpolate(treeMap.get(top), (queryTime - bottom) / (top - bottom));
+    }
+
+    // Trims the oldest entry before inserting, like the removed InterpolatingTreeMap
+    private void treeMapPut(double time, Pose2d pose) {
+        if (treeMap.size() >= entries) {
+            treeMap.remove(treeMap.firstKey());
+        }
+        treeMap.put(time, pose);
+    }
+}
@@ -0,0 +1,113 @@
+package com.team254.lib.geometry;
+
+/**
+ * A mutable pose for allocation-free math on hot control paths. Every operation writes into a caller-provided instance
+ * instead of returning a new one, and is safe to call with the output aliasing either input.
+ */
+public class MutPose2d {
+    protected final MutTranslation2d translation_ = new MutTranslation2d();
+    protected final MutRotation2d rotation_ = new MutRotation2d();
+
+    public MutPose2d() {
+    }
+
+    public MutPose2d(double x, double y, double radians) {
+        set(x, y, radians);
+    }
+
+    public MutPose2d set(double x, double y, double radians) {
+        translation_.set(x, y);
+        rotation_.setRadians(radians);
+        return this;
+    }
+
+    public MutPose2d set(final MutPose2d other) {
+        translation_.set(other.translation_);
+        rotation_.set(other.rotation_);
+        return this;
+    }
+
+    public MutPose2d set(final Pose2d other) {
+        translation_.set(other.getTranslation());
+        rotation_.set(other.getRotation());
+        return this;
+    }
+
+    public MutPose2d set(final edu.wpi.first.math.geometry.Pose2d other) {
+        translation_.set(other.getX(), other.getY());
+        rotation_.set(other.getRotation());
+        return this;
+    }
+
+    public MutTranslation2d getTranslation() {
+        return translation_;
+    }
+
+    public MutRotation2d getRotation() {
+        return rotation_;
+    }
+
+    public double x() {
+        return translation_.x();
+    }
+
+    public double y() {
+        return translation_.y();
+    }
+
+    /**
+     * out = this * other, i.e. other applied in the frame of this pose. The resulting angle is bounded to +/- Pi.
+     */
+    public MutPose2d transformByInto(final MutPose2d other, final MutPose2d out) {
+        double cos = rotation_.cos();
+        double sin = rotation_.sin();
+        double x = translation_.x() + cos * other.translation_.x() - sin * other.translation_.y();
+        double y = translation_.y() + sin * other.translation_.x() + cos * other.translation_.y();
+        rotation_.rotateByInto(other.rotation_, out.rotation_);
+        out.translation_.set(x, y);
+        return out;
+    }
+
+    /**
+     * out = the pose that undoes this one.
+     */
+    public MutPose2d inverseInto(final MutPose2d out) {
+        double cos = rotation_.cos();
+        double sin = rotation_.sin();
+        double x = -(cos * translation_.x() + sin * translation_.y());
+        double y = -(-sin * translation_.x() + cos * translation_.y());
+        rotation_.inverseInto(out.rotation_);
+        out.translation_.set(x, y);
+        return out;
+    }
+
+    /**
+     * out = this pose expressed in the frame of other, matching WPILib's Pose2d.relativeTo. The resulting angle is
+     * bounded to +/- Pi.
+     */
+    public MutPose2d relativeToInto(final MutPose2d other, final MutPose2d out) {
+        double cos = other.rotation_.cos();
+        double sin = other.rotation_.sin();
+        double dx = translation_.x() - other.translation_.x();
+        double dy = translation_.y() - other.translation_.y();
+        double rotationCos = rotation_.cos() * cos + rotation_.sin() * sin;
+        double rotationSin = rotation_.sin() * cos - rotation_.cos() * sin;
+        out.translation_.set(cos * dx + sin * dy, -sin * dx + cos * dy);
+        out.rotation_.setTrig(rotationCos, rotationSin);
+        return out;
+    }
+
+    public Pose2d toPose2d() {
+        return new Pose2d(translation_.x(), translation_.y(), rotation_.toRotation2d());
+    }
+
+    public edu.wpi.first.math.geometry.Pose2d toWpiPose2d() {
+        return new edu.wpi.first.math.geometry.Pose2d(translation_.x(), translation_.y(),
+                rotation_.toWpiRotation2d());
+    }
+
+    @Override
+    public String toString() {
+        return "MutPose2d(" + translation_ + ", " + rotation_ + ")";
+    }
+}
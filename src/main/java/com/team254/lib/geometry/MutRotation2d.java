@@ -0,0 +1,132 @@
+package com.team254.lib.geometry;
+
+/**
+ * A mutable rotation for allocation-free math on hot control paths. Like {@link Rotation2d} it keeps cos and sin
+ * alongside the angle, but every operation writes into a caller-provided instance instead of returning a new one.
+ * <p>
+ * Operations are safe to call with the output aliasing either input.
+ */
+public class MutRotation2d {
+    protected double cos_angle_ = 1.0;
+    protected double sin_angle_ = 0.0;
+    protected double radians_ = 0.0;
+
+    public MutRotation2d() {
+    }
+
+    public MutRotation2d(double radians) {
+        setRadians(radians);
+    }
+
+    /**
+     * Set the angle in radians. The value is kept as given, not wrapped.
+     */
+    public MutRotation2d setRadians(double radians) {
+        radians_ = radians;
+        cos_angle_ = Math.cos(radians);
+        sin_angle_ = Math.sin(radians);
+        return this;
+    }
+
+    public MutRotation2d setDegrees(double degrees) {
+        return setRadians(Math.toRadians(degrees));
+    }
+
+    /**
+     * Set the angle from the direction of (x, y), normalizing the vector. A zero vector gives the identity.
+     */
+    public MutRotation2d set(double x, double y) {
+        double magnitude = Math.hypot(x, y);
+        if (magnitude > 1e-6) {
+            setTrig(x / magnitude, y / magnitude);
+        } else {
+            setTrig(1.0, 0.0);
+        }
+        return this;
+    }
+
+    public MutRotation2d set(final MutRotation2d other) {
+        cos_angle_ = other.cos_angle_;
+        sin_angle_ = other.sin_angle_;
+        radians_ = other.radians_;
+        return this;
+    }
+
+    public MutRotation2d set(final Rotation2d other) {
+        cos_angle_ = other.cos();
+        sin_angle_ = other.sin();
+        radians_ = other.getRadians();
+        return this;
+    }
+
+    public MutRotation2d set(final edu.wpi.first.math.geometry.Rotation2d other) {
+        cos_angle_ = other.getCos();
+        sin_angle_ = other.getSin();
+        radians_ = other.getRadians();
+        return this;
+    }
+
+    public double cos() {
+        return cos_angle_;
+    }
+
+    public double sin() {
+        return sin_angle_;
+    }
+
+    public double getRadians() {
+        return radians_;
+    }
+
+    public double getDegrees() {
+        return Math.toDegrees(radians_);
+    }
+
+    /**
+     * out = this rotated by other. The resulting angle is bounded to +/- Pi.
+     */
+    public MutRotation2d rotateByInto(final MutRotation2d other, final MutRotation2d out) {
+        double cos = cos_angle_ * other.cos_angle_ - sin_angle_ * other.sin_angle_;
+        double sin = cos_angle_ * other.sin_angle_ + sin_angle_ * other.cos_angle_;
+        out.setTrig(cos, sin);
+        return out;
+    }
+
+    /**
+     * out = the rotation that undoes this one.
+     */
+    public MutRotation2d inverseInto(final MutRotation2d out) {
+        out.cos_angle_ = cos_angle_;
+        out.sin_angle_ = -sin_angle_;
+        out.radians_ = -radians_;
+        return out;
+    }
+
+    /**
+     * out = this rotated by Pi. The resulting angle is bounded to +/- Pi.
+     */
+    public MutRotation2d flipInto(final MutRotation2d out) {
+        out.setTrig(-cos_angle_, -sin_angle_);
+        return out;
+    }
+
+    public Rotation2d toRotation2d() {
+        return new Rotation2d(cos_angle_, sin_angle_, false);
+    }
+
+    public edu.wpi.first.math.geometry.Rotation2d toWpiRotation2d() {
+        return new edu.wpi.first.math.geometry.Rotation2d(radians_);
+    }
+
+    // Sets an already normalized cos and sin
+    protected void setTrig(double cos, double sin) {
+        cos_angle_ = cos;
+        sin_angle_ = sin;
+        radians_ = Math.atan2(sin, cos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MutRotation2d(%.3f deg)", getDegrees());
+    }
+}
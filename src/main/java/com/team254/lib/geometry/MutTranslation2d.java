@@ -0,0 +1,89 @@
+package com.team254.lib.geometry;
+
+/**
+ * A mutable translation for allocation-free math on hot control paths. Every operation writes into a caller-provided
+ * instance instead of returning a new one, and is safe to call with the output aliasing either input.
+ */
+public class MutTranslation2d {
+    protected double x_;
+    protected double y_;
+
+    public MutTranslation2d() {
+    }
+
+    public MutTranslation2d(double x, double y) {
+        x_ = x;
+        y_ = y;
+    }
+
+    public MutTranslation2d set(double x, double y) {
+        x_ = x;
+        y_ = y;
+        return this;
+    }
+
+    public MutTranslation2d set(final MutTranslation2d other) {
+        return set(other.x_, other.y_);
+    }
+
+    public MutTranslation2d set(final Translation2d other) {
+        return set(other.x(), other.y());
+    }
+
+    public MutTranslation2d set(final edu.wpi.first.math.geometry.Translation2d other) {
+        return set(other.getX(), other.getY());
+    }
+
+    public double x() {
+        return x_;
+    }
+
+    public double y() {
+        return y_;
+    }
+
+    public double norm() {
+        return Math.hypot(x_, y_);
+    }
+
+    /**
+     * out = this + other.
+     */
+    public MutTranslation2d plusInto(final MutTranslation2d other, final MutTranslation2d out) {
+        return out.set(x_ + other.x_, y_ + other.y_);
+    }
+
+    /**
+     * out = this - other.
+     */
+    public MutTranslation2d minusInto(final MutTranslation2d other, final MutTranslation2d out) {
+        return out.set(x_ - other.x_, y_ - other.y_);
+    }
+
+    /**
+     * out = this * scale.
+     */
+    public MutTranslation2d scaleInto(double scale, final MutTranslation2d out) {
+        return out.set(x_ * scale, y_ * scale);
+    }
+
+    /**
+     * out = this rotated by rotation about the origin.
+     */
+    public MutTranslation2d rotateByInto(final MutRotation2d rotation, final MutTranslation2d out) {
+        return out.set(x_ * rotation.cos() - y_ * rotation.sin(), x_ * rotation.sin() + y_ * rotation.cos());
+    }
+
+    public Translation2d toTranslation2d() {
+        return new Translation2d(x_, y_);
+    }
+
+    public edu.wpi.first.math.geometry.Translation2d toWpiTranslation2d() {
+        return new edu.wpi.first.math.geometry.Translation2d(x_, y_);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MutTranslation2d(%.3f, %.3f)", x_, y_);
+    }
+}
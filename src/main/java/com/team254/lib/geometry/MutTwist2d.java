@@ -0,0 +1,55 @@
+package com.team254.lib.geometry;
+
+/**
+ * A mutable {@link Twist2d} for allocation-free math on hot control paths.
+ */
+public class MutTwist2d {
+    public double dx;
+    public double dy;
+    public double dtheta; // Radians!
+
+    public MutTwist2d() {
+    }
+
+    public MutTwist2d(double dx, double dy, double dtheta) {
+        set(dx, dy, dtheta);
+    }
+
+    public MutTwist2d set(double dx, double dy, double dtheta) {
+        this.dx = dx;
+        this.dy = dy;
+        this.dtheta = dtheta;
+        return this;
+    }
+
+    public MutTwist2d set(final MutTwist2d other) {
+        return set(other.dx, other.dy, other.dtheta);
+    }
+
+    public MutTwist2d set(final Twist2d other) {
+        return set(other.dx, other.dy, other.dtheta);
+    }
+
+    /**
+     * out = this * scale.
+     */
+    public MutTwist2d scaleInto(double scale, final MutTwist2d out) {
+        return out.set(dx * scale, dy * scale, dtheta * scale);
+    }
+
+    public double norm() {
+        // Common case of dy == 0
+        if (dy == 0.0)
+            return Math.abs(dx);
+        return Math.hypot(dx, dy);
+    }
+
+    public Twist2d toTwist2d() {
+        return new Twist2d(dx, dy, dtheta);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MutTwist2d(%.3f, %.3f, %.3f rad)", dx, dy, dtheta);
+    }
+}
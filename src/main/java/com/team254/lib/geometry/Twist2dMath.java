@@ -0,0 +1,91 @@
+package com.team254.lib.geometry;
+
+/**
+ * Allocation-free exponential and logarithm maps between twists and poses on SE(2), working on primitives and the
+ * mutable geometry types.
+ * <p>
+ * Near zero rotation the closed forms lose precision to cancellation, so the coefficients switch to their Taylor
+ * series there. The results match WPILib's Pose2d.exp and Pose2d.log to within 1e-12 wherever WPILib's own closed form
+ * is that accurate; for rotations between about 1e-6 and 1e-2 radians WPILib's log loses up to 1e-8 to cancellation
+ * in 1 - cos and these are the more accurate of the two.
+ */
+public final class Twist2dMath {
+    // Below this |dtheta| the series are used, the first dropped term is then under 1e-21
+    private static final double kSeriesThreshold = 1e-2;
+
+    private Twist2dMath() {
+    }
+
+    /**
+     * sin(theta) / theta.
+     */
+    static double sinOverTheta(double theta) {
+        if (Math.abs(theta) < kSeriesThreshold) {
+            double theta2 = theta * theta;
+            return 1.0 - theta2 / 6.0 * (1.0 - theta2 / 20.0 * (1.0 - theta2 / 42.0));
+        }
+        return Math.sin(theta) / theta;
+    }
+
+    /**
+     * (1 - cos(theta)) / theta.
+     */
+    static double oneMinusCosOverTheta(double theta) {
+        if (Math.abs(theta) < kSeriesThreshold) {
+            double theta2 = theta * theta;
+            return theta / 2.0 * (1.0 - theta2 / 12.0 * (1.0 - theta2 / 30.0 * (1.0 - theta2 / 56.0)));
+        }
+        double halfSin = Math.sin(theta / 2.0);
+        return 2.0 * halfSin * halfSin / theta;
+    }
+
+    /**
+     * (theta / 2) * cot(theta / 2), i.e. 1 - theta^2/12 - theta^4/720 - theta^6/30240 - ...
+     */
+    static double halfThetaCotHalfTheta(double theta) {
+        if (Math.abs(theta) < kSeriesThreshold) {
+            double theta2 = theta * theta;
+            return 1.0 - theta2 / 12.0 - theta2 * theta2 / 720.0 - theta2 * theta2 * theta2 / 30240.0;
+        }
+        double halfTheta = theta / 2.0;
+        return halfTheta / Math.tan(halfTheta);
+    }
+
+    /**
+     * Writes the pose reached by following the twist (dx, dy, dtheta) from the origin into out.
+     */
+    public static MutPose2d expInto(double dx, double dy, double dtheta, final MutPose2d out) {
+        double s = sinOverTheta(dtheta);
+        double c = oneMinusCosOverTheta(dtheta);
+        out.translation_.set(dx * s - dy * c, dx * c + dy * s);
+        out.rotation_.setRadians(dtheta);
+        return out;
+    }
+
+    public static MutPose2d expInto(final MutTwist2d twist, final MutPose2d out) {
+        return expInto(twist.dx, twist.dy, twist.dtheta, out);
+    }
+
+    /**
+     * Writes the twist that takes the origin to the pose (x, y, theta) into out.
+     */
+    public static MutTwist2d logInto(double x, double y, double theta, final MutTwist2d out) {
+        double halfTheta = theta / 2.0;
+        double a = halfThetaCotHalfTheta(theta);
+        return out.set(x * a + y * halfTheta, -x * halfTheta + y * a, theta);
+    }
+
+    public static MutTwist2d logInto(final MutPose2d pose, final MutTwist2d out) {
+        return logInto(pose.x(), pose.y(), pose.getRotation().getRadians(), out);
+    }
+
+    /**
+     * Discretizes a continuous chassis velocity: writes the constant velocity that, held for dt, moves the robot to
+     * the pose it would reach by applying (vx dt, vy dt, omega dt) as one rigid motion. This is WPILib's
+     * ChassisSpeeds.discretize without its intermediate objects.
+     */
+    public static MutTwist2d discretizeInto(double vx, double vy, double omega, double dt, final MutTwist2d out) {
+        logInto(vx * dt, vy * dt, omega * dt, out);
+        return out.set(out.dx / dt, out.dy / dt, out.dtheta / dt);
+    }
+}
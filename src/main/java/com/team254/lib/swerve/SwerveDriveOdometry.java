@@ -4,9 +4,11 @@
 
 package com.team254.lib.swerve;
 
+import com.team254.lib.geometry.MutPose2d;
+import com.team254.lib.geometry.MutRotation2d;
 import com.team254.lib.geometry.Pose2d;
 import com.team254.lib.geometry.Rotation2d;
-import com.team254.lib.geometry.Twist2d;
+import com.team254.lib.geometry.Twist2dMath;
 import edu.wpi.first.util.WPIUtilJNI;
 
 /**
@@ -26,6 +28,11 @@ public class SwerveDriveOdometry {
     private Rotation2d m_previousAngle;
     private double[] m_previousDistances;
 
+    // Scratch for the per-update exponential, reused so integrating a step does not allocate geometry
+    private final MutPose2d m_step = new MutPose2d();
+    private final MutRotation2d m_angleScratch = new MutRotation2d();
+    private final MutRotation2d m_previousAngleScratch = new MutRotation2d();
+
     /**
      * Constructs a SwerveDriveOdometry object.
      *
@@ -114,14 +121,17 @@ public class SwerveDriveOdometry {
         var angle = gyroAngle;
 
         var chassisState = m_kinematics.toChassisSpeeds(moduleStates);
-        var newPose =
-                Pose2d.exp(
-                        new Twist2d(
-                                chassisState.vxMetersPerSecond * period,
-                                chassisState.vyMetersPerSecond * period,
-                                angle.rotateBy(m_previousAngle.inverse()).getRadians()));
+        m_previousAngleScratch.set(m_previousAngle);
+        m_angleScratch.set(angle);
+        m_previousAngleScratch.inverseInto(m_previousAngleScratch);
+        m_angleScratch.rotateByInto(m_previousAngleScratch, m_angleScratch);
+        Twist2dMath.expInto(
+                chassisState.vxMetersPerSecond * period,
+                chassisState.vyMetersPerSecond * period,
+                m_angleScratch.getRadians(),
+                m_step);
         m_previousAngle = angle;
-        m_poseMeters = new Pose2d(m_poseMeters.transformBy(newPose).getTranslation(), angle);
+        m_poseMeters = advance(m_poseMeters, m_step, angle);
         return m_poseMeters;
     }
 
@@ -152,21 +162,33 @@ public class SwerveDriveOdometry {
         average = average / 4.0;
 
 
-        var newPose =
-                Pose2d.exp(
-                        new Twist2d(
-                                chassisState.vxMetersPerSecond * period * average,
-                                chassisState.vyMetersPerSecond * period * average,
-                                chassisState.omegaRadiansPerSecond * period * average));
-        //System.out.println("Translation: " + newPose);
+        Twist2dMath.expInto(
+                chassisState.vxMetersPerSecond * period * average,
+                chassisState.vyMetersPerSecond * period * average,
+                chassisState.omegaRadiansPerSecond * period * average,
+                m_step);
         m_velocity = chassisState;
         // m_velocity.omegaRadiansPerSecond = m_previousAngle.inverse().rotateBy(gyroAngle).getRadians() / period;
-        m_poseMeters = new Pose2d(m_poseMeters.transformBy(newPose).getTranslation(), angle);
+        m_poseMeters = advance(m_poseMeters, m_step, angle);
         m_previousAngle = angle;
         //System.out.println(m_poseMeters);
         return m_poseMeters;
     }
 
+    /**
+     * Moves pose by a step expressed in its own frame, keeping only the translation of the result and taking the
+     * heading from the gyro. Equivalent to new Pose2d(pose.transformBy(step).getTranslation(), angle).
+     */
+    private static Pose2d advance(Pose2d pose, MutPose2d step, Rotation2d angle) {
+        final Rotation2d rotation = pose.getRotation();
+        final double cos = rotation.cos();
+        final double sin = rotation.sin();
+        return new Pose2d(
+                pose.getTranslation().x() + cos * step.x() - sin * step.y(),
+                pose.getTranslation().y() + sin * step.x() + cos * step.y(),
+                angle);
+    }
+
     /**
      * Updates the robot's position on the field using forward kinematics and integration of the pose
      * over time. This method automatically calculates the current time to calculate period
@@ -0,0 +1,571 @@
+package com.team254.lib.swerve;
+
+import com.team254.lib.util.Util;
+import edu.wpi.first.math.MathUtil;
+
+import java.util.Arrays;
+
+/**
+ * Type-agnostic core of the swerve setpoint generators. Takes the previous setpoint and a desired chassis velocity as
+ * primitive doubles and produces a new setpoint that respects the module steering velocity and wheel velocity and
+ * acceleration limits. Module angles are carried as cosine, sine and radians so callers can convert to and from
+ * whichever Rotation2d type they use without this class depending on either.
+ *
+ * <p>All working state is allocated once at construction, so generating a setpoint does not allocate. An engine is not
+ * thread safe; each generator owns its own.
+ */
+public class SwerveSetpointEngine {
+    private static final int kSteeringMaxIterations = 8;
+    private static final int kDriveMaxIterations = 10;
+    // Module speeds at or below this have no meaningful direction
+    private static final double kHeadingRetentionEpsilon = 1e-6;
+
+    private final int mModuleCount;
+    private final double[] mModuleX;
+    private final double[] mModuleY;
+    private final double mStopEpsilon;
+    private final boolean mRetainHeadings;
+    // Whether wheels speeding up are held to the acceleration limit, which the regula falsi overshoots
+    private boolean mLimitAccelerationWhileSpeedingUp = false;
+
+    // Previous setpoint, written by the adapter before each solve
+    private double mPrevVx;
+    private double mPrevVy;
+    private double mPrevOmega;
+    private final double[] mPrevSpeed;
+    private final double[] mPrevCos;
+    private final double[] mPrevSin;
+    private final double[] mPrevRadians;
+
+    // Heading each module kept from the last inverse kinematics solve with a meaningful speed
+    private final double[] mRetainedCos;
+    private final double[] mRetainedSin;
+
+    // Inverse kinematics scratch
+    private final double[] mIkSpeed;
+    private final double[] mIkCos;
+    private final double[] mIkSin;
+
+    // Desired module states and velocity vectors at the start and goal of the interpolation
+    private final double[] mDesiredSpeed;
+    private final double[] mDesiredCos;
+    private final double[] mDesiredSin;
+    private final double[] mPrevModuleVx;
+    private final double[] mPrevModuleVy;
+    private final double[] mPrevHeading;
+    private final double[] mDesiredModuleVx;
+    private final double[] mDesiredModuleVy;
+    private final double[] mDesiredHeading;
+
+    // Steering angle to command regardless of inverse kinematics
+    private final boolean[] mHasOverride;
+    private final boolean[] mOverrideIsPrevious;
+    private final double[] mOverrideCos;
+    private final double[] mOverrideSin;
+    private final double[] mOverrideRadians;
+
+    // Result of the last solve
+    private double mOutVx;
+    private double mOutVy;
+    private double mOutOmega;
+    private final double[] mOutSpeed;
+    private final double[] mOutCos;
+    private final double[] mOutSin;
+    private final boolean[] mOutIsPrevious;
+
+    // Guesses of the drive limit search and whether each kept the bracket above it
+    private final double[] mDriveGuesses = new double[kDriveMaxIterations + 1];
+    private final boolean[] mDriveUpper = new boolean[kDriveMaxIterations + 1];
+
+    /**
+     * @param moduleX        x of each module relative to the robot center, in meters.
+     * @param moduleY        y of each module relative to the robot center, in meters.
+     * @param stopEpsilon    Desired chassis speeds with every component at or below this are treated as a full stop.
+     * @param retainHeadings Whether modules with no meaningful speed keep their last heading, as WPILib kinematics
+     *                       does, instead of pointing to zero.
+     */
+    public SwerveSetpointEngine(double[] moduleX, double[] moduleY, double stopEpsilon, boolean retainHeadings) {
+        if (moduleX.length != moduleY.length) {
+            throw new IllegalArgumentException("Module x and y arrays differ in length");
+        }
+        mModuleCount = moduleX.length;
+        mModuleX = moduleX.clone();
+        mModuleY = moduleY.clone();
+        mStopEpsilon = stopEpsilon;
+        mRetainHeadings = retainHeadings;
+
+        mPrevSpeed = new double[mModuleCount];
+        mPrevCos = new double[mModuleCount];
+        mPrevSin = new double[mModuleCount];
+        mPrevRadians = new double[mModuleCount];
+        mRetainedCos = new double[mModuleCount];
+        mRetainedSin = new double[mModuleCount];
+        Arrays.fill(mRetainedCos, 1.0);
+        mIkSpeed = new double[mModuleCount];
+        mIkCos = new double[mModuleCount];
+        mIkSin = new double[mModuleCount];
+        mDesiredSpeed = new double[mModuleCount];
+        mDesiredCos = new double[mModuleCount];
+        mDesiredSin = new double[mModuleCount];
+        mPrevModuleVx = new double[mModuleCount];
+        mPrevModuleVy = new double[mModuleCount];
+        mPrevHeading = new double[mModuleCount];
+        mDesiredModuleVx = new double[mModuleCount];
+        mDesiredModuleVy = new double[mModuleCount];
+        mDesiredHeading = new double[mModuleCount];
+        mHasOverride = new boolean[mModuleCount];
+        mOverrideIsPrevious = new boolean[mModuleCount];
+        mOverrideCos = new double[mModuleCount];
+        mOverrideSin = new double[mModuleCount];
+        mOverrideRadians = new double[mModuleCount];
+        mOutSpeed = new double[mModuleCount];
+        mOutCos = new double[mModuleCount];
+        mOutSin = new double[mModuleCount];
+        mOutIsPrevious = new boolean[mModuleCount];
+    }
+
+    public int getModuleCount() {
+        return mModuleCount;
+    }
+
+    /**
+     * Hold wheels that are speeding up to the acceleration limit exactly. The regula falsi the generator has always
+     * used returns the far end of its last bracket, which lets an accelerating wheel past the limit, so this changes
+     * how the robot drives and is off by default. Slowing down is solved the same way either way.
+     */
+    public void setLimitAccelerationWhileSpeedingUp(boolean limit) {
+        mLimitAccelerationWhileSpeedingUp = limit;
+    }
+
+    /**
+     * Set the chassis speeds of the previous setpoint.
+     */
+    public void setPreviousChassisSpeeds(double vx, double vy, double omega) {
+        mPrevVx = vx;
+        mPrevVy = vy;
+        mPrevOmega = omega;
+    }
+
+    /**
+     * Set one module state of the previous setpoint.
+     *
+     * @param radians The module angle, bounded to +/- Pi.
+     */
+    public void setPreviousModuleState(int module, double speed, double cos, double sin, double radians) {
+        mPrevSpeed[module] = speed;
+        mPrevCos[module] = cos;
+        mPrevSin[module] = sin;
+        mPrevRadians[module] = radians;
+    }
+
+    /**
+     * Generate a new setpoint from the previous one set on this engine. Read the result through the getters.
+     *
+     * @param maxDriveVelocity     Wheel speed limit in m/s, ignored when not positive.
+     * @param maxDriveAcceleration Wheel acceleration limit in m/s^2.
+     * @param maxSteeringVelocity  Module steering rate limit in rad/s.
+     */
+    public void generate(double maxDriveVelocity, double maxDriveAcceleration, double maxSteeringVelocity,
+                         double desiredVx, double desiredVy, double desiredOmega, double dt) {
+        if (!solve(maxDriveVelocity, maxDriveAcceleration, maxSteeringVelocity, desiredVx, desiredVy, desiredOmega, dt)) {
+            // It will (likely) be faster to stop the robot, rotate the modules in place to the complement of the desired
+            // angle, and accelerate again.
+            solve(maxDriveVelocity, maxDriveAcceleration, maxSteeringVelocity, 0.0, 0.0, 0.0, dt);
+        }
+    }
+
+    public double getVx() {
+        return mOutVx;
+    }
+
+    public double getVy() {
+        return mOutVy;
+    }
+
+    public double getOmega() {
+        return mOutOmega;
+    }
+
+    public double getModuleSpeed(int module) {
+        return mOutSpeed[module];
+    }
+
+    public double getModuleCos(int module) {
+        return mOutCos[module];
+    }
+
+    public double getModuleSin(int module) {
+        return mOutSin[module];
+    }
+
+    /**
+     * @return True if the module angle is exactly the previous module angle, so callers can reuse their angle object.
+     */
+    public boolean isModuleAnglePrevious(int module) {
+        return mOutIsPrevious[module];
+    }
+
+    /**
+     * Check if it would be faster to go to the opposite of the goal heading (and reverse drive direction).
+     *
+     * @param prevToGoalRadians The rotation from the previous state to the goal state, bounded to +/- Pi.
+     * @return True if the shortest path to achieve this rotation involves flipping the drive direction.
+     */
+    private static boolean flipHeading(double prevToGoalRadians) {
+        return Math.abs(prevToGoalRadians) > Math.PI / 2.0;
+    }
+
+    private static double unwrapAngle(double ref, double angle) {
+        double diff = angle - ref;
+        if (diff > Math.PI) {
+            return angle - 2.0 * Math.PI;
+        } else if (diff < -Math.PI) {
+            return angle + 2.0 * Math.PI;
+        } else {
+            return angle;
+        }
+    }
+
+    /**
+     * Find the largest interpolant s in [0, 1] that keeps the steering angle of a module within max_deviation of its
+     * starting heading, using regula falsi on the angle of the interpolated velocity vector. The bracket is narrowed in
+     * a loop; the result is the upper end of the final bracket mapped back onto [0, 1].
+     */
+    static double findSteeringMaxS(double x_0, double y_0, double f_0, double x_1, double y_1, double f_1,
+                                   double max_deviation, int max_iterations) {
+        f_1 = unwrapAngle(f_0, f_1);
+        double diff = f_1 - f_0;
+        if (Math.abs(diff) <= max_deviation) {
+            // Can go all the way to s=1.
+            return 1.0;
+        }
+        double offset = f_0 + Math.signum(diff) * max_deviation;
+        double lowX = x_0, lowY = y_0, lowF = f_0 - offset;
+        double highX = x_1, highY = y_1, highF = f_1 - offset;
+        // The result is base + scale * (position within the current bracket)
+        double base = 0.0;
+        double scale = 1.0;
+        for (int iterationsLeft = max_iterations; iterationsLeft >= 0; iterationsLeft--) {
+            if (Util.epsilonEquals(lowF, highF)) {
+                break;
+            }
+            double sGuess = Math.max(0.0, Math.min(1.0, -lowF / (highF - lowF)));
+            double xGuess = (highX - lowX) * sGuess + lowX;
+            double yGuess = (highY - lowY) * sGuess + lowY;
+            double fGuess = unwrapAngle(f_0, Math.atan2(yGuess, xGuess)) - offset;
+            if (Math.signum(lowF) == Math.signum(fGuess)) {
+                // Lower bound and guess on same side of root, so use upper bracket.
+                base += scale * sGuess;
+                scale *= 1.0 - sGuess;
+                lowX = xGuess;
+                lowY = yGuess;
+                lowF = fGuess;
+            } else {
+                // Use lower bracket.
+                scale *= sGuess;
+                highX = xGuess;
+                highY = yGuess;
+                highF = fGuess;
+            }
+        }
+        return base + scale;
+    }
+
+    /**
+     * Find the largest interpolant s in [0, 1] such that the speed of the interpolated velocity vector changes by at
+     * most max_vel_step from f_0, using the same regula falsi as the recursive solver this replaced. The bracket is
+     * narrowed in a loop that records each guess and which side of it was kept in the caller's scratch arrays, which
+     * must hold max_iterations + 1 entries. The result is then folded back from the innermost bracket outwards, so it
+     * rounds exactly as the recursion did.
+     */
+    static double findDriveMaxS(double x_0, double y_0, double f_0, double x_1, double y_1, double f_1,
+                                double max_vel_step, int max_iterations, double[] guesses, boolean[] upper) {
+        double diff = f_1 - f_0;
+        if (Math.abs(diff) <= max_vel_step) {
+            // Can go all the way to s=1.
+            return 1.0;
+        }
+        double offset = f_0 + Math.signum(diff) * max_vel_step;
+        double lowX = x_0, lowY = y_0, lowF = f_0 - offset;
+        double highX = x_1, highY = y_1, highF = f_1 - offset;
+        int depth = 0;
+        for (int iterationsLeft = max_iterations; iterationsLeft >= 0; iterationsLeft--) {
+            if (Util.epsilonEquals(lowF, highF)) {
+                break;
+            }
+            double sGuess = Math.max(0.0, Math.min(1.0, -lowF / (highF - lowF)));
+            double xGuess = (highX - lowX) * sGuess + lowX;
+            double yGuess = (highY - lowY) * sGuess + lowY;
+            double fGuess = Math.hypot(xGuess, yGuess) - offset;
+            boolean keepUpper = Math.signum(lowF) == Math.signum(fGuess);
+            guesses[depth] = sGuess;
+            upper[depth] = keepUpper;
+            depth++;
+            if (keepUpper) {
+                // Lower bound and guess on same side of root, so use upper bracket.
+                lowX = xGuess;
+                lowY = yGuess;
+                lowF = fGuess;
+            } else {
+                // Use lower bracket.
+                highX = xGuess;
+                highY = yGuess;
+                highF = fGuess;
+            }
+        }
+        double s = 1.0;
+        while (depth > 0) {
+            depth--;
+            s = upper[depth] ? guesses[depth] + (1.0 - guesses[depth]) * s : guesses[depth] * s;
+        }
+        return s;
+    }
+
+    /**
+     * Find the largest interpolant s in [0, 1] such that a wheel speeding up from f_0 gains at most max_vel_step. The
+     * speed squared is a quadratic in s and convex, so the limit is crossed once, at the larger root, solved in closed
+     * form.
+     */
+    static double findDriveMaxSSpeedingUp(double x_0, double y_0, double f_0, double x_1, double y_1, double f_1,
+                                          double max_vel_step) {
+        if (f_1 - f_0 <= max_vel_step) {
+            // Can go all the way to s=1.
+            return 1.0;
+        }
+        double offset = f_0 + max_vel_step;
+        double dx = x_1 - x_0;
+        double dy = y_1 - y_0;
+        // a s^2 + 2 b s + c = 0 with |p_0 + s d|^2 = offset^2
+        double a = dx * dx + dy * dy;
+        double b = x_0 * dx + y_0 * dy;
+        double c = x_0 * x_0 + y_0 * y_0 - offset * offset;
+        if (a <= Util.kEpsilon) {
+            return 1.0;
+        }
+        double root = Math.sqrt(Math.max(0.0, b * b - a * c));
+        // c is negative, so the larger root is positive; pick the form that avoids cancellation
+        double s = b <= 0.0 ? (-b + root) / a : -c / (b + root);
+        return Math.max(0.0, Math.min(1.0, s));
+    }
+
+    // Returns false without writing the result when every module would need to flip
+    private boolean solve(double maxDriveVelocity, double maxDriveAcceleration, double maxSteeringVelocity,
+                          double desiredVx, double desiredVy, double desiredOmega, double dt) {
+        inverseKinematics(desiredVx, desiredVy, desiredOmega);
+        System.arraycopy(mIkSpeed, 0, mDesiredSpeed, 0, mModuleCount);
+        System.arraycopy(mIkCos, 0, mDesiredCos, 0, mModuleCount);
+        System.arraycopy(mIkSin, 0, mDesiredSin, 0, mModuleCount);
+
+        // Make sure desiredState respects velocity limits. Desaturation scales every wheel by the same factor, so the
+        // chassis speeds scale by it as well.
+        if (maxDriveVelocity > 0.0) {
+            double realMaxSpeed = 0.0;
+            for (int i = 0; i < mModuleCount; i++) {
+                realMaxSpeed = Math.max(realMaxSpeed, mDesiredSpeed[i]);
+            }
+            if (realMaxSpeed > maxDriveVelocity) {
+                double scale = maxDriveVelocity / realMaxSpeed;
+                for (int i = 0; i < mModuleCount; i++) {
+                    mDesiredSpeed[i] *= scale;
+                }
+                desiredVx *= scale;
+                desiredVy *= scale;
+                desiredOmega *= scale;
+            }
+        }
+
+        // Special case: desiredState is a complete stop. In this case, module angle is arbitrary, so just use the previous angle.
+        boolean need_to_steer = true;
+        if (isStopped(desiredVx, desiredVy, desiredOmega, mStopEpsilon)) {
+            need_to_steer = false;
+            for (int i = 0; i < mModuleCount; ++i) {
+                mDesiredCos[i] = mPrevCos[i];
+                mDesiredSin[i] = mPrevSin[i];
+                mDesiredSpeed[i] = 0.0;
+            }
+        }
+
+        // For each module, compute local Vx and Vy vectors.
+        boolean all_modules_should_flip = true;
+        for (int i = 0; i < mModuleCount; ++i) {
+            mPrevModuleVx[i] = mPrevCos[i] * mPrevSpeed[i];
+            mPrevModuleVy[i] = mPrevSin[i] * mPrevSpeed[i];
+            mPrevHeading[i] = mPrevSpeed[i] < 0.0 ? Math.atan2(-mPrevSin[i], -mPrevCos[i]) : mPrevRadians[i];
+            mDesiredModuleVx[i] = mDesiredCos[i] * mDesiredSpeed[i];
+            mDesiredModuleVy[i] = mDesiredSin[i] * mDesiredSpeed[i];
+            mDesiredHeading[i] = mDesiredSpeed[i] < 0.0
+                    ? Math.atan2(-mDesiredSin[i], -mDesiredCos[i])
+                    : Math.atan2(mDesiredSin[i], mDesiredCos[i]);
+            if (all_modules_should_flip) {
+                double required_rotation_rad = Math.abs(MathUtil.angleModulus(mDesiredHeading[i] - mPrevHeading[i]));
+                if (required_rotation_rad < Math.PI / 2.0) {
+                    all_modules_should_flip = false;
+                }
+            }
+        }
+        if (all_modules_should_flip
+                && !isStopped(mPrevVx, mPrevVy, mPrevOmega, Util.kEpsilon)
+                && !isStopped(desiredVx, desiredVy, desiredOmega, Util.kEpsilon)) {
+            return false;
+        }
+
+        // Compute the deltas between start and goal. We can then interpolate from the start state to the goal state; then
+        // find the amount we can move from start towards goal in this cycle such that no kinematic limit is exceeded.
+        double dx = desiredVx - mPrevVx;
+        double dy = desiredVy - mPrevVy;
+        double dtheta = desiredOmega - mPrevOmega;
+
+        // 's' interpolates between start and goal. At 0, we are at prevState and at 1, we are at desiredState.
+        double min_s = 1.0;
+
+        // Enforce steering velocity limits. We do this by taking the derivative of steering angle at the current angle,
+        // and then backing out the maximum interpolant between start and goal states. We remember the minimum across all modules, since
+        // that is the active constraint.
+        final double max_theta_step = dt * maxSteeringVelocity;
+        for (int i = 0; i < mModuleCount; ++i) {
+            mHasOverride[i] = false;
+            if (!need_to_steer) {
+                overrideWithPrevious(i);
+                continue;
+            }
+            if (Util.epsilonEquals(mPrevSpeed[i], 0.0)) {
+                // If module is stopped, we know that we will need to move straight to the final steering angle, so limit based
+                // purely on rotation in place.
+                if (Util.epsilonEquals(mDesiredSpeed[i], 0.0)) {
+                    // Goal angle doesn't matter. Just leave module at its current angle.
+                    overrideWithPrevious(i);
+                    continue;
+                }
+
+                double desiredRadians = Math.atan2(mDesiredSin[i], mDesiredCos[i]);
+                double necessaryRotation = MathUtil.angleModulus(desiredRadians - mPrevRadians[i]);
+                if (flipHeading(necessaryRotation)) {
+                    necessaryRotation = MathUtil.angleModulus(necessaryRotation + Math.PI);
+                }
+                final double numStepsNeeded = Math.abs(necessaryRotation) / max_theta_step;
+
+                if (numStepsNeeded <= 1.0) {
+                    // Steer directly to goal angle.
+                    override(i, mDesiredCos[i], mDesiredSin[i], desiredRadians);
+                    // Don't limit the global min_s;
+                } else {
+                    // Adjust steering by max_theta_step.
+                    double radians = MathUtil.angleModulus(mPrevRadians[i] + Math.signum(necessaryRotation) * max_theta_step);
+                    override(i, Math.cos(radians), Math.sin(radians), radians);
+                    min_s = 0.0;
+                }
+                continue;
+            }
+            if (min_s == 0.0) {
+                // s can't get any lower. Save some CPU.
+                continue;
+            }
+
+            double s = findSteeringMaxS(mPrevModuleVx[i], mPrevModuleVy[i], mPrevHeading[i],
+                    mDesiredModuleVx[i], mDesiredModuleVy[i], mDesiredHeading[i],
+                    max_theta_step, kSteeringMaxIterations);
+            min_s = Math.min(min_s, s);
+        }
+
+        // Enforce drive wheel acceleration limits.
+        final double max_vel_step = dt * maxDriveAcceleration;
+        for (int i = 0; i < mModuleCount; ++i) {
+            if (min_s == 0.0) {
+                // No need to carry on.
+                break;
+            }
+            double vx_min_s = min_s == 1.0 ? mDesiredModuleVx[i] : (mDesiredModuleVx[i] - mPrevModuleVx[i]) * min_s + mPrevModuleVx[i];
+            double vy_min_s = min_s == 1.0 ? mDesiredModuleVy[i] : (mDesiredModuleVy[i] - mPrevModuleVy[i]) * min_s + mPrevModuleVy[i];
+            // Find the max s for this drive wheel. Search on the interval between 0 and min_s, because we already know we can't go faster
+            // than that.
+            double prevSpeed = Math.hypot(mPrevModuleVx[i], mPrevModuleVy[i]);
+            double speedAtMinS = Math.hypot(vx_min_s, vy_min_s);
+            double s = min_s * (mLimitAccelerationWhileSpeedingUp && speedAtMinS > prevSpeed
+                    ? findDriveMaxSSpeedingUp(mPrevModuleVx[i], mPrevModuleVy[i], prevSpeed,
+                            vx_min_s, vy_min_s, speedAtMinS, max_vel_step)
+                    : findDriveMaxS(mPrevModuleVx[i], mPrevModuleVy[i], prevSpeed,
+                            vx_min_s, vy_min_s, speedAtMinS,
+                            max_vel_step, kDriveMaxIterations, mDriveGuesses, mDriveUpper));
+            min_s = Math.min(min_s, s);
+        }
+
+        mOutVx = mPrevVx + min_s * dx;
+        mOutVy = mPrevVy + min_s * dy;
+        mOutOmega = mPrevOmega + min_s * dtheta;
+        inverseKinematics(mOutVx, mOutVy, mOutOmega);
+        for (int i = 0; i < mModuleCount; ++i) {
+            double speed = mIkSpeed[i];
+            double cos = mIkCos[i];
+            double sin = mIkSin[i];
+            double radians = Math.atan2(sin, cos);
+            boolean isPrevious = false;
+            if (mHasOverride[i]) {
+                if (flipHeading(MathUtil.angleModulus(mOverrideRadians[i] - radians))) {
+                    speed *= -1.0;
+                }
+                cos = mOverrideCos[i];
+                sin = mOverrideSin[i];
+                radians = mOverrideRadians[i];
+                isPrevious = mOverrideIsPrevious[i];
+            }
+            if (flipHeading(MathUtil.angleModulus(radians - mPrevRadians[i]))) {
+                cos = -cos;
+                sin = -sin;
+                speed *= -1.0;
+                isPrevious = false;
+            }
+            mOutSpeed[i] = speed;
+            mOutCos[i] = cos;
+            mOutSin[i] = sin;
+            mOutIsPrevious[i] = isPrevious;
+        }
+        return true;
+    }
+
+    private void override(int module, double cos, double sin, double radians) {
+        mHasOverride[module] = true;
+        mOverrideIsPrevious[module] = false;
+        mOverrideCos[module] = cos;
+        mOverrideSin[module] = sin;
+        mOverrideRadians[module] = radians;
+    }
+
+    private void overrideWithPrevious(int module) {
+        override(module, mPrevCos[module], mPrevSin[module], mPrevRadians[module]);
+        mOverrideIsPrevious[module] = true;
+    }
+
+    // Module speeds and unit directions for chassis speeds about the robot center
+    private void inverseKinematics(double vx, double vy, double omega) {
+        boolean stopped = vx == 0.0 && vy == 0.0 && omega == 0.0;
+        for (int i = 0; i < mModuleCount; i++) {
+            if (stopped && mRetainHeadings) {
+                mIkSpeed[i] = 0.0;
+                mIkCos[i] = mRetainedCos[i];
+                mIkSin[i] = mRetainedSin[i];
+                continue;
+            }
+            double x = vx - omega * mModuleY[i];
+            double y = vy + omega * mModuleX[i];
+            double speed = Math.hypot(x, y);
+            mIkSpeed[i] = speed;
+            if (speed > (mRetainHeadings ? kHeadingRetentionEpsilon : Util.kEpsilon)) {
+                mIkCos[i] = x / speed;
+                mIkSin[i] = y / speed;
+                mRetainedCos[i] = mIkCos[i];
+                mRetainedSin[i] = mIkSin[i];
+            } else if (mRetainHeadings) {
+                mIkCos[i] = mRetainedCos[i];
+                mIkSin[i] = mRetainedSin[i];
+            } else {
+                mIkCos[i] = 1.0;
+                mIkSin[i] = 0.0;
+            }
+        }
+    }
+
+    private static boolean isStopped(double vx, double vy, double omega, double epsilon) {
+        return Util.epsilonEquals(vx, 0.0, epsilon) && Util.epsilonEquals(vy, 0.0, epsilon)
+                && Util.epsilonEquals(omega, 0.0, epsilon);
+    }
+}
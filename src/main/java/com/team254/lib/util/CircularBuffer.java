@@ -1,56 +1,63 @@
 package com.team254.lib.util;
 
-import java.util.LinkedList;
-
 /**
- * Implements a simple circular buffer.
+ * Implements a simple circular buffer over a primitive array with a compensated running sum.
  */
 public class CircularBuffer {
     int mWindowSize;
-    LinkedList<Double> mSamples;
-    double mSum;
+    double[] mSamples;
+    int mNext;
+    int mCount;
+    CompensatedSum mSum;
 
     public CircularBuffer(int window_size) {
+        if (window_size <= 0) {
+            throw new IllegalArgumentException("CircularBuffer window must be positive, got " + window_size);
+        }
         mWindowSize = window_size;
-        mSamples = new LinkedList<Double>();
-        mSum = 0.0;
+        mSamples = new double[window_size];
+        mNext = 0;
+        mCount = 0;
+        mSum = new CompensatedSum();
     }
 
     public void clear() {
-        mSamples.clear();
-        mSum = 0.0;
+        mNext = 0;
+        mCount = 0;
+        mSum.reset();
     }
 
     public double getAverage() {
-        if (mSamples.isEmpty())
+        if (mCount == 0)
             return 0.0;
-        return mSum / mSamples.size();
+        return mSum.get() / mCount;
     }
 
     public void recomputeAverage() {
         // Reset any accumulation drift.
-        mSum = 0.0;
-        if (mSamples.isEmpty())
-            return;
-        for (Double val : mSamples) {
-            mSum += val;
-        }
-        mSum /= mWindowSize;
+        mSum.resum(mSamples, mCount);
     }
 
     public void addValue(double val) {
-        mSamples.addLast(val);
-        mSum += val;
-        if (mSamples.size() > mWindowSize) {
-            mSum -= mSamples.removeFirst();
+        if (mCount == mWindowSize) {
+            mSum.add(-mSamples[mNext]);
+        } else {
+            mCount++;
+        }
+        mSamples[mNext] = val;
+        mSum.add(val);
+        if (!mSum.isFinite()) {
+            // A NaN or infinite sample poisons the running sum for good, rebuild it from the window
+            recomputeAverage();
         }
+        mNext = mNext + 1 == mWindowSize ? 0 : mNext + 1;
     }
 
     public int getNumValues() {
-        return mSamples.size();
+        return mCount;
     }
 
     public boolean isFull() {
-        return mWindowSize == mSamples.size();
+        return mWindowSize == mCount;
     }
 }
@@ -1,56 +1,72 @@
 package com.team254.lib.util;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 
 /**
- * Implements a simple circular buffer.
+ * Implements a simple circular buffer over a fixed array.
  * Can be used for any class.
  */
 public class CircularBufferGeneric<E> {
-    /**
-     *
-     */
     int mWindowSize;
-    LinkedList<E> mSamples;
-    double mSum;
+    Object[] mSamples;
+    int mNext;
+    int mCount;
 
     public CircularBufferGeneric(int window_size) {
+        if (window_size <= 0) {
+            throw new IllegalArgumentException("CircularBufferGeneric window must be positive, got " + window_size);
+        }
         mWindowSize = window_size;
-        mSamples = new LinkedList<E>();
-        mSum = 0.0;
+        mSamples = new Object[window_size];
+        mNext = 0;
+        mCount = 0;
     }
 
 
     public void clear() {
-        mSamples.clear();
-        mSum = 0.0;
+        Arrays.fill(mSamples, null);
+        mNext = 0;
+        mCount = 0;
     }
 
     public void addValue(E val) {
-        mSamples.addLast(val);
-        if (mSamples.size() > mWindowSize) {
-            mSamples.removeFirst();
+        mSamples[mNext] = val;
+        mNext = mNext + 1 == mWindowSize ? 0 : mNext + 1;
+        if (mCount < mWindowSize) {
+            mCount++;
         }
     }
 
+    /**
+     * @param index Position from the oldest sample, 0 is the oldest
+     * @return the sample at that position
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= mCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + mCount + " values");
+        }
+        int slot = mNext - mCount + index;
+        return (E) mSamples[slot < 0 ? slot + mWindowSize : slot];
+    }
+
     public int getNumValues() {
-        return mSamples.size();
+        return mCount;
     }
 
     public boolean isFull() {
-        return mWindowSize == mSamples.size();
+        return mWindowSize == mCount;
     }
 
+    /**
+     * Copies the samples from oldest to newest into a new list. Prefer {@link #get(int)} on hot paths.
+     */
     public LinkedList<E> getLinkedList() {
-        /*
-         * NOTE: To get an Array of the specific class type which the instance is using,
-         * you have to use this specific code:
-         * specificCircularBufferGeneric.getLinkedList().toArray(new ClassThatIWant[specificCircularBufferGeneric
-         * .getLinkedList().size()]);
-         * The reason is that for some reason an array of a generic class(i.e. E[]) cannot be created because
-         * of some archaic data flow ambiguities
-         */
-
-        return mSamples;
+        LinkedList<E> samples = new LinkedList<E>();
+        for (int i = 0; i < mCount; i++) {
+            samples.add(get(i));
+        }
+        return samples;
     }
 }
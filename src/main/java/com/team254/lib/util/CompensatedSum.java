@@ -0,0 +1,61 @@
+package com.team254.lib.util;
+
+/**
+ * Running sum with Neumaier compensation, so adding and later subtracting the same values does not accumulate
+ * floating point drift over a long match.
+ */
+public final class CompensatedSum {
+    private double sum = 0.0;
+    private double compensation = 0.0;
+
+    /**
+     * Adds a value to the sum.
+     *
+     * @param value Value to add, pass a negated value to remove it
+     */
+    public void add(double value) {
+        double total = sum + value;
+        // An infinite total has no rounding error to track and would turn the compensation into NaN
+        if (Double.isFinite(total)) {
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - total) + value;
+            } else {
+                compensation += (value - total) + sum;
+            }
+        }
+        sum = total;
+    }
+
+    /**
+     * Replaces the sum with the sum of the first count values. Windowed filters call this once their sum turns NaN
+     * or infinite, since subtracting a non-finite sample again never brings the running sum back.
+     *
+     * @param values Values to sum
+     * @param count  Number of leading values to sum
+     */
+    public void resum(double[] values, int count) {
+        reset();
+        for (int i = 0; i < count; i++) {
+            add(values[i]);
+        }
+    }
+
+    /**
+     * @return whether the sum is neither NaN nor infinite
+     */
+    public boolean isFinite() {
+        return Double.isFinite(sum);
+    }
+
+    /**
+     * @return the compensated sum
+     */
+    public double get() {
+        return Double.isFinite(sum) ? sum + compensation : sum;
+    }
+
+    public void reset() {
+        sum = 0.0;
+        compensation = 0.0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.team254.lib.util;
+
+/**
+ * Exponential moving average, {@code average += alpha * (sample - average)}. The first sample initializes the
+ * average so the filter does not ramp up from zero. NaN and infinite samples are ignored, since the recursion would
+ * carry them forever.
+ */
+public class ExponentialMovingAverage {
+    private final double alpha;
+    private double average = 0.0;
+    private boolean initialized = false;
+
+    /**
+     * @param alpha Weight of each new sample, in (0, 1]
+     */
+    public ExponentialMovingAverage(double alpha) {
+        if (!(alpha > 0.0 && alpha <= 1.0)) {
+            throw new IllegalArgumentException("ExponentialMovingAverage alpha must be in (0, 1], got " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    /**
+     * Creates a filter with the response of a first order low pass of the given time constant sampled every period.
+     *
+     * @param timeConstant Time constant in seconds
+     * @param period       Sample period in seconds
+     */
+    public static ExponentialMovingAverage fromTimeConstant(double timeConstant, double period) {
+        return new ExponentialMovingAverage(1.0 - Math.exp(-period / timeConstant));
+    }
+
+    public void addNumber(double newNumber) {
+        if (!Double.isFinite(newNumber)) {
+            return;
+        }
+        if (!initialized) {
+            average = newNumber;
+            initialized = true;
+        } else {
+            average += alpha * (newNumber - average);
+        }
+    }
+
+    /**
+     * @return the filtered value, 0 before the first sample
+     */
+    public double getAverage() {
+        return average;
+    }
+
+    public void clear() {
+        average = 0.0;
+        initialized = false;
+    }
+}
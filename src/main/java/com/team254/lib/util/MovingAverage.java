@@ -1,38 +1,50 @@
 package com.team254.lib.util;
 
-import java.util.ArrayList;
-
 /**
- * Helper class for storing and calculating a moving average
+ * Helper class for storing and calculating a moving average. Samples live in a primitive ring and the average is
+ * kept as a compensated running sum, so adding a sample and reading the average are both O(1) and allocation-free.
+ * A NaN or infinite sample makes the average non-finite only while it stays in the window, the sum is rebuilt from
+ * the window whenever it is not finite.
  */
 public class MovingAverage {
 
-    ArrayList<Double> numbers = new ArrayList<Double>();
+    private final double[] numbers;
+    private final CompensatedSum sum = new CompensatedSum();
+    private int next = 0;
+    private int size = 0;
     int maxSize;
 
     public MovingAverage(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("MovingAverage size must be positive, got " + maxSize);
+        }
         this.maxSize = maxSize;
+        this.numbers = new double[maxSize];
     }
 
     public void addNumber(double newNumber) {
-        numbers.add(newNumber);
-        if (numbers.size() > maxSize) {
-            numbers.remove(0);
+        if (size == maxSize) {
+            sum.add(-numbers[next]);
+        } else {
+            size++;
+        }
+        numbers[next] = newNumber;
+        sum.add(newNumber);
+        if (!sum.isFinite()) {
+            sum.resum(numbers, size);
         }
+        next = next + 1 == maxSize ? 0 : next + 1;
     }
 
+    /**
+     * @return the average of the stored samples, NaN when empty
+     */
     public double getAverage() {
-        double total = 0;
-
-        for (double number : numbers) {
-            total += number;
-        }
-
-        return total / numbers.size();
+        return sum.get() / size;
     }
 
     public int getSize() {
-        return numbers.size();
+        return size;
     }
 
     public boolean isUnderMaxSize() {
@@ -40,7 +52,9 @@ public class MovingAverage {
     }
 
     public void clear() {
-        numbers.clear();
+        next = 0;
+        size = 0;
+        sum.reset();
     }
 
 }
@@ -0,0 +1,69 @@
+package com.team254.lib.util;
+
+import java.util.Arrays;
+
+/**
+ * Moving median over a fixed window of samples. A sorted copy of the window is maintained next to the ring, so an
+ * insert costs two binary searches and one shift of at most the window size, without allocating.
+ */
+public class MovingMedian {
+    private final double[] samples;
+    private final double[] sorted;
+    private final int maxSize;
+    private int next = 0;
+    private int size = 0;
+
+    public MovingMedian(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("MovingMedian size must be positive, got " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.samples = new double[maxSize];
+        this.sorted = new double[maxSize];
+    }
+
+    public void addNumber(double newNumber) {
+        if (size == maxSize) {
+            // Remove the sample leaving the window from the sorted copy
+            int removeAt = Arrays.binarySearch(sorted, 0, size, samples[next]);
+            System.arraycopy(sorted, removeAt + 1, sorted, removeAt, size - removeAt - 1);
+            size--;
+        }
+        int insertAt = Arrays.binarySearch(sorted, 0, size, newNumber);
+        if (insertAt < 0) {
+            insertAt = -insertAt - 1;
+        }
+        System.arraycopy(sorted, insertAt, sorted, insertAt + 1, size - insertAt);
+        sorted[insertAt] = newNumber;
+        size++;
+        samples[next] = newNumber;
+        next = next + 1 == maxSize ? 0 : next + 1;
+    }
+
+    /**
+     * @return the median of the stored samples, the mean of the middle two for an even count, NaN when empty
+     */
+    public double getMedian() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        int middle = size >>> 1;
+        if ((size & 1) == 1) {
+            return sorted[middle];
+        }
+        return 0.5 * (sorted[middle - 1] + sorted[middle]);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isUnderMaxSize() {
+        return size < maxSize;
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+}
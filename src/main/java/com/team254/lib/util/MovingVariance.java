@@ -0,0 +1,99 @@
+package com.team254.lib.util;
+
+/**
+ * Moving mean and variance over a fixed window of samples. Sums are kept relative to a shift value taken from the
+ * first sample, which keeps the sum-of-squares formula well conditioned when the samples sit far from zero.
+ * A NaN or infinite sample only affects the results while it stays in the window, the sums are rebuilt from the window
+ * whenever they are not finite.
+ */
+public class MovingVariance {
+    private final double[] samples;
+    private final int maxSize;
+    private final CompensatedSum sum = new CompensatedSum();
+    private final CompensatedSum sumOfSquares = new CompensatedSum();
+    private double shift = 0.0;
+    private int next = 0;
+    private int size = 0;
+
+    public MovingVariance(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("MovingVariance size must be positive, got " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.samples = new double[maxSize];
+    }
+
+    public void addNumber(double newNumber) {
+        if (size == 0) {
+            shift = newNumber;
+        }
+        if (size == maxSize) {
+            double old = samples[next] - shift;
+            sum.add(-old);
+            sumOfSquares.add(-old * old);
+        } else {
+            size++;
+        }
+        samples[next] = newNumber;
+        double shifted = newNumber - shift;
+        sum.add(shifted);
+        sumOfSquares.add(shifted * shifted);
+        if (!sum.isFinite() || !sumOfSquares.isFinite()) {
+            resum(newNumber);
+        }
+        next = next + 1 == maxSize ? 0 : next + 1;
+    }
+
+    // Rebuilds both sums from the window, taking a new shift in case the old one was not finite
+    private void resum(double newest) {
+        shift = Double.isFinite(newest) ? newest : 0.0;
+        sum.reset();
+        sumOfSquares.reset();
+        for (int i = 0; i < size; i++) {
+            double shifted = samples[i] - shift;
+            sum.add(shifted);
+            sumOfSquares.add(shifted * shifted);
+        }
+    }
+
+    /**
+     * @return the mean of the stored samples, NaN when empty
+     */
+    public double getMean() {
+        return shift + sum.get() / size;
+    }
+
+    /**
+     * @return the sample variance of the stored samples, 0 with fewer than two samples
+     */
+    public double getVariance() {
+        if (size < 2) {
+            return 0.0;
+        }
+        double s = sum.get();
+        return Math.max(0.0, (sumOfSquares.get() - s * s / size) / (size - 1));
+    }
+
+    /**
+     * @return the sample standard deviation of the stored samples
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isUnderMaxSize() {
+        return size < maxSize;
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+        shift = 0.0;
+        sum.reset();
+        sumOfSquares.reset();
+    }
+}
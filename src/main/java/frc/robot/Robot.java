@@ -2,12 +2,24 @@ package frc.robot;
 
 import com.pathplanner.lib.util.FileVersionException;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.auto.basics.TrajectoryCache;
+import org.frcteam6941.drivers.DeviceConfigurator;
+import org.frcteam6941.drivers.StatusSignalRegistry;
+import org.frcteam6941.logging.AsyncWPILOGWriter;
+import org.frcteam6941.looper.TelemetryBudget;
+import org.frcteam6941.looper.TelemetryKey;
+import org.frcteam6941.looper.TelemetryKey.Priority;
+import org.frcteam6941.looper.TelemetryKey.Rate;
 import org.json.simple.parser.ParseException;
+import org.littletonrobotics.junction.LogFileUtil;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.NT4Publisher;
+import org.littletonrobotics.junction.wpilog.WPILOGReader;
+import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 
 import java.io.IOException;
 
@@ -15,23 +27,61 @@ import java.io.IOException;
 public class Robot extends LoggedRobot {
     private Command m_autonomousCommand;
     private RobotContainer robotContainer;
+    // Null in simulation, where no log file is written
+    private AsyncWPILOGWriter logWriter;
+    private TelemetryKey logQueueDepthKey;
+    private TelemetryKey logDroppedCyclesKey;
+    private TelemetryKey logDroppedFieldsKey;
+    private TelemetryKey logBytesWrittenKey;
+    private TelemetryKey logWriteMillisKey;
 
     // Initializes the robot at the start of operation
     @Override
     public void robotInit() {
         Logger.addDataReceiver(new NT4Publisher());
-        // Logger.addDataReceiver(new WPILOGWriter());
+        if (RobotBase.isReal()) {
+            // Writes on its own thread with bounded memory, the stock WPILOGWriter cost loop time on USB
+            logWriter = new AsyncWPILOGWriter();
+            Logger.addDataReceiver(logWriter);
+        } else if (RobotConstants.REPLAY) {
+            // Runs as fast as the code allows, the recomputed outputs go next to the original log
+            setUseTiming(false);
+            String logPath = LogFileUtil.findReplayLog();
+            Logger.setReplaySource(new WPILOGReader(logPath));
+            Logger.addDataReceiver(new WPILOGWriter(LogFileUtil.addPathSuffix(logPath, "_replay")));
+        }
         Logger.recordMetadata("GitSHA", BuildConstants.GIT_SHA);
         Logger.start();
         robotContainer = new RobotContainer();
+        if (logWriter != null) {
+            TelemetryBudget telemetry = TelemetryBudget.getInstance();
+            logQueueDepthKey = telemetry.key("Logging/QueueDepth", Rate.TEN_HZ, Priority.NORMAL);
+            logDroppedCyclesKey = telemetry.key("Logging/DroppedCycles", Rate.ON_CHANGE, Priority.NORMAL);
+            logDroppedFieldsKey = telemetry.key("Logging/DroppedFields", Rate.ON_CHANGE, Priority.NORMAL);
+            logBytesWrittenKey = telemetry.key("Logging/BytesWritten", Rate.TEN_HZ, Priority.LOW);
+            logWriteMillisKey = telemetry.key("Logging/WriteMillis", Rate.TEN_HZ, Priority.LOW);
+            // Every key is created by now, the file drops the low priority ones first under pressure
+            logWriter.setLowPriorityKeys(telemetry.getKeyNames(Priority.LOW));
+        }
         DriverStation.silenceJoystickConnectionWarning(true);
     }
 
     // Runs periodically while the robot is powered on
     @Override
     public void robotPeriodic() {
+        // one bulk signal refresh per bus, before any subsystem or updatable reads its inputs
+        StatusSignalRegistry.getInstance().refreshAll();
         CommandScheduler.getInstance().run();
         robotContainer.getUpdateManager().runEnableSingle();
+        DeviceConfigurator.getInstance().telemetry();
+        TrajectoryCache.getInstance().telemetry();
+        if (logWriter != null) {
+            logQueueDepthKey.record(logWriter.getQueueDepth());
+            logDroppedCyclesKey.record(logWriter.getDroppedCycles());
+            logDroppedFieldsKey.record(logWriter.getDroppedFields());
+            logBytesWrittenKey.record(logWriter.getBytesWritten());
+            logWriteMillisKey.record(logWriter.getLastWriteMillis());
+        }
     }
 
     // Initializes the robot in disabled mode
@@ -42,6 +92,7 @@ public class Robot extends LoggedRobot {
     // Runs periodically while the robot is in disabled mode
     @Override
     public void disabledPeriodic() {
+        robotContainer.updateAutonomousWarmup();
     }
 
     // Called when the robot exits disabled mode
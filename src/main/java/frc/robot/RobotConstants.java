@@ -20,6 +20,7 @@ import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import frc.robot.subsystems.elevator.ElevatorSubsystem;
 import frc.robot.utils.TunableNumber;
 import org.frcteam6941.swerve.SwerveSetpointGenerator.KinematicLimits;
+import org.littletonrobotics.LoggedTunableNumber;
 
 import static edu.wpi.first.units.Units.*;
 
@@ -37,7 +38,11 @@ public final class RobotConstants {
         // basic constants
         public static final boolean disableHAL = false;
         public static final double LOOPER_DT = 1 / 50.0;
+        // update periods for updatables that do not need to run every loop
+        public static final double DISPLAY_DT = 1 / 10.0;
         public static final boolean TUNING = true;
+        // replay the log found by LogFileUtil in simulation instead of simulating the hardware
+        public static final boolean REPLAY = false;
         // canbus name
         public static String CAN_BUS_NAME = "rio";
         public static String CANIVORE_CAN_BUS_NAME = "10541Canivore0";
@@ -66,6 +71,22 @@ public final class RobotConstants {
         public static class SwerveConstants {
                 // pigeon id
                 public static final int PIGEON_ID = 14;
+                /**
+                 * Rate at which the odometry thread samples module positions and yaw, in Hz.
+                 */
+                public static final double ODOMETRY_FREQUENCY = 250.0;
+                /**
+                 * Number of odometry samples buffered between two main loop cycles before new ones are dropped.
+                 */
+                public static final int ODOMETRY_QUEUE_CAPACITY = 64;
+                /**
+                 * Number of module signal records buffered for the data log writer, about two seconds of samples.
+                 */
+                public static final int MODULE_SIGNAL_LOG_CAPACITY = 512;
+                /**
+                 * Period at which buffered module signal records are appended to the data log, in seconds.
+                 */
+                public static final double MODULE_SIGNAL_LOG_FLUSH_PERIOD = 0.1;
 
                 // swerve driving
                 /**
@@ -100,6 +121,8 @@ public final class RobotConstants {
                 public static final KinematicLimits DRIVETRAIN_SMOOTHED = new KinematicLimits(4.5, 30.0, 200.0);
                 public static final KinematicLimits DRIVETRAIN_LIMITED = new KinematicLimits(2.0, 10.0, 1200.0);
                 public static final KinematicLimits DRIVETRAIN_ROBOT_ORIENTED = new KinematicLimits(2.0, 5.0, 1500.0);
+                // Hold accelerating wheels to the limits above exactly, the generator has always let them overshoot
+                public static final boolean LIMIT_ACCELERATION_WHILE_SPEEDING_UP = false;
 
                 public static final Measure<LinearVelocityUnit> speedAt12Volts = maxSpeed;
                 /**
@@ -250,24 +273,24 @@ public final class RobotConstants {
                  * Constants for the steer motor gains in the swerve drivetrain.
                  */
                 public static class steerGainsClass {
-                        public static final TunableNumber STEER_KP = new TunableNumber("STEER PID/kp", 120);
-                        public static final TunableNumber STEER_KI = new TunableNumber("STEER PID/ki", 0.2);
-                        public static final TunableNumber STEER_KD = new TunableNumber("STEER PID/kd", 0.005);
-                        public static final TunableNumber STEER_KA = new TunableNumber("STEER PID/ka", 0);
-                        public static final TunableNumber STEER_KV = new TunableNumber("STEER PID/kv", 0);
-                        public static final TunableNumber STEER_KS = new TunableNumber("STEER PID/ks", 0);
+                        public static final LoggedTunableNumber STEER_KP = new LoggedTunableNumber("STEER PID/kp", 120);
+                        public static final LoggedTunableNumber STEER_KI = new LoggedTunableNumber("STEER PID/ki", 0.2);
+                        public static final LoggedTunableNumber STEER_KD = new LoggedTunableNumber("STEER PID/kd", 0.005);
+                        public static final LoggedTunableNumber STEER_KA = new LoggedTunableNumber("STEER PID/ka", 0);
+                        public static final LoggedTunableNumber STEER_KV = new LoggedTunableNumber("STEER PID/kv", 0);
+                        public static final LoggedTunableNumber STEER_KS = new LoggedTunableNumber("STEER PID/ks", 0);
                 }
 
                 /**
                  * Constants for the drive motor gains in the swerve drivetrain.
                  */
                 public static class driveGainsClass {
-                        public static final TunableNumber DRIVE_KP = new TunableNumber("DRIVE PID/kp", 0.03);
-                        public static final TunableNumber DRIVE_KI = new TunableNumber("DRIVE PID/ki", 0);
-                        public static final TunableNumber DRIVE_KD = new TunableNumber("DRIVE PID/kd", 0.0001);
-                        public static final TunableNumber DRIVE_KA = new TunableNumber("DRIVE PID/ka", 0);
-                        public static final TunableNumber DRIVE_KV = new TunableNumber("DRIVE PID/kv", 0.12);
-                        public static final TunableNumber DRIVE_KS = new TunableNumber("DRIVE PID/ks", 0.045);
+                        public static final LoggedTunableNumber DRIVE_KP = new LoggedTunableNumber("DRIVE PID/kp", 0.03);
+                        public static final LoggedTunableNumber DRIVE_KI = new LoggedTunableNumber("DRIVE PID/ki", 0);
+                        public static final LoggedTunableNumber DRIVE_KD = new LoggedTunableNumber("DRIVE PID/kd", 0.0001);
+                        public static final LoggedTunableNumber DRIVE_KA = new LoggedTunableNumber("DRIVE PID/ka", 0);
+                        public static final LoggedTunableNumber DRIVE_KV = new LoggedTunableNumber("DRIVE PID/kv", 0.12);
+                        public static final LoggedTunableNumber DRIVE_KS = new LoggedTunableNumber("DRIVE PID/ks", 0.045);
                 }
 
         }
@@ -279,6 +302,21 @@ public final class RobotConstants {
                 public static final Transform2d tagLeftToRobot = new Transform2d(); // vec(robot) - vec(tag) when
                                                                                     // shooting left coral
                 public static final Transform2d tagRightToRobot = new Transform2d();
+
+                // Limits of the alignment profile, in m/s, m/s^2, rad/s and rad/s^2
+                public static final double MAX_VELOCITY = 3.0;
+                public static final double MAX_ACCELERATION = 4.0;
+                public static final double MAX_ANGULAR_VELOCITY = 2.0 * Math.PI;
+                public static final double MAX_ANGULAR_ACCELERATION = 4.0 * Math.PI;
+                // Feedback on the profile's pose error, in 1/s
+                public static final double TRANSLATION_KP = 3.0;
+                public static final double ROTATION_KP = 4.0;
+                // Alignment is done once the profile has ended and the robot is this close to the target
+                public static final double TRANSLATION_TOLERANCE = 0.02;
+                public static final double ROTATION_TOLERANCE = Math.toRadians(2.0);
+                // Re-planning runs at this period, a plan taking longer than the budget is dropped
+                public static final double REPLAN_PERIOD = 0.02;
+                public static final double REPLAN_BUDGET = 0.003;
         }
 
         /**
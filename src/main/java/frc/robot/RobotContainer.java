@@ -4,6 +4,7 @@
 
 package frc.robot;
 
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
 import com.pathplanner.lib.util.FileVersionException;
 
 import edu.wpi.first.math.geometry.Pose2d;
@@ -15,6 +16,7 @@ import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.button.*;
 
 import frc.robot.auto.basics.AutoActions;
+import frc.robot.auto.basics.AutoWarmup;
 import frc.robot.commands.*;
 import frc.robot.display.Display;
 import frc.robot.subsystems.Superstructure;
@@ -36,6 +38,7 @@ import lombok.Getter;
 
 import org.frcteam6941.looper.UpdateManager;
 import org.json.simple.parser.ParseException;
+import org.littletonrobotics.junction.networktables.LoggedDashboardChooser;
 
 import static edu.wpi.first.units.Units.Seconds;
 import static frc.robot.RobotConstants.BeamBreakConstants.*;
@@ -56,6 +59,9 @@ public class RobotContainer {
 
     @Getter
     private final UpdateManager updateManager;
+    // Autonomous path selection and the routine prepared for it while disabled
+    private final LoggedDashboardChooser<String> autoChooser = new LoggedDashboardChooser<>("Auto Choices");
+    private final AutoWarmup autoWarmup = new AutoWarmup(this::buildAutonomousRoutine);
     double lastResetTime = 0.0;
 
     // The robot's subsystems and commands are defined here...
@@ -75,10 +81,13 @@ public class RobotContainer {
      * The container for the robot. Contains subsystems, OI devices, and commands.
      */
     public RobotContainer() {
-        updateManager = new UpdateManager(swerve,
-                display);
+        updateManager = new UpdateManager(swerve);
+        updateManager.register(display, RobotConstants.DISPLAY_DT);
+        updateManager.setPhaseSeparated(true);
         updateManager.registerAll();
 
+        autoChooser.addDefaultOption("T_4", "T_4");
+
         configureDriverBindings(driverController);
         configureOperatorBindings(operatorController);
         configureTesterBindings(testerController);
@@ -171,10 +180,31 @@ public class RobotContainer {
      * @throws FileVersionException
      */
     public Command getAutonomousCommand() throws FileVersionException, IOException, ParseException {
+        String path = autoChooser.get();
+        if (path == null) {
+            return null;
+        }
+        // Use the routine prepared while disabled, and only build it now if it was not ready or the robot is not
+        // sitting at the path's start
+        Command routine = autoWarmup.take(path, AllianceFlipUtil.shouldFlip(), swerve.getChassisSpeeds(),
+                swerve.getLocalizer().getLatestPose().getRotation());
+        if (routine != null) {
+            return routine;
+        }
+        return buildAutonomousRoutine(AutoActions.getTrajectory(path));
+    }
+
+    // Keeps the selected autonomous routine prepared for the current alliance, called periodically while disabled
+    public void updateAutonomousWarmup() {
+        autoWarmup.request(autoChooser.get(), AllianceFlipUtil.shouldFlip());
+        autoWarmup.periodic();
+    }
+
+    private Command buildAutonomousRoutine(PathPlannerTrajectory trajectory) {
         // An example command will be run in autonomous
         return new SequentialCommandGroup(
                 AutoActions.waitFor(0.000001),
-                AutoActions.followTrajectory(AutoActions.getTrajectory("T_4"), true, true)
+                AutoActions.followTrajectory(trajectory, true, true)
         );
     }
 
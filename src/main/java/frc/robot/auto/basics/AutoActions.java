@@ -1,6 +1,5 @@
 package frc.robot.auto.basics;
  
-import com.pathplanner.lib.path.PathPlannerPath;
 import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
 import com.pathplanner.lib.util.FileVersionException;
  
@@ -35,21 +34,27 @@ public class AutoActions {
     }
  
     // Method to load a trajectory from a path and flip it according to the alliance color
+    // Served from the trajectory cache, which only parses and generates the path on a miss
     @Synchronized
     public static PathPlannerTrajectory getTrajectory(String name) throws FileVersionException, IOException, ParseException {
-        if (AllianceFlipUtil.shouldFlip()) {
-            return new PathPlannerTrajectory(
-                    PathPlannerPath.fromPathFile(name).flipPath(),
-                    swerve.getChassisSpeeds(),
-                    swerve.getLocalizer().getLatestPose().getRotation(), null
-            );
-        } else {
-            return new PathPlannerTrajectory(
-                    PathPlannerPath.fromPathFile(name),
-                    swerve.getChassisSpeeds(),
-                    swerve.getLocalizer().getLatestPose().getRotation(), null
-            );
-        }
+        return TrajectoryCache.getInstance().get(
+                name,
+                AllianceFlipUtil.shouldFlip(),
+                swerve.getChassisSpeeds(),
+                swerve.getLocalizer().getLatestPose().getRotation()
+        );
+    }
+ 
+    // Method to load a trajectory for a given alliance, generated for a robot at rest at the path's own start
+    @Synchronized
+    public static PathPlannerTrajectory getTrajectory(String name, boolean flipped) throws FileVersionException, IOException, ParseException {
+        return TrajectoryCache.getInstance().get(name, flipped);
+    }
+ 
+    // Method to generate the cached trajectories of a path for both alliances ahead of autonomous
+    @Synchronized
+    public static void prepareTrajectory(String name) throws FileVersionException, IOException, ParseException {
+        TrajectoryCache.getInstance().prepare(name);
     }
  
     // Method to follow a given trajectory
@@ -0,0 +1,280 @@
+package frc.robot.auto.basics;
+
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Command;
+
+import frc.robot.RobotConstants;
+
+import org.frcteam6941.control.HolonomicTrajectoryFollower;
+import org.frcteam6941.localization.SwerveDeltaCoarseLocalizer;
+import org.frcteam6941.looper.TelemetryBudget;
+import org.frcteam6941.looper.TelemetryKey;
+import org.frcteam6941.looper.TelemetryKey.Priority;
+import org.frcteam6941.looper.TelemetryKey.Rate;
+import org.frcteam6941.swerve.SwerveSetpoint;
+import org.frcteam6941.swerve.SwerveSetpointGenerator;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+// Background service that prepares the selected autonomous routine while the robot is disabled
+// The worker generates or decodes the routine's trajectory for the requested alliance from the path's own start state,
+// reading nothing from the robot, and once per boot runs the setpoint generator, trajectory follower and localizer
+// through synthetic inputs so their hot methods are compiled before the match; the routine command itself is composed
+// on the main thread, since composition registers the commands with the scheduler
+// The prepared routine is only handed out to a robot at rest at the trajectory's start, checked when it is taken
+public class AutoWarmup {
+    // Synthetic control cycles run through each warmed class, enough for the JIT to compile their hot methods
+    private static final int WARMUP_CYCLES = 10000;
+
+    private final Object lock = new Object();
+    private final Function<PathPlannerTrajectory, Command> routineFactory;
+
+    // Latest request from the main thread and the one the worker last finished, guarded by lock
+    private String requestedPath = null;
+    private boolean requestedFlipped = false;
+    private long requestCount = 0;
+    private long handledCount = 0;
+
+    // Written by the worker and read by the main thread
+    private volatile Prepared prepared = null;
+    private volatile boolean controlWarm = false;
+    private volatile double lastBuildMillis = 0.0;
+    private volatile double controlWarmupMillis = 0.0;
+    private volatile String lastFailure = "";
+
+    // Routine composed from the prepared trajectory, only touched by the main thread
+    private Command routine = null;
+    private Prepared routineSource = null;
+
+    // Recorded on change, so a disabled robot idling on a prepared routine writes nothing
+    private final TelemetryBudget telemetryBudget = TelemetryBudget.getInstance();
+    private final TelemetryKey readyKey = telemetryBudget.key("AutoWarmup/Ready", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey routineKey = telemetryBudget.key("AutoWarmup/Routine", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey flippedKey = telemetryBudget.key("AutoWarmup/Flipped", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey controlWarmKey = telemetryBudget.key(
+            "AutoWarmup/ControlWarm", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey lastBuildKey = telemetryBudget.key(
+            "AutoWarmup/LastBuildMs", Rate.ON_CHANGE, Priority.LOW);
+    private final TelemetryKey controlWarmupKey = telemetryBudget.key(
+            "AutoWarmup/ControlWarmupMs", Rate.ON_CHANGE, Priority.LOW);
+    private final TelemetryKey lastFailureKey = telemetryBudget.key(
+            "AutoWarmup/LastFailure", Rate.ON_CHANGE, Priority.NORMAL);
+
+    public AutoWarmup(Function<PathPlannerTrajectory, Command> routineFactory) {
+        this.routineFactory = routineFactory;
+        Thread worker = new Thread(this::run, "AutoWarmup");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    // Requests the routine for a path and alliance, a change replaces the previous request and triggers a rebuild
+    // A null path requests nothing, must be called from the main thread
+    public void request(String path, boolean flipped) {
+        synchronized (lock) {
+            if (Objects.equals(path, requestedPath) && flipped == requestedFlipped) {
+                return;
+            }
+            requestedPath = path;
+            requestedFlipped = flipped;
+            requestCount++;
+            lock.notifyAll();
+        }
+    }
+
+    // Composes the routine once the worker has prepared it and reports readiness, must be called from the main thread
+    public void periodic() {
+        Prepared current = prepared;
+        if (current != null && current != routineSource && current.matches(requestedPath(), requestedFlipped())) {
+            routine = routineFactory.apply(current.trajectory);
+            routineSource = current;
+        }
+        readyKey.record(isReady());
+        routineKey.record(routineSource == null ? "" : routineSource.path);
+        flippedKey.record(routineSource != null && routineSource.flipped);
+        controlWarmKey.record(controlWarm);
+        lastBuildKey.record(lastBuildMillis);
+        controlWarmupKey.record(controlWarmupMillis);
+        lastFailureKey.record(lastFailure);
+    }
+
+    // Returns true when the requested routine is composed and the control classes are warm
+    public boolean isReady() {
+        return routine != null && controlWarm && routineSource.matches(requestedPath(), requestedFlipped());
+    }
+
+    // Hands out the prepared routine if it was built for this path and alliance and the robot is at rest at the
+    // trajectory's start, as the trajectory cache would serve it; otherwise null, and the caller builds it live
+    // A command is handed out once, the next periodic composes a fresh one from the same trajectory
+    public Command take(String path, boolean flipped, ChassisSpeeds speeds, Rotation2d heading) {
+        if (routine == null || !routineSource.matches(path, flipped)) {
+            return null;
+        }
+        Rotation2d start = routineSource.trajectory.getInitialState().pose.getRotation();
+        if (!TrajectoryCache.startsAtRest(speeds, heading, start)) {
+            return null;
+        }
+        Command taken = routine;
+        routine = null;
+        routineSource = null;
+        return taken;
+    }
+
+    private String requestedPath() {
+        synchronized (lock) {
+            return requestedPath;
+        }
+    }
+
+    private boolean requestedFlipped() {
+        synchronized (lock) {
+            return requestedFlipped;
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            String path;
+            boolean flipped;
+            synchronized (lock) {
+                while (handledCount == requestCount) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                path = requestedPath;
+                flipped = requestedFlipped;
+                handledCount = requestCount;
+            }
+            if (path == null) {
+                prepared = null;
+                continue;
+            }
+
+            try {
+                long start = System.nanoTime();
+                AutoActions.prepareTrajectory(path);
+                PathPlannerTrajectory trajectory = AutoActions.getTrajectory(path, flipped);
+                lastBuildMillis = (System.nanoTime() - start) / 1e6;
+                prepared = new Prepared(path, flipped, trajectory);
+
+                if (!controlWarm) {
+                    start = System.nanoTime();
+                    warmUpControl(trajectory);
+                    controlWarmupMillis = (System.nanoTime() - start) / 1e6;
+                    controlWarm = true;
+                }
+            } catch (Exception e) {
+                lastFailure = path + ": " + e;
+                DriverStation.reportWarning("Auto warm-up failed for " + path + ": " + e.getMessage(), false);
+            }
+        }
+    }
+
+    // Runs private instances of the control classes through synthetic cycles, the robot's own instances are untouched
+    private static void warmUpControl(PathPlannerTrajectory trajectory) {
+        Translation2d[] placements = RobotConstants.SwerveConstants.modulePlacements;
+        double dt = RobotConstants.LOOPER_DT;
+
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(placements);
+        SwerveSetpoint previous = createSetpoint(placements.length);
+        SwerveSetpoint next = createSetpoint(placements.length);
+        ChassisSpeeds desired = new ChassisSpeeds();
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            double phase = i * dt;
+            desired.vxMetersPerSecond = 3.0 * Math.sin(phase);
+            desired.vyMetersPerSecond = 2.0 * Math.cos(0.7 * phase);
+            desired.omegaRadiansPerSecond = 4.0 * Math.sin(1.3 * phase);
+            generator.generateSetpoint(RobotConstants.SwerveConstants.DRIVETRAIN_UNCAPPED, previous, desired, dt,
+                    next);
+            SwerveSetpoint swap = previous;
+            previous = next;
+            next = swap;
+        }
+
+        ProfiledPIDController thetaController = new ProfiledPIDController(
+                RobotConstants.SwerveConstants.headingController.HEADING_KP.get(),
+                RobotConstants.SwerveConstants.headingController.HEADING_KI.get(),
+                RobotConstants.SwerveConstants.headingController.HEADING_KD.get(),
+                new TrapezoidProfile.Constraints(400, 720));
+        thetaController.enableContinuousInput(0, 360.0);
+        HolonomicTrajectoryFollower follower = new HolonomicTrajectoryFollower(
+                new PIDController(3.5, 0.0, 0.0), new PIDController(3.5, 0.0, 0.0),
+                thetaController, RobotConstants.SwerveConstants.DRIVETRAIN_FEEDFORWARD);
+        double totalTime = trajectory.getTotalTimeSeconds();
+        double time = 0.0;
+        follower.follow(trajectory);
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            time += dt;
+            PathPlannerTrajectoryState state = trajectory.sample(time % (totalTime + dt));
+            if (follower.updateSignal(state.pose, new Translation2d(state.fieldSpeeds.vxMetersPerSecond,
+                    state.fieldSpeeds.vyMetersPerSecond), state.fieldSpeeds.omegaRadiansPerSecond, time, dt) == null) {
+                follower.follow(trajectory);
+            }
+        }
+
+        SwerveDriveKinematics kinematics = new SwerveDriveKinematics(placements);
+        SwerveModulePosition[] positions = new SwerveModulePosition[placements.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new SwerveModulePosition();
+        }
+        SwerveDeltaCoarseLocalizer localizer = new SwerveDeltaCoarseLocalizer(kinematics, 50, 20, 20, positions);
+        localizer.setFusionMode(SwerveDeltaCoarseLocalizer.FusionMode.LATENCY_COMPENSATED);
+        Pose2d measurementDeviation = new Pose2d(0.5, 0.5, Rotation2d.fromDegrees(10.0));
+        // Feed the primitive overload the drivetrain's odometry loop uses
+        double[] distances = new double[positions.length];
+        double[] angles = new double[positions.length];
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            double phase = i * dt;
+            for (int m = 0; m < positions.length; m++) {
+                distances[m] += 0.05 * (1.0 + 0.1 * m);
+                angles[m] = Math.sin(phase + m);
+            }
+            localizer.updateWithTime(phase, dt, 0.5 * Math.sin(0.3 * phase), distances, angles, 0);
+            if (i % 5 == 0) {
+                localizer.addMeasurement(phase - 0.05, localizer.getLatestPose(), measurementDeviation);
+            }
+        }
+    }
+
+    private static SwerveSetpoint createSetpoint(int modules) {
+        SwerveModuleState[] states = new SwerveModuleState[modules];
+        for (int i = 0; i < modules; i++) {
+            states[i] = new SwerveModuleState();
+        }
+        return new SwerveSetpoint(new ChassisSpeeds(), states);
+    }
+
+    // Trajectory the worker prepared for one path and alliance
+    private static final class Prepared {
+        private final String path;
+        private final boolean flipped;
+        private final PathPlannerTrajectory trajectory;
+
+        private Prepared(String path, boolean flipped, PathPlannerTrajectory trajectory) {
+            this.path = path;
+            this.flipped = flipped;
+            this.trajectory = trajectory;
+        }
+
+        private boolean matches(String path, boolean flipped) {
+            return this.path.equals(path) && this.flipped == flipped;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package frc.robot.auto.basics;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.IdealStartingState;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
+import com.pathplanner.lib.util.DriveFeedforwards;
+import com.pathplanner.lib.util.FileVersionException;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+import org.frcteam6941.looper.TelemetryBudget;
+import org.frcteam6941.looper.TelemetryKey;
+import org.frcteam6941.looper.TelemetryKey.Priority;
+import org.frcteam6941.looper.TelemetryKey.Rate;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Cache of generated PathPlanner trajectories keyed by path name and alliance
+// Each entry is the trajectory for a robot at rest at the path's own ideal starting state, which get(name, flipped)
+// always serves, so noise in the estimated heading never decides between a hit and a full generation
+// A request from a live start state is only served the entry when that state is at rest at the path's start, any
+// other is generated live, never stored, counted as a miss and reported, so one robot state can't be served to another
+// Every entry is backed by a binary file under deploy/trajectories that is memory-mapped when the cache is created,
+// so a hit costs one pass over the mapped states instead of parsing the path JSON and generating the trajectory
+// Files record a checksum of the path and robot settings they were generated from and are regenerated once stale
+// Running the robot in simulation writes the files into src/main/deploy/trajectories, from where they are deployed
+public class TrajectoryCache {
+    private static final int MAGIC = 0x54524a31; // "TRJ1"
+    private static final int VERSION = 1;
+    // Magic, version, checksum, module count, state count
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4;
+    // Time, pose, field speeds, linear velocity, heading
+    private static final int STATE_DOUBLES = 9;
+    // Acceleration, linear force, torque current, robot relative x and y force per module
+    private static final int FEEDFORWARD_DOUBLES_PER_MODULE = 5;
+    // How far a live start state may be from rest at the path's start and still be served the cached entry
+    private static final double START_SPEED_TOLERANCE = 0.05; // m/s
+    private static final double START_OMEGA_TOLERANCE = 0.05; // rad/s
+    private static final double START_ROTATION_TOLERANCE = Math.toRadians(2.0);
+
+    private static TrajectoryCache instance;
+
+    private final Path directory;
+    private final Map<String, MappedByteBuffer> mapped = new HashMap<>();
+    private final Map<String, PathPlannerTrajectory> decoded = new HashMap<>();
+    private final Map<String, Long> checksums = new HashMap<>();
+    private RobotConfig config;
+    // Requests served from an entry and requests that had to generate, written under this and read without it, so
+    // the main thread never waits on a generation to record them
+    private volatile long hitCount = 0;
+    private volatile long missCount = 0;
+
+    // Recorded from the main thread by telemetry, requests may come from the auto warm-up worker
+    private final TelemetryBudget telemetryBudget = TelemetryBudget.getInstance();
+    private final TelemetryKey hitsKey = telemetryBudget.key("TrajectoryCache/Hits", Rate.ON_CHANGE, Priority.LOW);
+    private final TelemetryKey missesKey = telemetryBudget.key("TrajectoryCache/Misses", Rate.ON_CHANGE, Priority.LOW);
+
+    TrajectoryCache(Path directory) {
+        this.directory = directory;
+        mapAll();
+    }
+
+    // Singleton instance getter, maps every cache file found under deploy/trajectories on first use
+    public static synchronized TrajectoryCache getInstance() {
+        if (instance == null) {
+            instance = new TrajectoryCache(Filesystem.getDeployDirectory().toPath().resolve("trajectories"));
+        }
+        return instance;
+    }
+
+    // Returns the trajectory for a path from its own ideal starting state at rest, generated and stored if missing
+    public synchronized PathPlannerTrajectory get(String name, boolean flipped)
+            throws FileVersionException, IOException, ParseException {
+        String key = key(name, flipped);
+        PathPlannerTrajectory cached = lookup(name, key);
+        if (cached != null) {
+            hitCount++;
+            return cached;
+        }
+        missCount++;
+        PathPlannerPath path = loadPath(name, flipped);
+        PathPlannerTrajectory trajectory = generate(path, new ChassisSpeeds(), idealRotation(path));
+        store(name, key, trajectory);
+        return trajectory;
+    }
+
+    // Returns the trajectory for a path from a live start state
+    // A robot at rest at the path's ideal starting rotation is served the cached entry, generated and stored if
+    // missing; any other start state is generated live and not stored
+    public synchronized PathPlannerTrajectory get(String name, boolean flipped, ChassisSpeeds startSpeeds,
+                                                  Rotation2d startRotation)
+            throws FileVersionException, IOException, ParseException {
+        String key = key(name, flipped);
+        PathPlannerTrajectory cached = lookup(name, key);
+        if (cached != null && startsAtRest(startSpeeds, startRotation, cached.getInitialState().pose.getRotation())) {
+            hitCount++;
+            return cached;
+        }
+        missCount++;
+        PathPlannerPath path = loadPath(name, flipped);
+        Rotation2d idealRotation = idealRotation(path);
+        if (startsAtRest(startSpeeds, startRotation, idealRotation)) {
+            PathPlannerTrajectory trajectory = generate(path, new ChassisSpeeds(), idealRotation);
+            store(name, key, trajectory);
+            return trajectory;
+        }
+        DriverStation.reportWarning("Generating trajectory " + key + " live, the robot starts "
+                + Math.round(startRotation.minus(idealRotation).getDegrees()) + " deg off the path's start rotation at "
+                + Math.round(100.0 * Math.hypot(startSpeeds.vxMetersPerSecond, startSpeeds.vyMetersPerSecond)) / 100.0
+                + " m/s", false);
+        return generate(path, startSpeeds, startRotation);
+    }
+
+    // Makes sure the at-rest entries of a path exist for both alliances, generating and writing any that are missing
+    // or stale; meant to be called before autonomous so the first auto cycle only decodes
+    public synchronized void prepare(String name) throws FileVersionException, IOException, ParseException {
+        for (boolean flipped : new boolean[]{false, true}) {
+            String key = key(name, flipped);
+            if (lookup(name, key) != null) {
+                continue;
+            }
+            PathPlannerPath path = loadPath(name, flipped);
+            store(name, key, generate(path, new ChassisSpeeds(), idealRotation(path)));
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    // Records the hit and miss counts, must be called from the main thread
+    public void telemetry() {
+        hitsKey.record(getHitCount());
+        missesKey.record(getMissCount());
+    }
+
+    // Drops every decoded and mapped entry, the files stay on disk and are mapped again on the next lookup
+    public synchronized void clear() {
+        mapped.clear();
+        decoded.clear();
+        checksums.clear();
+    }
+
+    private PathPlannerTrajectory lookup(String name, String key) throws IOException {
+        PathPlannerTrajectory trajectory = decoded.get(key);
+        if (trajectory != null) {
+            return trajectory;
+        }
+        MappedByteBuffer buffer = mapped.get(key);
+        if (buffer == null) {
+            buffer = map(directory.resolve(key));
+            if (buffer == null) {
+                return null;
+            }
+            mapped.put(key, buffer);
+        }
+        trajectory = decode(buffer.duplicate(), checksum(name));
+        if (trajectory == null) {
+            // Stale or unreadable, regenerated by the caller and overwritten
+            mapped.remove(key);
+            return null;
+        }
+        decoded.put(key, trajectory);
+        return trajectory;
+    }
+
+    private void store(String name, String key, PathPlannerTrajectory trajectory) throws IOException {
+        decoded.put(key, trajectory);
+        try {
+            write(directory.resolve(key), trajectory, checksum(name));
+        } catch (IOException e) {
+            // The in-memory entry still serves this run
+            DriverStation.reportWarning("Could not write trajectory cache file " + key + ": " + e.getMessage(), false);
+        }
+    }
+
+    private PathPlannerTrajectory generate(PathPlannerPath path, ChassisSpeeds startSpeeds, Rotation2d startRotation)
+            throws IOException, ParseException {
+        if (config == null) {
+            config = RobotConfig.fromGUISettings();
+        }
+        return new PathPlannerTrajectory(path, startSpeeds, startRotation, config);
+    }
+
+    private static PathPlannerPath loadPath(String name, boolean flipped)
+            throws FileVersionException, IOException, ParseException {
+        PathPlannerPath path = PathPlannerPath.fromPathFile(name);
+        return flipped ? path.flipPath() : path;
+    }
+
+    private static String key(String name, boolean flipped) {
+        return name + "." + (flipped ? "red" : "blue") + ".traj";
+    }
+
+    private static Rotation2d idealRotation(PathPlannerPath path) {
+        IdealStartingState start = path.getIdealStartingState();
+        return start != null ? start.rotation() : Rotation2d.kZero;
+    }
+
+    // Whether a requested start state is a robot at rest at the given rotation
+    static boolean startsAtRest(ChassisSpeeds speeds, Rotation2d rotation, Rotation2d restRotation) {
+        return Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond) <= START_SPEED_TOLERANCE
+                && Math.abs(speeds.omegaRadiansPerSecond) <= START_OMEGA_TOLERANCE
+                && Math.abs(rotation.minus(restRotation).getRadians()) <= START_ROTATION_TOLERANCE;
+    }
+
+    // Checksum of the path file and the robot settings it is generated with
+    private long checksum(String name) throws IOException {
+        Long cached = checksums.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Path pathplanner = Filesystem.getDeployDirectory().toPath().resolve("pathplanner");
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(pathplanner.resolve("paths").resolve(name + ".path")));
+        crc.update(Files.readAllBytes(pathplanner.resolve("settings.json")));
+        long value = crc.getValue();
+        checksums.put(name, value);
+        return value;
+    }
+
+    private void mapAll() {
+        File[] files = directory.toFile().listFiles((dir, file) -> file.endsWith(".traj"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                MappedByteBuffer buffer = map(file.toPath());
+                if (buffer != null) {
+                    mapped.put(file.getName(), buffer);
+                }
+            } catch (IOException e) {
+                DriverStation.reportWarning("Could not map trajectory cache file " + file.getName(), false);
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void write(Path file, PathPlannerTrajectory trajectory, long checksum) throws IOException {
+        List<PathPlannerTrajectoryState> states = trajectory.getStates();
+        int modules = 0;
+        for (PathPlannerTrajectoryState state : states) {
+            if (state.feedforwards != null) {
+                modules = Math.max(modules, state.feedforwards.accelerationsMPSSq().length);
+            }
+        }
+        int stateBytes = (STATE_DOUBLES + FEEDFORWARD_DOUBLES_PER_MODULE * modules) * Double.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + stateBytes * states.size());
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(checksum).putInt(modules).putInt(states.size());
+        for (PathPlannerTrajectoryState state : states) {
+            buffer.putDouble(state.timeSeconds);
+            buffer.putDouble(state.pose.getX());
+            buffer.putDouble(state.pose.getY());
+            buffer.putDouble(state.pose.getRotation().getRadians());
+            buffer.putDouble(state.fieldSpeeds.vxMetersPerSecond);
+            buffer.putDouble(state.fieldSpeeds.vyMetersPerSecond);
+            buffer.putDouble(state.fieldSpeeds.omegaRadiansPerSecond);
+            buffer.putDouble(state.linearVelocity);
+            buffer.putDouble(state.heading.getRadians());
+            DriveFeedforwards feedforwards = state.feedforwards;
+            for (int i = 0; i < modules; i++) {
+                buffer.putDouble(feedforwardAt(feedforwards == null ? null : feedforwards.accelerationsMPSSq(), i));
+                buffer.putDouble(feedforwardAt(feedforwards == null ? null : feedforwards.linearForcesNewtons(), i));
+                buffer.putDouble(feedforwardAt(feedforwards == null ? null : feedforwards.torqueCurrentsAmps(), i));
+                buffer.putDouble(
+                        feedforwardAt(feedforwards == null ? null : feedforwards.robotRelativeForcesXNewtons(), i));
+                buffer.putDouble(
+                        feedforwardAt(feedforwards == null ? null : feedforwards.robotRelativeForcesYNewtons(), i));
+            }
+        }
+        buffer.flip();
+
+        // Written beside the target and moved over it, so a mapped reader never sees a partial file
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static double feedforwardAt(double[] values, int module) {
+        return values != null && module < values.length ? values[module] : 0.0;
+    }
+
+    // Decodes a cache file, returns null when it is malformed or was generated from other inputs
+    private static PathPlannerTrajectory decode(ByteBuffer buffer, long checksum) {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || buffer.getLong() != checksum) {
+            return null;
+        }
+        int modules = buffer.getInt();
+        int count = buffer.getInt();
+        long stateBytes = (long) (STATE_DOUBLES + FEEDFORWARD_DOUBLES_PER_MODULE * modules) * Double.BYTES;
+        if (modules < 0 || count <= 0 || buffer.remaining() != stateBytes * count) {
+            return null;
+        }
+        List<PathPlannerTrajectoryState> states = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            PathPlannerTrajectoryState state = new PathPlannerTrajectoryState();
+            state.timeSeconds = buffer.getDouble();
+            double x = buffer.getDouble();
+            double y = buffer.getDouble();
+            state.pose = new Pose2d(x, y, new Rotation2d(buffer.getDouble()));
+            double vx = buffer.getDouble();
+            double vy = buffer.getDouble();
+            state.fieldSpeeds = new ChassisSpeeds(vx, vy, buffer.getDouble());
+            state.linearVelocity = buffer.getDouble();
+            state.heading = new Rotation2d(buffer.getDouble());
+            double[] accelerations = new double[modules];
+            double[] linearForces = new double[modules];
+            double[] torqueCurrents = new double[modules];
+            double[] forcesX = new double[modules];
+            double[] forcesY = new double[modules];
+            for (int i = 0; i < modules; i++) {
+                accelerations[i] = buffer.getDouble();
+                linearForces[i] = buffer.getDouble();
+                torqueCurrents[i] = buffer.getDouble();
+                forcesX[i] = buffer.getDouble();
+                forcesY[i] = buffer.getDouble();
+            }
+            state.feedforwards = new DriveFeedforwards(accelerations, linearForces, torqueCurrents, forcesX, forcesY);
+            states.add(state);
+        }
+        return new PathPlannerTrajectory(states, new ArrayList<>());
+    }
+}
@@ -0,0 +1,142 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.RobotConstants;
+import frc.robot.RobotConstants.ReefAimConstants;
+import frc.robot.subsystems.apriltagvision.AprilTagVision;
+import frc.robot.subsystems.swerve.Swerve;
+import org.frcteam6941.control.HolonomicMotionProfile;
+import org.frcteam6941.control.OnlineReplanner;
+import org.frcteam6941.looper.TelemetryBudget;
+import org.frcteam6941.looper.TelemetryKey;
+import org.frcteam6941.looper.TelemetryKey.Priority;
+import org.frcteam6941.looper.TelemetryKey.Rate;
+
+// Common part of the reef aim commands: drives to a pose relative to a reef AprilTag along a time-optimal profile
+// that a background thread re-plans every cycle from the localizer's pose and velocity
+// The main loop reads the pose and velocity, hands them to the planner, copies the newest plan, samples it and adds
+// feedback on the pose error
+public abstract class ReefAimBase extends Command {
+    // Shared by every reef aim command, only one can hold the swerve at a time
+    private static OnlineReplanner replanner;
+
+    // Shared by every reef aim command like the planner; the planner counters only need a glance, so they are
+    // recorded at ten hertz
+    private static final TelemetryBudget telemetryBudget = TelemetryBudget.getInstance();
+    private static final TelemetryKey destinationKey = telemetryBudget.key(
+            "ReefAim/Destination", Rate.ON_CHANGE, Priority.NORMAL);
+    private static final TelemetryKey translationErrorKey = telemetryBudget.key(
+            "ReefAim/TranslationError", Rate.ON_CHANGE, Priority.NORMAL);
+    private static final TelemetryKey rotationErrorKey = telemetryBudget.key(
+            "ReefAim/RotationError", Rate.ON_CHANGE, Priority.NORMAL);
+    private static final TelemetryKey remainingTimeKey = telemetryBudget.key(
+            "ReefAim/RemainingTime", Rate.ON_CHANGE, Priority.LOW);
+    private static final TelemetryKey planMicrosKey = telemetryBudget.key(
+            "ReefAim/PlanMicros", Rate.TEN_HZ, Priority.LOW);
+    private static final TelemetryKey maxPlanMicrosKey = telemetryBudget.key(
+            "ReefAim/MaxPlanMicros", Rate.TEN_HZ, Priority.LOW);
+    private static final TelemetryKey planCountKey = telemetryBudget.key(
+            "ReefAim/PlanCount", Rate.TEN_HZ, Priority.LOW);
+    private static final TelemetryKey overrunCountKey = telemetryBudget.key(
+            "ReefAim/OverrunCount", Rate.TEN_HZ, Priority.LOW);
+
+    protected final AprilTagVision aprilTagVision;
+    protected final Swerve swerve = Swerve.getInstance();
+    private final boolean rightReef; // true if shooting right reef
+    private final HolonomicMotionProfile profile = new HolonomicMotionProfile();
+    private Pose2d destinationPose;
+    private boolean onTarget = false;
+
+    protected ReefAimBase(AprilTagVision aprilTagVision, boolean rightReef) {
+        this.aprilTagVision = aprilTagVision;
+        this.rightReef = rightReef;
+        // each subsystem used by the command must be passed into the
+        // addRequirements() method (which takes a vararg of Subsystem)
+        addRequirements(this.aprilTagVision, this.swerve);
+    }
+
+    // Returns the pose of the tag to align to, read once when the command starts
+    protected abstract Pose2d getTagPose();
+
+    private static synchronized OnlineReplanner getReplanner() {
+        if (replanner == null) {
+            replanner = new OnlineReplanner("ReefAimReplanner",
+                    ReefAimConstants.REPLAN_PERIOD, ReefAimConstants.REPLAN_BUDGET);
+        }
+        return replanner;
+    }
+
+    @Override
+    public void initialize() {
+        Pose2d tagPose = getTagPose();
+        if (this.rightReef) {
+            this.destinationPose = tagPose.transformBy(ReefAimConstants.tagRightToRobot);
+        } else {
+            this.destinationPose = tagPose.transformBy(ReefAimConstants.tagLeftToRobot);
+        }
+        this.onTarget = false;
+        this.swerve.normal();
+        getReplanner().start(this.destinationPose,
+                ReefAimConstants.MAX_VELOCITY, ReefAimConstants.MAX_ACCELERATION,
+                ReefAimConstants.MAX_ANGULAR_VELOCITY, ReefAimConstants.MAX_ANGULAR_ACCELERATION);
+    }
+
+    @Override
+    public void execute() {
+        OnlineReplanner planner = getReplanner();
+        double now = Timer.getFPGATimestamp();
+        Pose2d pose = this.swerve.getLocalizer().getCoarseFieldPose(now);
+        Pose2d velocity = this.swerve.getLocalizer().getMeasuredVelocity();
+        planner.setState(now, pose, velocity.getX(), velocity.getY(), velocity.getRotation().getRadians());
+        double planTime = planner.copyLatest(this.profile);
+        if (Double.isNaN(planTime)) {
+            // First plan not published yet
+            this.swerve.driveVelocity(0.0, 0.0, 0.0, false);
+            return;
+        }
+
+        double elapsed = now - planTime;
+        this.profile.sample(elapsed);
+        double theta = pose.getRotation().getRadians();
+        double vx = this.profile.getVx() + ReefAimConstants.TRANSLATION_KP * (this.profile.getX() - pose.getX());
+        double vy = this.profile.getVy() + ReefAimConstants.TRANSLATION_KP * (this.profile.getY() - pose.getY());
+        double omega = this.profile.getOmega()
+                + ReefAimConstants.ROTATION_KP * MathUtil.angleModulus(this.profile.getTheta() - theta);
+
+        // Field velocity to robot relative, the profile is planned in field coordinates on either alliance
+        double cos = pose.getRotation().getCos();
+        double sin = pose.getRotation().getSin();
+        this.swerve.driveVelocity(cos * vx + sin * vy, -sin * vx + cos * vy, omega, false);
+
+        double translationError = Math.hypot(this.destinationPose.getX() - pose.getX(),
+                this.destinationPose.getY() - pose.getY());
+        double rotationError = Math.abs(MathUtil.angleModulus(
+                this.destinationPose.getRotation().getRadians() - theta));
+        this.onTarget = elapsed + RobotConstants.LOOPER_DT >= this.profile.getTotalTime()
+                && translationError < ReefAimConstants.TRANSLATION_TOLERANCE
+                && rotationError < ReefAimConstants.ROTATION_TOLERANCE;
+
+        destinationKey.record(this.destinationPose);
+        translationErrorKey.record(translationError);
+        rotationErrorKey.record(rotationError);
+        remainingTimeKey.record(this.profile.getTotalTime() - elapsed);
+        planMicrosKey.record(planner.getLastPlanMicros());
+        maxPlanMicrosKey.record(planner.getMaxPlanMicros());
+        planCountKey.record(planner.getPlanCount());
+        overrunCountKey.record(planner.getOverrunCount());
+    }
+
+    @Override
+    public boolean isFinished() {
+        return this.onTarget;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        getReplanner().stop();
+        this.swerve.brake();
+    }
+}
@@ -0,0 +1,398 @@
+package frc.robot.replay;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Quaternion;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import frc.robot.RobotConstants;
+import frc.robot.subsystems.apriltagvision.AprilTagFrameDecoder;
+import frc.robot.subsystems.apriltagvision.VisionObservationInputs;
+import org.frcteam6941.localization.SwerveDeltaCoarseLocalizer;
+import org.frcteam6941.swerve.OdometryInputs;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Replays the odometry and vision inputs of a match log through a fresh SwerveDeltaCoarseLocalizer as fast as the
+// CPU allows, without the HAL, and reports the pose error against a reference track and the CPU time of every stage
+// The inputs are the ones Swerve and AprilTagVision log through Logger.processInputs; the reference defaults to the
+// pose the robot's own localizer logged, so a run measures how far a localizer change moves the track
+// Usage: LocalizerReplay <log.wpilog> [--reference <key>] [--mode POSE_ESTIMATOR|LATENCY_COMPENSATED]
+//        [--repeat <runs>] [--csv <file>]
+public final class LocalizerReplay {
+    private static final String TIMESTAMP_KEY = "Timestamp";
+    private static final String ODOMETRY_PREFIX = "Swerve/Odometry/";
+    private static final String VISION_PREFIX = "AprilTagVision/Observations/";
+    private static final String DEFAULT_REFERENCE = "RealOutputs/swerve/localizer/LatestPose";
+    private static final String[] ODOMETRY_FIELDS = {"Timestamps", "YawDegrees", "DistancesMeters", "AnglesRadians"};
+    private static final String[] VISION_FIELDS = {
+            "InstanceIndex", "Timestamps", "RobotX", "RobotY", "RobotZ", "RobotQw", "RobotQx", "RobotQy", "RobotQz",
+            "RobotYaw", "XyStdDev", "ThetaStdDev", "AverageTagDistance", "UseVisionRotation", "TagMask"
+    };
+    private static final String[] STAGES = {"Odometry", "Vision", "Query"};
+
+    private LocalizerReplay() {
+    }
+
+    // Inputs of one logged cycle, value arrays are shared with neighbouring cycles whose values did not change
+    private static final class Cycle {
+        long timestampMicros;
+        Object[] odometry;
+        Object[] vision;
+        Pose2d reference;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: LocalizerReplay <log.wpilog> [--reference <key>] "
+                    + "[--mode POSE_ESTIMATOR|LATENCY_COMPENSATED] [--repeat <runs>] [--csv <file>]");
+            return;
+        }
+        String referenceKey = DEFAULT_REFERENCE;
+        SwerveDeltaCoarseLocalizer.FusionMode mode = SwerveDeltaCoarseLocalizer.FusionMode.LATENCY_COMPENSATED;
+        int repeat = 1;
+        String csv = null;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--reference":
+                    referenceKey = stripSlash(args[i + 1]);
+                    break;
+                case "--mode":
+                    mode = SwerveDeltaCoarseLocalizer.FusionMode.valueOf(args[i + 1]);
+                    break;
+                case "--repeat":
+                    repeat = Math.max(1, Integer.parseInt(args[i + 1]));
+                    break;
+                case "--csv":
+                    csv = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long loadStart = System.nanoTime();
+        List<Cycle> cycles = load(args[0], referenceKey);
+        System.out.printf("Loaded %d cycles from %s in %.1f ms%n", cycles.size(), args[0],
+                (System.nanoTime() - loadStart) / 1e6);
+        if (cycles.isEmpty()) {
+            return;
+        }
+
+        for (int run = 0; run < repeat; run++) {
+            // Earlier runs warm up the JIT, only the last one writes the CSV
+            replay(cycles, mode, run == repeat - 1 ? csv : null, run + 1, repeat);
+        }
+    }
+
+    // Reads every cycle of the log into memory, so the timed replay never touches the file
+    private static List<Cycle> load(String path, String referenceKey) throws IOException {
+        DataLogReader reader = new DataLogReader(path);
+        if (!reader.isValid()) {
+            throw new IOException("Not a WPILOG file: " + path);
+        }
+        // Entry id to the field it carries: odometry fields first, then vision fields, then timestamp and reference
+        Map<Integer, Integer> fields = new HashMap<>();
+        Map<Integer, Boolean> structEntries = new HashMap<>();
+        int timestampField = ODOMETRY_FIELDS.length + VISION_FIELDS.length;
+        int referenceField = timestampField + 1;
+        Object[] odometry = new Object[ODOMETRY_FIELDS.length];
+        Object[] vision = new Object[VISION_FIELDS.length];
+        Pose2d reference = null;
+
+        List<Cycle> cycles = new ArrayList<>();
+        Cycle current = null;
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                int field = fieldIndex(stripSlash(start.name), referenceKey, timestampField, referenceField);
+                if (field >= 0) {
+                    fields.put(start.entry, field);
+                    structEntries.put(start.entry, start.type.startsWith("struct:"));
+                }
+                continue;
+            }
+            if (record.isControl()) {
+                continue;
+            }
+            Integer field = fields.get(record.getEntry());
+            if (field == null) {
+                continue;
+            }
+            // A record with a new timestamp closes the previous cycle
+            if (current == null || record.getTimestamp() != current.timestampMicros) {
+                if (current != null) {
+                    cycles.add(current);
+                }
+                current = new Cycle();
+                current.timestampMicros = record.getTimestamp();
+                // Values not written this cycle are unchanged, so every cycle starts from a copy of the last one
+                odometry = odometry.clone();
+                vision = vision.clone();
+                current.odometry = odometry;
+                current.vision = vision;
+            }
+
+            if (field < ODOMETRY_FIELDS.length) {
+                odometry[field] = record.getDoubleArray();
+            } else if (field < timestampField) {
+                int index = field - ODOMETRY_FIELDS.length;
+                vision[index] = readVisionField(record, VISION_FIELDS[index]);
+            } else if (field == referenceField) {
+                reference = readPose(record, structEntries.get(record.getEntry()));
+            }
+            current.reference = reference;
+        }
+        if (current != null) {
+            cycles.add(current);
+        }
+        return cycles;
+    }
+
+    private static int fieldIndex(String key, String referenceKey, int timestampField, int referenceField) {
+        if (key.equals(TIMESTAMP_KEY)) {
+            return timestampField;
+        }
+        if (key.equals(referenceKey)) {
+            return referenceField;
+        }
+        if (key.startsWith(ODOMETRY_PREFIX)) {
+            return Arrays.asList(ODOMETRY_FIELDS).indexOf(key.substring(ODOMETRY_PREFIX.length()));
+        }
+        if (key.startsWith(VISION_PREFIX)) {
+            int index = Arrays.asList(VISION_FIELDS).indexOf(key.substring(VISION_PREFIX.length()));
+            return index < 0 ? -1 : ODOMETRY_FIELDS.length + index;
+        }
+        return -1;
+    }
+
+    private static Object readVisionField(DataLogRecord record, String name) {
+        switch (name) {
+            case "InstanceIndex":
+            case "TagMask":
+                return record.getIntegerArray();
+            case "UseVisionRotation":
+                return record.getBooleanArray();
+            default:
+                return record.getDoubleArray();
+        }
+    }
+
+    // Pose2d is logged as a struct of x, y and rotation in radians, older logs use a double array of the same
+    private static Pose2d readPose(DataLogRecord record, boolean struct) {
+        if (struct) {
+            ByteBuffer buffer = ByteBuffer.wrap(record.getRaw()).order(ByteOrder.LITTLE_ENDIAN);
+            return new Pose2d(buffer.getDouble(0), buffer.getDouble(8), new Rotation2d(buffer.getDouble(16)));
+        }
+        double[] values = record.getDoubleArray();
+        return new Pose2d(values[0], values[1], new Rotation2d(values[2]));
+    }
+
+    private static void replay(List<Cycle> cycles, SwerveDeltaCoarseLocalizer.FusionMode mode, String csv,
+                               int run, int runs) throws IOException {
+        int moduleCount = RobotConstants.SwerveConstants.modulePlacements.length;
+        SwerveModulePosition[] positions = new SwerveModulePosition[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            positions[i] = new SwerveModulePosition();
+        }
+        SwerveDeltaCoarseLocalizer localizer = new SwerveDeltaCoarseLocalizer(
+                new SwerveDriveKinematics(RobotConstants.SwerveConstants.modulePlacements), 50, 20, 20, positions);
+        localizer.setFusionMode(mode);
+
+        OdometryInputs odometryInputs = new OdometryInputs(moduleCount);
+        VisionObservationInputs visionInputs = new VisionObservationInputs();
+        AprilTagFrameDecoder.Observation observation = new AprilTagFrameDecoder.Observation();
+        long[][] stageNanos = new long[STAGES.length][cycles.size()];
+        double[] translationErrors = new double[cycles.size()];
+        double[] rotationErrors = new double[cycles.size()];
+        int errorCount = 0;
+        boolean initialized = false;
+        double lastTimestamp = 0.0;
+        long odometrySamples = 0;
+        long visionObservations = 0;
+        PrintWriter writer = csv != null ? new PrintWriter(Files.newBufferedWriter(Paths.get(csv))) : null;
+        if (writer != null) {
+            writer.println("time,x,y,theta,ref_x,ref_y,ref_theta,translation_error,rotation_error");
+        }
+
+        long replayStart = System.nanoTime();
+        for (int c = 0; c < cycles.size(); c++) {
+            Cycle cycle = cycles.get(c);
+            fill(odometryInputs, cycle.odometry, moduleCount);
+            fill(visionInputs, cycle.vision);
+
+            // The first sample starts the track, at the reference pose when there is one
+            if (!initialized && odometryInputs.sampleCount > 0) {
+                for (int i = 0; i < moduleCount; i++) {
+                    positions[i].distanceMeters = odometryInputs.distancesMeters[i];
+                    positions[i].angle = new Rotation2d(odometryInputs.anglesRadians[i]);
+                }
+                lastTimestamp = odometryInputs.timestamps[0];
+                localizer.reset(lastTimestamp, cycle.reference != null ? cycle.reference : Pose2d.kZero,
+                        Rotation2d.fromDegrees(odometryInputs.yawDegrees[0]), positions);
+                initialized = true;
+            }
+
+            // Same order as the robot: Swerve reads odometry, then AprilTagVision fuses its observations
+            long start = System.nanoTime();
+            for (int sample = 0; sample < odometryInputs.sampleCount; sample++) {
+                double timestamp = odometryInputs.timestamps[sample];
+                if (timestamp <= lastTimestamp) {
+                    continue;
+                }
+                localizer.updateWithTime(timestamp, timestamp - lastTimestamp,
+                        Math.toRadians(odometryInputs.yawDegrees[sample]), odometryInputs.distancesMeters,
+                        odometryInputs.anglesRadians, sample * moduleCount);
+                lastTimestamp = timestamp;
+                odometrySamples++;
+            }
+            long odometryEnd = System.nanoTime();
+            if (initialized) {
+                for (int i = 0; i < visionInputs.count; i++) {
+                    visionInputs.get(i, observation);
+                    Pose2d pose = new Pose3d(observation.robotX, observation.robotY, observation.robotZ,
+                            new Rotation3d(new Quaternion(observation.robotQw, observation.robotQx,
+                                    observation.robotQy, observation.robotQz))).toPose2d();
+                    localizer.addMeasurement(observation.timestamp, pose,
+                            VecBuilder.fill(observation.xyStdDev, observation.xyStdDev, observation.thetaStdDev));
+                    visionObservations++;
+                }
+            }
+            long visionEnd = System.nanoTime();
+            Pose2d estimate = localizer.getLatestPose();
+            long queryEnd = System.nanoTime();
+            stageNanos[0][c] = odometryEnd - start;
+            stageNanos[1][c] = visionEnd - odometryEnd;
+            stageNanos[2][c] = queryEnd - visionEnd;
+
+            if (initialized && cycle.reference != null) {
+                double translationError = estimate.getTranslation().getDistance(cycle.reference.getTranslation());
+                double rotationError = Math.abs(estimate.getRotation().minus(cycle.reference.getRotation()).getRadians());
+                translationErrors[errorCount] = translationError;
+                rotationErrors[errorCount] = rotationError;
+                errorCount++;
+                if (writer != null) {
+                    writer.printf("%.6f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f%n", cycle.timestampMicros / 1e6,
+                            estimate.getX(), estimate.getY(), estimate.getRotation().getRadians(),
+                            cycle.reference.getX(), cycle.reference.getY(), cycle.reference.getRotation().getRadians(),
+                            translationError, rotationError);
+                }
+            }
+        }
+        double replaySeconds = (System.nanoTime() - replayStart) / 1e9;
+        if (writer != null) {
+            writer.close();
+        }
+
+        double logSeconds = (cycles.get(cycles.size() - 1).timestampMicros - cycles.get(0).timestampMicros) / 1e6;
+        System.out.printf("Run %d/%d, %s: %d odometry samples, %d vision observations, %.2f s of log in %.3f s "
+                        + "(%.0fx real time)%n", run, runs, mode, odometrySamples, visionObservations, logSeconds,
+                replaySeconds, logSeconds / Math.max(replaySeconds, 1e-9));
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            long[] nanos = stageNanos[stage];
+            Arrays.sort(nanos);
+            long total = 0;
+            for (long value : nanos) {
+                total += value;
+            }
+            System.out.printf("  %-8s per cycle: mean %7.2f us, p50 %7.2f us, p99 %7.2f us, max %8.2f us%n",
+                    STAGES[stage], total / 1e3 / nanos.length, percentile(nanos, 0.5) / 1e3,
+                    percentile(nanos, 0.99) / 1e3, nanos[nanos.length - 1] / 1e3);
+        }
+        if (errorCount == 0) {
+            System.out.println("  No reference poses in the log, pose error not computed");
+            return;
+        }
+        double[] translation = Arrays.copyOf(translationErrors, errorCount);
+        double[] rotation = Arrays.copyOf(rotationErrors, errorCount);
+        System.out.printf("  Translation error: rms %.4f m, p95 %.4f m, max %.4f m%n",
+                rms(translation), percentile(translation, 0.95), max(translation));
+        System.out.printf("  Rotation error:    rms %.3f deg, p95 %.3f deg, max %.3f deg%n",
+                Math.toDegrees(rms(rotation)), Math.toDegrees(percentile(rotation, 0.95)),
+                Math.toDegrees(max(rotation)));
+    }
+
+    // Sets the inputs the way fromLog would, so the replay reads exactly the fields the robot logged
+    private static void fill(OdometryInputs inputs, Object[] fields, int moduleCount) {
+        inputs.timestamps = orEmpty((double[]) fields[0]);
+        inputs.yawDegrees = orEmpty((double[]) fields[1]);
+        inputs.distancesMeters = orEmpty((double[]) fields[2]);
+        inputs.anglesRadians = orEmpty((double[]) fields[3]);
+        inputs.sampleCount = Math.min(Math.min(inputs.timestamps.length, inputs.yawDegrees.length),
+                Math.min(inputs.distancesMeters.length, inputs.anglesRadians.length) / moduleCount);
+    }
+
+    private static void fill(VisionObservationInputs inputs, Object[] fields) {
+        inputs.instanceIndex = fields[0] != null ? (long[]) fields[0] : new long[0];
+        inputs.timestamps = orEmpty((double[]) fields[1]);
+        inputs.robotX = orEmpty((double[]) fields[2]);
+        inputs.robotY = orEmpty((double[]) fields[3]);
+        inputs.robotZ = orEmpty((double[]) fields[4]);
+        inputs.robotQw = orEmpty((double[]) fields[5]);
+        inputs.robotQx = orEmpty((double[]) fields[6]);
+        inputs.robotQy = orEmpty((double[]) fields[7]);
+        inputs.robotQz = orEmpty((double[]) fields[8]);
+        inputs.robotYaw = orEmpty((double[]) fields[9]);
+        inputs.xyStdDev = orEmpty((double[]) fields[10]);
+        inputs.thetaStdDev = orEmpty((double[]) fields[11]);
+        inputs.averageTagDistance = orEmpty((double[]) fields[12]);
+        inputs.useVisionRotation = fields[13] != null ? (boolean[]) fields[13] : new boolean[0];
+        inputs.tagMask = fields[14] != null ? (long[]) fields[14] : new long[0];
+        // Fields of one cycle are written together, a shorter array only shows up at the very start of a log
+        int count = inputs.timestamps.length;
+        for (double[] array : new double[][]{inputs.robotX, inputs.robotY, inputs.robotZ, inputs.robotQw,
+                inputs.robotQx, inputs.robotQy, inputs.robotQz, inputs.xyStdDev, inputs.thetaStdDev}) {
+            count = Math.min(count, array.length);
+        }
+        inputs.count = Math.min(count, Math.min(inputs.instanceIndex.length, inputs.tagMask.length));
+    }
+
+    private static double[] orEmpty(double[] array) {
+        return array != null ? array : new double[0];
+    }
+
+    private static String stripSlash(String key) {
+        return key.startsWith("/") ? key.substring(1) : key;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)))];
+    }
+
+    private static double percentile(double[] values, double fraction) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)))];
+    }
+
+    private static double rms(double[] values) {
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value * value;
+        }
+        return Math.sqrt(sum / values.length);
+    }
+
+    private static double max(double[] values) {
+        double max = 0.0;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,381 @@
+package frc.robot.subsystems.apriltagvision;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Quaternion;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import static frc.robot.subsystems.apriltagvision.AprilTagVisionConstants.*;
+
+// Parses Northstar observation frames into pooled primitive observations without allocating per frame
+// Frame layout: [poseCount, error0, x0, y0, z0, qw0, qx0, qy0, qz0, (error1, x1 .. qz1), tagIds...]
+public class AprilTagFrameDecoder {
+    private static final int INITIAL_POOL_SIZE = 32;
+    private static final int INITIAL_TAG_CAPACITY = 32;
+
+    // Robot to camera transform per instance, rotation stored as the conjugate so decoding only multiplies
+    private final double[] robotToCameraX;
+    private final double[] robotToCameraY;
+    private final double[] robotToCameraZ;
+    private final double[] cameraToRobotQw;
+    private final double[] cameraToRobotQx;
+    private final double[] cameraToRobotQy;
+    private final double[] cameraToRobotQz;
+
+    // Returns the localizer yaw in radians at a capture timestamp, only queried to break ambiguous frames
+    private final DoubleUnaryOperator referenceYaw;
+
+    // Tag layout flattened into arrays indexed by tag id, rebuilt when the layout instance changes
+    private AprilTagFieldLayout cachedLayout = null;
+    private boolean[] tagPresent = new boolean[0];
+    private double[] tagX = new double[0];
+    private double[] tagY = new double[0];
+    private double[] tagZ = new double[0];
+    private Pose3d[] tagPoses = new Pose3d[0];
+
+    // Last detection time per tag id, NEGATIVE_INFINITY when never seen
+    private double[] lastTagDetectionTimes = new double[INITIAL_TAG_CAPACITY];
+
+    // Observation pool reused every cycle
+    private Observation[] pool = new Observation[INITIAL_POOL_SIZE];
+    private int poolUsed = 0;
+
+    // Scratch results for the two candidate poses of an ambiguous frame
+    private final Observation candidate0 = new Observation();
+    private final Observation candidate1 = new Observation();
+
+    public AprilTagFrameDecoder(int instanceCount, DoubleUnaryOperator referenceYaw) {
+        this.referenceYaw = referenceYaw;
+        robotToCameraX = new double[instanceCount];
+        robotToCameraY = new double[instanceCount];
+        robotToCameraZ = new double[instanceCount];
+        cameraToRobotQw = new double[instanceCount];
+        cameraToRobotQx = new double[instanceCount];
+        cameraToRobotQy = new double[instanceCount];
+        cameraToRobotQz = new double[instanceCount];
+        for (int i = 0; i < instanceCount; i++) {
+            Pose3d cameraPose = cameraPoses[i];
+            Quaternion q = cameraPose.getRotation().getQuaternion();
+            robotToCameraX[i] = cameraPose.getX();
+            robotToCameraY[i] = cameraPose.getY();
+            robotToCameraZ[i] = cameraPose.getZ();
+            cameraToRobotQw[i] = q.getW();
+            cameraToRobotQx[i] = -q.getX();
+            cameraToRobotQy[i] = -q.getY();
+            cameraToRobotQz[i] = -q.getZ();
+        }
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new Observation();
+        }
+        Arrays.fill(lastTagDetectionTimes, Double.NEGATIVE_INFINITY);
+    }
+
+    // Returns every pooled observation to the pool, call once before decoding a new cycle of frames
+    public void resetPool() {
+        poolUsed = 0;
+    }
+
+    // Returns the next free observation without taking it, growing the pool only when a cycle
+    // carries more valid frames than any cycle before
+    public Observation next() {
+        if (poolUsed == pool.length) {
+            Observation[] grown = Arrays.copyOf(pool, pool.length * 2);
+            for (int i = pool.length; i < grown.length; i++) {
+                grown[i] = new Observation();
+            }
+            pool = grown;
+        }
+        return pool[poolUsed];
+    }
+
+    // Keeps the observation last returned by next() for this cycle
+    public void commit() {
+        poolUsed++;
+    }
+
+    // Returns the number of observations kept this cycle
+    public int getObservationCount() {
+        return poolUsed;
+    }
+
+    // Returns an observation kept this cycle, in decode order
+    public Observation getObservation(int index) {
+        return pool[index];
+    }
+
+    // Rebuilds the flattened tag arrays when the layout changes
+    public void setLayout(AprilTagFieldLayout layout) {
+        if (layout == cachedLayout) {
+            return;
+        }
+        cachedLayout = layout;
+        int maxId = 0;
+        for (AprilTag tag : layout.getTags()) {
+            maxId = Math.max(maxId, tag.ID);
+        }
+        tagPresent = new boolean[maxId + 1];
+        tagX = new double[maxId + 1];
+        tagY = new double[maxId + 1];
+        tagZ = new double[maxId + 1];
+        tagPoses = new Pose3d[maxId + 1];
+        for (AprilTag tag : layout.getTags()) {
+            if (tag.ID < 0) {
+                continue;
+            }
+            tagPresent[tag.ID] = true;
+            tagX[tag.ID] = tag.pose.getX();
+            tagY[tag.ID] = tag.pose.getY();
+            tagZ[tag.ID] = tag.pose.getZ();
+            tagPoses[tag.ID] = tag.pose;
+        }
+        if (lastTagDetectionTimes.length <= maxId) {
+            int oldLength = lastTagDetectionTimes.length;
+            lastTagDetectionTimes = Arrays.copyOf(lastTagDetectionTimes, maxId + 1);
+            Arrays.fill(lastTagDetectionTimes, oldLength, maxId + 1, Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    // Decodes one frame into out, returns false for blank, unresolved or out of field frames
+    public boolean decode(int instanceIndex, double timestamp, double[] values, double now, Observation out) {
+        // Handle blank frame
+        if (values.length == 0 || values[0] == 0) {
+            return false;
+        }
+
+        Observation chosen;
+        switch ((int) values[0]) {
+            case 1:
+                // Process a single pose (multi-tag scenario)
+                if (values.length < 9) {
+                    return false;
+                }
+                solveRobotPose(instanceIndex, values, 2, out);
+                out.useVisionRotation = true;
+                chosen = out;
+                break;
+            case 2:
+                // Process two poses and disambiguate based on error
+                if (values.length < 17) {
+                    return false;
+                }
+                double error0 = values[1];
+                double error1 = values[9];
+                if (!(error0 < error1 * ambiguityThreshold || error1 < error0 * ambiguityThreshold)) {
+                    return false;
+                }
+                solveRobotPose(instanceIndex, values, 2, candidate0);
+                solveRobotPose(instanceIndex, values, 10, candidate1);
+
+                // Select the most likely pose based on the estimated rotation
+                double currentYaw = referenceYaw.applyAsDouble(timestamp);
+                if (Math.abs(MathUtil.angleModulus(currentYaw - candidate0.robotYaw))
+                        < Math.abs(MathUtil.angleModulus(currentYaw - candidate1.robotYaw))) {
+                    chosen = candidate0;
+                } else {
+                    chosen = candidate1;
+                }
+                chosen.useVisionRotation = false;
+                break;
+            default:
+                return false;
+        }
+        if (chosen != out) {
+            out.copyPoseFrom(chosen);
+        }
+        out.instanceIndex = instanceIndex;
+        out.timestamp = timestamp;
+
+        // Validate that the robot pose is within the field boundaries
+        if (out.robotX < -fieldBorderMargin
+                || out.robotX > frc.robot.FieldConstants.fieldLength + fieldBorderMargin
+                || out.robotY < -fieldBorderMargin
+                || out.robotY > frc.robot.FieldConstants.fieldWidth + fieldBorderMargin
+                || out.robotZ < -zMargin
+                || out.robotZ > zMargin) {
+            return false;
+        }
+
+        // Collect tags and update the last detection time for each tag
+        out.tagCount = 0;
+        double totalDistance = 0.0;
+        for (int i = (values[0] == 1 ? 9 : 17); i < values.length; i++) {
+            int tagId = (int) values[i];
+            if (tagId < 0) {
+                continue;
+            }
+            if (tagId >= lastTagDetectionTimes.length) {
+                int oldLength = lastTagDetectionTimes.length;
+                lastTagDetectionTimes = Arrays.copyOf(lastTagDetectionTimes, tagId + 1);
+                Arrays.fill(lastTagDetectionTimes, oldLength, tagId + 1, Double.NEGATIVE_INFINITY);
+            }
+            lastTagDetectionTimes[tagId] = now;
+            if (tagId >= tagPresent.length || !tagPresent[tagId]) {
+                continue;
+            }
+            out.addTag(tagId);
+            double dx = tagX[tagId] - out.cameraX;
+            double dy = tagY[tagId] - out.cameraY;
+            double dz = tagZ[tagId] - out.cameraZ;
+            totalDistance += Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        if (out.tagCount == 0) {
+            return false;
+        }
+
+        // Compute the standard deviations from the average distance to the detected tags
+        out.averageTagDistance = totalDistance / out.tagCount;
+        double distanceFactor = out.averageTagDistance * out.averageTagDistance / out.tagCount
+                * stdDevFactors[instanceIndex];
+        out.xyStdDev = xyStdDevCoefficient * distanceFactor;
+        out.thetaStdDev = out.useVisionRotation
+                ? thetaStdDevCoefficient * distanceFactor
+                : Double.POSITIVE_INFINITY;
+        return true;
+    }
+
+    // Returns the last time a tag was detected, NEGATIVE_INFINITY when it never was
+    public double getLastDetectionTime(int tagId) {
+        if (tagId < 0 || tagId >= lastTagDetectionTimes.length) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return lastTagDetectionTimes[tagId];
+    }
+
+    // Returns the highest tag id tracked by the detection times
+    public int getMaxTagId() {
+        return lastTagDetectionTimes.length - 1;
+    }
+
+    // Returns the cached layout pose of a tag, or null when the layout does not contain it
+    public Pose3d getTagPose(int tagId) {
+        if (tagId < 0 || tagId >= tagPoses.length) {
+            return null;
+        }
+        return tagPoses[tagId];
+    }
+
+    // Converts the camera pose starting at offset into a robot pose: robot = camera * inverse(robotToCamera)
+    private void solveRobotPose(int instanceIndex, double[] values, int offset, Observation out) {
+        out.error = values[offset - 1];
+        out.cameraX = values[offset];
+        out.cameraY = values[offset + 1];
+        out.cameraZ = values[offset + 2];
+
+        // Normalize the camera rotation the same way Rotation3d does
+        double qw = values[offset + 3];
+        double qx = values[offset + 4];
+        double qy = values[offset + 5];
+        double qz = values[offset + 6];
+        double norm = Math.sqrt(qw * qw + qx * qx + qy * qy + qz * qz);
+        if (norm == 0.0) {
+            qw = 1.0;
+            qx = 0.0;
+            qy = 0.0;
+            qz = 0.0;
+        } else {
+            qw /= norm;
+            qx /= norm;
+            qy /= norm;
+            qz /= norm;
+        }
+        out.cameraQw = qw;
+        out.cameraQx = qx;
+        out.cameraQy = qy;
+        out.cameraQz = qz;
+
+        // Robot rotation is the camera rotation composed with the inverse camera mounting rotation
+        double bw = cameraToRobotQw[instanceIndex];
+        double bx = cameraToRobotQx[instanceIndex];
+        double by = cameraToRobotQy[instanceIndex];
+        double bz = cameraToRobotQz[instanceIndex];
+        double rw = qw * bw - qx * bx - qy * by - qz * bz;
+        double rx = qw * bx + qx * bw + qy * bz - qz * by;
+        double ry = qw * by - qx * bz + qy * bw + qz * bx;
+        double rz = qw * bz + qx * by - qy * bx + qz * bw;
+        out.robotQw = rw;
+        out.robotQx = rx;
+        out.robotQy = ry;
+        out.robotQz = rz;
+
+        // Robot translation is the camera translation minus the mounting offset rotated into the field frame
+        double tx = robotToCameraX[instanceIndex];
+        double ty = robotToCameraY[instanceIndex];
+        double tz = robotToCameraZ[instanceIndex];
+        // v' = v + 2w(u x v) + 2u x (u x v) with u the vector part of the robot rotation
+        double cx = ry * tz - rz * ty;
+        double cy = rz * tx - rx * tz;
+        double cz = rx * ty - ry * tx;
+        double rotatedX = tx + 2.0 * (rw * cx + ry * cz - rz * cy);
+        double rotatedY = ty + 2.0 * (rw * cy + rz * cx - rx * cz);
+        double rotatedZ = tz + 2.0 * (rw * cz + rx * cy - ry * cx);
+        out.robotX = out.cameraX - rotatedX;
+        out.robotY = out.cameraY - rotatedY;
+        out.robotZ = out.cameraZ - rotatedZ;
+        out.robotYaw = Math.atan2(2.0 * (rw * rz + rx * ry), 1.0 - 2.0 * (ry * ry + rz * rz));
+    }
+
+    // Mutable primitive observation owned by the decoder pool
+    public static final class Observation {
+        public int instanceIndex;
+        public double timestamp;
+        public double error;
+        public double cameraX, cameraY, cameraZ;
+        public double cameraQw, cameraQx, cameraQy, cameraQz;
+        public double robotX, robotY, robotZ;
+        public double robotQw, robotQx, robotQy, robotQz;
+        public double robotYaw;
+        public boolean useVisionRotation;
+        public int[] tagIds = new int[8];
+        public int tagCount;
+        public double averageTagDistance;
+        public double xyStdDev;
+        public double thetaStdDev;
+
+        private void addTag(int tagId) {
+            if (tagCount == tagIds.length) {
+                tagIds = Arrays.copyOf(tagIds, tagIds.length * 2);
+            }
+            tagIds[tagCount++] = tagId;
+        }
+
+        // Copies every field of another observation, including its tags
+        public void copyFrom(Observation other) {
+            copyPoseFrom(other);
+            instanceIndex = other.instanceIndex;
+            timestamp = other.timestamp;
+            if (tagIds.length < other.tagCount) {
+                tagIds = new int[other.tagIds.length];
+            }
+            System.arraycopy(other.tagIds, 0, tagIds, 0, other.tagCount);
+            tagCount = other.tagCount;
+            averageTagDistance = other.averageTagDistance;
+            xyStdDev = other.xyStdDev;
+            thetaStdDev = other.thetaStdDev;
+        }
+
+        // Copies the solved poses of another observation
+        public void copyPoseFrom(Observation other) {
+            error = other.error;
+            cameraX = other.cameraX;
+            cameraY = other.cameraY;
+            cameraZ = other.cameraZ;
+            cameraQw = other.cameraQw;
+            cameraQx = other.cameraQx;
+            cameraQy = other.cameraQy;
+            cameraQz = other.cameraQz;
+            robotX = other.robotX;
+            robotY = other.robotY;
+            robotZ = other.robotZ;
+            robotQw = other.robotQw;
+            robotQx = other.robotQx;
+            robotQy = other.robotQy;
+            robotQz = other.robotQz;
+            robotYaw = other.robotYaw;
+            useVisionRotation = other.useVisionRotation;
+        }
+    }
+}
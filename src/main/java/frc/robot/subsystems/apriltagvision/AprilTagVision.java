@@ -7,6 +7,8 @@
 
 package frc.robot.subsystems.apriltagvision;
 
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.*;
 import edu.wpi.first.wpilibj.SerialPort;
@@ -17,20 +19,25 @@ import frc.robot.RobotConstants;
 import frc.robot.subsystems.swerve.Swerve;
 import lombok.Getter;
 import lombok.experimental.ExtensionMethod;
+import org.frcteam6941.localization.Localizer;
+import org.frcteam6941.looper.TelemetryBudget;
+import org.frcteam6941.looper.TelemetryKey;
+import org.frcteam6941.looper.TelemetryKey.Priority;
+import org.frcteam6941.looper.TelemetryKey.Rate;
 import org.littletonrobotics.GeomUtil;
 import org.littletonrobotics.LoggedTunableNumber;
 import org.littletonrobotics.RobotState;
 import org.littletonrobotics.junction.Logger;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.function.Supplier;
 
 import static frc.robot.subsystems.apriltagvision.AprilTagVisionConstants.*;
-import static frc.robot.subsystems.apriltagvision.AprilTagVisionIO.AprilTagVisionIOInputs;
-import static org.littletonrobotics.RobotState.VisionObservation;
 
 /**
- * Vision subsystem for AprilTag vision.
+ * Vision subsystem for AprilTag vision. Frames are decoded on {@link AprilTagVisionWorker}; this subsystem drains
+ * the validated observations into the localizer and logs them on the main loop.
  */
 @ExtensionMethod({GeomUtil.class})
 public class AprilTagVision extends SubsystemBase {
@@ -39,312 +46,252 @@ public class AprilTagVision extends SubsystemBase {
     // Others
     private static final LoggedTunableNumber timestampOffset =
             new LoggedTunableNumber("AprilTagVision/TimestampOffset", -(1.0 / 50.0));
-    private static final double demoTagPosePersistenceSecs = 0.5;
+    // Tag ids carried through the observation queue
+    private static final int maxTrackedTagId = 63;
+    private static final Pose3d[] emptyPoses = new Pose3d[0];
+    private static final long[] demoTagPoseId = {29};
     private final Supplier<AprilTagLayoutType> aprilTagTypeSupplier;
     private final AprilTagVisionIO[] io;
-    private final AprilTagVisionIOInputs[] inputs;
-    private final Map<Integer, Double> lastFrameTimes = new HashMap<>();
-    private final Map<Integer, Double> lastTagDetectionTimes = new HashMap<>();
+    private final VisionObservationQueue observationQueue;
+    private final AprilTagVisionWorker worker;
+    private final double[] lastFrameTimes;
+    private final double[] lastTagDetectionTimes = new double[maxTrackedTagId + 1];
+    // Latest observation per instance this cycle, copied out of the queue
+    private final AprilTagFrameDecoder.Observation[] latestObservations;
+    private final boolean[] hasLatestObservation;
+    private final AprilTagFrameDecoder.Observation polledObservation = new AprilTagFrameDecoder.Observation();
+    // Observations drained each cycle, logged as inputs so replay feeds the localizer from the log
+    private final VisionObservationInputs observationInputs = new VisionObservationInputs();
+    private final ArrayList<Pose2d> allRobotPoses = new ArrayList<>();
+    private final ArrayList<Pose3d> allRobotPoses3d = new ArrayList<>();
+    private AprilTagFieldLayout cachedLayout = null;
+    private Pose3d[] layoutTagPoses = new Pose3d[maxTrackedTagId + 1];
     private Pose3d demoTagPose = null;
-    private double lastDemoTagPoseTimestamp = 0.0;
+    // Scratch for the poses handed to the telemetry keys, which copy what they record
+    private Pose3d[] tagPoseScratch = new Pose3d[8];
+    private final Pose3d[] demoTagPoseScratch = new Pose3d[1];
     private double lastPrint;
     private double frameUpdateCount;
     @Getter
-    private ArrayList<Pose3d> allTagPoses;
+    private final ArrayList<Pose3d> allTagPoses = new ArrayList<>();
 
     @Getter
     private Pose3d cameraPose;
     @Getter
     private Pose3d robotPose3d;
 
+    // Telemetry keys, per instance ones indexed like io
+    private final TelemetryKey[] cameraPoseKeys;
+    private final TelemetryKey[] latencyKeys;
+    private final TelemetryKey[] robotPoseKeys;
+    private final TelemetryKey[] robotPose3dKeys;
+    private final TelemetryKey[] tagPosesKeys;
+    private final TelemetryKey[] fpsKeys;
+    private final TelemetryKey robotPosesKey;
+    private final TelemetryKey robotPoses3dKey;
+    private final TelemetryKey tagPosesKey;
+    private final TelemetryKey demoTagPoseKey;
+    private final TelemetryKey demoTagPoseIdKey;
+    private final TelemetryKey framesReceivedKey;
+    private final TelemetryKey framesAcceptedKey;
+    private final TelemetryKey framesDroppedKey;
+    private final TelemetryKey workerCycleKey;
+
     /**
      * Constructs the AprilTagVision subsystem with a supplier for the AprilTag layout type and an array of IO instances.
      */
     public AprilTagVision(Supplier<AprilTagLayoutType> aprilTagTypeSupplier, AprilTagVisionIO... io) {
         this.aprilTagTypeSupplier = aprilTagTypeSupplier;
         this.io = io;
-        inputs = new AprilTagVisionIOInputs[io.length];
+
+        // Create last frame times for instances
+        lastFrameTimes = new double[io.length];
+        latestObservations = new AprilTagFrameDecoder.Observation[io.length];
+        hasLatestObservation = new boolean[io.length];
         for (int i = 0; i < io.length; i++) {
-            inputs[i] = new AprilTagVisionIOInputs();
+            latestObservations[i] = new AprilTagFrameDecoder.Observation();
         }
-
-        // Create map of last frame times for instances
+        Arrays.fill(lastTagDetectionTimes, Double.NEGATIVE_INFINITY);
+
+        // Intern every telemetry key once instead of concatenating them on every frame
+        TelemetryBudget telemetry = TelemetryBudget.getInstance();
+        cameraPoseKeys = new TelemetryKey[io.length];
+        latencyKeys = new TelemetryKey[io.length];
+        robotPoseKeys = new TelemetryKey[io.length];
+        robotPose3dKeys = new TelemetryKey[io.length];
+        tagPosesKeys = new TelemetryKey[io.length];
+        fpsKeys = new TelemetryKey[io.length];
         for (int i = 0; i < io.length; i++) {
-            lastFrameTimes.put(i, 0.0);
+            String prefix = "AprilTagVision/Inst" + i + "/";
+            cameraPoseKeys[i] = telemetry.key(prefix + "CameraPose", Rate.EVERY_CYCLE, Priority.LOW);
+            latencyKeys[i] = telemetry.key(prefix + "LatencySecs", Rate.TEN_HZ, Priority.NORMAL);
+            robotPoseKeys[i] = telemetry.key(prefix + "RobotPose", Rate.ON_CHANGE, Priority.NORMAL);
+            robotPose3dKeys[i] = telemetry.key(prefix + "RobotPose3d", Rate.ON_CHANGE, Priority.LOW);
+            tagPosesKeys[i] = telemetry.key(prefix + "TagPoses", Rate.ON_CHANGE, Priority.LOW);
+            fpsKeys[i] = telemetry.key(prefix + "Fps", Rate.ON_CHANGE, Priority.LOW);
         }
+        robotPosesKey = telemetry.key("AprilTagVision/RobotPoses", Rate.EVERY_CYCLE, Priority.NORMAL);
+        robotPoses3dKey = telemetry.key("AprilTagVision/RobotPoses3d", Rate.EVERY_CYCLE, Priority.LOW);
+        tagPosesKey = telemetry.key("AprilTagVision/TagPoses", Rate.ON_CHANGE, Priority.LOW);
+        demoTagPoseKey = telemetry.key("AprilTagVision/DemoTagPose", Rate.ON_CHANGE, Priority.LOW);
+        demoTagPoseIdKey = telemetry.key("AprilTagVision/DemoTagPoseId", Rate.ON_CHANGE, Priority.LOW);
+        framesReceivedKey = telemetry.key("AprilTagVision/Worker/FramesReceived", Rate.TEN_HZ, Priority.LOW);
+        framesAcceptedKey = telemetry.key("AprilTagVision/Worker/FramesAccepted", Rate.TEN_HZ, Priority.LOW);
+        framesDroppedKey = telemetry.key("AprilTagVision/Worker/FramesDropped", Rate.ON_CHANGE, Priority.NORMAL);
+        workerCycleKey = telemetry.key("AprilTagVision/Worker/CycleMs", Rate.TEN_HZ, Priority.LOW);
 
         // Disable serial termination of \n
         serial.disableTermination();
         serial.reset();
+
+        // Resolve the localizer here so the worker never races the swerve singleton construction
+        Localizer localizer = Swerve.getInstance().getLocalizer();
+        observationQueue = new VisionObservationQueue(observationQueueCapacity);
+        // Only the worker reads the reference pose, so one scratch array is enough
+        double[] referencePose = new double[3];
+        worker = new AprilTagVisionWorker(aprilTagTypeSupplier, io,
+                timestamp -> {
+                    localizer.sampleCoarseFieldPose(timestamp, referencePose);
+                    return referencePose[2];
+                },
+                observationQueue, serial);
+        worker.setTimestampOffset(timestampOffset.get());
+        worker.start();
     }
 
     /**
-     * Called periodically to update the vision subsystem with new data from IO instances.
+     * Called periodically to drain observations decoded by the worker into the localizer and log them.
      */
     @Override
     public void periodic() {
-        for (int i = 0; i < io.length; i++) {
-            io[i].updateInputs(inputs[i]);
-            Logger.processInputs("AprilTagVision/Inst" + i, inputs[i]);
-        }
+        double now = Timer.getFPGATimestamp();
+        worker.setTimestampOffset(timestampOffset.get());
+        updateLayoutTagPoses(aprilTagTypeSupplier.get().getLayout());
+
+        // Drain every observation the worker validated since the last cycle
+        Arrays.fill(hasLatestObservation, false);
+        allRobotPoses.clear();
+        allRobotPoses3d.clear();
+        Localizer localizer = Swerve.getInstance().getLocalizer();
+        observationInputs.drain(observationQueue, polledObservation);
+        Logger.processInputs("AprilTagVision/Observations", observationInputs);
+        for (int observation = 0; observation < observationInputs.count; observation++) {
+            observationInputs.get(observation, polledObservation);
+            int instanceIndex = polledObservation.instanceIndex;
+            lastFrameTimes[instanceIndex] = now;
+            for (int i = 0; i < polledObservation.tagCount; i++) {
+                lastTagDetectionTimes[polledObservation.tagIds[i]] = now;
+            }
 
-        serial.writeString("OK");
-        serial.flush();
-        System.out.println("Test");
+            Pose3d observedPose3d = toRobotPose3d(polledObservation);
+            Pose2d observedPose = observedPose3d.toPose2d();
+            localizer.addMeasurement(polledObservation.timestamp, observedPose,
+                    VecBuilder.fill(polledObservation.xyStdDev, polledObservation.xyStdDev, polledObservation.thetaStdDev));
+            allRobotPoses.add(observedPose);
+            allRobotPoses3d.add(observedPose3d);
+            frameUpdateCount += 1;
 
-        // Loop over instances to process all frames and poses
-        List<Pose2d> allRobotPoses = new ArrayList<>();
-        List<Pose3d> allRobotPoses3d = new ArrayList<>();
-        List<VisionObservation> allVisionObservations = new ArrayList<>();
+            latestObservations[instanceIndex].copyFrom(polledObservation);
+            hasLatestObservation[instanceIndex] = true;
+        }
 
         for (int instanceIndex = 0; instanceIndex < io.length; instanceIndex++) {
-            // Loop over frames to extract and process data
-            for (int frameIndex = 0; frameIndex < inputs[instanceIndex].timestamps.length; frameIndex++) {
-                lastFrameTimes.put(instanceIndex, Timer.getFPGATimestamp());
-                var timestamp = inputs[instanceIndex].timestamps[frameIndex] + timestampOffset.get();
-                var values = inputs[instanceIndex].frames[frameIndex];
-
-                // Handle blank frame by continuing to the next iteration
-                if (values.length == 0 || values[0] == 0) {
-                    continue;
-                }
-
-                // Determine how to process the poses based on the number of poses detected in the frame
-                cameraPose = null;
-                robotPose3d = null;
-                boolean useVisionRotation = false;
-                switch ((int) values[0]) {
-                    case 1:
-                        // Process a single pose (multi-tag scenario)
-                        cameraPose =
-                                new Pose3d(
-                                        values[2],
-                                        values[3],
-                                        values[4],
-                                        new Rotation3d(new Quaternion(values[5], values[6], values[7], values[8])));
-                        robotPose3d =
-                                cameraPose.transformBy(cameraPoses[instanceIndex].toTransform3d().inverse());
-                        useVisionRotation = true;
-                        Logger.recordOutput("AprilTagVision/Inst" + instanceIndex + "/CameraPose", cameraPose);
-
-                        break;
-                    case 2:
-                        // Process two poses and disambiguate based on error
-                        double error0 = values[1];
-                        double error1 = values[9];
-                        Pose3d cameraPose0 =
-                                new Pose3d(
-                                        values[2],
-                                        values[3],
-                                        values[4],
-                                        new Rotation3d(new Quaternion(values[5], values[6], values[7], values[8])));
-                        Pose3d cameraPose1 =
-                                new Pose3d(
-                                        values[10],
-                                        values[11],
-                                        values[12],
-                                        new Rotation3d(new Quaternion(values[13], values[14], values[15], values[16])));
-                        Pose3d robotPose3d0 =
-                                cameraPose0.transformBy(cameraPoses[instanceIndex].toTransform3d().inverse());
-                        Pose3d robotPose3d1 =
-                                cameraPose1.transformBy(cameraPoses[instanceIndex].toTransform3d().inverse());
-
-                        // Select the most likely pose based on the estimated rotation
-                        if (error0 < error1 * ambiguityThreshold || error1 < error0 * ambiguityThreshold) {
-                            Rotation2d currentRotation =
-                                    Swerve.getInstance().getLocalizer().getCoarseFieldPose(timestamp).getRotation();
-                            Rotation2d visionRotation0 = robotPose3d0.toPose2d().getRotation();
-                            Rotation2d visionRotation1 = robotPose3d1.toPose2d().getRotation();
-                            if (Math.abs(currentRotation.minus(visionRotation0).getRadians())
-                                    < Math.abs(currentRotation.minus(visionRotation1).getRadians())) {
-                                cameraPose = cameraPose0;
-                                robotPose3d = robotPose3d0;
-                            } else {
-                                cameraPose = cameraPose1;
-                                robotPose3d = robotPose3d1;
-                            }
-                        }
-                        break;
+            // Log the latency and pose information of the latest observation for the current instance
+            if (hasLatestObservation[instanceIndex]) {
+                AprilTagFrameDecoder.Observation latest = latestObservations[instanceIndex];
+                robotPose3d = toRobotPose3d(latest);
+                cameraPose = robotPose3d.transformBy(cameraPoses[instanceIndex].toTransform3d());
+                if (tagPoseScratch.length < latest.tagCount) {
+                    tagPoseScratch = new Pose3d[latest.tagIds.length];
                 }
-
-                // Skip further processing if no valid data is available
-                if (cameraPose == null || robotPose3d == null) {
-                    continue;
-                }
-
-                // Validate that the robot pose is within the field boundaries
-                if (robotPose3d.getX() < -fieldBorderMargin
-                        || robotPose3d.getX() > frc.robot.FieldConstants.fieldLength + fieldBorderMargin
-                        || robotPose3d.getY() < -fieldBorderMargin
-                        || robotPose3d.getY() > frc.robot.FieldConstants.fieldWidth + fieldBorderMargin
-                        || robotPose3d.getZ() < -zMargin
-                        || robotPose3d.getZ() > zMargin) {
-                    continue;
-                }
-
-                // Convert the 3D robot pose to a 2D pose
-                Pose2d robotPose = robotPose3d.toPose2d();
-
-                // Collect tag poses and update the last detection times for each tag
-                List<Pose3d> tagPoses = new ArrayList<>();
-                for (int i = (values[0] == 1 ? 9 : 17); i < values.length; i++) {
-                    int tagId = (int) values[i];
-                    lastTagDetectionTimes.put(tagId, Timer.getFPGATimestamp());
-                    Optional<Pose3d> tagPose =
-                            aprilTagTypeSupplier.get().getLayout().getTagPose((int) values[i]);
-                    tagPose.ifPresent(tagPoses::add);
-                }
-                if (tagPoses.isEmpty()) continue;
-
-                // Compute the average distance from the camera to the detected tags
-                double totalDistance = 0.0;
-                for (Pose3d tagPose : tagPoses) {
-                    totalDistance += tagPose.getTranslation().getDistance(cameraPose.getTranslation());
-                }
-                double avgDistance = totalDistance / tagPoses.size();
-
-                // Create a vision observation based on the robot pose, timestamp, and calculated standard deviations
-                double xyStdDev =
-                        xyStdDevCoefficient
-                                * Math.pow(avgDistance, 2.0)
-                                / tagPoses.size()
-                                * stdDevFactors[instanceIndex];
-                double thetaStdDev =
-                        useVisionRotation
-                                ? thetaStdDevCoefficient
-                                * Math.pow(avgDistance, 2.0)
-                                / tagPoses.size()
-                                * stdDevFactors[instanceIndex]
-                                : Double.POSITIVE_INFINITY;
-                allVisionObservations.add(
-                        new VisionObservation(
-                                robotPose, timestamp, VecBuilder.fill(xyStdDev, xyStdDev, thetaStdDev)));
-                allRobotPoses.add(robotPose);
-                allRobotPoses3d.add(robotPose3d);
-                frameUpdateCount += 1;
-
-                // Log the latency and robot pose information for the current instance
-                Logger.recordOutput(
-                        "AprilTagVision/Inst" + instanceIndex + "/LatencySecs",
-                        Timer.getFPGATimestamp() - timestamp);
-                Logger.recordOutput("AprilTagVision/Inst" + instanceIndex + "/RobotPose", robotPose);
-                Logger.recordOutput("AprilTagVision/Inst" + instanceIndex + "/RobotPose3d", robotPose3d);
-                Logger.recordOutput(
-                        "AprilTagVision/Inst" + instanceIndex + "/TagPoses", tagPoses.toArray(Pose3d[]::new));
-            }
-// Record demo tag pose if available
-            if (inputs[instanceIndex].demoFrame.length > 0) {
-                var values = inputs[instanceIndex].demoFrame;
-                double error0 = values[0];
-                double error1 = values[8];
-                Pose3d fieldToCameraPose =
-                        new Pose3d(RobotState.getInstance().getEstimatedPose())
-                                .transformBy(cameraPoses[instanceIndex].toTransform3d());
-                Pose3d fieldToTagPose0 =
-                        fieldToCameraPose.transformBy(
-                                new Transform3d(
-                                        new Translation3d(values[1], values[2], values[3]),
-                                        new Rotation3d(new Quaternion(values[4], values[5], values[6], values[7]))));
-                Pose3d fieldToTagPose1 =
-                        fieldToCameraPose.transformBy(
-                                new Transform3d(
-                                        new Translation3d(values[9], values[10], values[11]),
-                                        new Rotation3d(
-                                                new Quaternion(values[12], values[13], values[14], values[15]))));
-                Pose3d fieldToTagPose;
-
-                // Determine the best pose based on error values and ambiguity threshold
-                if (demoTagPose == null && error0 < error1) {
-                    fieldToTagPose = fieldToTagPose0;
-                } else if (demoTagPose == null && error0 >= error1) {
-                    fieldToTagPose = fieldToTagPose1;
-                } else if (error0 < error1 * ambiguityThreshold) {
-                    fieldToTagPose = fieldToTagPose0;
-                } else if (error1 < error0 * ambiguityThreshold) {
-                    fieldToTagPose = fieldToTagPose1;
-                } else {
-                    var pose0Quaternion = fieldToTagPose0.getRotation().getQuaternion();
-                    var pose1Quaternion = fieldToTagPose1.getRotation().getQuaternion();
-                    var referenceQuaternion = demoTagPose.getRotation().getQuaternion();
-                    double pose0Distance =
-                            Math.acos(
-                                    pose0Quaternion.getW() * referenceQuaternion.getW()
-                                            + pose0Quaternion.getX() * referenceQuaternion.getX()
-                                            + pose0Quaternion.getY() * referenceQuaternion.getY()
-                                            + pose0Quaternion.getZ() * referenceQuaternion.getZ());
-                    double pose1Distance =
-                            Math.acos(
-                                    pose1Quaternion.getW() * referenceQuaternion.getW()
-                                            + pose1Quaternion.getX() * referenceQuaternion.getX()
-                                            + pose1Quaternion.getY() * referenceQuaternion.getY()
-                                            + pose1Quaternion.getZ() * referenceQuaternion.getZ());
-                    if (pose0Distance > Math.PI / 2) {
-                        pose0Distance = Math.PI - pose0Distance;
-                    }
-                    if (pose1Distance > Math.PI / 2) {
-                        pose1Distance = Math.PI - pose1Distance;
-                    }
-                    if (pose0Distance < pose1Distance) {
-                        fieldToTagPose = fieldToTagPose0;
-                    } else {
-                        fieldToTagPose = fieldToTagPose1;
+                int tagPoseCount = 0;
+                for (int i = 0; i < latest.tagCount; i++) {
+                    Pose3d tagPose = layoutTagPoses[latest.tagIds[i]];
+                    if (tagPose != null) {
+                        tagPoseScratch[tagPoseCount++] = tagPose;
                     }
                 }
-
-                // Save the determined pose if it's not null
-                if (fieldToTagPose != null) {
-                    demoTagPose = fieldToTagPose;
-                    lastDemoTagPoseTimestamp = Timer.getFPGATimestamp();
+                if (latest.useVisionRotation) {
+                    cameraPoseKeys[instanceIndex].record(cameraPose);
                 }
-
+                latencyKeys[instanceIndex].record(now - latest.timestamp);
+                robotPoseKeys[instanceIndex].record(robotPose3d.toPose2d());
+                robotPose3dKeys[instanceIndex].record(robotPose3d);
+                tagPosesKeys[instanceIndex].record(tagPoseScratch, tagPoseCount);
+            } else {
                 // Clear robot pose if no frames from instances
-                if (inputs[instanceIndex].timestamps.length == 0) {
-                    Logger.recordOutput("AprilTagVision/Inst" + instanceIndex + "/RobotPose", new Pose2d());
-                    Logger.recordOutput("AprilTagVision/Inst" + instanceIndex + "/RobotPose3d", new Pose3d());
-                }
-
-                // Clear tag poses if no recent frames from instance
-                if (Timer.getFPGATimestamp() - lastFrameTimes.get(instanceIndex) > targetLogTimeSecs) {
-                    //noinspection RedundantArrayCreation
-                    Logger.recordOutput("AprilTagVision/Inst" + instanceIndex + "/TagPoses", new Pose3d[]{});
-                }
+                robotPoseKeys[instanceIndex].record(Pose2d.kZero);
+                robotPose3dKeys[instanceIndex].record(Pose3d.kZero);
             }
 
-            // Clear demo tag pose if it's been too long since last detection
-            if (Timer.getFPGATimestamp() - lastDemoTagPoseTimestamp > demoTagPosePersistenceSecs) {
-                demoTagPose = null;
+            // Clear tag poses if no recent frames from instance
+            if (now - lastFrameTimes[instanceIndex] > targetLogTimeSecs) {
+                tagPosesKeys[instanceIndex].record(emptyPoses);
             }
+            fpsKeys[instanceIndex].record(worker.getFps(instanceIndex));
+        }
 
-            // Log all detected robot poses
-            Logger.recordOutput("AprilTagVision/RobotPoses", allRobotPoses.toArray(Pose2d[]::new));
-            Logger.recordOutput("AprilTagVision/RobotPoses3d", allRobotPoses3d.toArray(Pose3d[]::new));
-
-            // Log all recently detected tag poses
-            List<Pose3d> allTagPoses = new ArrayList<>();
-            for (Map.Entry<Integer, Double> detectionEntry : lastTagDetectionTimes.entrySet()) {
-                if (Timer.getFPGATimestamp() - detectionEntry.getValue() < targetLogTimeSecs) {
-                    aprilTagTypeSupplier
-                            .get()
-                            .getLayout()
-                            .getTagPose(detectionEntry.getKey())
-                            .ifPresent(allTagPoses::add);
-                }
-            }
-            Logger.recordOutput("AprilTagVision/TagPoses", allTagPoses.toArray(Pose3d[]::new));
+        // Log all detected robot poses
+        if (robotPosesKey.isDue()) {
+            robotPosesKey.record(allRobotPoses.toArray(Pose2d[]::new));
+        }
+        if (robotPoses3dKey.isDue()) {
+            robotPoses3dKey.record(allRobotPoses3d.toArray(Pose3d[]::new));
+        }
 
-            // Log the demo tag pose and its ID
-            if (demoTagPose == null) {
-                Logger.recordOutput("AprilTagVision/DemoTagPose", new Pose3d[]{});
-            } else {
-                Logger.recordOutput("AprilTagVision/DemoTagPose", demoTagPose);
+        // Log all recently detected tag poses
+        allTagPoses.clear();
+        for (int tagId = 0; tagId <= maxTrackedTagId; tagId++) {
+            if (now - lastTagDetectionTimes[tagId] < targetLogTimeSecs && layoutTagPoses[tagId] != null) {
+                allTagPoses.add(layoutTagPoses[tagId]);
             }
-            Logger.recordOutput("AprilTagVision/DemoTagPoseId", new long[]{29});
+        }
+        if (tagPosesKey.isDue()) {
+            tagPosesKey.record(allTagPoses.toArray(Pose3d[]::new));
+        }
 
+        // Log the demo tag pose and its ID
+        demoTagPose = worker.getDemoTagPose();
+        if (demoTagPose == null) {
+            demoTagPoseKey.record(emptyPoses);
+        } else {
+            demoTagPoseScratch[0] = demoTagPose;
+            demoTagPoseKey.record(demoTagPoseScratch, 1);
         }
+        demoTagPoseIdKey.record(demoTagPoseId);
+
+        // Log worker statistics
+        framesReceivedKey.record(worker.getFramesReceived());
+        framesAcceptedKey.record(worker.getFramesAccepted());
+        framesDroppedKey.record(observationQueue.getDroppedCount());
+        workerCycleKey.record(worker.getLastCycleMillis());
+
         RobotState.getInstance().setDemoTagPose(demoTagPose);
+    }
 
+    // Caches the layout tag poses by id so logging does not look them up through Optionals
+    private void updateLayoutTagPoses(AprilTagFieldLayout layout) {
+        if (layout == cachedLayout) {
+            return;
+        }
+        cachedLayout = layout;
+        layoutTagPoses = new Pose3d[maxTrackedTagId + 1];
+        for (AprilTag tag : layout.getTags()) {
+            if (tag.ID >= 0 && tag.ID <= maxTrackedTagId) {
+                layoutTagPoses[tag.ID] = tag.pose;
+            }
+        }
     }
 
+    // Builds a Pose3d of the robot from a decoded observation, only used for logging and getters
+    private static Pose3d toRobotPose3d(AprilTagFrameDecoder.Observation observation) {
+        return new Pose3d(
+                observation.robotX,
+                observation.robotY,
+                observation.robotZ,
+                new Rotation3d(new Quaternion(
+                        observation.robotQw, observation.robotQx, observation.robotQy, observation.robotQz)));
+    }
 
     // Return the closest detected tag pose to the robot's current pose
     public Pose3d getClosestTagPose() {
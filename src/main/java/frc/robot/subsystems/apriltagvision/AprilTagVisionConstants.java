@@ -25,6 +25,8 @@ public class AprilTagVisionConstants {
     public static final double xyStdDevCoefficient = 0.005;
     // Coefficient for calculating standard deviation in theta (rotation) estimate
     public static final double thetaStdDevCoefficient = 0.01;
+    // Capacity of the queue handing validated observations from the vision worker to the main loop
+    public static final int observationQueueCapacity = 64;
 
     // Factors used for scaling standard deviations in the camera measurements
     public static final double[] stdDevFactors = new double[]{1.0, 1, 1.0, 1};
@@ -15,6 +15,10 @@ public interface AprilTagVisionIO {
     default void updateInputs(AprilTagVisionIOInputs inputs) {
     }
 
+    // Registers a callback run whenever new frames arrive, called from the NetworkTables listener thread
+    default void setFrameListener(Runnable listener) {
+    }
+
     // Class representing the input data for the AprilTag vision system
     class AprilTagVisionIOInputs implements LoggableInputs {
         // Array of timestamps corresponding to each frame
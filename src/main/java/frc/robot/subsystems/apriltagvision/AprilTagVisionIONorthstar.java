@@ -10,6 +10,7 @@ package frc.robot.subsystems.apriltagvision;
 import edu.wpi.first.networktables.*;
 import edu.wpi.first.wpilibj.Timer;
  
+import java.util.EnumSet;
 import java.util.function.Supplier;
  
 import static frc.robot.subsystems.apriltagvision.AprilTagVisionConstants.cameraIds;
@@ -73,6 +74,15 @@ public class AprilTagVisionIONorthstar implements AprilTagVisionIO {
         disconnectedTimer.start();
     }
  
+    // Wakes the listener whenever Northstar publishes an observation or demo observation.
+    @Override
+    public void setFrameListener(Runnable listener) {
+        var instance = NetworkTableInstance.getDefault();
+        var kinds = EnumSet.of(NetworkTableEvent.Kind.kValueAll);
+        instance.addListener(observationSubscriber, kinds, event -> listener.run());
+        instance.addListener(demoObservationSubscriber, kinds, event -> listener.run());
+    }
+ 
     // Updates the inputs with the latest data from the NetworkTables.
     // Publishes the current AprilTag layout and retrieves observations and FPS information.
     public void updateInputs(AprilTagVisionIOInputs inputs) {
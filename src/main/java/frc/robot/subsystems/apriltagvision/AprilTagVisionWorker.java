@@ -0,0 +1,240 @@
+package frc.robot.subsystems.apriltagvision;
+
+import edu.wpi.first.math.geometry.*;
+import edu.wpi.first.wpilibj.SerialPort;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.FieldConstants.AprilTagLayoutType;
+import frc.robot.RobotConstants;
+import org.littletonrobotics.RobotState;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Supplier;
+
+import static frc.robot.subsystems.apriltagvision.AprilTagVisionConstants.*;
+import static frc.robot.subsystems.apriltagvision.AprilTagVisionIO.AprilTagVisionIOInputs;
+
+// Reads, decodes and filters AprilTag frames off the main loop
+// NetworkTables listeners wake the worker when frames arrive, validated observations are handed to the
+// main loop through a bounded queue and frames that do not fit are counted as dropped
+public class AprilTagVisionWorker extends Thread {
+    // Longest time the worker sleeps without frames, keeps the layout publisher and serial heartbeat alive
+    private static final long IDLE_WAIT_MILLIS = 100;
+    private static final double demoTagPosePersistenceSecs = 0.5;
+
+    private final Supplier<AprilTagLayoutType> aprilTagTypeSupplier;
+    private final AprilTagVisionIO[] io;
+    private final AprilTagVisionIOInputs[] inputs;
+    private final AprilTagFrameDecoder decoder;
+    private final VisionObservationQueue queue;
+    private final SerialPort serial;
+
+    private final Object lock = new Object();
+    private boolean framesPending = false;
+    private volatile boolean running = true;
+
+    // Written by the main loop, read by the worker
+    private volatile double timestampOffset = 0.0;
+
+    // Written by the worker, read by the main loop
+    private volatile Pose3d demoTagPose = null;
+    private double lastDemoTagPoseTimestamp = 0.0;
+    private double lastSerialTimestamp = 0.0;
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong framesAccepted = new AtomicLong();
+    private final AtomicLongArray fps;
+    private volatile double lastCycleMillis = 0.0;
+
+    public AprilTagVisionWorker(Supplier<AprilTagLayoutType> aprilTagTypeSupplier, AprilTagVisionIO[] io,
+                                DoubleUnaryOperator referenceYaw, VisionObservationQueue queue, SerialPort serial) {
+        this.aprilTagTypeSupplier = aprilTagTypeSupplier;
+        this.io = io;
+        this.queue = queue;
+        this.serial = serial;
+        inputs = new AprilTagVisionIOInputs[io.length];
+        for (int i = 0; i < io.length; i++) {
+            inputs[i] = new AprilTagVisionIOInputs();
+            io[i].setFrameListener(this::wake);
+        }
+        fps = new AtomicLongArray(io.length);
+        decoder = new AprilTagFrameDecoder(io.length, referenceYaw);
+
+        setName("AprilTagVisionWorker");
+        setDaemon(true);
+    }
+
+    // Signals that new frames are available, safe to call from any thread
+    public void wake() {
+        synchronized (lock) {
+            framesPending = true;
+            lock.notifyAll();
+        }
+    }
+
+    // Stops the worker after the current cycle
+    public void shutdown() {
+        running = false;
+        wake();
+    }
+
+    // Sets the offset added to every frame timestamp
+    public void setTimestampOffset(double offset) {
+        timestampOffset = offset;
+    }
+
+    // Returns the latest resolved demo tag pose, or null when none was seen recently
+    public Pose3d getDemoTagPose() {
+        return demoTagPose;
+    }
+
+    // Returns the number of frames read from the cameras
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    // Returns the number of frames that produced a valid observation
+    public long getFramesAccepted() {
+        return framesAccepted.get();
+    }
+
+    // Returns the last reported camera frame rate of an instance
+    public long getFps(int instanceIndex) {
+        return fps.get(instanceIndex);
+    }
+
+    // Returns how long the last worker cycle took
+    public double getLastCycleMillis() {
+        return lastCycleMillis;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            synchronized (lock) {
+                if (!framesPending) {
+                    try {
+                        lock.wait(IDLE_WAIT_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                framesPending = false;
+            }
+            if (!running) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            processFrames();
+            lastCycleMillis = (System.nanoTime() - start) / 1e6;
+        }
+    }
+
+    private void processFrames() {
+        double now = Timer.getFPGATimestamp();
+        double offset = timestampOffset;
+        decoder.setLayout(aprilTagTypeSupplier.get().getLayout());
+        decoder.resetPool();
+
+        for (int instanceIndex = 0; instanceIndex < io.length; instanceIndex++) {
+            io[instanceIndex].updateInputs(inputs[instanceIndex]);
+            fps.set(instanceIndex, inputs[instanceIndex].fps);
+
+            double[] timestamps = inputs[instanceIndex].timestamps;
+            double[][] frames = inputs[instanceIndex].frames;
+            framesReceived.addAndGet(timestamps.length);
+            for (int frameIndex = 0; frameIndex < timestamps.length; frameIndex++) {
+                AprilTagFrameDecoder.Observation observation = decoder.next();
+                if (decoder.decode(instanceIndex, timestamps[frameIndex] + offset, frames[frameIndex], now, observation)) {
+                    decoder.commit();
+                    framesAccepted.incrementAndGet();
+                    queue.offer(observation);
+                }
+            }
+
+            // Record demo tag pose if available
+            if (inputs[instanceIndex].demoFrame.length > 0) {
+                updateDemoTagPose(instanceIndex, inputs[instanceIndex].demoFrame, now);
+            }
+        }
+
+        // Clear demo tag pose if it's been too long since last detection
+        if (now - lastDemoTagPoseTimestamp > demoTagPosePersistenceSecs) {
+            demoTagPose = null;
+        }
+
+        // Serial heartbeat, at most once per main loop period so frame bursts do not flood the port
+        if (now - lastSerialTimestamp >= RobotConstants.LOOPER_DT) {
+            lastSerialTimestamp = now;
+            serial.writeString("OK");
+            serial.flush();
+        }
+    }
+
+    // Resolves the demo tag pose from a demo frame, preferring the candidate closest to the previous pose
+    private void updateDemoTagPose(int instanceIndex, double[] values, double now) {
+        Pose3d previousDemoTagPose = demoTagPose;
+        double error0 = values[0];
+        double error1 = values[8];
+        Pose3d fieldToCameraPose =
+                new Pose3d(RobotState.getInstance().getEstimatedPose())
+                        .transformBy(cameraPoses[instanceIndex].toTransform3d());
+        Pose3d fieldToTagPose0 =
+                fieldToCameraPose.transformBy(
+                        new Transform3d(
+                                new Translation3d(values[1], values[2], values[3]),
+                                new Rotation3d(new Quaternion(values[4], values[5], values[6], values[7]))));
+        Pose3d fieldToTagPose1 =
+                fieldToCameraPose.transformBy(
+                        new Transform3d(
+                                new Translation3d(values[9], values[10], values[11]),
+                                new Rotation3d(
+                                        new Quaternion(values[12], values[13], values[14], values[15]))));
+        Pose3d fieldToTagPose;
+
+        // Determine the best pose based on error values and ambiguity threshold
+        if (previousDemoTagPose == null && error0 < error1) {
+            fieldToTagPose = fieldToTagPose0;
+        } else if (previousDemoTagPose == null && error0 >= error1) {
+            fieldToTagPose = fieldToTagPose1;
+        } else if (error0 < error1 * ambiguityThreshold) {
+            fieldToTagPose = fieldToTagPose0;
+        } else if (error1 < error0 * ambiguityThreshold) {
+            fieldToTagPose = fieldToTagPose1;
+        } else {
+            var pose0Quaternion = fieldToTagPose0.getRotation().getQuaternion();
+            var pose1Quaternion = fieldToTagPose1.getRotation().getQuaternion();
+            var referenceQuaternion = previousDemoTagPose.getRotation().getQuaternion();
+            double pose0Distance =
+                    Math.acos(
+                            pose0Quaternion.getW() * referenceQuaternion.getW()
+                                    + pose0Quaternion.getX() * referenceQuaternion.getX()
+                                    + pose0Quaternion.getY() * referenceQuaternion.getY()
+                                    + pose0Quaternion.getZ() * referenceQuaternion.getZ());
+            double pose1Distance =
+                    Math.acos(
+                            pose1Quaternion.getW() * referenceQuaternion.getW()
+                                    + pose1Quaternion.getX() * referenceQuaternion.getX()
+                                    + pose1Quaternion.getY() * referenceQuaternion.getY()
+                                    + pose1Quaternion.getZ() * referenceQuaternion.getZ());
+            if (pose0Distance > Math.PI / 2) {
+                pose0Distance = Math.PI - pose0Distance;
+            }
+            if (pose1Distance > Math.PI / 2) {
+                pose1Distance = Math.PI - pose1Distance;
+            }
+            if (pose0Distance < pose1Distance) {
+                fieldToTagPose = fieldToTagPose0;
+            } else {
+                fieldToTagPose = fieldToTagPose1;
+            }
+        }
+
+        // Save the determined pose if it's not null
+        if (fieldToTagPose != null) {
+            demoTagPose = fieldToTagPose;
+            lastDemoTagPoseTimestamp = now;
+        }
+    }
+}
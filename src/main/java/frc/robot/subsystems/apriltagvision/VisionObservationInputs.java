@@ -0,0 +1,151 @@
+package frc.robot.subsystems.apriltagvision;
+
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+import java.util.Arrays;
+
+// The validated observations drained from a VisionObservationQueue in one cycle, logged as AdvantageKit inputs so
+// the localizer can be fed from a log in replay instead of from the vision worker
+// Holds the same fields the queue carries, tags packed as one bit per id
+public class VisionObservationInputs implements LoggableInputs {
+    private static final int MAX_TAG_ID = 63;
+
+    public int count = 0;
+    public long[] instanceIndex = new long[0];
+    public double[] timestamps = new double[0];
+    public double[] robotX = new double[0];
+    public double[] robotY = new double[0];
+    public double[] robotZ = new double[0];
+    public double[] robotQw = new double[0];
+    public double[] robotQx = new double[0];
+    public double[] robotQy = new double[0];
+    public double[] robotQz = new double[0];
+    public double[] robotYaw = new double[0];
+    public double[] xyStdDev = new double[0];
+    public double[] thetaStdDev = new double[0];
+    public double[] averageTagDistance = new double[0];
+    public boolean[] useVisionRotation = new boolean[0];
+    public long[] tagMask = new long[0];
+
+    // Replaces the observations with every observation currently queued, polled through the given holder
+    public void drain(VisionObservationQueue queue, AprilTagFrameDecoder.Observation observation) {
+        count = 0;
+        while (queue.poll(observation)) {
+            ensureCapacity(count + 1);
+            instanceIndex[count] = observation.instanceIndex;
+            timestamps[count] = observation.timestamp;
+            robotX[count] = observation.robotX;
+            robotY[count] = observation.robotY;
+            robotZ[count] = observation.robotZ;
+            robotQw[count] = observation.robotQw;
+            robotQx[count] = observation.robotQx;
+            robotQy[count] = observation.robotQy;
+            robotQz[count] = observation.robotQz;
+            robotYaw[count] = observation.robotYaw;
+            xyStdDev[count] = observation.xyStdDev;
+            thetaStdDev[count] = observation.thetaStdDev;
+            averageTagDistance[count] = observation.averageTagDistance;
+            useVisionRotation[count] = observation.useVisionRotation;
+            long tags = 0L;
+            for (int i = 0; i < observation.tagCount; i++) {
+                int tagId = observation.tagIds[i];
+                if (tagId >= 0 && tagId <= MAX_TAG_ID) {
+                    tags |= 1L << tagId;
+                }
+            }
+            tagMask[count] = tags;
+            count++;
+        }
+    }
+
+    // Copies one observation into out, the camera fields of out are left untouched like in the queue
+    public void get(int index, AprilTagFrameDecoder.Observation out) {
+        out.instanceIndex = (int) instanceIndex[index];
+        out.timestamp = timestamps[index];
+        out.robotX = robotX[index];
+        out.robotY = robotY[index];
+        out.robotZ = robotZ[index];
+        out.robotQw = robotQw[index];
+        out.robotQx = robotQx[index];
+        out.robotQy = robotQy[index];
+        out.robotQz = robotQz[index];
+        out.robotYaw = robotYaw[index];
+        out.xyStdDev = xyStdDev[index];
+        out.thetaStdDev = thetaStdDev[index];
+        out.averageTagDistance = averageTagDistance[index];
+        out.useVisionRotation = useVisionRotation[index];
+        out.tagCount = 0;
+        long tags = tagMask[index];
+        while (tags != 0L) {
+            int tagId = Long.numberOfTrailingZeros(tags);
+            if (out.tagCount == out.tagIds.length) {
+                out.tagIds = Arrays.copyOf(out.tagIds, out.tagIds.length * 2);
+            }
+            out.tagIds[out.tagCount++] = tagId;
+            tags &= tags - 1;
+        }
+    }
+
+    private void ensureCapacity(int observations) {
+        if (timestamps.length >= observations) {
+            return;
+        }
+        int size = Math.max(Math.max(4, observations), timestamps.length * 2);
+        instanceIndex = Arrays.copyOf(instanceIndex, size);
+        timestamps = Arrays.copyOf(timestamps, size);
+        robotX = Arrays.copyOf(robotX, size);
+        robotY = Arrays.copyOf(robotY, size);
+        robotZ = Arrays.copyOf(robotZ, size);
+        robotQw = Arrays.copyOf(robotQw, size);
+        robotQx = Arrays.copyOf(robotQx, size);
+        robotQy = Arrays.copyOf(robotQy, size);
+        robotQz = Arrays.copyOf(robotQz, size);
+        robotYaw = Arrays.copyOf(robotYaw, size);
+        xyStdDev = Arrays.copyOf(xyStdDev, size);
+        thetaStdDev = Arrays.copyOf(thetaStdDev, size);
+        averageTagDistance = Arrays.copyOf(averageTagDistance, size);
+        useVisionRotation = Arrays.copyOf(useVisionRotation, size);
+        tagMask = Arrays.copyOf(tagMask, size);
+    }
+
+    // Logs only the filled part of the arrays
+    @Override
+    public void toLog(LogTable table) {
+        table.put("InstanceIndex", Arrays.copyOf(instanceIndex, count));
+        table.put("Timestamps", Arrays.copyOf(timestamps, count));
+        table.put("RobotX", Arrays.copyOf(robotX, count));
+        table.put("RobotY", Arrays.copyOf(robotY, count));
+        table.put("RobotZ", Arrays.copyOf(robotZ, count));
+        table.put("RobotQw", Arrays.copyOf(robotQw, count));
+        table.put("RobotQx", Arrays.copyOf(robotQx, count));
+        table.put("RobotQy", Arrays.copyOf(robotQy, count));
+        table.put("RobotQz", Arrays.copyOf(robotQz, count));
+        table.put("RobotYaw", Arrays.copyOf(robotYaw, count));
+        table.put("XyStdDev", Arrays.copyOf(xyStdDev, count));
+        table.put("ThetaStdDev", Arrays.copyOf(thetaStdDev, count));
+        table.put("AverageTagDistance", Arrays.copyOf(averageTagDistance, count));
+        table.put("UseVisionRotation", Arrays.copyOf(useVisionRotation, count));
+        table.put("TagMask", Arrays.copyOf(tagMask, count));
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+        instanceIndex = table.get("InstanceIndex", new long[0]);
+        timestamps = table.get("Timestamps", new double[0]);
+        robotX = table.get("RobotX", new double[0]);
+        robotY = table.get("RobotY", new double[0]);
+        robotZ = table.get("RobotZ", new double[0]);
+        robotQw = table.get("RobotQw", new double[0]);
+        robotQx = table.get("RobotQx", new double[0]);
+        robotQy = table.get("RobotQy", new double[0]);
+        robotQz = table.get("RobotQz", new double[0]);
+        robotYaw = table.get("RobotYaw", new double[0]);
+        xyStdDev = table.get("XyStdDev", new double[0]);
+        thetaStdDev = table.get("ThetaStdDev", new double[0]);
+        averageTagDistance = table.get("AverageTagDistance", new double[0]);
+        useVisionRotation = table.get("UseVisionRotation", new boolean[0]);
+        tagMask = table.get("TagMask", new long[0]);
+        count = timestamps.length;
+    }
+}
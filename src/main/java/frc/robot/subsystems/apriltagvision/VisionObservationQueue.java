@@ -0,0 +1,130 @@
+package frc.robot.subsystems.apriltagvision;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free single-producer single-consumer ring of validated vision observations stored in primitive arrays
+// The vision worker offers decoded observations and the main loop polls them into a reused holder
+public class VisionObservationQueue {
+    private static final int MAX_TAG_ID = 63;
+
+    private final int capacity;
+    private final int mask;
+    private final int[] instanceIndex;
+    private final double[] timestamps;
+    private final double[] robotX;
+    private final double[] robotY;
+    private final double[] robotZ;
+    private final double[] robotQw;
+    private final double[] robotQx;
+    private final double[] robotQy;
+    private final double[] robotQz;
+    private final double[] robotYaw;
+    private final double[] xyStdDev;
+    private final double[] thetaStdDev;
+    private final double[] averageTagDistance;
+    private final boolean[] useVisionRotation;
+    // Detected tag ids packed as one bit per id, ids above MAX_TAG_ID are not carried
+    private final long[] tagMask;
+    // Monotonic counters, the slot of an observation is its counter masked by the capacity
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Creates a queue holding at least the given number of observations, rounded up to a power of two
+    public VisionObservationQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        instanceIndex = new int[size];
+        timestamps = new double[size];
+        robotX = new double[size];
+        robotY = new double[size];
+        robotZ = new double[size];
+        robotQw = new double[size];
+        robotQx = new double[size];
+        robotQy = new double[size];
+        robotQz = new double[size];
+        robotYaw = new double[size];
+        xyStdDev = new double[size];
+        thetaStdDev = new double[size];
+        averageTagDistance = new double[size];
+        useVisionRotation = new boolean[size];
+        tagMask = new long[size];
+    }
+
+    // Producer side: copies one observation, dropping it when the consumer has fallen a full buffer behind
+    public boolean offer(AprilTagFrameDecoder.Observation observation) {
+        long write = writeIndex.get();
+        if (write - readIndex.get() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) (write & mask);
+        instanceIndex[slot] = observation.instanceIndex;
+        timestamps[slot] = observation.timestamp;
+        robotX[slot] = observation.robotX;
+        robotY[slot] = observation.robotY;
+        robotZ[slot] = observation.robotZ;
+        robotQw[slot] = observation.robotQw;
+        robotQx[slot] = observation.robotQx;
+        robotQy[slot] = observation.robotQy;
+        robotQz[slot] = observation.robotQz;
+        robotYaw[slot] = observation.robotYaw;
+        xyStdDev[slot] = observation.xyStdDev;
+        thetaStdDev[slot] = observation.thetaStdDev;
+        averageTagDistance[slot] = observation.averageTagDistance;
+        useVisionRotation[slot] = observation.useVisionRotation;
+        long tags = 0L;
+        for (int i = 0; i < observation.tagCount; i++) {
+            int tagId = observation.tagIds[i];
+            if (tagId >= 0 && tagId <= MAX_TAG_ID) {
+                tags |= 1L << tagId;
+            }
+        }
+        tagMask[slot] = tags;
+        writeIndex.lazySet(write + 1);
+        return true;
+    }
+
+    // Consumer side: copies the oldest observation into out, returns false when the queue is empty
+    // Camera fields of out are left untouched, only the robot pose and tags travel through the queue
+    public boolean poll(AprilTagFrameDecoder.Observation out) {
+        long read = readIndex.get();
+        if (read >= writeIndex.get()) {
+            return false;
+        }
+        int slot = (int) (read & mask);
+        out.instanceIndex = instanceIndex[slot];
+        out.timestamp = timestamps[slot];
+        out.robotX = robotX[slot];
+        out.robotY = robotY[slot];
+        out.robotZ = robotZ[slot];
+        out.robotQw = robotQw[slot];
+        out.robotQx = robotQx[slot];
+        out.robotQy = robotQy[slot];
+        out.robotQz = robotQz[slot];
+        out.robotYaw = robotYaw[slot];
+        out.xyStdDev = xyStdDev[slot];
+        out.thetaStdDev = thetaStdDev[slot];
+        out.averageTagDistance = averageTagDistance[slot];
+        out.useVisionRotation = useVisionRotation[slot];
+        out.tagCount = 0;
+        long tags = tagMask[slot];
+        while (tags != 0L) {
+            int tagId = Long.numberOfTrailingZeros(tags);
+            if (out.tagCount == out.tagIds.length) {
+                out.tagIds = Arrays.copyOf(out.tagIds, out.tagIds.length * 2);
+            }
+            out.tagIds[out.tagCount++] = tagId;
+            tags &= tags - 1;
+        }
+        readIndex.lazySet(read + 1);
+        return true;
+    }
+
+    // Returns the number of observations dropped because the queue was full
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
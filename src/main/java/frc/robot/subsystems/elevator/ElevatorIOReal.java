@@ -1,6 +1,5 @@
 package frc.robot.subsystems.elevator;
 
-import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
 import com.ctre.phoenix6.configs.MotionMagicConfigs;
@@ -15,6 +14,8 @@ import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 import edu.wpi.first.units.measure.*;
 import frc.robot.RobotConstants;
+import org.frcteam6941.drivers.DeviceConfigurator;
+import org.frcteam6941.drivers.StatusSignalRegistry;
 
 import static frc.robot.RobotConstants.*;
 import static frc.robot.RobotConstants.ElevatorConstants.*;
@@ -48,6 +49,9 @@ public class ElevatorIOReal implements ElevatorIO {
     private final StatusSignal<Temperature> tempLeft;
     private final StatusSignal<Temperature> tempRight;
     private final StatusSignal<Double> closedLoopReferenceSlope;
+    private final StatusSignal<Double> closedLoopReference;
+    private final StatusSignal<Angle> position;
+    private final StatusSignal<AngularVelocity> velocity;
 
     public ElevatorIOReal() {
         this.leader = new TalonFX(LEFT_ELEVATOR_MOTOR_ID, CANIVORE_CAN_BUS_NAME);
@@ -98,43 +102,43 @@ public class ElevatorIOReal implements ElevatorIO {
         statorLeft = leader.getStatorCurrent();
         statorRight = follower.getStatorCurrent();
         supplyLeft = leader.getSupplyCurrent();
-        supplyRight = leader.getSupplyCurrent();
+        supplyRight = follower.getSupplyCurrent();
         tempLeft = leader.getDeviceTemp();
         tempRight = follower.getDeviceTemp();
         closedLoopReferenceSlope = leader.getClosedLoopReferenceSlope();
+        closedLoopReference = leader.getClosedLoopReference();
+        position = leader.getPosition();
+        velocity = leader.getVelocity();
+        StatusSignalRegistry.getInstance().register(CANIVORE_CAN_BUS_NAME,
+                voltageLeft, voltageRight, statorLeft, statorRight, supplyLeft, supplyRight,
+                tempLeft, tempRight, closedLoopReferenceSlope, closedLoopReference, position, velocity);
 
         follower.setControl(new Follower(leader.getDeviceID(), true));
     }
 
     @Override
     public void updateInputs(ElevatorIOInputs inputs) {
-        BaseStatusSignal.refreshAll();
-
         inputs.positionMeters = getHeight();
         inputs.velocityMetersPerSec = getVelocity();
-        inputs.motionMagicVelocityTarget = rotationsToMeters(leader.getClosedLoopReferenceSlope().getValue());
-        inputs.motionMagicPositionTarget = rotationsToMeters(leader.getClosedLoopReference().getValue());
+        inputs.motionMagicVelocityTarget = rotationsToMeters(closedLoopReferenceSlope.getValueAsDouble());
+        inputs.motionMagicPositionTarget = rotationsToMeters(closedLoopReference.getValueAsDouble());
         inputs.appliedVolts = new double[] { voltageLeft.getValueAsDouble(), voltageRight.getValueAsDouble() };
         inputs.statorCurrentAmps = new double[] { statorLeft.getValueAsDouble(), statorRight.getValueAsDouble() };
         inputs.supplyCurrentAmps = new double[] { supplyLeft.getValueAsDouble(), supplyRight.getValueAsDouble() };
         inputs.tempCelsius = new double[] { tempLeft.getValueAsDouble(), tempRight.getValueAsDouble() };
 
         if (RobotConstants.TUNING) {
-            slot0Configs.kA = ELEVATOR_KA.get();
-            slot0Configs.kS = ELEVATOR_KS.get();
-            slot0Configs.kV = ELEVATOR_KV.get();
-            slot0Configs.kP = ELEVATOR_KP.get();
-            slot0Configs.kI = ELEVATOR_KI.get();
-            slot0Configs.kD = ELEVATOR_KD.get();
-
-            motionMagicConfigs.MotionMagicAcceleration = motionAcceleration.get();
-            motionMagicConfigs.MotionMagicCruiseVelocity = motionCruiseVelocity.get();
-            motionMagicConfigs.MotionMagicJerk = motionJerk.get();
-
-            leaderConfigurator.apply(slot0Configs);
-            followerConfigurator.apply(slot0Configs);
-            leaderConfigurator.apply(motionMagicConfigs);
-            followerConfigurator.apply(motionMagicConfigs);
+            DeviceConfigurator configurator = DeviceConfigurator.getInstance();
+            configurator.submitSlot0("Elevator/Leader/Slot0", leaderConfigurator, ELEVATOR_KP.get(), ELEVATOR_KI.get(),
+                    ELEVATOR_KD.get(), ELEVATOR_KA.get(), ELEVATOR_KV.get(), ELEVATOR_KS.get());
+            configurator.submitSlot0("Elevator/Follower/Slot0", followerConfigurator, ELEVATOR_KP.get(), ELEVATOR_KI.get(),
+                    ELEVATOR_KD.get(), ELEVATOR_KA.get(), ELEVATOR_KV.get(), ELEVATOR_KS.get());
+
+            // Tracked per motor by the configurator, so a failed apply is retried for that motor only
+            configurator.submitMotionMagic("Elevator/Leader/MotionMagic", leaderConfigurator,
+                    motionAcceleration.get(), motionCruiseVelocity.get(), motionJerk.get());
+            configurator.submitMotionMagic("Elevator/Follower/MotionMagic", followerConfigurator,
+                    motionAcceleration.get(), motionCruiseVelocity.get(), motionJerk.get());
         }
     }
 
@@ -155,7 +159,7 @@ public class ElevatorIOReal implements ElevatorIO {
     }
 
     public double getLeaderCurrent(){
-        return leader.getStatorCurrent().getValueAsDouble();
+        return statorLeft.getValueAsDouble();
     }
 
     @Override
@@ -166,11 +170,11 @@ public class ElevatorIOReal implements ElevatorIO {
 
 
     private double getHeight() {
-        return rotationsToMeters(leader.getPosition().getValueAsDouble());
+        return rotationsToMeters(position.getValueAsDouble());
     }
 
     private double getVelocity() {
-        return rotationsToMeters(leader.getVelocity().getValueAsDouble());
+        return rotationsToMeters(velocity.getValueAsDouble());
     }
 
     private double metersToRotations(double heightMeters) {
@@ -2,7 +2,6 @@ package frc.robot.subsystems.intake;
 
 import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
-import com.ctre.phoenix6.configs.Slot0Configs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.MotionMagicVoltage;
 import com.ctre.phoenix6.controls.VoltageOut;
@@ -18,8 +17,12 @@ import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Temperature;
 import edu.wpi.first.units.measure.Voltage;
 import frc.robot.RobotConstants;
+import org.frcteam6941.drivers.DeviceConfigurator;
+import org.frcteam6941.drivers.StatusSignalRegistry;
 
 public class IntakePivotIOReal implements IntakePivotIO {
+    private static final String CONFIG_KEY = "IntakePivot/Slot0";
+
     private final TalonFX motor = new TalonFX(RobotConstants.intakeConstants.INTAKER_PIVOT_MOTOR_ID,
             RobotConstants.CAN_BUS_NAME);
 
@@ -30,7 +33,6 @@ public class IntakePivotIOReal implements IntakePivotIO {
     private final StatusSignal<Temperature> tempCelsius = motor.getDeviceTemp();
     private final StatusSignal<Angle> motorPositionRotations = motor.getPosition();
 
-    private final Slot0Configs slot0Configs = new Slot0Configs();
 
     private final VoltageOut voltageOut = new VoltageOut(0.0).withEnableFOC(true);
     private final MotionMagicVoltage motionMagic = new MotionMagicVoltage(0.0).withEnableFOC(true);
@@ -56,18 +58,18 @@ public class IntakePivotIOReal implements IntakePivotIO {
                 supplyCurrentAmps,
                 statorCurrentAmps,
                 motorPositionRotations);
-    }
-
-    @Override
-    public void updateInputs(IntakePivotIOInputs inputs) {
-        BaseStatusSignal.refreshAll(
+        StatusSignalRegistry.getInstance().register(
+                RobotConstants.CAN_BUS_NAME,
                 velocityRotationsPerSec,
                 tempCelsius,
                 appliedVolts,
                 supplyCurrentAmps,
                 statorCurrentAmps,
                 motorPositionRotations);
+    }
 
+    @Override
+    public void updateInputs(IntakePivotIOInputs inputs) {
         inputs.velocityRotationsPerSec = velocityRotationsPerSec.getValueAsDouble();
         inputs.tempCelsius = tempCelsius.getValue().in(Units.Celsius);
         inputs.appliedVolts = appliedVolts.getValueAsDouble();
@@ -75,13 +77,8 @@ public class IntakePivotIOReal implements IntakePivotIO {
         inputs.statorCurrentAmps = statorCurrentAmps.getValueAsDouble();
         inputs.position = Rotation2d.fromRotations(motorPositionRotations.getValueAsDouble());
 
-        motor.getConfigurator().apply(new Slot0Configs()
-                .withKP(inputs.intakePivotKP)
-                .withKI(inputs.intakePivotKI)
-                .withKD(inputs.intakePivotKD)
-                .withKA(inputs.intakePivotKA)
-                .withKV(inputs.intakePivotKV)
-                .withKS(inputs.intakePivotKS));
+        updateConfigs(inputs.intakePivotKP, inputs.intakePivotKI, inputs.intakePivotKD,
+                inputs.intakePivotKA, inputs.intakePivotKV, inputs.intakePivotKS);
     }
 
     @Override
@@ -91,13 +88,7 @@ public class IntakePivotIOReal implements IntakePivotIO {
 
     @Override
     public void updateConfigs(double kp, double ki, double kd, double ka, double kv, double ks) {
-        slot0Configs.withKP(kp);
-        slot0Configs.withKI(ki);
-        slot0Configs.withKD(kd);
-        slot0Configs.withKA(ka);
-        slot0Configs.withKV(kv);
-        slot0Configs.withKS(ks);
-        motor.getConfigurator().apply(slot0Configs);
+        DeviceConfigurator.getInstance().submitSlot0(CONFIG_KEY, motor.getConfigurator(), kp, ki, kd, ka, kv, ks);
     }
 
     @Override
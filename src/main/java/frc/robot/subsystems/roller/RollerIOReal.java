@@ -2,7 +2,6 @@ package frc.robot.subsystems.roller;
 
 import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
-import com.ctre.phoenix6.configs.Slot0Configs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.VelocityVoltage;
 import com.ctre.phoenix6.hardware.TalonFX;
@@ -15,11 +14,13 @@ import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Temperature;
 import edu.wpi.first.units.measure.Voltage;
+import org.frcteam6941.drivers.DeviceConfigurator;
+import org.frcteam6941.drivers.StatusSignalRegistry;
 
 public class RollerIOReal implements RollerIO {
     private final TalonFX motor;
     private final double reduction;
-    private final Slot0Configs slot0Configs = new Slot0Configs();
+    private final String configKey;
 
     private final VoltageOut voltageOut = new VoltageOut(0.0).withEnableFOC(true);
     private final VelocityVoltage velocityVoltage = new VelocityVoltage(0.0).withEnableFOC(true).withSlot(0);
@@ -33,6 +34,7 @@ public class RollerIOReal implements RollerIO {
     public RollerIOReal(int id, String canbus, int statorCurrentLimitAmps, int supplyCurrentLimitAmps, boolean invert, boolean brake, double reduction) {
         this.motor = new TalonFX(id, canbus);
         this.reduction = reduction;
+        this.configKey = "TalonFX" + id + "@" + canbus + "/Slot0";
         
         TalonFXConfiguration config = new TalonFXConfiguration();
         config.MotorOutput.Inverted = invert ? InvertedValue.Clockwise_Positive : InvertedValue.CounterClockwise_Positive;
@@ -51,13 +53,14 @@ public class RollerIOReal implements RollerIO {
 
         BaseStatusSignal.setUpdateFrequencyForAll(50.0, velocityRotPerSec, appliedVolts, statorCurrentAmps,
                 supplyCurrentAmps, tempCelsius);
+        StatusSignalRegistry.getInstance().register(canbus, velocityRotPerSec, appliedVolts, statorCurrentAmps,
+                supplyCurrentAmps, tempCelsius);
 
         motor.optimizeBusUtilization();
     }
 
     @Override
     public void updateInputs(RollerIOInputs inputs) {
-        BaseStatusSignal.refreshAll(velocityRotPerSec, appliedVolts, statorCurrentAmps, supplyCurrentAmps, tempCelsius);
         inputs.velocityRotPerSec = velocityRotPerSec.getValueAsDouble();
         inputs.appliedVolts = appliedVolts.getValueAsDouble();
         inputs.statorCurrentAmps = statorCurrentAmps.getValueAsDouble();
@@ -67,13 +70,7 @@ public class RollerIOReal implements RollerIO {
 
     @Override
     public void updateConfigs(double kp, double ki, double kd, double ka, double kv, double ks) {
-        slot0Configs.withKP(kp);
-        slot0Configs.withKI(ki);
-        slot0Configs.withKD(kd);
-        slot0Configs.withKA(ka);
-        slot0Configs.withKV(kv);
-        slot0Configs.withKS(ks);
-        motor.getConfigurator().apply(slot0Configs);
+        DeviceConfigurator.getInstance().submitSlot0(configKey, motor.getConfigurator(), kp, ki, kd, ka, kv, ks);
     }
 
     @Override
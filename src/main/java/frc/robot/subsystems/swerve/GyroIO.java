@@ -0,0 +1,23 @@
+package frc.robot.subsystems.swerve;
+
+import org.littletonrobotics.junction.AutoLog;
+
+// Hardware layer of the drivetrain gyro, the default methods do nothing so replay runs on the logged inputs alone
+public interface GyroIO {
+    @AutoLog
+    class GyroIOInputs {
+        public boolean connected = false;
+        public double yawDegrees = 0.0;
+        public double pitchDegrees = 0.0;
+        public double rollDegrees = 0.0;
+        public double yawVelocityDegPerSec = 0.0;
+    }
+
+    public default void updateInputs(GyroIOInputs inputs) {}
+
+    public default void setYaw(double degrees) {}
+
+    public default void setPitch(double degrees) {}
+
+    public default void setRoll(double degrees) {}
+}
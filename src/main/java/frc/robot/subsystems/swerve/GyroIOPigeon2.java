@@ -0,0 +1,39 @@
+package frc.robot.subsystems.swerve;
+
+import lombok.Getter;
+import org.frcteam6941.drivers.Pigeon2Gyro;
+
+// Gyro on a CTRE Pigeon 2, reads the signals StatusSignalRegistry already refreshed this cycle
+public class GyroIOPigeon2 implements GyroIO {
+    // Exposed for the odometry thread, which samples the yaw directly
+    @Getter
+    private final Pigeon2Gyro pigeon;
+
+    public GyroIOPigeon2(int id, String canbusName) {
+        pigeon = new Pigeon2Gyro(id, canbusName);
+    }
+
+    @Override
+    public void updateInputs(GyroIOInputs inputs) {
+        inputs.connected = pigeon.isConnected();
+        inputs.yawDegrees = pigeon.getYaw().getDegrees();
+        inputs.pitchDegrees = pigeon.getPitch().getDegrees();
+        inputs.rollDegrees = pigeon.getRoll().getDegrees();
+        inputs.yawVelocityDegPerSec = pigeon.getYawAngularVelocity();
+    }
+
+    @Override
+    public void setYaw(double degrees) {
+        pigeon.setYaw(degrees);
+    }
+
+    @Override
+    public void setPitch(double degrees) {
+        pigeon.setPitch(degrees);
+    }
+
+    @Override
+    public void setRoll(double degrees) {
+        pigeon.setRoll(degrees);
+    }
+}
@@ -0,0 +1,55 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+// Gyro simulated from the simulated modules, integrates the chassis rotation their wheel states produce
+// Must step after the modules so it sees the wheel states of the same loop period
+public class GyroIOSim implements GyroIO {
+    private final SwerveModuleIOSim[] modules;
+    private final SwerveDriveKinematics kinematics;
+    private final SwerveModuleState[] states;
+    private double yawDegrees = 0.0;
+    private double yawVelocityDegPerSec = 0.0;
+
+    public GyroIOSim(Translation2d[] modulePlacements, SwerveModuleIOSim[] modules) {
+        this.modules = modules;
+        kinematics = new SwerveDriveKinematics(modulePlacements);
+        states = new SwerveModuleState[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            states[i] = new SwerveModuleState();
+        }
+    }
+
+    // Integrates the chassis rotation over dt, the simulation loop calls this once per period after the modules stepped
+    public void step(double dt) {
+        for (int i = 0; i < modules.length; i++) {
+            states[i].speedMetersPerSecond = modules[i].getDriveVelocityMetersPerSec();
+            states[i].angle = new Rotation2d(modules[i].getSteerAngleRadians());
+        }
+        yawVelocityDegPerSec = Math.toDegrees(kinematics.toChassisSpeeds(states).omegaRadiansPerSecond);
+        yawDegrees += yawVelocityDegPerSec * dt;
+    }
+
+    // Reads the yaw back as the last step left it
+    @Override
+    public void updateInputs(GyroIOInputs inputs) {
+        inputs.connected = true;
+        inputs.yawDegrees = yawDegrees;
+        inputs.pitchDegrees = 0.0;
+        inputs.rollDegrees = 0.0;
+        inputs.yawVelocityDegPerSec = yawVelocityDegPerSec;
+    }
+
+    // Simulated yaw, read by Swerve to queue the simulated odometry samples
+    public double getYawDegrees() {
+        return yawDegrees;
+    }
+
+    @Override
+    public void setYaw(double degrees) {
+        yawDegrees = degrees;
+    }
+}
@@ -0,0 +1,67 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.frcteam6941.drivers.Gyro;
+import org.littletonrobotics.junction.Logger;
+
+// Gyro backed by a GyroIO, every angle it returns comes from the logged inputs
+public class LoggedGyro implements Gyro {
+    private final GyroIO io;
+    private final GyroIOInputsAutoLogged inputs = new GyroIOInputsAutoLogged();
+    // The Pigeon does not report raw rates either
+    private final double[] raw = new double[]{0.0, 0.0, 0.0};
+    private Rotation2d yaw = new Rotation2d();
+    private Rotation2d pitch = new Rotation2d();
+    private Rotation2d roll = new Rotation2d();
+
+    public LoggedGyro(GyroIO io) {
+        this.io = io;
+    }
+
+    // Reads and logs the inputs, in replay they are read from the log instead
+    public void updateInputs() {
+        io.updateInputs(inputs);
+        Logger.processInputs("Swerve/Gyro", inputs);
+        yaw = Rotation2d.fromDegrees(inputs.yawDegrees);
+        pitch = Rotation2d.fromDegrees(inputs.pitchDegrees);
+        roll = Rotation2d.fromDegrees(inputs.rollDegrees);
+    }
+
+    @Override
+    public Rotation2d getYaw() {
+        return yaw;
+    }
+
+    // Also reads back the new yaw until the next update, resetPose relies on it within the same cycle
+    @Override
+    public void setYaw(double angle) {
+        io.setYaw(angle);
+        inputs.yawDegrees = angle;
+        yaw = Rotation2d.fromDegrees(angle);
+    }
+
+    @Override
+    public Rotation2d getPitch() {
+        return pitch;
+    }
+
+    @Override
+    public void setPitch(double angle) {
+        io.setPitch(angle);
+    }
+
+    @Override
+    public Rotation2d getRoll() {
+        return roll;
+    }
+
+    @Override
+    public void setRoll(double angle) {
+        io.setRoll(angle);
+    }
+
+    @Override
+    public double[] getRaw() {
+        return raw;
+    }
+}
@@ -3,7 +3,10 @@ package frc.robot.subsystems.swerve;
 import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
 import com.team254.lib.util.MovingAverage;
+import com.team254.lib.geometry.MutRotation2d;
+import com.team254.lib.geometry.MutTwist2d;
 import com.team254.lib.geometry.Twist2d;
+import com.team254.lib.geometry.Twist2dMath;
  
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
@@ -17,6 +20,7 @@ import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Subsystem;
  
@@ -30,19 +34,18 @@ import lombok.Synchronized;
  
 import org.frcteam6941.control.HolonomicDriveSignal;
 import org.frcteam6941.control.HolonomicTrajectoryFollower;
-import org.frcteam6941.drivers.DummyGyro;
-import org.frcteam6941.drivers.Gyro;
-import org.frcteam6941.drivers.Pigeon2Gyro;
 import org.frcteam6941.localization.Localizer;
 import org.frcteam6941.localization.SwerveDeltaCoarseLocalizer;
+import org.frcteam6941.looper.TelemetryBudget;
+import org.frcteam6941.looper.TelemetryKey;
+import org.frcteam6941.looper.TelemetryKey.Priority;
+import org.frcteam6941.looper.TelemetryKey.Rate;
 import org.frcteam6941.looper.Updatable;
 import org.frcteam6941.swerve.*;
 import org.frcteam6941.swerve.SwerveSetpointGenerator.KinematicLimits;
 import org.frcteam6941.utils.AngleNormalization;
 import org.littletonrobotics.junction.Logger;
  
-import java.util.Optional;
- 
 // Swerve subsystem implementation managing swerve drive modules, odometry, and control signals.
 public class Swerve implements Updatable, Subsystem {
     private static Swerve instance;
@@ -50,8 +53,28 @@ public class Swerve implements Updatable, Subsystem {
     private final SwerveDriveKinematics swerveKinematics;
     private final SwerveDeltaCoarseLocalizer swerveLocalizer;
     @Getter
-    private final Gyro gyro;
+    private final LoggedGyro gyro;
     private final SwerveSetpointGenerator generator;
+    // High-rate odometry samples, produced by the odometry thread on the robot and by simulate() in simulation
+    private final OdometrySampleQueue odometryQueue;
+    private final OdometrySampleQueue.Sample odometrySample;
+    // Samples drained each cycle, logged as inputs so replay feeds the localizer from the log
+    private final OdometryInputs odometryInputs;
+    private PhoenixOdometryThread odometryThread;
+    private ModuleSignalLog moduleSignalLog;
+    // Writes tunable steer and drive gains to the motors when they change, only present on the robot
+    private SwerveGainManager gainManager;
+    // Timestamp of the last sample fed to the localizer, 0 until the first sample seeds it
+    private double lastOdometryTimestamp = 0.0;
+    private int odometrySamplesThisCycle = 0;
+    // Simulated IOs stepped by simulate(), only present in simulation
+    private SwerveModuleIOSim[] simModuleIOs;
+    private GyroIOSim simGyroIO;
+    // Module distances and yaw at the end of the previous simulated cycle
+    private final double[] simLastDistances;
+    private final double[] simDistances;
+    private final double[] simAngles;
+    private double simLastYawDegrees = 0.0;
     // System Status
     private final MovingAverage pitchVelocity;
     private final MovingAverage rollVelocity;
@@ -77,7 +100,46 @@ public class Swerve implements Updatable, Subsystem {
     @Setter
     private double headingVelocityFeedforward = 0.00;
     // Control Targets
-    private HolonomicDriveSignal driveSignal = new HolonomicDriveSignal(new Translation2d(), 0.0, true, false);
+    // Drive signal and per-cycle scratch, all overwritten in place so the control loop does not allocate
+    private final HolonomicDriveSignal driveSignal = new HolonomicDriveSignal(0.0, 0.0, 0.0, true, false);
+    private final ChassisSpeeds desiredChassisSpeed = new ChassisSpeeds();
+    private final MutRotation2d driveHeading = new MutRotation2d();
+    private final MutTwist2d discretizedSpeed = new MutTwist2d();
+    private final TrapezoidProfile.State headingGoal = new TrapezoidProfile.State();
+ 
+    // Telemetry keys, interned once so telemetry() does not build key strings or log everything every cycle
+    private final TelemetryBudget telemetryBudget = TelemetryBudget.getInstance();
+    private final TelemetryKey coarseFieldPoseKey = telemetryBudget.key(
+            "swerve/localizer/CoarsedFieldPose", Rate.EVERY_CYCLE, Priority.HIGH);
+    private final TelemetryKey rejectedVisionKey = telemetryBudget.key(
+            "swerve/localizer/RejectedVisionMeasurements", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey latestPoseKey = telemetryBudget.key(
+            "swerve/localizer/LatestPose", Rate.EVERY_CYCLE, Priority.NORMAL);
+    private final TelemetryKey lockHeadingKey = telemetryBudget.key(
+            "swerve/isLockHeading", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey driveSignalRotationKey = telemetryBudget.key(
+            "swerve/DriveSignalRotation", Rate.EVERY_CYCLE, Priority.NORMAL);
+    private final TelemetryKey pathFollowingKey = telemetryBudget.key(
+            "swerve/PathPlanner/IsPathFollowing", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey gyroAngleKey = telemetryBudget.key(
+            "swerve/localizer/GyroAngle", Rate.EVERY_CYCLE, Priority.NORMAL);
+    private final TelemetryKey measuredVelocityKey = telemetryBudget.key(
+            "swerve/localizer/MeasuredVelocity", Rate.EVERY_CYCLE, Priority.LOW);
+    private final TelemetryKey measuredAccelerationKey = telemetryBudget.key(
+            "swerve/localizer/MeasuredAcceleration", Rate.TEN_HZ, Priority.LOW);
+    private final TelemetryKey samplesPerCycleKey = telemetryBudget.key(
+            "swerve/odometry/SamplesPerCycle", Rate.TEN_HZ, Priority.LOW);
+    private final TelemetryKey droppedSamplesKey = telemetryBudget.key(
+            "swerve/odometry/DroppedSamples", Rate.ON_CHANGE, Priority.NORMAL);
+    private final TelemetryKey droppedSignalRecordsKey = telemetryBudget.key(
+            "swerve/odometry/DroppedSignalRecords", Rate.ON_CHANGE, Priority.LOW);
+    // Tuning only, these used to be SmartDashboard strings
+    private final TelemetryKey tuningLatestPoseKey = telemetryBudget.key(
+            "swerve/tuning/LatestPose", Rate.TEN_HZ, Priority.LOW);
+    private final TelemetryKey tuningAccelerationKey = telemetryBudget.key(
+            "swerve/tuning/Acceleration", Rate.TEN_HZ, Priority.LOW);
+    private final TelemetryKey tuningVelocityKey = telemetryBudget.key(
+            "swerve/tuning/SmoothedVelocity", Rate.TEN_HZ, Priority.LOW);
     private SwerveSetpoint setpoint;
     private SwerveSetpoint previousSetpoint;
     @Getter
@@ -88,27 +150,55 @@ public class Swerve implements Updatable, Subsystem {
  
     // Private constructor for singleton pattern.
     private Swerve() {
+        SwerveModuleIO[] moduleIOs;
+        GyroIO gyroIO;
         if (RobotBase.isReal()) {
-            swerveMods = new SwerveModuleBase[]{
-                    new CTRESwerveModule(0, RobotConstants.SwerveConstants.FrontLeft,
-                            RobotConstants.CAN_BUS_NAME),
-                    new CTRESwerveModule(1, RobotConstants.SwerveConstants.FrontRight,
-                            RobotConstants.CAN_BUS_NAME),
-                    new CTRESwerveModule(2, RobotConstants.SwerveConstants.BackLeft,
-                            RobotConstants.CAN_BUS_NAME),
-                    new CTRESwerveModule(3, RobotConstants.SwerveConstants.BackRight,
-                            RobotConstants.CAN_BUS_NAME),
+            moduleIOs = new SwerveModuleIO[]{
+                    new SwerveModuleIOPhoenix(RobotConstants.SwerveConstants.FrontLeft, RobotConstants.CAN_BUS_NAME),
+                    new SwerveModuleIOPhoenix(RobotConstants.SwerveConstants.FrontRight, RobotConstants.CAN_BUS_NAME),
+                    new SwerveModuleIOPhoenix(RobotConstants.SwerveConstants.BackLeft, RobotConstants.CAN_BUS_NAME),
+                    new SwerveModuleIOPhoenix(RobotConstants.SwerveConstants.BackRight, RobotConstants.CAN_BUS_NAME),
+            };
+            gyroIO = new GyroIOPigeon2(RobotConstants.SwerveConstants.PIGEON_ID, RobotConstants.CAN_BUS_NAME);
+        } else if (RobotConstants.REPLAY) {
+            // Every input comes from the log, the IOs only swallow the outputs
+            moduleIOs = new SwerveModuleIO[]{
+                    new SwerveModuleIO() {}, new SwerveModuleIO() {}, new SwerveModuleIO() {}, new SwerveModuleIO() {},
             };
-            gyro = new Pigeon2Gyro(RobotConstants.SwerveConstants.PIGEON_ID, RobotConstants.CAN_BUS_NAME);
+            gyroIO = new GyroIO() {};
         } else {
-            swerveMods = new SwerveModuleBase[]{
-                    new SimSwerveModuleDummy(0, RobotConstants.SwerveConstants.FrontLeft),
-                    new SimSwerveModuleDummy(1, RobotConstants.SwerveConstants.FrontRight),
-                    new SimSwerveModuleDummy(2, RobotConstants.SwerveConstants.BackLeft),
-                    new SimSwerveModuleDummy(3, RobotConstants.SwerveConstants.BackRight),
+            SwerveModuleIOSim[] simIOs = new SwerveModuleIOSim[]{
+                    new SwerveModuleIOSim(RobotConstants.SwerveConstants.FrontLeft),
+                    new SwerveModuleIOSim(RobotConstants.SwerveConstants.FrontRight),
+                    new SwerveModuleIOSim(RobotConstants.SwerveConstants.BackLeft),
+                    new SwerveModuleIOSim(RobotConstants.SwerveConstants.BackRight),
             };
-            gyro = new DummyGyro(RobotConstants.LOOPER_DT);
- 
+            moduleIOs = simIOs;
+            simModuleIOs = simIOs;
+            simGyroIO = new GyroIOSim(RobotConstants.SwerveConstants.modulePlacements, simIOs);
+            gyroIO = simGyroIO;
+        }
+        swerveMods = new SwerveModuleBase[moduleIOs.length];
+        for (int i = 0; i < moduleIOs.length; i++) {
+            swerveMods[i] = new SwerveModule(i, moduleIOs[i]);
+        }
+        gyro = new LoggedGyro(gyroIO);
+        odometryQueue = new OdometrySampleQueue(SwerveConstants.ODOMETRY_QUEUE_CAPACITY, swerveMods.length);
+        odometrySample = new OdometrySampleQueue.Sample(swerveMods.length);
+        odometryInputs = new OdometryInputs(swerveMods.length);
+        simLastDistances = new double[swerveMods.length];
+        simDistances = new double[swerveMods.length];
+        simAngles = new double[swerveMods.length];
+        if (RobotBase.isReal()) {
+            CTRESwerveIO[] modules = new CTRESwerveIO[moduleIOs.length];
+            for (int i = 0; i < moduleIOs.length; i++) {
+                modules[i] = ((SwerveModuleIOPhoenix) moduleIOs[i]).getModule();
+            }
+            moduleSignalLog = new ModuleSignalLog("swerve/ModuleSignals", modules.length,
+                    SwerveConstants.MODULE_SIGNAL_LOG_CAPACITY, SwerveConstants.MODULE_SIGNAL_LOG_FLUSH_PERIOD);
+            odometryThread = new PhoenixOdometryThread(modules, ((GyroIOPigeon2) gyroIO).getPigeon(),
+                    RobotConstants.CAN_BUS_NAME, SwerveConstants.ODOMETRY_FREQUENCY, odometryQueue, moduleSignalLog);
+            gainManager = new SwerveGainManager(modules);
         }
         headingController.setIntegratorRange(-0.5, 0.5);
         headingController.enableContinuousInput(0, 360.0);
@@ -116,6 +206,7 @@ public class Swerve implements Updatable, Subsystem {
                 RobotConstants.SwerveConstants.modulePlacements);
         swerveLocalizer = new SwerveDeltaCoarseLocalizer(swerveKinematics, 50, 
         20, 20, getModulePositions());
+        swerveLocalizer.setFusionMode(SwerveDeltaCoarseLocalizer.FusionMode.LATENCY_COMPENSATED);
  
         gyro.setYaw(0.0);
         swerveLocalizer.reset(new Pose2d(), getModulePositions());
@@ -124,10 +215,16 @@ public class Swerve implements Updatable, Subsystem {
         pitchVelocity = new MovingAverage(10);
         rollVelocity = new MovingAverage(10);
  
-        setpoint = new SwerveSetpoint(new edu.wpi.first.math.kinematics.ChassisSpeeds(), getModuleStates());
-        previousSetpoint = new SwerveSetpoint(new edu.wpi.first.math.kinematics.ChassisSpeeds(), getModuleStates());
+        setpoint = createSetpoint();
+        previousSetpoint = createSetpoint();
         generator = new SwerveSetpointGenerator(RobotConstants.SwerveConstants.modulePlacements);
+        generator.setLimitAccelerationWhileSpeedingUp(
+                RobotConstants.SwerveConstants.LIMIT_ACCELERATION_WHILE_SPEEDING_UP);
         kinematicLimits = RobotConstants.SwerveConstants.DRIVETRAIN_UNCAPPED;
+
+        if (odometryThread != null) {
+            odometryThread.start();
+        }
  
         RobotConfig config;
         try{
@@ -195,62 +292,110 @@ public class Swerve implements Updatable, Subsystem {
         return swerveKinematics.toChassisSpeeds(getModuleStates());
     }
  
-    // Update odometry based on module states and gyro data.
-    private void updateOdometry(double time, double dt) {
-        swerveLocalizer.updateWithTime(time, dt, gyro.getYaw(), getModulePositions());
+    // Update odometry with every high-rate sample received since the last cycle, each at its own timestamp.
+    private void updateOdometry() {
+        odometryInputs.drain(odometryQueue, odometrySample);
+        Logger.processInputs("Swerve/Odometry", odometryInputs);
+        odometrySamplesThisCycle = 0;
+        int moduleCount = odometryInputs.moduleCount;
+        for (int sample = 0; sample < odometryInputs.sampleCount; sample++) {
+            double timestamp = odometryInputs.timestamps[sample];
+            // samples taken before a pose reset, or out of order, would pull the pose backwards
+            if (timestamp <= lastOdometryTimestamp) {
+                continue;
+            }
+            // The first sample only seeds the clock, its dt would span the whole FPGA uptime and ruin the first
+            // velocity estimate; the odometry keeps its module positions, so the next sample still sees the motion
+            if (lastOdometryTimestamp == 0.0) {
+                lastOdometryTimestamp = timestamp;
+                continue;
+            }
+            // The localizer reads the sample straight from the input arrays, no per-module Rotation2d is built
+            swerveLocalizer.updateWithTime(timestamp, timestamp - lastOdometryTimestamp,
+                    Math.toRadians(odometryInputs.yawDegrees[sample]), odometryInputs.distancesMeters,
+                    odometryInputs.anglesRadians, sample * moduleCount);
+            lastOdometryTimestamp = timestamp;
+            odometrySamplesThisCycle++;
+        }
+    }
+
+    // Timestamp of the newest odometry sample fed to the localizer
+    double getLastOdometryTimestamp() {
+        return lastOdometryTimestamp;
+    }
+
+    // Generate the high-rate sample stream in simulation by interpolating across the step just simulated.
+    // The step runs from time to time + dt, where the next read() drains the samples, so they are stamped across it.
+    private void pushSimulatedOdometry(double time, double dt) {
+        int steps = Math.max(1, (int) Math.round(dt * SwerveConstants.ODOMETRY_FREQUENCY));
+        double yaw = simGyroIO.getYawDegrees();
+        double yawDelta = MathUtil.inputModulus(yaw - simLastYawDegrees, -180.0, 180.0);
+        for (int step = 1; step <= steps; step++) {
+            double fraction = (double) step / steps;
+            for (int i = 0; i < simModuleIOs.length; i++) {
+                simDistances[i] = simLastDistances[i]
+                        + (simModuleIOs[i].getDrivePositionMeters() - simLastDistances[i]) * fraction;
+                simAngles[i] = simModuleIOs[i].getSteerAngleRadians();
+            }
+            odometryQueue.offer(time + dt * fraction, simLastYawDegrees + yawDelta * fraction,
+                    simDistances, simAngles);
+        }
+        for (int i = 0; i < simModuleIOs.length; i++) {
+            simLastDistances[i] = simModuleIOs[i].getDrivePositionMeters();
+        }
+        simLastYawDegrees = yaw;
     }
  
     // Update swerve modules based on the given holonomic drive signal.
     private void updateModules(HolonomicDriveSignal driveSignal, double dt) {
-        ChassisSpeeds desiredChassisSpeed;
- 
+        boolean isOpenLoop = false;
         if (driveSignal == null) {
-            desiredChassisSpeed = new ChassisSpeeds(0.0, 0.0, 0.0);
-            driveSignal = new HolonomicDriveSignal(new Translation2d(), 0.0, true, false);
+            setChassisSpeeds(desiredChassisSpeed, 0.0, 0.0, 0.0);
         } else {
- 
-            double x = driveSignal.getTranslation().getX();
-            double y = driveSignal.getTranslation().getY();
+            isOpenLoop = driveSignal.isOpenLoop();
+            double x = driveSignal.getX();
+            double y = driveSignal.getY();
             double rotation = driveSignal.getRotation();
  
-            Rotation2d robotAngle = swerveLocalizer.getLatestPose().getRotation();
- 
-            //flip drive signal for red side (no need to flip auto)
-            if (driveSignal.isFieldOriented())
+            if (driveSignal.isFieldOriented()) {
+                driveHeading.set(swerveLocalizer.getLatestPose().getRotation());
+                //flip drive signal for red side (no need to flip auto)
                 if (AllianceFlipUtil.shouldFlip() && this.state != State.PATH_FOLLOWING) {
-                    desiredChassisSpeed = ChassisSpeeds.fromFieldRelativeSpeeds(x, y, rotation,
-                            robotAngle.rotateBy(Rotation2d.fromDegrees(180)));
-                } else {
-                    desiredChassisSpeed = ChassisSpeeds.fromFieldRelativeSpeeds(x, y, rotation,
-                            robotAngle.rotateBy(Rotation2d.fromDegrees(0)));
+                    driveHeading.flipInto(driveHeading);
                 }
- 
-            else
-                desiredChassisSpeed = new ChassisSpeeds(x, y, rotation);
+                // Field relative to robot relative, rotate the field vector by the inverse of the heading
+                setChassisSpeeds(desiredChassisSpeed,
+                        x * driveHeading.cos() + y * driveHeading.sin(),
+                        -x * driveHeading.sin() + y * driveHeading.cos(),
+                        rotation);
+            } else {
+                setChassisSpeeds(desiredChassisSpeed, x, y, rotation);
+            }
         }
  
-        edu.wpi.first.math.geometry.Twist2d twist = new Pose2d().log(new Pose2d(
-                new Translation2d(
-                        desiredChassisSpeed.vxMetersPerSecond * RobotConstants.LOOPER_DT,
-                        desiredChassisSpeed.vyMetersPerSecond * RobotConstants.LOOPER_DT),
-                new Rotation2d(
-                        desiredChassisSpeed.omegaRadiansPerSecond * RobotConstants.LOOPER_DT)));
+        Twist2dMath.discretizeInto(desiredChassisSpeed.vxMetersPerSecond, desiredChassisSpeed.vyMetersPerSecond,
+                desiredChassisSpeed.omegaRadiansPerSecond, RobotConstants.LOOPER_DT, discretizedSpeed);
+        setChassisSpeeds(desiredChassisSpeed, discretizedSpeed.dx, discretizedSpeed.dy, discretizedSpeed.dtheta);
  
-        desiredChassisSpeed = new edu.wpi.first.math.kinematics.ChassisSpeeds(
-                twist.dx / RobotConstants.LOOPER_DT,
-                twist.dy / RobotConstants.LOOPER_DT,
-                twist.dtheta / RobotConstants.LOOPER_DT);
- 
-        setpoint = generator.generateSetpoint(
-                kinematicLimits, previousSetpoint, desiredChassisSpeed, dt);
-        previousSetpoint = setpoint;
+        // Swap the two setpoints so the generator writes over the one from two cycles ago
+        SwerveSetpoint lastSetpoint = setpoint;
+        setpoint = previousSetpoint;
+        previousSetpoint = lastSetpoint;
+        generator.generateSetpoint(kinematicLimits, previousSetpoint, desiredChassisSpeed, dt, setpoint);
         Logger.recordOutput("swerve/Kinematics/DesiredSpeedy", desiredChassisSpeed.vyMetersPerSecond);
  
         for (SwerveModuleBase mod : swerveMods) {
-            mod.setDesiredState(setpoint.mModuleStates[mod.getModuleNumber()], driveSignal.isOpenLoop(), false);
+            mod.setDesiredState(setpoint.mModuleStates[mod.getModuleNumber()], isOpenLoop, false);
         }
     }
  
+    // Overwrite chassis speeds in place.
+    private static void setChassisSpeeds(ChassisSpeeds speeds, double vx, double vy, double omega) {
+        speeds.vxMetersPerSecond = vx;
+        speeds.vyMetersPerSecond = vy;
+        speeds.omegaRadiansPerSecond = omega;
+    }
+ 
     // Convert chassis speeds to chassis twist.
     public Twist2d getChassisTwist() {
         ChassisSpeeds speeds = getChassisSpeeds();
@@ -281,17 +426,26 @@ public class Swerve implements Updatable, Subsystem {
     // Drive the swerve drive based on translation and rotation inputs.
     public void drive(Translation2d translationalVelocity, double rotationalVelocity,
                       boolean isFieldOriented, boolean isOpenLoop) {
+        drive(translationalVelocity.getX(), translationalVelocity.getY(), rotationalVelocity, isFieldOriented, isOpenLoop);
+    }
  
-        if (Math.abs(translationalVelocity.getX()) < RobotConstants.SwerveConstants.deadband) {
-            translationalVelocity = new Translation2d(0, translationalVelocity.getY());
+    // Drive the swerve drive based on translation components and rotation inputs.
+    public void drive(double x, double y, double rotationalVelocity, boolean isFieldOriented, boolean isOpenLoop) {
+        if (Math.abs(x) < RobotConstants.SwerveConstants.deadband) {
+            x = 0;
         }
-        if (Math.abs(translationalVelocity.getY()) < RobotConstants.SwerveConstants.deadband) {
-            translationalVelocity = new Translation2d(translationalVelocity.getX(), 0);
+        if (Math.abs(y) < RobotConstants.SwerveConstants.deadband) {
+            y = 0;
         }
         if (Math.abs(rotationalVelocity) < RobotConstants.SwerveConstants.rotationalDeadband) {
             rotationalVelocity = 0;
         }
-        driveSignal = new HolonomicDriveSignal(translationalVelocity, rotationalVelocity, isFieldOriented, isOpenLoop);
+        driveSignal.set(x, y, rotationalVelocity, isFieldOriented, isOpenLoop);
+    }
+ 
+    // Drive closed loop with velocities computed by a controller, without the joystick deadbands.
+    public void driveVelocity(double x, double y, double rotationalVelocity, boolean isFieldOriented) {
+        driveSignal.set(x, y, rotationalVelocity, isFieldOriented, false);
     }
  
     // Follow a specified path trajectory with optional angle locking.
@@ -349,7 +503,7 @@ public class Swerve implements Updatable, Subsystem {
  
     // Stop all movement of the swerve drive.
     public void stopMovement() {
-        driveSignal = new HolonomicDriveSignal(new Translation2d(), 0.0, true, false);
+        driveSignal.set(0.0, 0.0, 0.0, true, false);
     }
  
     // Set kinematic limits for the swerve drive.
@@ -361,6 +515,9 @@ public class Swerve implements Updatable, Subsystem {
     public void resetPose(Pose2d resetPose) {
         gyro.setYaw(resetPose.getRotation().getDegrees());
         swerveLocalizer.reset(resetPose, getModulePositions());
+        odometryQueue.clear();
+        lastOdometryTimestamp = Timer.getFPGATimestamp();
+        simLastYawDegrees = gyro.getYaw().getDegrees();
     }
  
     // Set the state of the module independently.
@@ -405,6 +562,16 @@ public class Swerve implements Updatable, Subsystem {
         return this.swerveLocalizer;
     }
  
+    // Creates a setpoint holding copies of the current module states, safe for the generator to overwrite.
+    private SwerveSetpoint createSetpoint() {
+        SwerveModuleState[] states = new SwerveModuleState[swerveMods.length];
+        for (SwerveModuleBase mod : swerveMods) {
+            SwerveModuleState state = mod.getState();
+            states[mod.getModuleNumber()] = new SwerveModuleState(state.speedMetersPerSecond, state.angle);
+        }
+        return new SwerveSetpoint(new edu.wpi.first.math.kinematics.ChassisSpeeds(), states);
+    }
+ 
     // Get the current states of the swerve modules.
     public SwerveModuleState[] getModuleStates() {
         SwerveModuleState[] states = new SwerveModuleState[swerveMods.length];
@@ -478,25 +645,33 @@ public class Swerve implements Updatable, Subsystem {
         overrideRotation = null;
     }
  
-    // Read sensor values and update odometry.
+    // Read sensor values and update odometry, in every mode.
+    // In simulation the robot loop runs the read cycle before the simulate cycle, so the update of the read cycle
+    // sees what the previous loop's simulate() stepped and queued, which ends at this cycle's time.
     @Override
     public void read(double time, double dt) {
+        updateInputs();
+        updateOdometry();
+    }
+
+    // Read and log the module and gyro inputs.
+    private void updateInputs() {
         for (SwerveModuleBase mod : swerveMods) {
             mod.updateSignals();
         }
-        updateOdometry(time, dt);
+        gyro.updateInputs();
     }
  
     // Update the swerve drive control signals.
     @Override
     public void update(double time, double dt) {
-        Optional<HolonomicDriveSignal> trajectorySignal = trajectoryFollower.update(
+        HolonomicDriveSignal trajectorySignal = trajectoryFollower.updateSignal(
                 swerveLocalizer.getCoarseFieldPose(time),
                 swerveLocalizer.getMeasuredVelocity().getTranslation(),
                 swerveLocalizer.getMeasuredVelocity().getRotation().getDegrees(),
                 time, dt);
-        if (trajectorySignal.isPresent()) {
-            driveSignal = trajectorySignal.get();
+        if (trajectorySignal != null) {
+            driveSignal.set(trajectorySignal);
         } else if (isLockHeading) {
             headingTarget = AngleNormalization.placeInAppropriate0To360Scope(gyro.getYaw().getDegrees(), headingTarget);
  
@@ -504,11 +679,10 @@ public class Swerve implements Updatable, Subsystem {
             double headingRotationLimit = SwerveConstants.headingController.MAX_ERROR_CORRECTION_ANGLE.get()
                     * SwerveConstants.headingController.HEADING_KP.get();
             double rotation = MathUtil
-                    .clamp(headingController.calculate(gyro.getYaw().getDegrees(), new TrapezoidProfile.State(
+                    .clamp(headingController.calculate(gyro.getYaw().getDegrees(), setHeadingGoal(
                             headingTarget, headingVelocityFeedforward)), -headingRotationLimit, headingRotationLimit);
  
-            driveSignal = new HolonomicDriveSignal(driveSignal.getTranslation(), rotation,
-                    driveSignal.isFieldOriented(), driveSignal.isOpenLoop());
+            driveSignal.setRotation(rotation);
             //
             //            Logger.recordOutput("swerve/heading/rotation", rotation);
             //            Logger.recordOutput("swerve/heading/gyro", gyro.getYaw().getDegrees());
@@ -516,8 +690,7 @@ public class Swerve implements Updatable, Subsystem {
             //            Logger.recordOutput("swerve/heading/difference", Math.abs(headingTarget - gyro.getYaw().getDegrees()));
  
         } else if (overrideRotation != null) {
-            driveSignal = new HolonomicDriveSignal(driveSignal.getTranslation(), overrideRotation,
-                    driveSignal.isFieldOriented(), driveSignal.isOpenLoop());
+            driveSignal.setRotation(overrideRotation);
         }
  
         rollVelocity.addNumber(gyro.getRaw()[0]);
@@ -525,9 +698,19 @@ public class Swerve implements Updatable, Subsystem {
         yawVelocity.addNumber(gyro.getRaw()[2]);
     }
  
+    // Overwrite the reused heading controller goal.
+    private TrapezoidProfile.State setHeadingGoal(double position, double velocity) {
+        headingGoal.position = position;
+        headingGoal.velocity = velocity;
+        return headingGoal;
+    }
+ 
     // Write control signals to the swerve modules based on the current state.
     @Override
     public void write(double time, double dt) {
+        if (gainManager != null) {
+            gainManager.update();
+        }
         switch (state) {
             case BRAKE:
                 setModuleStatesBrake();
@@ -546,18 +729,34 @@ public class Swerve implements Updatable, Subsystem {
     public void telemetry() {
         if (RobotConstants.TUNING) {
             setHeadingControllerPID();
-            SmartDashboard.putString("swerve/localizer/latest_pose", getLocalizer().getLatestPose().toString());
-            SmartDashboard.putString("swerve/localizer/accel", getLocalizer().getMeasuredAcceleration().toString());
-            SmartDashboard.putString("swerve/localizer/velocity", getLocalizer().getSmoothedVelocity().toString());
-        }
-        Logger.recordOutput("swerve/localizer/CoarsedFieldPose", getLocalizer().getCoarseFieldPose(0));
-        Logger.recordOutput("swerve/localizer/LatestPose", getLocalizer().getLatestPose());
-        Logger.recordOutput("swerve/isLockHeading", isLockHeading);
-        Logger.recordOutput("swerve/DriveSignalRotation", driveSignal.getRotation());
-        Logger.recordOutput("swerve/PathPlanner/IsPathFollowing", trajectoryFollower.isPathFollowing());
-        Logger.recordOutput("swerve/localizer/GyroAngle", gyro.getYaw());
-        Logger.recordOutput("swerve/localizer/MeasuredVelocity", swerveLocalizer.getMeasuredVelocity());
-        Logger.recordOutput("swerve/localizer/MeasuredAcceleration", swerveLocalizer.getMeasuredAcceleration());
+            if (tuningLatestPoseKey.isDue()) {
+                tuningLatestPoseKey.record(swerveLocalizer.getLatestPose());
+                tuningAccelerationKey.record(swerveLocalizer.getMeasuredAcceleration());
+                tuningVelocityKey.record(swerveLocalizer.getSmoothedVelocity());
+            }
+        }
+        coarseFieldPoseKey.record(swerveLocalizer.getCoarseFieldPose(Timer.getFPGATimestamp()));
+        rejectedVisionKey.record(swerveLocalizer.getRejectedMeasurementCount());
+        if (latestPoseKey.isDue()) {
+            latestPoseKey.record(swerveLocalizer.getLatestPose());
+        }
+        lockHeadingKey.record(isLockHeading);
+        driveSignalRotationKey.record(driveSignal.getRotation());
+        pathFollowingKey.record(trajectoryFollower.isPathFollowing());
+        if (gyroAngleKey.isDue()) {
+            gyroAngleKey.record(gyro.getYaw());
+        }
+        if (measuredVelocityKey.isDue()) {
+            measuredVelocityKey.record(swerveLocalizer.getMeasuredVelocity());
+        }
+        if (measuredAccelerationKey.isDue()) {
+            measuredAccelerationKey.record(swerveLocalizer.getMeasuredAcceleration());
+        }
+        samplesPerCycleKey.record(odometrySamplesThisCycle);
+        droppedSamplesKey.record(odometryQueue.getDroppedCount());
+        if (moduleSignalLog != null) {
+            droppedSignalRecordsKey.record(moduleSignalLog.getDroppedCount());
+        }
  
         trajectoryFollower.sendData();
         //Logger.recordOutput("ActivePath", PathPlannerPath.fromPathFile("T_1").getPathPoses());
@@ -570,13 +769,19 @@ public class Swerve implements Updatable, Subsystem {
         setState(State.DRIVE);
     }
  
-    // Simulate the swerve drive behavior.
+    // Step the simulated modules and gyro with the outputs written this loop and queue the odometry they produce,
+    // the next read() processes both. In replay every input comes from the log and there is nothing to step.
+    // The gyro goes last, it integrates the wheel states of this step.
     @Override
     public void simulate(double time, double dt) {
-        gyro.setYaw(
-                gyro.getYaw().rotateBy(
-                        new Rotation2d(dt * setpoint.mChassisSpeeds.omegaRadiansPerSecond)).getDegrees());
-        read(time, dt);
+        if (simModuleIOs == null) {
+            return;
+        }
+        for (SwerveModuleIOSim io : simModuleIOs) {
+            io.step(dt);
+        }
+        simGyroIO.step(dt);
+        pushSimulatedOdometry(time, dt);
     }
  
     // Check if the swerve drive is ready to aim based on heading target and angular speed.
@@ -0,0 +1,58 @@
+package frc.robot.subsystems.swerve;
+
+import com.ctre.phoenix6.configs.TalonFXConfigurator;
+
+import frc.robot.RobotConstants.SwerveConstants.driveGainsClass;
+import frc.robot.RobotConstants.SwerveConstants.steerGainsClass;
+
+import org.frcteam6941.drivers.DeviceConfigurator;
+import org.frcteam6941.swerve.CTRESwerveIO;
+
+// Submits tunable steer and drive Slot0 gains through the DeviceConfigurator every cycle, like the other mechanisms
+// The configurator drops gains equal to the last ones submitted per device and forgets gains whose apply failed, so a
+// failed device is retried on the next cycle and an edit back to earlier gains is never dropped while others are queued
+public class SwerveGainManager {
+    private final TalonFXConfigurator[] steerConfigurators;
+    private final TalonFXConfigurator[] driveConfigurators;
+    // Configurator keys, built once so update does not build strings
+    private final String[] steerKeys;
+    private final String[] driveKeys;
+
+    public SwerveGainManager(CTRESwerveIO[] modules) {
+        steerConfigurators = new TalonFXConfigurator[modules.length];
+        driveConfigurators = new TalonFXConfigurator[modules.length];
+        steerKeys = new String[modules.length];
+        driveKeys = new String[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            steerConfigurators[i] = modules[i].getSteerMotor().getConfigurator();
+            driveConfigurators[i] = modules[i].getDriveMotor().getConfigurator();
+            steerKeys[i] = "Swerve/Steer" + i + "/Slot0";
+            driveKeys[i] = "Swerve/Drive" + i + "/Slot0";
+        }
+    }
+
+    // Submits the current gains of both groups to every device once per cycle
+    public void update() {
+        DeviceConfigurator configurator = DeviceConfigurator.getInstance();
+        double steerKp = steerGainsClass.STEER_KP.get();
+        double steerKi = steerGainsClass.STEER_KI.get();
+        double steerKd = steerGainsClass.STEER_KD.get();
+        double steerKa = steerGainsClass.STEER_KA.get();
+        double steerKv = steerGainsClass.STEER_KV.get();
+        double steerKs = steerGainsClass.STEER_KS.get();
+        for (int i = 0; i < steerConfigurators.length; i++) {
+            configurator.submitSlot0(steerKeys[i], steerConfigurators[i],
+                    steerKp, steerKi, steerKd, steerKa, steerKv, steerKs);
+        }
+        double driveKp = driveGainsClass.DRIVE_KP.get();
+        double driveKi = driveGainsClass.DRIVE_KI.get();
+        double driveKd = driveGainsClass.DRIVE_KD.get();
+        double driveKa = driveGainsClass.DRIVE_KA.get();
+        double driveKv = driveGainsClass.DRIVE_KV.get();
+        double driveKs = driveGainsClass.DRIVE_KS.get();
+        for (int i = 0; i < driveConfigurators.length; i++) {
+            configurator.submitSlot0(driveKeys[i], driveConfigurators[i],
+                    driveKp, driveKi, driveKd, driveKa, driveKv, driveKs);
+        }
+    }
+}
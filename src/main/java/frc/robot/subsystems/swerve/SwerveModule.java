@@ -0,0 +1,55 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.frcteam6941.swerve.SwerveModuleBase;
+import org.littletonrobotics.junction.Logger;
+
+// Swerve module backed by a SwerveModuleIO, state and position only ever come from the logged inputs
+public class SwerveModule implements SwerveModuleBase {
+    private final int moduleNumber;
+    private final SwerveModuleIO io;
+    private final SwerveModuleIOInputsAutoLogged inputs = new SwerveModuleIOInputsAutoLogged();
+    private final String inputsKey;
+    private final SwerveModuleState state = new SwerveModuleState();
+    private final SwerveModulePosition position = new SwerveModulePosition();
+
+    public SwerveModule(int moduleNumber, SwerveModuleIO io) {
+        this.moduleNumber = moduleNumber;
+        this.io = io;
+        inputsKey = "Swerve/Module" + moduleNumber;
+    }
+
+    @Override
+    public int getModuleNumber() {
+        return moduleNumber;
+    }
+
+    // Reads and logs the inputs, in replay they are read from the log instead
+    @Override
+    public void updateSignals() {
+        io.updateInputs(inputs);
+        Logger.processInputs(inputsKey, inputs);
+        Rotation2d angle = new Rotation2d(inputs.steerAngleRadians);
+        state.speedMetersPerSecond = inputs.driveVelocityMetersPerSec;
+        state.angle = angle;
+        position.distanceMeters = inputs.drivePositionMeters;
+        position.angle = angle;
+    }
+
+    @Override
+    public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop, boolean overrideMotion) {
+        io.setDesiredState(desiredState, isOpenLoop);
+    }
+
+    @Override
+    public SwerveModuleState getState() {
+        return state;
+    }
+
+    @Override
+    public SwerveModulePosition getPosition() {
+        return position;
+    }
+}
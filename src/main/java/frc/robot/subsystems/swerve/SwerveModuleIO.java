@@ -0,0 +1,25 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.littletonrobotics.junction.AutoLog;
+
+// Hardware layer of one swerve module, the default methods do nothing so replay runs on the logged inputs alone
+// High-rate samples are not part of these inputs, the odometry thread samples every module and the gyro together and
+// Swerve logs them as one batch in OdometryInputs
+public interface SwerveModuleIO {
+    @AutoLog
+    class SwerveModuleIOInputs {
+        public double drivePositionMeters = 0.0;
+        public double driveVelocityMetersPerSec = 0.0;
+        public double driveAppliedVolts = 0.0;
+        public double driveStatorCurrentAmps = 0.0;
+        public double steerAngleRadians = 0.0;
+        public double steerVelocityRadPerSec = 0.0;
+        public double steerAppliedVolts = 0.0;
+        public double steerStatorCurrentAmps = 0.0;
+    }
+
+    public default void updateInputs(SwerveModuleIOInputs inputs) {}
+
+    public default void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop) {}
+}
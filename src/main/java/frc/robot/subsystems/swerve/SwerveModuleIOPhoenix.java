@@ -0,0 +1,42 @@
+package frc.robot.subsystems.swerve;
+
+import com.ctre.phoenix6.mechanisms.swerve.LegacySwerveModule.DriveRequestType;
+import com.ctre.phoenix6.mechanisms.swerve.LegacySwerveModuleConstants;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import lombok.Getter;
+import org.frcteam6941.swerve.CTRESwerveIO;
+import org.frcteam6941.swerve.ModuleSignalLog;
+
+// Swerve module on CTRE Phoenix 6 hardware, reads the signals StatusSignalRegistry already refreshed this cycle
+public class SwerveModuleIOPhoenix implements SwerveModuleIO {
+    // Exposed for the odometry thread and SwerveGainManager, which talk to the hardware directly
+    @Getter
+    private final CTRESwerveIO module;
+    private final double[] signals = new double[ModuleSignalLog.SIGNALS_PER_MODULE];
+
+    public SwerveModuleIOPhoenix(LegacySwerveModuleConstants constants, String canbusName) {
+        module = new CTRESwerveIO(constants, canbusName);
+    }
+
+    @Override
+    public void updateInputs(SwerveModuleIOInputs inputs) {
+        // Latency compensated position, also the angle apply() optimizes against
+        SwerveModulePosition position = module.getPosition(false);
+        module.sampleMainLoopSignals(signals, 0);
+        inputs.drivePositionMeters = position.distanceMeters;
+        inputs.driveVelocityMetersPerSec = signals[1];
+        inputs.driveStatorCurrentAmps = signals[2];
+        inputs.driveAppliedVolts = signals[3];
+        inputs.steerAngleRadians = position.angle.getRadians();
+        inputs.steerVelocityRadPerSec = signals[5];
+        inputs.steerStatorCurrentAmps = signals[6];
+        inputs.steerAppliedVolts = signals[7];
+    }
+
+    // Gains are not applied here, SwerveGainManager writes them only when they change
+    @Override
+    public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop) {
+        module.apply(desiredState, isOpenLoop ? DriveRequestType.OpenLoopVoltage : DriveRequestType.Velocity);
+    }
+}
@@ -0,0 +1,103 @@
+package frc.robot.subsystems.swerve;
+
+import com.ctre.phoenix6.mechanisms.swerve.LegacySwerveModuleConstants;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+
+// Swerve module simulated with one DCMotorSim per motor, using the gearing and inertia of the module constants
+// Stands in for the Phoenix closed loops with a feedforward plus proportional drive and a proportional steer
+public class SwerveModuleIOSim implements SwerveModuleIO {
+    private static final double DRIVE_KP = 1.0; // volts per meter per second
+    private static final double STEER_KP = 10.0; // volts per radian
+
+    private final DCMotorSim driveSim;
+    private final DCMotorSim steerSim;
+    private final PIDController steerController = new PIDController(STEER_KP, 0.0, 0.0);
+    private final double wheelRadiusMeters;
+    private final double speedAt12VoltsMps;
+
+    private double targetSpeedMetersPerSec = 0.0;
+    private double targetAngleRadians = 0.0;
+    private boolean isOpenLoop = false;
+    private double driveAppliedVolts = 0.0;
+    private double steerAppliedVolts = 0.0;
+
+    public SwerveModuleIOSim(LegacySwerveModuleConstants constants) {
+        driveSim = new DCMotorSim(LinearSystemId.createDCMotorSystem(DCMotor.getFalcon500(1),
+                constants.DriveInertia, constants.DriveMotorGearRatio), DCMotor.getFalcon500(1));
+        steerSim = new DCMotorSim(LinearSystemId.createDCMotorSystem(DCMotor.getFalcon500(1),
+                constants.SteerInertia, constants.SteerMotorGearRatio), DCMotor.getFalcon500(1));
+        steerController.enableContinuousInput(-Math.PI, Math.PI);
+        wheelRadiusMeters = Units.inchesToMeters(constants.WheelRadius);
+        speedAt12VoltsMps = constants.SpeedAt12VoltsMps;
+    }
+
+    // Steps both motors by dt with the voltages the targets call for, the simulation loop calls this once per period
+    public void step(double dt) {
+        double steerAngle = getSteerAngleRadians();
+        double speed = targetSpeedMetersPerSec * Math.max(0.0, Math.cos(targetAngleRadians - steerAngle));
+        double driveVolts = speed / speedAt12VoltsMps * 12.0;
+        if (!isOpenLoop) {
+            driveVolts += DRIVE_KP * (speed - getDriveVelocityMetersPerSec());
+        }
+        double steerVolts = steerController.calculate(steerAngle, targetAngleRadians);
+        if (DriverStation.isDisabled()) {
+            driveVolts = 0.0;
+            steerVolts = 0.0;
+        }
+        driveAppliedVolts = MathUtil.clamp(driveVolts, -12.0, 12.0);
+        steerAppliedVolts = MathUtil.clamp(steerVolts, -12.0, 12.0);
+        driveSim.setInputVoltage(driveAppliedVolts);
+        steerSim.setInputVoltage(steerAppliedVolts);
+        driveSim.update(dt);
+        steerSim.update(dt);
+    }
+
+    // Reads both motors back as the last step left them
+    @Override
+    public void updateInputs(SwerveModuleIOInputs inputs) {
+        inputs.drivePositionMeters = getDrivePositionMeters();
+        inputs.driveVelocityMetersPerSec = getDriveVelocityMetersPerSec();
+        inputs.driveAppliedVolts = driveAppliedVolts;
+        inputs.driveStatorCurrentAmps = Math.abs(driveSim.getCurrentDrawAmps());
+        inputs.steerAngleRadians = getSteerAngleRadians();
+        inputs.steerVelocityRadPerSec = steerSim.getAngularVelocityRadPerSec();
+        inputs.steerAppliedVolts = steerAppliedVolts;
+        inputs.steerStatorCurrentAmps = Math.abs(steerSim.getCurrentDrawAmps());
+    }
+
+    // Copies the target since the caller reuses its state objects, flipped when that turns the module less
+    @Override
+    public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop) {
+        double angle = desiredState.angle.getRadians();
+        double speed = desiredState.speedMetersPerSecond;
+        if (Math.abs(MathUtil.angleModulus(angle - getSteerAngleRadians())) > Math.PI / 2.0) {
+            angle = MathUtil.angleModulus(angle + Math.PI);
+            speed = -speed;
+        }
+        targetAngleRadians = angle;
+        targetSpeedMetersPerSec = speed;
+        this.isOpenLoop = isOpenLoop;
+    }
+
+    // Simulated wheel travel, read by Swerve to queue the simulated odometry samples
+    public double getDrivePositionMeters() {
+        return driveSim.getAngularPositionRad() * wheelRadiusMeters;
+    }
+
+    // Simulated wheel speed, read by GyroIOSim to integrate the chassis rotation
+    public double getDriveVelocityMetersPerSec() {
+        return driveSim.getAngularVelocityRadPerSec() * wheelRadiusMeters;
+    }
+
+    // Simulated module angle wrapped to [-pi, pi), read by GyroIOSim to integrate the chassis rotation
+    public double getSteerAngleRadians() {
+        return MathUtil.angleModulus(steerSim.getAngularPositionRad());
+    }
+}
@@ -10,22 +10,56 @@ import edu.wpi.first.math.geometry.Translation2d;
  * @param fieldOriented Whether the signal is relative to the field or not.
  */
 public class HolonomicDriveSignal {
-    private final Translation2d translation;
-    private final double rotation;
-    private final boolean fieldOriented;
-    private final boolean isOpenLoop;
+    private double x;
+    private double y;
+    private double rotation;
+    private boolean fieldOriented;
+    private boolean isOpenLoop;
  
     // Constructor to initialize the HolonomicDriveSignal with translation, rotation, field orientation, and open loop status.
     public HolonomicDriveSignal(Translation2d translation, double rotation, boolean fieldOriented, boolean isOpenLoop) {
-        this.translation = translation;
+        this(translation.getX(), translation.getY(), rotation, fieldOriented, isOpenLoop);
+    }
+ 
+    // Constructor taking the translation components directly.
+    public HolonomicDriveSignal(double x, double y, double rotation, boolean fieldOriented, boolean isOpenLoop) {
+        set(x, y, rotation, fieldOriented, isOpenLoop);
+    }
+ 
+    // Overwrites every component, lets the control loop reuse one signal instead of allocating per cycle.
+    public HolonomicDriveSignal set(double x, double y, double rotation, boolean fieldOriented, boolean isOpenLoop) {
+        this.x = x;
+        this.y = y;
         this.rotation = rotation;
         this.fieldOriented = fieldOriented;
         this.isOpenLoop = isOpenLoop;
+        return this;
     }
  
-    // Getter method to retrieve the translation component of the drive signal.
+    // Copies every component from another signal.
+    public HolonomicDriveSignal set(HolonomicDriveSignal other) {
+        return set(other.x, other.y, other.rotation, other.fieldOriented, other.isOpenLoop);
+    }
+ 
+    // Overwrites the rotational component only.
+    public HolonomicDriveSignal setRotation(double rotation) {
+        this.rotation = rotation;
+        return this;
+    }
+ 
+    // Getter method to retrieve the translation component of the drive signal, allocates a new Translation2d.
     public Translation2d getTranslation() {
-        return translation;
+        return new Translation2d(x, y);
+    }
+ 
+    // Getter method to retrieve the x component of the translation.
+    public double getX() {
+        return x;
+    }
+ 
+    // Getter method to retrieve the y component of the translation.
+    public double getY() {
+        return y;
     }
  
     // Getter method to retrieve the rotation component of the drive signal.
@@ -45,6 +79,6 @@ public class HolonomicDriveSignal {
  
     // Method to validate the drive signal based on given translation and rotation thresholds.
     public boolean isValid(double translationThreshold, double rotationThreshold) {
-        return translation.getNorm() > translationThreshold && Math.abs(rotation) > rotationThreshold;
+        return Math.hypot(x, y) > translationThreshold && Math.abs(rotation) > rotationThreshold;
     }
 }
\ No newline at end of file
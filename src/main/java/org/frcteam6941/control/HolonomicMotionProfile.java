@@ -0,0 +1,248 @@
+package org.frcteam6941.control;
+
+import edu.wpi.first.math.MathUtil;
+
+// Time-optimal motion profile to a pose at rest for a holonomic drive, planned in closed form from any initial pose
+// and velocity, so it can be re-planned every cycle as the pose estimate changes
+// Each of x, y and rotation follows its own acceleration-limited, velocity-limited profile (accelerate, cruise,
+// decelerate), the translation limits are split between x and y along the direction of travel so the combined
+// acceleration stays within its limit, and so does the combined velocity from any start within the velocity limit;
+// planning and sampling never allocate
+public class HolonomicMotionProfile {
+    // Below this a displacement or speed gives no direction
+    private static final double DIRECTION_EPSILON = 1e-9;
+
+    private final Axis x = new Axis();
+    private final Axis y = new Axis();
+    private final Axis theta = new Axis();
+
+    // Plans from the field pose (x0, y0, theta0) moving at the field velocity (vx0, vy0, omega0) to the field pose
+    // (xf, yf, thetaf) at rest, angles in radians
+    public void plan(double x0, double y0, double theta0, double vx0, double vy0, double omega0,
+                     double xf, double yf, double thetaf,
+                     double maxVelocity, double maxAcceleration,
+                     double maxAngularVelocity, double maxAngularAcceleration) {
+        double dx = xf - x0;
+        double dy = yf - y0;
+        double distance = Math.hypot(dx, dy);
+        double speed = Math.hypot(vx0, vy0);
+        // Split the limits along the direction to the goal
+        double weightX = distance > DIRECTION_EPSILON ? Math.abs(dx) / distance : Math.sqrt(0.5);
+        double weightY = distance > DIRECTION_EPSILON ? Math.abs(dy) / distance : Math.sqrt(0.5);
+        if (speed > DIRECTION_EPSILON && speed >= maxVelocity) {
+            // The velocity over the limit has to be removed too, give its axes at least their share of it
+            weightX = Math.max(weightX, Math.abs(vx0) / speed);
+            weightY = Math.max(weightY, Math.abs(vy0) / speed);
+            double norm = Math.hypot(weightX, weightY);
+            weightX /= norm;
+            weightY /= norm;
+        } else if (Math.abs(vx0) > maxVelocity * weightX) {
+            // An axis already faster than its share keeps its speed as its limit and the other axis gets the rest, so
+            // it never has to slow down while the other speeds up past the combined limit
+            weightX = Math.abs(vx0) / maxVelocity;
+            weightY = Math.sqrt(1.0 - weightX * weightX);
+        } else if (Math.abs(vy0) > maxVelocity * weightY) {
+            weightY = Math.abs(vy0) / maxVelocity;
+            weightX = Math.sqrt(1.0 - weightY * weightY);
+        }
+
+        x.plan(x0, vx0, xf, maxVelocity * weightX, maxAcceleration * weightX);
+        y.plan(y0, vy0, yf, maxVelocity * weightY, maxAcceleration * weightY);
+        theta.plan(theta0, omega0, theta0 + MathUtil.angleModulus(thetaf - theta0),
+                maxAngularVelocity, maxAngularAcceleration);
+    }
+
+    // Samples every axis at time seconds after the plan's start
+    public void sample(double time) {
+        x.sample(time);
+        y.sample(time);
+        theta.sample(time);
+    }
+
+    // Copies a plan, sampled values included
+    public void copyFrom(HolonomicMotionProfile other) {
+        x.copyFrom(other.x);
+        y.copyFrom(other.y);
+        theta.copyFrom(other.theta);
+    }
+
+    // Time until every axis is at rest at the goal
+    public double getTotalTime() {
+        return Math.max(Math.max(x.totalTime, y.totalTime), theta.totalTime);
+    }
+
+    // Sampled field x in meters
+    public double getX() {
+        return x.position;
+    }
+
+    // Sampled field y in meters
+    public double getY() {
+        return y.position;
+    }
+
+    // Sampled rotation in radians, not wrapped
+    public double getTheta() {
+        return theta.position;
+    }
+
+    // Sampled field x velocity in m/s
+    public double getVx() {
+        return x.velocity;
+    }
+
+    // Sampled field y velocity in m/s
+    public double getVy() {
+        return y.velocity;
+    }
+
+    // Sampled angular velocity in rad/s
+    public double getOmega() {
+        return theta.velocity;
+    }
+
+    // Sampled field x acceleration in m/s^2
+    public double getAx() {
+        return x.acceleration;
+    }
+
+    // Sampled field y acceleration in m/s^2
+    public double getAy() {
+        return y.acceleration;
+    }
+
+    // Goal field x in meters
+    public double getGoalX() {
+        return x.goal;
+    }
+
+    // Goal field y in meters
+    public double getGoalY() {
+        return y.goal;
+    }
+
+    // Goal rotation in radians, not wrapped
+    public double getGoalTheta() {
+        return theta.goal;
+    }
+
+    // One axis: a constant acceleration phase, a cruise phase and a deceleration phase to rest at the goal
+    static final class Axis {
+        double start;
+        double startVelocity;
+        double goal;
+        double firstAcceleration;
+        double firstTime;
+        double cruiseVelocity;
+        double cruiseTime;
+        double lastAcceleration;
+        double lastTime;
+        double totalTime;
+
+        double position;
+        double velocity;
+        double acceleration;
+
+        void plan(double p0, double v0, double pf, double maxVelocity, double maxAcceleration) {
+            start = p0;
+            startVelocity = v0;
+            goal = pf;
+            if (maxVelocity <= 0.0 || maxAcceleration <= 0.0) {
+                // No authority on this axis, hold the goal
+                firstAcceleration = 0.0;
+                firstTime = 0.0;
+                cruiseVelocity = 0.0;
+                cruiseTime = 0.0;
+                lastAcceleration = 0.0;
+                lastTime = 0.0;
+                totalTime = 0.0;
+                return;
+            }
+
+            // Work in the direction that still has to be travelled once braking at full deceleration is accounted for
+            double distance = pf - p0;
+            double brakingDistance = v0 * Math.abs(v0) / (2.0 * maxAcceleration);
+            double direction = distance - brakingDistance >= 0.0 ? 1.0 : -1.0;
+            double d = direction * distance;
+            double v = direction * v0;
+
+            double peak = Math.sqrt(Math.max(0.0, (2.0 * maxAcceleration * d + v * v) / 2.0));
+            double cruise;
+            double accelerationOne;
+            double timeOne;
+            double timeCruise;
+            if (peak > maxVelocity) {
+                cruise = maxVelocity;
+                accelerationOne = cruise >= v ? maxAcceleration : -maxAcceleration;
+                timeOne = Math.abs(cruise - v) / maxAcceleration;
+                double distanceOne = (cruise * cruise - v * v) / (2.0 * accelerationOne);
+                double distanceLast = cruise * cruise / (2.0 * maxAcceleration);
+                timeCruise = Math.max(0.0, (d - distanceOne - distanceLast) / cruise);
+            } else {
+                cruise = peak;
+                accelerationOne = maxAcceleration;
+                timeOne = Math.max(0.0, (cruise - v) / maxAcceleration);
+                timeCruise = 0.0;
+            }
+
+            firstAcceleration = direction * accelerationOne;
+            firstTime = timeOne;
+            cruiseVelocity = direction * cruise;
+            cruiseTime = timeCruise;
+            lastAcceleration = -direction * maxAcceleration;
+            lastTime = cruise / maxAcceleration;
+            totalTime = firstTime + cruiseTime + lastTime;
+        }
+
+        void sample(double time) {
+            if (time <= 0.0) {
+                position = start;
+                velocity = startVelocity;
+                acceleration = firstAcceleration;
+                return;
+            }
+            if (time >= totalTime) {
+                position = goal;
+                velocity = 0.0;
+                acceleration = 0.0;
+                return;
+            }
+            if (time < firstTime) {
+                position = start + startVelocity * time + 0.5 * firstAcceleration * time * time;
+                velocity = startVelocity + firstAcceleration * time;
+                acceleration = firstAcceleration;
+                return;
+            }
+            double afterFirst = start + startVelocity * firstTime + 0.5 * firstAcceleration * firstTime * firstTime;
+            double tau = time - firstTime;
+            if (tau < cruiseTime) {
+                position = afterFirst + cruiseVelocity * tau;
+                velocity = cruiseVelocity;
+                acceleration = 0.0;
+                return;
+            }
+            tau -= cruiseTime;
+            // Measured back from the goal so the profile ends exactly on it
+            double remaining = lastTime - tau;
+            position = goal + 0.5 * lastAcceleration * remaining * remaining;
+            velocity = -lastAcceleration * remaining;
+            acceleration = lastAcceleration;
+        }
+
+        void copyFrom(Axis other) {
+            start = other.start;
+            startVelocity = other.startVelocity;
+            goal = other.goal;
+            firstAcceleration = other.firstAcceleration;
+            firstTime = other.firstTime;
+            cruiseVelocity = other.cruiseVelocity;
+            cruiseTime = other.cruiseTime;
+            lastAcceleration = other.lastAcceleration;
+            lastTime = other.lastTime;
+            totalTime = other.totalTime;
+            position = other.position;
+            velocity = other.velocity;
+            acceleration = other.acceleration;
+        }
+    }
+}
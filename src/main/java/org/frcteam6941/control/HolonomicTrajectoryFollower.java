@@ -1,24 +1,31 @@
 package org.frcteam6941.control;
  
 import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
-import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
  
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
  
 import org.littletonrobotics.junction.Logger;
  
+import java.util.Optional;
+ 
 // Class responsible for following a holonomic trajectory using PID controllers and feedforward control
 public class HolonomicTrajectoryFollower extends PathPlannerTrajectoryFollowerBase<HolonomicDriveSignal> {
     private final PIDController xController;
     private final PIDController yController;
     private final ProfiledPIDController thetaController;
+    // Drivetrain model the follower is built with, the drive signal is a speed so the path speed is fed forward as is
     private final SimpleMotorFeedforward feedforward;
  
-    private PathPlannerTrajectoryState lastState = null;
+    // Signal returned every cycle, overwritten in place
+    private final HolonomicDriveSignal signal = new HolonomicDriveSignal(0.0, 0.0, 0.0, true, false);
+ 
+    // View of the trajectory being followed, rebuilt when a new trajectory starts
+    private TrajectoryView view = null;
     private Pose2d actualPose = null;
  
     private boolean finished = false;
@@ -49,52 +56,47 @@ public class HolonomicTrajectoryFollower extends PathPlannerTrajectoryFollowerBa
             if (this.requiredOnTarget) {
                 if (this.xController.atSetpoint() && this.yController.atSetpoint()) {
                     finished = true;
-                    return new HolonomicDriveSignal(new Translation2d(0, 0), 0.0, true, false);
+                    return signal.set(0.0, 0.0, 0.0, true, false);
                 }
             } else {
                 finished = true;
-                return new HolonomicDriveSignal(new Translation2d(0, 0), 0.0, true, false);
+                return signal.set(0.0, 0.0, 0.0, true, false);
             }
         }
  
         actualPose = currentPose;
  
-        lastState = trajectory.sample(time);
-        double x = xController.calculate(currentPose.getX(), lastState.pose.getX());
-        double y = yController.calculate(currentPose.getY(), lastState.pose.getY());
+        TrajectoryView target = viewOf(trajectory);
+        target.sample(time);
+        double x = xController.calculate(currentPose.getX(), target.getX());
+        double y = yController.calculate(currentPose.getY(), target.getY());
         double rotation = 0.0;
-        Translation2d translationVector = new Translation2d(x, y);
- 
-        if (this.lastState != null) {
-            Translation2d targetDisplacement = lastState.pose.getTranslation()
-                    .minus(this.lastState.pose.getTranslation());
  
-            double feedForwardGain = feedforward.getKs() * Math.signum(lastState.linearVelocity)
-                    + feedforward.getKv() * lastState.linearVelocity
-                    + feedforward.getKa() * lastState.linearVelocity * lastState.timeSeconds;
- 
-            if (targetDisplacement.getNorm() != 0.00) { // Prevent NaN cases
-                Translation2d feedForwardVector = targetDisplacement
-                        .times(feedForwardGain / targetDisplacement.getNorm());
-                translationVector = translationVector.plus(feedForwardVector);
-            }
-        }
+        // Feedforward the path speed along its tangent, the direction the displacement from the last state was meant
+        // to give and never did, since it was measured from the state to itself
+        double speed = target.getVelocity();
+        x += target.getTangentX() * speed;
+        y += target.getTangentY() * speed;
  
         if (this.lockAngle) {
             rotation = this.thetaController.calculate(currentPose.getRotation().getDegrees(),
-                    lastState.heading.getDegrees());
+                    Math.toDegrees(target.getHeading()));
         }
  
-        return new HolonomicDriveSignal(
-                translationVector,
-                rotation,
-                true,
-                false);
+        return signal.set(x, y, rotation, true, false);
     }
  
-    // Returns the last sampled state of the trajectory
-    public PathPlannerTrajectoryState getLastState() {
-        return lastState;
+    // Returns the view of a trajectory, building it only when the trajectory changes
+    private TrajectoryView viewOf(PathPlannerTrajectory trajectory) {
+        if (view == null || view.getTrajectory() != trajectory) {
+            view = new TrajectoryView(trajectory);
+        }
+        return view;
+    }
+ 
+    // Returns the view of the trajectory being followed, or null before the first one
+    public TrajectoryView getView() {
+        return view;
     }
  
     // Sets whether the angle should be locked during path following
@@ -124,21 +126,20 @@ public class HolonomicTrajectoryFollower extends PathPlannerTrajectoryFollowerBa
         return !finished;
     }
  
-    // Retrieves an array of poses from the current trajectory
+    // Retrieves the poses of the current trajectory, the array is built once per trajectory
     public Pose2d[] getTrajectoryPoses() {
-        PathPlannerTrajectory trajectory = getCurrentTrajectory().get();
-        Pose2d[] poses = new Pose2d[trajectory.getStates().size()];
-        for (int i = 0; i < trajectory.getStates().size(); i++) {
-            PathPlannerTrajectoryState state = trajectory.getStates().get(i);
-            poses[i] = state.pose;
+        Optional<PathPlannerTrajectory> trajectory = getCurrentTrajectory();
+        if (trajectory.isEmpty()) {
+            return new Pose2d[0];
         }
-        return poses;
+        return viewOf(trajectory.get()).getPoses();
     }
  
     // Sends data to the logger for debugging or telemetry purposes
     public void sendData() {
-        if (isPathFollowing() && this.lastState != null && getCurrentTrajectory() != null) {
-            Logger.recordOutput("swerve/PathPlanner/lastState", this.lastState.pose);
+        if (isPathFollowing() && this.view != null && getCurrentTrajectory().isPresent()) {
+            Logger.recordOutput("swerve/PathPlanner/lastState",
+                    new Pose2d(view.getX(), view.getY(), new Rotation2d(view.getRotation())));
             Logger.recordOutput("swerve/PathPlanner/xErrorV", xController.getErrorDerivative());
             Logger.recordOutput("swerve/PathPlanner/xErrorP", xController.getError());
         }
@@ -150,5 +151,8 @@ public class HolonomicTrajectoryFollower extends PathPlannerTrajectoryFollowerBa
         this.xController.reset();
         this.yController.reset();
         this.finished = false;
+        if (this.view != null) {
+            this.view.resetCursor();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package org.frcteam6941.control;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Background service that re-plans a HolonomicMotionProfile to a target pose at a fixed rate from the latest pose
+// and velocity estimate, so the control loop only copies and samples the newest plan
+// The estimate is handed over by the control loop every cycle, the worker never reads the localizer itself
+// Every cycle runs under a hard time budget: a plan that took longer is dropped, the previous one stays published and
+// the overrun is counted
+public class OnlineReplanner {
+    private final long periodNanos;
+    private final long budgetNanos;
+
+    private final Object lock = new Object();
+    // Target and limits, guarded by lock
+    private boolean active = false;
+    private long activation = 0;
+    private double targetX;
+    private double targetY;
+    private double targetTheta;
+    private double maxVelocity;
+    private double maxAcceleration;
+    private double maxAngularVelocity;
+    private double maxAngularAcceleration;
+
+    // Latest start state from the control loop, guarded by lock
+    private boolean hasState = false;
+    private double stateTime;
+    private double stateX;
+    private double stateY;
+    private double stateTheta;
+    private double stateVx;
+    private double stateVy;
+    private double stateOmega;
+
+    // Newest plan within budget and the time its start state was read, guarded by lock
+    private final HolonomicMotionProfile published = new HolonomicMotionProfile();
+    private double publishedTime = Double.NaN;
+    private long publishedActivation = -1;
+
+    // Only touched by the worker
+    private final HolonomicMotionProfile working = new HolonomicMotionProfile();
+
+    // Statistics written by the worker and read by the main thread
+    private volatile double lastPlanMicros = 0.0;
+    private volatile double maxPlanMicros = 0.0;
+    private volatile long planCount = 0;
+    private volatile long overrunCount = 0;
+
+    public OnlineReplanner(String name, double periodSeconds, double budgetSeconds) {
+        this.periodNanos = (long) (periodSeconds * 1e9);
+        this.budgetNanos = (long) (budgetSeconds * 1e9);
+        Thread worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Starts re-planning to a field pose, a plan from an earlier start is never handed out afterwards
+    // Planning waits for the first state set after the start
+    public void start(Pose2d target, double maxVelocity, double maxAcceleration,
+                      double maxAngularVelocity, double maxAngularAcceleration) {
+        synchronized (lock) {
+            targetX = target.getX();
+            targetY = target.getY();
+            targetTheta = target.getRotation().getRadians();
+            this.maxVelocity = maxVelocity;
+            this.maxAcceleration = maxAcceleration;
+            this.maxAngularVelocity = maxAngularVelocity;
+            this.maxAngularAcceleration = maxAngularAcceleration;
+            activation++;
+            active = true;
+            hasState = false;
+            lock.notifyAll();
+        }
+    }
+
+    // Sets the state the next plan starts from: the field pose read at an FPGA time, the robot relative velocity and
+    // the angular rate in radians per second, must be called from the control loop every cycle
+    public void setState(double time, Pose2d pose, double bodyVx, double bodyVy, double omega) {
+        double cos = pose.getRotation().getCos();
+        double sin = pose.getRotation().getSin();
+        synchronized (lock) {
+            stateTime = time;
+            stateX = pose.getX();
+            stateY = pose.getY();
+            stateTheta = pose.getRotation().getRadians();
+            // Robot relative velocity to the field frame
+            stateVx = cos * bodyVx - sin * bodyVy;
+            stateVy = sin * bodyVx + cos * bodyVy;
+            stateOmega = omega;
+            if (!hasState) {
+                hasState = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Stops re-planning, the worker idles until the next start
+    public void stop() {
+        synchronized (lock) {
+            active = false;
+        }
+    }
+
+    // Copies the newest plan of the current start into out and returns the FPGA time of the state it started from,
+    // or NaN when there is none yet
+    public double copyLatest(HolonomicMotionProfile out) {
+        synchronized (lock) {
+            if (publishedActivation != activation || Double.isNaN(publishedTime)) {
+                return Double.NaN;
+            }
+            out.copyFrom(published);
+            return publishedTime;
+        }
+    }
+
+    // Duration of the last planning cycle in microseconds
+    public double getLastPlanMicros() {
+        return lastPlanMicros;
+    }
+
+    // Longest planning cycle so far in microseconds
+    public double getMaxPlanMicros() {
+        return maxPlanMicros;
+    }
+
+    // Number of plans published
+    public long getPlanCount() {
+        return planCount;
+    }
+
+    // Number of plans dropped for exceeding the budget
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    private void run() {
+        long next = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            long cycleActivation;
+            double time;
+            double x;
+            double y;
+            double theta;
+            double vx;
+            double vy;
+            double omega;
+            double goalX;
+            double goalY;
+            double goalTheta;
+            double velocityLimit;
+            double accelerationLimit;
+            double angularVelocityLimit;
+            double angularAccelerationLimit;
+            synchronized (lock) {
+                while (!active || !hasState) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    next = System.nanoTime();
+                }
+                cycleActivation = activation;
+                time = stateTime;
+                x = stateX;
+                y = stateY;
+                theta = stateTheta;
+                vx = stateVx;
+                vy = stateVy;
+                omega = stateOmega;
+                goalX = targetX;
+                goalY = targetY;
+                goalTheta = targetTheta;
+                velocityLimit = maxVelocity;
+                accelerationLimit = maxAcceleration;
+                angularVelocityLimit = maxAngularVelocity;
+                angularAccelerationLimit = maxAngularAcceleration;
+            }
+
+            long start = System.nanoTime();
+            working.plan(x, y, theta, vx, vy, omega,
+                    goalX, goalY, goalTheta,
+                    velocityLimit, accelerationLimit, angularVelocityLimit, angularAccelerationLimit);
+            long elapsed = System.nanoTime() - start;
+
+            lastPlanMicros = elapsed / 1e3;
+            maxPlanMicros = Math.max(maxPlanMicros, lastPlanMicros);
+            if (elapsed > budgetNanos) {
+                overrunCount++;
+            } else {
+                synchronized (lock) {
+                    if (cycleActivation == activation) {
+                        published.copyFrom(working);
+                        publishedTime = time;
+                        publishedActivation = cycleActivation;
+                    }
+                }
+                planCount++;
+            }
+
+            next += periodNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                // Fell behind, plan again right away and realign the schedule
+                next = System.nanoTime();
+            }
+        }
+    }
+}
@@ -81,13 +81,24 @@ public abstract class PathPlannerTrajectoryFollowerBase<DriveSignalType> {
      */
     public final Optional<DriveSignalType> update(Pose2d currentPose, Translation2d velocity,
                                                   double rotationalVelocity, double time, double dt) {
+        return Optional.ofNullable(updateSignal(currentPose, velocity, rotationalVelocity, time, dt));
+    }
+
+    /**
+     * Same as {@link #update}, but returns null instead of an empty Optional when no trajectory is being followed so
+     * the control loop does not allocate a wrapper every cycle.
+     *
+     * @return the drive signal required to follow the current path, or null if there is none
+     */
+    public final DriveSignalType updateSignal(Pose2d currentPose, Translation2d velocity,
+                                              double rotationalVelocity, double time, double dt) {
         PathPlannerTrajectory trajectory;
         double timeSinceStart;
 
         synchronized (trajectoryLock) {
             // Return empty if no trajectory is being followed
             if (currentTrajectory == null) {
-                return Optional.empty();
+                return null;
             }
 
             // If the trajectory has not been started, update the start time and reset the follower state
@@ -96,16 +107,13 @@ public abstract class PathPlannerTrajectoryFollowerBase<DriveSignalType> {
                 reset();
             } else if (isFinished()) {
                 currentTrajectory = null;
-                return Optional.empty();
+                return null;
             }
 
             trajectory = currentTrajectory;
             timeSinceStart = time - startTime;
         }
 
-        DriveSignalType signal = calculateDriveSignal(currentPose, velocity, rotationalVelocity, trajectory,
-                timeSinceStart, dt);
-
-        return Optional.of(signal);
+        return calculateDriveSignal(currentPose, velocity, rotationalVelocity, trajectory, timeSinceStart, dt);
     }
 }
@@ -0,0 +1,352 @@
+package org.frcteam6941.control;
+
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+
+import java.util.List;
+
+// Read-only view of a PathPlanner trajectory stored as parallel primitive arrays
+// Per-state tangent, curvature and path acceleration are computed once on construction, and sampling keeps a cursor
+// on the last segment so a monotonic sequence of sample times costs O(1) per sample, any other time O(log n)
+// Sampling follows PathPlannerTrajectory.sample: the same segment is chosen for a time, and the position is integrated
+// from the segment start along its heading rather than interpolated, so the view returns what sample would
+// Sampled values are written into this view and read back through the getters, nothing is allocated per sample
+public class TrajectoryView {
+    // Speeds below this are treated as standing still when choosing a tangent direction
+    private static final double MOVING_EPSILON = 1e-6;
+    // Segments shorter than this sample as their end state, as PathPlanner does
+    private static final double MIN_SEGMENT_SECONDS = 1e-3;
+    // Step PathPlanner integrates the position over a segment with
+    private static final double INTEGRATION_STEP_SECONDS = 0.01;
+
+    private final PathPlannerTrajectory trajectory;
+    private final int size;
+    private final double[] t;
+    private final double[] x;
+    private final double[] y;
+    private final double[] rotation;
+    private final double[] velocity;
+    private final double[] vx;
+    private final double[] vy;
+    private final double[] omega;
+    private final double[] heading;
+    private final double[] headingCos;
+    private final double[] headingSin;
+    private final double[] acceleration;
+    private final double[] tangentX;
+    private final double[] tangentY;
+    private final double[] curvature;
+    private final Pose2d[] poses;
+
+    // Index of the state starting the segment of the last sample
+    private int cursor = 0;
+
+    // Last sampled values
+    private double sampleX;
+    private double sampleY;
+    private double sampleRotation;
+    private double sampleVelocity;
+    private double sampleVx;
+    private double sampleVy;
+    private double sampleOmega;
+    private double sampleHeading;
+    private double sampleAcceleration;
+    private double sampleTangentX;
+    private double sampleTangentY;
+    private double sampleCurvature;
+
+    public TrajectoryView(PathPlannerTrajectory trajectory) {
+        List<PathPlannerTrajectoryState> states = trajectory.getStates();
+        if (states.isEmpty()) {
+            throw new IllegalArgumentException("Trajectory has no states");
+        }
+        this.trajectory = trajectory;
+        size = states.size();
+        t = new double[size];
+        x = new double[size];
+        y = new double[size];
+        rotation = new double[size];
+        velocity = new double[size];
+        vx = new double[size];
+        vy = new double[size];
+        omega = new double[size];
+        heading = new double[size];
+        headingCos = new double[size];
+        headingSin = new double[size];
+        acceleration = new double[size];
+        tangentX = new double[size];
+        tangentY = new double[size];
+        curvature = new double[size];
+        poses = new Pose2d[size];
+
+        for (int i = 0; i < size; i++) {
+            PathPlannerTrajectoryState state = states.get(i);
+            t[i] = state.timeSeconds;
+            x[i] = state.pose.getX();
+            y[i] = state.pose.getY();
+            rotation[i] = state.pose.getRotation().getRadians();
+            velocity[i] = state.linearVelocity;
+            vx[i] = state.fieldSpeeds.vxMetersPerSecond;
+            vy[i] = state.fieldSpeeds.vyMetersPerSecond;
+            omega[i] = state.fieldSpeeds.omegaRadiansPerSecond;
+            heading[i] = state.heading.getRadians();
+            headingCos[i] = state.heading.getCos();
+            headingSin[i] = state.heading.getSin();
+            poses[i] = state.pose;
+        }
+
+        // Path acceleration, constant over each segment as the trajectory is generated
+        for (int i = 0; i + 1 < size; i++) {
+            double dt = t[i + 1] - t[i];
+            acceleration[i] = dt > 0.0 ? (velocity[i + 1] - velocity[i]) / dt : 0.0;
+        }
+
+        // Unit tangent: direction of travel, from the position differences around the state where the field speed
+        // is too small to give one, and the previous tangent where the robot does not move at all
+        for (int i = 0; i < size; i++) {
+            double dx = vx[i];
+            double dy = vy[i];
+            double norm = Math.hypot(dx, dy);
+            if (norm < MOVING_EPSILON) {
+                int before = Math.max(i - 1, 0);
+                int after = Math.min(i + 1, size - 1);
+                dx = x[after] - x[before];
+                dy = y[after] - y[before];
+                norm = Math.hypot(dx, dy);
+            }
+            if (norm < MOVING_EPSILON) {
+                if (i > 0) {
+                    tangentX[i] = tangentX[i - 1];
+                    tangentY[i] = tangentY[i - 1];
+                } else {
+                    tangentX[i] = Math.cos(rotation[i]);
+                    tangentY[i] = Math.sin(rotation[i]);
+                }
+            } else {
+                tangentX[i] = dx / norm;
+                tangentY[i] = dy / norm;
+            }
+        }
+
+        // Signed curvature, change of tangent angle per meter travelled around the state
+        for (int i = 0; i < size; i++) {
+            int before = Math.max(i - 1, 0);
+            int after = Math.min(i + 1, size - 1);
+            double distance = Math.hypot(x[after] - x[before], y[after] - y[before]);
+            if (distance < MOVING_EPSILON) {
+                curvature[i] = 0.0;
+            } else {
+                double turn = Math.atan2(tangentY[after], tangentX[after]) - Math.atan2(tangentY[before], tangentX[before]);
+                curvature[i] = MathUtil.angleModulus(turn) / distance;
+            }
+        }
+
+        sample(t[0]);
+    }
+
+    // Returns the trajectory this view was built from
+    public PathPlannerTrajectory getTrajectory() {
+        return trajectory;
+    }
+
+    // Returns the number of states
+    public int size() {
+        return size;
+    }
+
+    // Returns the time of the last state
+    public double getTotalTimeSeconds() {
+        return t[size - 1];
+    }
+
+    // Returns the poses of every state, the same array on every call
+    public Pose2d[] getPoses() {
+        return poses;
+    }
+
+    // Moves the cursor back to the first state
+    public void resetCursor() {
+        cursor = 0;
+    }
+
+    // Samples the trajectory at time, clamping to the first and last states
+    public void sample(double time) {
+        if (time <= t[0]) {
+            cursor = 0;
+            load(0);
+            return;
+        }
+        if (time >= t[size - 1]) {
+            cursor = size - 1;
+            load(size - 1);
+            return;
+        }
+        seek(time);
+        int next = cursor + 1;
+        double span = t[next] - t[cursor];
+        if (Math.abs(span) < MIN_SEGMENT_SECONDS) {
+            load(next);
+            return;
+        }
+        double fraction = (time - t[cursor]) / span;
+
+        // Integrate the speed along the heading of the segment start, stepping as PathPlanner does
+        double sampleTime = MathUtil.interpolate(t[cursor], t[next], fraction);
+        double positionX = x[cursor];
+        double positionY = y[cursor];
+        double integrationTime = t[cursor] + INTEGRATION_STEP_SECONDS;
+        while (true) {
+            double integrationFraction = (integrationTime - t[cursor]) / span;
+            double integrationVelocity = MathUtil.interpolate(velocity[cursor], velocity[next], integrationFraction);
+            double integrationVx = integrationVelocity * headingCos[cursor];
+            double integrationVy = integrationVelocity * headingSin[cursor];
+            if (integrationTime >= sampleTime - INTEGRATION_STEP_SECONDS) {
+                double dt = sampleTime - integrationTime;
+                positionX += integrationVx * dt;
+                positionY += integrationVy * dt;
+                break;
+            }
+            positionX += integrationVx * INTEGRATION_STEP_SECONDS;
+            positionY += integrationVy * INTEGRATION_STEP_SECONDS;
+            integrationTime += INTEGRATION_STEP_SECONDS;
+        }
+        sampleX = positionX;
+        sampleY = positionY;
+
+        sampleRotation = interpolateAngle(rotation[cursor], rotation[next], fraction);
+        sampleHeading = interpolateAngle(heading[cursor], heading[next], fraction);
+        sampleVelocity = MathUtil.interpolate(velocity[cursor], velocity[next], fraction);
+        sampleVx = MathUtil.interpolate(vx[cursor], vx[next], fraction);
+        sampleVy = MathUtil.interpolate(vy[cursor], vy[next], fraction);
+        sampleOmega = MathUtil.interpolate(omega[cursor], omega[next], fraction);
+        sampleAcceleration = acceleration[cursor];
+        double tx = tangentX[cursor] + (tangentX[next] - tangentX[cursor]) * fraction;
+        double ty = tangentY[cursor] + (tangentY[next] - tangentY[cursor]) * fraction;
+        double norm = Math.hypot(tx, ty);
+        if (norm < MOVING_EPSILON) {
+            sampleTangentX = tangentX[cursor];
+            sampleTangentY = tangentY[cursor];
+        } else {
+            sampleTangentX = tx / norm;
+            sampleTangentY = ty / norm;
+        }
+        sampleCurvature = curvature[cursor] + (curvature[next] - curvature[cursor]) * fraction;
+    }
+
+    // Shortest way from one angle to another, as Rotation2d.interpolate
+    private static double interpolateAngle(double from, double to, double fraction) {
+        return MathUtil.angleModulus(from + MathUtil.angleModulus(to - from) * fraction);
+    }
+
+    // Places the cursor on the segment PathPlanner samples a time from, the one ending at the first state at or after
+    // it; time lies strictly inside the trajectory
+    private void seek(double time) {
+        if (cursor >= size - 1) {
+            cursor = size - 2;
+        }
+        if (t[cursor] < time) {
+            // Usual case, the sample is on the cursor segment or the one after it
+            if (time <= t[cursor + 1]) {
+                return;
+            }
+            if (cursor + 2 < size && time <= t[cursor + 2]) {
+                cursor++;
+                return;
+            }
+        }
+        int low = 1;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (t[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        cursor = low - 1;
+    }
+
+    private void load(int index) {
+        sampleX = x[index];
+        sampleY = y[index];
+        sampleRotation = rotation[index];
+        sampleVelocity = velocity[index];
+        sampleVx = vx[index];
+        sampleVy = vy[index];
+        sampleOmega = omega[index];
+        sampleHeading = heading[index];
+        sampleAcceleration = index < size - 1 ? acceleration[index] : 0.0;
+        sampleTangentX = tangentX[index];
+        sampleTangentY = tangentY[index];
+        sampleCurvature = curvature[index];
+    }
+
+    // Sampled field x in meters
+    public double getX() {
+        return sampleX;
+    }
+
+    // Sampled field y in meters
+    public double getY() {
+        return sampleY;
+    }
+
+    // Sampled holonomic rotation in radians
+    public double getRotation() {
+        return sampleRotation;
+    }
+
+    // Sampled speed along the path in m/s
+    public double getVelocity() {
+        return sampleVelocity;
+    }
+
+    // Sampled direction of travel in radians
+    public double getHeading() {
+        return sampleHeading;
+    }
+
+    // Sampled field relative x speed in m/s
+    public double getVx() {
+        return sampleVx;
+    }
+
+    // Sampled field relative y speed in m/s
+    public double getVy() {
+        return sampleVy;
+    }
+
+    // Sampled angular speed in rad/s
+    public double getOmega() {
+        return sampleOmega;
+    }
+
+    // Sampled acceleration along the path in m/s^2
+    public double getAcceleration() {
+        return sampleAcceleration;
+    }
+
+    // Sampled unit tangent x, the direction of travel
+    public double getTangentX() {
+        return sampleTangentX;
+    }
+
+    // Sampled unit tangent y, the direction of travel
+    public double getTangentY() {
+        return sampleTangentY;
+    }
+
+    // Sampled signed curvature in 1/m, positive when turning counterclockwise
+    public double getCurvature() {
+        return sampleCurvature;
+    }
+
+    // Index of the state starting the sampled segment, or of the state returned when clamped
+    public int getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,218 @@
+package org.frcteam6941.drivers;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.configs.MotionMagicConfigs;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.configs.TalonFXConfigurator;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Background service that applies device configs on a worker thread so the control loop never blocks on a config write
+// Submissions are keyed per device and config group, a newer submission replaces one that has not been applied yet
+public class DeviceConfigurator {
+    private static DeviceConfigurator instance;
+
+    private final Object lock = new Object();
+    // Pending applies in submission order, keyed by device and config group
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    // Last values submitted per key, Slot0 gains or MotionMagic limits, used to drop submissions that change nothing
+    // A failed apply clears its entry so the same values are submitted again on the next call
+    private final Map<String, double[]> submittedValues = new HashMap<>();
+
+    // Statistics written by the worker and read by the main thread
+    private volatile double lastApplyMillis = 0.0;
+    private volatile double maxApplyMillis = 0.0;
+    private volatile long applyCount = 0;
+    private volatile long coalescedCount = 0;
+    private volatile long failureCount = 0;
+    private volatile String lastFailure = "";
+
+    private DeviceConfigurator() {
+        this(true);
+    }
+
+    // Without the worker, applies only run through applyNext; used by tests
+    DeviceConfigurator(boolean startWorker) {
+        if (startWorker) {
+            Thread worker = new Thread(this::run, "DeviceConfigurator");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    // Returns the singleton instance of the configurator
+    public static synchronized DeviceConfigurator getInstance() {
+        if (instance == null) {
+            instance = new DeviceConfigurator();
+        }
+        return instance;
+    }
+
+    // Queues a config apply, the supplier runs on the worker thread and must only touch its own config snapshot
+    public void submit(String key, Supplier<StatusCode> apply) {
+        enqueue(key, new Pending(apply, null));
+    }
+
+    // Queues a Slot0 apply only when the gains differ from the last ones submitted under the same key
+    public void submitSlot0(String key, TalonFXConfigurator configurator,
+                            double kp, double ki, double kd, double ka, double kv, double ks) {
+        if (!isSlot0Submitted(key, kp, ki, kd, ka, kv, ks)) {
+            queueSlot0(key, configurator::apply, kp, ki, kd, ka, kv, ks);
+        }
+    }
+
+    // Same as above for a device whose Slot0 apply is not a TalonFXConfigurator
+    public void submitSlot0(String key, Function<Slot0Configs, StatusCode> apply,
+                            double kp, double ki, double kd, double ka, double kv, double ks) {
+        if (!isSlot0Submitted(key, kp, ki, kd, ka, kv, ks)) {
+            queueSlot0(key, apply, kp, ki, kd, ka, kv, ks);
+        }
+    }
+
+    private boolean isSlot0Submitted(String key, double kp, double ki, double kd, double ka, double kv, double ks) {
+        synchronized (lock) {
+            double[] last = submittedValues.get(key);
+            return last != null && last[0] == kp && last[1] == ki && last[2] == kd
+                    && last[3] == ka && last[4] == kv && last[5] == ks;
+        }
+    }
+
+    private void queueSlot0(String key, Function<Slot0Configs, StatusCode> apply,
+                            double kp, double ki, double kd, double ka, double kv, double ks) {
+        Slot0Configs configs = new Slot0Configs()
+                .withKP(kp).withKI(ki).withKD(kd).withKA(ka).withKV(kv).withKS(ks);
+        submitValues(key, new double[]{kp, ki, kd, ka, kv, ks}, () -> apply.apply(configs));
+    }
+
+    // Queues a MotionMagic apply only when the limits differ from the last ones submitted under the same key
+    public void submitMotionMagic(String key, TalonFXConfigurator configurator,
+                                  double acceleration, double cruiseVelocity, double jerk) {
+        synchronized (lock) {
+            double[] last = submittedValues.get(key);
+            if (last != null && last[0] == acceleration && last[1] == cruiseVelocity && last[2] == jerk) {
+                return;
+            }
+        }
+        MotionMagicConfigs configs = new MotionMagicConfigs()
+                .withMotionMagicAcceleration(acceleration)
+                .withMotionMagicCruiseVelocity(cruiseVelocity)
+                .withMotionMagicJerk(jerk);
+        submitValues(key, new double[]{acceleration, cruiseVelocity, jerk}, () -> configurator.apply(configs));
+    }
+
+    // Records the values as submitted and queues the apply, a failed apply forgets them again
+    private void submitValues(String key, double[] values, Supplier<StatusCode> apply) {
+        synchronized (lock) {
+            submittedValues.put(key, values);
+            enqueue(key, new Pending(apply, values));
+        }
+    }
+
+    private void enqueue(String key, Pending apply) {
+        synchronized (lock) {
+            if (pending.remove(key) != null) {
+                coalescedCount++;
+            }
+            pending.put(key, apply);
+            lock.notifyAll();
+        }
+    }
+
+    // Returns the number of applies waiting for the worker
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    // Returns the number of applies that did not return OK
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    // Records apply statistics, must be called from the main thread
+    public void telemetry() {
+        Logger.recordOutput("DeviceConfigurator/Pending", getPendingCount());
+        Logger.recordOutput("DeviceConfigurator/LastApplyMs", lastApplyMillis);
+        Logger.recordOutput("DeviceConfigurator/MaxApplyMs", maxApplyMillis);
+        Logger.recordOutput("DeviceConfigurator/ApplyCount", applyCount);
+        Logger.recordOutput("DeviceConfigurator/CoalescedCount", coalescedCount);
+        Logger.recordOutput("DeviceConfigurator/FailureCount", failureCount);
+        Logger.recordOutput("DeviceConfigurator/LastFailure", lastFailure);
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            synchronized (lock) {
+                while (pending.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            applyNext();
+        }
+    }
+
+    // Runs the oldest pending apply on the calling thread, returns false when nothing was pending
+    boolean applyNext() {
+        String key;
+        Pending apply;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return false;
+            }
+            Iterator<Map.Entry<String, Pending>> iterator = pending.entrySet().iterator();
+            Map.Entry<String, Pending> entry = iterator.next();
+            key = entry.getKey();
+            apply = entry.getValue();
+            iterator.remove();
+        }
+
+        long start = System.nanoTime();
+        StatusCode status;
+        try {
+            status = apply.apply.get();
+        } catch (RuntimeException e) {
+            status = StatusCode.GeneralError;
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        lastApplyMillis = millis;
+        maxApplyMillis = Math.max(maxApplyMillis, millis);
+        applyCount++;
+        if (!status.isOK()) {
+            failureCount++;
+            lastFailure = key + ": " + status;
+            DriverStation.reportWarning("Config " + key + " failed with error " + status, false);
+            synchronized (lock) {
+                // Forget the failed values unless a newer submission already replaced them
+                if (apply.values != null && submittedValues.get(key) == apply.values) {
+                    submittedValues.remove(key);
+                }
+            }
+        }
+        return true;
+    }
+
+    // A queued apply and the values it was submitted with, null for plain submissions
+    private static final class Pending {
+        private final Supplier<StatusCode> apply;
+        private final double[] values;
+
+        private Pending(Supplier<StatusCode> apply, double[] values) {
+            this.apply = apply;
+            this.values = values;
+        }
+    }
+}
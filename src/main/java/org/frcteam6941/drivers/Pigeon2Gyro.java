@@ -1,28 +1,47 @@
 package org.frcteam6941.drivers;
  
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.hardware.Pigeon2;
  
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
  
 // This class implements a Gyro interface using the Pigeon2 sensor from CTRE Phoenix6
 public class Pigeon2Gyro implements Gyro {
     // Actual pigeon object
     public final Pigeon2 mGyro;
+    // Cached signals, refreshed in bulk by StatusSignalRegistry
+    private final StatusSignal<Angle> yawSignal;
+    private final StatusSignal<Angle> pitchSignal;
+    private final StatusSignal<Angle> rollSignal;
+    private final StatusSignal<AngularVelocity> yawVelocitySignal;
+    // Separate clones owned by the odometry thread
+    private final StatusSignal<Angle> odoYawSignal;
+    private final StatusSignal<AngularVelocity> odoYawVelocitySignal;
  
     // Configurations for the gyro sensor
-    private boolean inverted = false;
-    private Rotation2d yawAdjustmentAngle = new Rotation2d(0);
+    private volatile boolean inverted = false;
+    private volatile Rotation2d yawAdjustmentAngle = new Rotation2d(0);
     private Rotation2d rollAdjustmentAngle = new Rotation2d();
     private Rotation2d pitchAdjustmentAngle = new Rotation2d();
  
     // Constructor to initialize Pigeon2 with a specific port
     public Pigeon2Gyro(int port) {
-        mGyro = new Pigeon2(port, "");
+        this(port, "");
     }
  
     // Constructor to initialize Pigeon2 with a specific port and CAN bus
     public Pigeon2Gyro(int port, String canbus) {
         mGyro = new Pigeon2(port, canbus);
+        yawSignal = mGyro.getYaw();
+        pitchSignal = mGyro.getPitch();
+        rollSignal = mGyro.getRoll();
+        yawVelocitySignal = mGyro.getAngularVelocityZWorld();
+        StatusSignalRegistry.getInstance().register(canbus, yawSignal, pitchSignal, rollSignal, yawVelocitySignal);
+        odoYawSignal = mGyro.getYaw().clone();
+        odoYawVelocitySignal = mGyro.getAngularVelocityZWorld().clone();
     }
  
     // Returns the adjusted yaw angle as a Rotation2d object
@@ -51,6 +70,19 @@ public class Pigeon2Gyro implements Gyro {
         yawAdjustmentAngle = Rotation2d.fromDegrees(yawAdjustmentAngle.getDegrees() + angleDeg);
     }
  
+    // Returns the signals sampled by the odometry thread
+    public BaseStatusSignal[] getOdometrySignals() {
+        return new BaseStatusSignal[]{odoYawSignal, odoYawVelocitySignal};
+    }
+
+    // Returns the latency compensated, adjusted yaw in degrees from the odometry thread signals
+    public double sampleOdometryYawDegrees() {
+        double angle = BaseStatusSignal.getLatencyCompensatedValueAsDouble(odoYawSignal, odoYawVelocitySignal);
+        angle -= yawAdjustmentAngle.getDegrees();
+        angle %= 360;
+        return inverted ? -angle : angle;
+    }
+ 
     // Returns the adjusted roll angle as a Rotation2d object
     @Override
     public Rotation2d getRoll() {
@@ -90,22 +122,27 @@ public class Pigeon2Gyro implements Gyro {
  
     // Returns the unadjusted yaw angle from the Pigeon2 sensor as a Rotation2d object
     public Rotation2d getUnadjustedYaw() {
-        return Rotation2d.fromDegrees(mGyro.getYaw().getValueAsDouble());
+        return Rotation2d.fromDegrees(yawSignal.getValueAsDouble());
     }
  
     // Returns the unadjusted pitch angle from the Pigeon2 sensor as a Rotation2d object
     public Rotation2d getUnadjustedPitch() {
-        return Rotation2d.fromDegrees(mGyro.getPitch().getValueAsDouble());
+        return Rotation2d.fromDegrees(pitchSignal.getValueAsDouble());
     }
  
     // Returns the unadjusted roll angle from the Pigeon2 sensor as a Rotation2d object
     public Rotation2d getUnadjustedRoll() {
-        return Rotation2d.fromDegrees(mGyro.getRoll().getValueAsDouble());
+        return Rotation2d.fromDegrees(rollSignal.getValueAsDouble());
+    }
+ 
+    // Returns whether the last bulk refresh of the yaw signal succeeded
+    public boolean isConnected() {
+        return yawSignal.getStatus().isOK();
     }
  
     // Returns the yaw angular velocity from the Pigeon2 sensor in degrees per second
     public double getYawAngularVelocity() {
-        return mGyro.getAngularVelocityYWorld().getValueAsDouble();
+        return yawVelocitySignal.getValueAsDouble();
     }
  
     // Returns the raw sensor values (X, Y, Z angular velocities) as a double array
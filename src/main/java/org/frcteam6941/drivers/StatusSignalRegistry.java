@@ -0,0 +1,96 @@
+package org.frcteam6941.drivers;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Central registry of Phoenix 6 status signals, refreshed with one bulk call per CAN bus every cycle
+public class StatusSignalRegistry {
+    private static StatusSignalRegistry instance;
+
+    // Signal groups keyed by normalized bus name, in registration order
+    private final Map<String, BusGroup> buses = new LinkedHashMap<>();
+    // Snapshot of the groups so refreshAll can iterate without allocating
+    private BusGroup[] groups = new BusGroup[0];
+
+    private StatusSignalRegistry() {
+    }
+
+    // Returns the singleton instance of the registry
+    public static StatusSignalRegistry getInstance() {
+        if (instance == null) {
+            instance = new StatusSignalRegistry();
+        }
+        return instance;
+    }
+
+    // Registers signals living on the given bus, called once by IO classes at construction
+    public synchronized void register(String canbus, BaseStatusSignal... signals) {
+        BusGroup group = getGroup(canbus);
+        BaseStatusSignal[] merged = Arrays.copyOf(group.signals, group.signals.length + signals.length);
+        System.arraycopy(signals, 0, merged, group.signals.length, signals.length);
+        group.signals = merged;
+    }
+
+    // Makes refreshAll block on the given bus until every signal has a new frame, or the timeout passes
+    public synchronized void setSynchronized(String canbus, double timeoutSeconds) {
+        BusGroup group = getGroup(canbus);
+        group.synchronizedWait = timeoutSeconds > 0.0;
+        group.timeoutSeconds = timeoutSeconds;
+    }
+
+    // Refreshes every registered signal with a single call per bus
+    public synchronized void refreshAll() {
+        for (BusGroup group : groups) {
+            if (group.signals.length == 0) {
+                continue;
+            }
+            StatusCode status = group.synchronizedWait
+                    ? BaseStatusSignal.waitForAll(group.timeoutSeconds, group.signals)
+                    : BaseStatusSignal.refreshAll(group.signals);
+            if (!status.isOK()) {
+                group.failures++;
+            }
+            group.lastStatus = status;
+        }
+    }
+
+    // Returns the status of the last refresh on the given bus
+    public synchronized StatusCode getLastStatus(String canbus) {
+        BusGroup group = buses.get(normalize(canbus));
+        return group == null ? StatusCode.OK : group.lastStatus;
+    }
+
+    // Returns the number of refreshes on the given bus that did not return OK
+    public synchronized long getFailureCount(String canbus) {
+        BusGroup group = buses.get(normalize(canbus));
+        return group == null ? 0 : group.failures;
+    }
+
+    private BusGroup getGroup(String canbus) {
+        String name = normalize(canbus);
+        BusGroup group = buses.get(name);
+        if (group == null) {
+            group = new BusGroup();
+            buses.put(name, group);
+            groups = buses.values().toArray(new BusGroup[0]);
+        }
+        return group;
+    }
+
+    // Phoenix treats the empty string and "rio" as the same bus
+    private static String normalize(String canbus) {
+        return canbus == null || canbus.isEmpty() ? "rio" : canbus;
+    }
+
+    private static final class BusGroup {
+        private BaseStatusSignal[] signals = new BaseStatusSignal[0];
+        private boolean synchronizedWait = false;
+        private double timeoutSeconds = 0.0;
+        private StatusCode lastStatus = StatusCode.OK;
+        private long failures = 0;
+    }
+}
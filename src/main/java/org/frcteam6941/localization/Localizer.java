@@ -19,6 +19,15 @@ public interface Localizer {
     // Returns a coarse field pose of the robot at a specific time
     Pose2d getCoarseFieldPose(double time);
  
+    // Writes the coarse field pose at a specific time into out as x, y and heading in radians
+    // Meant for threads other than the one updating the localizer
+    default void sampleCoarseFieldPose(double time, double[] out) {
+        Pose2d pose = getCoarseFieldPose(time);
+        out[0] = pose.getX();
+        out[1] = pose.getY();
+        out[2] = pose.getRotation().getRadians();
+    }
+ 
     // Returns the measured velocity of the robot
     Pose2d getMeasuredVelocity();
  
@@ -1,5 +1,9 @@
 package org.frcteam6941.localization;
  
+import com.team254.lib.geometry.MutPose2d;
+import com.team254.lib.geometry.MutTwist2d;
+import com.team254.lib.geometry.Twist2dMath;
+ 
 import edu.wpi.first.math.MatBuilder;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.Nat;
@@ -8,7 +12,6 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
@@ -18,28 +21,72 @@ import frc.robot.RobotConstants;
  
 import lombok.Synchronized;
  
-import org.frcteam6941.utils.InterpolatingTreeMap;
 import org.frcteam6941.utils.MovingAveragePose2d;
+import org.frcteam6941.utils.PoseTimeSeries;
  
 // This class implements a coarse localization system for a swerve drive robot
 // It uses odometry and pose estimation to track the robot's position and velocity
 public class SwerveDeltaCoarseLocalizer implements Localizer {
+    // How far back the fused pose history reaches, vision older than this is rejected
+    private static final double FUSION_HISTORY_SECONDS = 1.5;
+    private static final int FUSION_HISTORY_CAPACITY =
+            (int) Math.ceil(FUSION_HISTORY_SECONDS * RobotConstants.SwerveConstants.ODOMETRY_FREQUENCY);
+    // Odometry standard deviations used to weigh vision in the latency compensated mode, x y theta
+    private static final double[] FUSION_STATE_STD_DEVS = {0.1, 0.1, 0.1};
     private final Object statusLock = new Object();
-    private final SwerveDriveOdometry swerveOdometry;
+    // Odometry on primitives so the 250 Hz samples build no geometry objects, the pose object is built on read
+    private final SwerveOdometryEngine odometry;
+    private Pose2d odometryPoseObject = null;
+    // Module states for the pose estimator, only filled in the POSE_ESTIMATOR mode
+    private final SwerveModulePosition[] estimatorPositions;
+    // Scratch the Rotation2d overload converts its arguments into
+    private final double[] positionDistances;
+    private final double[] positionAngles;
+    // Gyro and module readings of the latest sample, the references the pose estimator is re-seeded with
+    private double lastGyroRadians = 0.0;
+    private final double[] lastDistances;
+    private final double[] lastAngles;
     private final SwerveDrivePoseEstimator poseEstimator;
     private final int poseBufferSize;
     private final int velocityBufferSize;
     private final int accelerationBufferSize;
-    private Pose2d previousPose = null;
-    private Pose2d previousVelocity = new Pose2d();
+    // Per-sample state is kept in mutable poses, the Pose2d getters build their objects lazily after a change
+    private final MutPose2d odometryPose = new MutPose2d();
+    private final MutPose2d previousPose = new MutPose2d();
+    private boolean hasPreviousPose = false;
+    private final MutPose2d poseDelta = new MutPose2d();
+    private final MutPose2d previousVelocity = new MutPose2d();
+    private final MutPose2d velocityDelta = new MutPose2d();
+    private final MutPose2d velocityAverage = new MutPose2d();
+    private final MutPose2d accelerationStep = new MutPose2d();
     private double distanceDriven = 0.0;
-    private InterpolatingTreeMap<Double, Pose2d> fieldToVehicle;
-    private Pose2d vehicleVelocityMeasured;
-    private MovingAveragePose2d vehicleVelocityMeasuredFilter;
-    private Pose2d vehicleAccelerationMeasured;
-    private MovingAveragePose2d vehicleAccelerationMeasuredFilter;
-    private Pose2d vehicleVelocityPredicted;
-    private MovingAveragePose2d vehicleVelocityPredictedFilter;
+    private final PoseTimeSeries fieldToVehicle;
+    private final MutPose2d vehicleVelocityMeasured = new MutPose2d();
+    private Pose2d vehicleVelocityMeasuredPose = null;
+    private final MovingAveragePose2d vehicleVelocityMeasuredFilter;
+    private final MutPose2d vehicleAccelerationMeasured = new MutPose2d();
+    private Pose2d vehicleAccelerationMeasuredPose = null;
+    private final MovingAveragePose2d vehicleAccelerationMeasuredFilter;
+    private final MutPose2d vehicleVelocityPredicted = new MutPose2d();
+    private Pose2d vehicleVelocityPredictedPose = null;
+    private final MovingAveragePose2d vehicleVelocityPredictedFilter;
+    // Latency compensated fusion state, the history holds the fused pose at every odometry sample
+    // Volatile so sampleCoarseFieldPose can check it without the lock
+    private volatile FusionMode fusionMode = FusionMode.POSE_ESTIMATOR;
+    private final PoseTimeSeries fusedHistory = new PoseTimeSeries(FUSION_HISTORY_CAPACITY);
+    private double fusedX = 0.0;
+    private double fusedY = 0.0;
+    private double fusedTheta = 0.0;
+    // Latest fused pose as an object, rebuilt lazily after the fused state changes
+    private Pose2d fusedPose = new Pose2d();
+    private boolean fusedPoseStale = false;
+    private final double[] sampleScratch = new double[3];
+    private final MutPose2d fusionEstimate = new MutPose2d();
+    private final MutPose2d fusionMeasurement = new MutPose2d();
+    private final MutPose2d fusionStep = new MutPose2d();
+    private final MutPose2d fusionCorrected = new MutPose2d();
+    private final MutTwist2d fusionTwist = new MutTwist2d();
+    private long rejectedMeasurements = 0;
  
     // Constructor initializes the localization system with given parameters and initial module positions
     public SwerveDeltaCoarseLocalizer(SwerveDriveKinematics kinematics, int poseBufferSize, int velocityBufferSize,
@@ -47,69 +94,115 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
         this.poseBufferSize = poseBufferSize;
         this.velocityBufferSize = velocityBufferSize;
         this.accelerationBufferSize = accelerationBufferSize;
-        fieldToVehicle = new InterpolatingTreeMap<Double, Pose2d>(poseBufferSize);
-        vehicleVelocityMeasured = new Pose2d();
+        fieldToVehicle = new PoseTimeSeries(poseBufferSize);
         vehicleVelocityMeasuredFilter = new MovingAveragePose2d(velocityBufferSize);
-        vehicleAccelerationMeasured = new Pose2d();
         vehicleAccelerationMeasuredFilter = new MovingAveragePose2d(accelerationBufferSize);
-        vehicleVelocityPredicted = new Pose2d();
         vehicleVelocityPredictedFilter = new MovingAveragePose2d(velocityBufferSize);
  
         vehicleVelocityMeasuredFilter.add(new Pose2d());
         vehicleAccelerationMeasuredFilter.add(new Pose2d());
  
-        swerveOdometry = new SwerveDriveOdometry(kinematics, new Rotation2d(), initPosition);
+        odometry = new SwerveOdometryEngine(kinematics, initPosition.length);
+        odometry.resetPosition(0.0, initPosition, new Pose2d());
+        estimatorPositions = new SwerveModulePosition[initPosition.length];
+        for (int i = 0; i < estimatorPositions.length; i++) {
+            estimatorPositions[i] = new SwerveModulePosition();
+        }
+        positionDistances = new double[initPosition.length];
+        positionAngles = new double[initPosition.length];
+        lastDistances = new double[initPosition.length];
+        lastAngles = new double[initPosition.length];
+        rememberReadings(0.0, initPosition);
         poseEstimator = new SwerveDrivePoseEstimator(kinematics, new Rotation2d(), initPosition, new Pose2d());
     }
  
     // Updates the localization state with the current time, time delta, gyro angle, and module positions
     public synchronized Pose2d updateWithTime(double time, double dt, Rotation2d gyroAngle,
                                               SwerveModulePosition[] moduleStates) {
-        dt = RobotConstants.LOOPER_DT;
+        synchronized (statusLock) {
+            for (int i = 0; i < positionDistances.length; i++) {
+                positionDistances[i] = moduleStates[i].distanceMeters;
+                positionAngles[i] = moduleStates[i].angle.getRadians();
+            }
+            updateWithTime(time, dt, gyroAngle.getRadians(), positionDistances, positionAngles, 0);
+            return getLatestPose();
+        }
+    }
+ 
+    // Updates the localization state from one odometry sample held in primitive arrays, module i reads
+    // distancesMeters[offset + i] and anglesRadians[offset + i]
+    public synchronized void updateWithTime(double time, double dt, double gyroRadians, double[] distancesMeters,
+                                            double[] anglesRadians, int offset) {
+        // samples may arrive faster than the main loop, only fall back to the loop period when dt is unusable
+        if (dt <= 0.0) {
+            dt = RobotConstants.LOOPER_DT;
+        }
         synchronized (statusLock) {
             // Get pose from kinematics update
-            Pose2d pose = swerveOdometry.update(gyroAngle, moduleStates);
-            poseEstimator.updateWithTime(time, gyroAngle, moduleStates);
+            odometry.update(gyroRadians, distancesMeters, anglesRadians, offset);
+            odometryPoseObject = null;
+            lastGyroRadians = gyroRadians;
+            System.arraycopy(distancesMeters, offset, lastDistances, 0, lastDistances.length);
+            System.arraycopy(anglesRadians, offset, lastAngles, 0, lastAngles.length);
  
             // First, get the displacement
-            if (previousPose == null) {
-                previousPose = pose;
+            odometryPose.set(odometry.getX(), odometry.getY(), odometry.getTheta());
+            if (!hasPreviousPose) {
+                previousPose.set(odometryPose);
+                hasPreviousPose = true;
+            }
+            odometryPose.relativeToInto(previousPose, poseDelta);
+            double deltaX = poseDelta.x();
+            double deltaY = poseDelta.y();
+            double deltaTheta = poseDelta.getRotation().getRadians();
+ 
+            if (fusionMode == FusionMode.LATENCY_COMPENSATED) {
+                // Compose the body frame displacement onto the fused pose
+                double cos = Math.cos(fusedTheta);
+                double sin = Math.sin(fusedTheta);
+                fusedX += cos * deltaX - sin * deltaY;
+                fusedY += sin * deltaX + cos * deltaY;
+                fusedTheta += deltaTheta;
+                fusedPoseStale = true;
+                fusedHistory.add(time, fusedX, fusedY, fusedTheta);
+            } else {
+                for (int i = 0; i < estimatorPositions.length; i++) {
+                    estimatorPositions[i].distanceMeters = distancesMeters[offset + i];
+                    estimatorPositions[i].angle = new Rotation2d(anglesRadians[offset + i]);
+                }
+                poseEstimator.updateWithTime(time, new Rotation2d(gyroRadians), estimatorPositions);
             }
-            Pose2d poseDelta = pose.relativeTo(previousPose);
  
-            distanceDriven += poseDelta.getTranslation().getNorm();
-            fieldToVehicle.put(time, new Pose2d(
-                    fieldToVehicle.lastEntry().getValue().getTranslation().plus(poseDelta.getTranslation()),
-                    fieldToVehicle.lastEntry().getValue().getRotation().rotateBy(poseDelta.getRotation())));
+            distanceDriven += poseDelta.getTranslation().norm();
+            int last = fieldToVehicle.size() - 1;
+            fieldToVehicle.add(time,
+                    (last < 0 ? 0.0 : fieldToVehicle.getX(last)) + deltaX,
+                    (last < 0 ? 0.0 : fieldToVehicle.getY(last)) + deltaY,
+                    (last < 0 ? 0.0 : fieldToVehicle.getTheta(last)) + deltaTheta);
  
-            vehicleVelocityMeasured = new Pose2d(poseDelta.getX() / dt, poseDelta.getY() / dt,
-                    poseDelta.getRotation().times(1.0 / dt));
-            vehicleVelocityMeasuredFilter.add(vehicleVelocityMeasured);
+            vehicleVelocityMeasured.set(deltaX / dt, deltaY / dt, deltaTheta * (1.0 / dt));
+            vehicleVelocityMeasuredPose = null;
+            addTo(vehicleVelocityMeasuredFilter, vehicleVelocityMeasured);
  
  
             // Second, get the acceleration
-            if (previousVelocity == null) {
-                previousVelocity = vehicleVelocityMeasured;
-            }
- 
-            Pose2d velocityDelta = vehicleVelocityMeasured.relativeTo(previousVelocity);
-            vehicleAccelerationMeasured = new Pose2d(velocityDelta.getX() / dt, velocityDelta.getY() / dt,
-                    velocityDelta.getRotation().times(1.0 / dt));
-            vehicleAccelerationMeasuredFilter.add(vehicleAccelerationMeasured);
+            vehicleVelocityMeasured.relativeToInto(previousVelocity, velocityDelta);
+            vehicleAccelerationMeasured.set(velocityDelta.x() / dt, velocityDelta.y() / dt,
+                    velocityDelta.getRotation().getRadians() * (1.0 / dt));
+            vehicleAccelerationMeasuredPose = null;
+            addTo(vehicleAccelerationMeasuredFilter, vehicleAccelerationMeasured);
  
             // Third, update prediction using acceleration
-            vehicleVelocityPredicted = vehicleVelocityMeasuredFilter.getAverage()
-                    .plus(new Transform2d(vehicleAccelerationMeasured.getTranslation(),
-                            vehicleAccelerationMeasured.getRotation()).times(dt));
-            vehicleVelocityPredictedFilter.add(vehicleVelocityPredicted);
+            vehicleVelocityMeasuredFilter.getAverageInto(velocityAverage);
+            accelerationStep.set(vehicleAccelerationMeasured.x() * dt, vehicleAccelerationMeasured.y() * dt,
+                    vehicleAccelerationMeasured.getRotation().getRadians() * dt);
+            velocityAverage.transformByInto(accelerationStep, vehicleVelocityPredicted);
+            vehicleVelocityPredictedPose = null;
+            addTo(vehicleVelocityPredictedFilter, vehicleVelocityPredicted);
  
             // Finally, update system state and ready for the next iteration
-            previousPose = pose;
-            previousVelocity = vehicleVelocityMeasured;
- 
- 
-            // Return pose
-            return pose;
+            previousPose.set(odometryPose);
+            previousVelocity.set(vehicleVelocityMeasured);
         }
     }
  
@@ -118,25 +211,75 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
     @Synchronized
     public synchronized Pose2d getLatestPose() {
         synchronized (statusLock) {
-            return swerveOdometry.getPoseMeters();
+            if (odometryPoseObject == null) {
+                odometryPoseObject = new Pose2d(odometry.getX(), odometry.getY(), new Rotation2d(odometry.getTheta()));
+            }
+            return odometryPoseObject;
         }
     }
  
-    // Returns the coarse field pose estimated by the pose estimator
+    // Returns the coarse field pose, in the latency compensated mode this is the fused pose at the given time
     @Override
     @Synchronized
     public synchronized Pose2d getCoarseFieldPose(double time) {
         synchronized (statusLock) {
-            return poseEstimator.getEstimatedPosition();
+            if (fusionMode != FusionMode.LATENCY_COMPENSATED) {
+                return poseEstimator.getEstimatedPosition();
+            }
+            if (fusedHistory.isEmpty() || time >= fusedHistory.getLatestTime()) {
+                return getFusedPose();
+            }
+            fusedHistory.sample(time, sampleScratch);
+            return new Pose2d(sampleScratch[0], sampleScratch[1], new Rotation2d(sampleScratch[2]));
+        }
+    }
+ 
+    // Reads the fused history through its sequence lock instead of the localizer lock and never allocates
+    // The fused history always ends at the latest fused pose, so later times clamp to it like getCoarseFieldPose
+    // Other modes and an empty history fall back to getCoarseFieldPose
+    @Override
+    public void sampleCoarseFieldPose(double time, double[] out) {
+        if (fusionMode != FusionMode.LATENCY_COMPENSATED || !fusedHistory.sampleConcurrent(time, out)) {
+            Localizer.super.sampleCoarseFieldPose(time, out);
+        }
+    }
+ 
+    // Selects how vision measurements are fused
+    // Only the active mode is updated, so the mode taking over is re-seeded from the current pose of the other one
+    // and the coarse field pose carries on without a jump
+    public synchronized void setFusionMode(FusionMode mode) {
+        synchronized (statusLock) {
+            if (mode == fusionMode) {
+                return;
+            }
+            if (mode == FusionMode.LATENCY_COMPENSATED) {
+                setFusedPose(poseEstimator.getEstimatedPosition());
+                fusedHistory.clear();
+            } else {
+                for (int i = 0; i < estimatorPositions.length; i++) {
+                    estimatorPositions[i].distanceMeters = lastDistances[i];
+                    estimatorPositions[i].angle = new Rotation2d(lastAngles[i]);
+                }
+                poseEstimator.resetPosition(new Rotation2d(lastGyroRadians), estimatorPositions, getFusedPose());
+            }
+            fusionMode = mode;
         }
     }
  
+    // Returns the number of vision measurements that were older than the fused history
+    public synchronized long getRejectedMeasurementCount() {
+        return rejectedMeasurements;
+    }
+ 
     // Returns the measured velocity of the vehicle
     @Override
     @Synchronized
     public synchronized Pose2d getMeasuredVelocity() {
         synchronized (statusLock) {
-            return vehicleVelocityMeasured;
+            if (vehicleVelocityMeasuredPose == null) {
+                vehicleVelocityMeasuredPose = vehicleVelocityMeasured.toWpiPose2d();
+            }
+            return vehicleVelocityMeasuredPose;
         }
     }
  
@@ -145,7 +288,10 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
     @Synchronized
     public synchronized Pose2d getPredictedVelocity() {
         synchronized (statusLock) {
-            return vehicleVelocityPredicted;
+            if (vehicleVelocityPredictedPose == null) {
+                vehicleVelocityPredictedPose = vehicleVelocityPredicted.toWpiPose2d();
+            }
+            return vehicleVelocityPredictedPose;
         }
     }
  
@@ -172,7 +318,10 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
     @Synchronized
     public synchronized Pose2d getMeasuredAcceleration() {
         synchronized (statusLock) {
-            return vehicleAccelerationMeasured;
+            if (vehicleAccelerationMeasuredPose == null) {
+                vehicleAccelerationMeasuredPose = vehicleAccelerationMeasured.toWpiPose2d();
+            }
+            return vehicleAccelerationMeasuredPose;
         }
     }
  
@@ -195,7 +344,7 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
     @Override
     public synchronized Pose2d getPoseAtTime(double time) {
         synchronized (statusLock) {
-            return fieldToVehicle.getInterpolated(time, 0.5);
+            return fieldToVehicle.getInterpolated(time);
         }
     }
  
@@ -209,6 +358,11 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
     @Override
     public synchronized void addMeasurement(double time, Pose2d measuredPose, Pose2d stdDeviation) {
         synchronized (statusLock) {
+            if (fusionMode == FusionMode.LATENCY_COMPENSATED) {
+                fuseMeasurement(time, measuredPose,
+                        stdDeviation.getX(), stdDeviation.getY(), stdDeviation.getRotation().getDegrees());
+                return;
+            }
             poseEstimator.addVisionMeasurement(
                     measuredPose,
                     time,
@@ -221,6 +375,11 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
     @Override
     public synchronized void addMeasurement(double time, Pose2d measuredPose, Matrix<N3, N1> stdDeviation) {
         synchronized (statusLock) {
+            if (fusionMode == FusionMode.LATENCY_COMPENSATED) {
+                fuseMeasurement(time, measuredPose,
+                        stdDeviation.get(0, 0), stdDeviation.get(1, 0), stdDeviation.get(2, 0));
+                return;
+            }
             poseEstimator.addVisionMeasurement(
                     measuredPose,
                     time,
@@ -229,22 +388,132 @@ public class SwerveDeltaCoarseLocalizer implements Localizer {
         }
     }
  
+    // Corrects the fused pose at the capture time of a measurement, then carries the correction forward by
+    // replaying the odometry motion recorded after that time, so only samples newer than the measurement are touched
+    private void fuseMeasurement(double time, Pose2d measuredPose, double xStdDev, double yStdDev, double thetaStdDev) {
+        if (fusedHistory.isEmpty() || time < fusedHistory.getOldestTime()) {
+            rejectedMeasurements++;
+            return;
+        }
+        if (time >= fusedHistory.getLatestTime()) {
+            fusionEstimate.set(fusedX, fusedY, fusedTheta);
+        } else {
+            fusedHistory.sample(time, sampleScratch);
+            fusionEstimate.set(sampleScratch[0], sampleScratch[1], sampleScratch[2]);
+        }
+ 
+        // Scale the innovation by the steady state Kalman gain of each axis
+        fusionMeasurement.set(measuredPose).relativeToInto(fusionEstimate, fusionStep);
+        Twist2dMath.logInto(fusionStep, fusionTwist);
+        fusionTwist.set(
+                fusionTwist.dx * fusionGain(0, xStdDev),
+                fusionTwist.dy * fusionGain(1, yStdDev),
+                fusionTwist.dtheta * fusionGain(2, thetaStdDev));
+        Twist2dMath.expInto(fusionTwist, fusionStep);
+        fusionEstimate.transformByInto(fusionStep, fusionCorrected);
+ 
+        // Rigid motion taking the estimate onto the corrected pose, p' = corrected * estimate^-1 * p
+        double rotation = fusionTwist.dtheta;
+        double cos = Math.cos(rotation);
+        double sin = Math.sin(rotation);
+        double estimateX = fusionEstimate.x();
+        double estimateY = fusionEstimate.y();
+        double translationX = fusionCorrected.x() - (cos * estimateX - sin * estimateY);
+        double translationY = fusionCorrected.y() - (sin * estimateX + cos * estimateY);
+ 
+        // Replay the motion after the measurement on top of the corrected pose
+        fusedHistory.transformFrom(time, cos, sin, translationX, translationY, rotation);
+        double x = fusedX;
+        fusedX = translationX + cos * x - sin * fusedY;
+        fusedY = translationY + sin * x + cos * fusedY;
+        fusedTheta += rotation;
+        fusedPoseStale = true;
+        int floor = fusedHistory.floorIndex(time);
+        if (fusedHistory.getTime(floor) != time) {
+            fusedHistory.add(time, fusionCorrected.x(), fusionCorrected.y(),
+                    fusionEstimate.getRotation().getRadians() + rotation);
+        }
+    }
+ 
+    // Returns the latest fused pose, building the object only after the fused state changed
+    private Pose2d getFusedPose() {
+        if (fusedPoseStale) {
+            fusedPose = new Pose2d(fusedX, fusedY, new Rotation2d(fusedTheta));
+            fusedPoseStale = false;
+        }
+        return fusedPose;
+    }
+ 
+    // Overwrites the latest fused pose
+    private void setFusedPose(Pose2d pose) {
+        fusedX = pose.getX();
+        fusedY = pose.getY();
+        fusedTheta = pose.getRotation().getRadians();
+        fusedPose = pose;
+        fusedPoseStale = false;
+    }
+ 
+    // Returns the gain applied to a measurement with the given standard deviation on one axis
+    private static double fusionGain(int axis, double measurementStdDev) {
+        double q = FUSION_STATE_STD_DEVS[axis] * FUSION_STATE_STD_DEVS[axis];
+        double r = measurementStdDev * measurementStdDev;
+        if (q == 0.0) {
+            return 0.0;
+        }
+        return q / (q + Math.sqrt(q * r));
+    }
+ 
+    private void rememberReadings(double gyroRadians, SwerveModulePosition[] modulePositions) {
+        lastGyroRadians = gyroRadians;
+        for (int i = 0; i < lastDistances.length; i++) {
+            lastDistances[i] = modulePositions[i].distanceMeters;
+            lastAngles[i] = modulePositions[i].angle.getRadians();
+        }
+    }
+ 
+    // Adds a pose to a moving average filter without building a Pose2d
+    private static void addTo(MovingAveragePose2d filter, MutPose2d pose) {
+        filter.add(pose.x(), pose.y(), pose.getRotation().getDegrees());
+    }
+ 
     // Resets the localization system to a new pose and module positions
     public synchronized void reset(Pose2d resetPose, SwerveModulePosition[] modulePositions) {
+        reset(Timer.getFPGATimestamp(), resetPose, resetPose.getRotation(), modulePositions);
+    }
+ 
+    // Resets the localization system at a given time, with the gyro reading the given angle at the reset pose
+    // Used by replay, where neither the clock nor the gyro are reset with the pose
+    public synchronized void reset(double time, Pose2d resetPose, Rotation2d gyroAngle,
+                                   SwerveModulePosition[] modulePositions) {
         synchronized (statusLock) {
-            swerveOdometry.resetPosition(resetPose.getRotation(), modulePositions, resetPose);
-            poseEstimator.resetPosition(resetPose.getRotation(), modulePositions, resetPose);
-            previousPose = null;
-            fieldToVehicle = new InterpolatingTreeMap<Double, Pose2d>(poseBufferSize);
-            fieldToVehicle.put(Timer.getFPGATimestamp(), resetPose);
-            vehicleVelocityMeasured = new Pose2d();
-            vehicleVelocityMeasuredFilter = new MovingAveragePose2d(velocityBufferSize);
-            vehicleAccelerationMeasured = new Pose2d();
-            vehicleAccelerationMeasuredFilter = new MovingAveragePose2d(accelerationBufferSize);
-            vehicleVelocityPredictedFilter = new MovingAveragePose2d(velocityBufferSize);
+            odometry.resetPosition(gyroAngle.getRadians(), modulePositions, resetPose);
+            rememberReadings(gyroAngle.getRadians(), modulePositions);
+            odometryPoseObject = resetPose;
+            poseEstimator.resetPosition(gyroAngle, modulePositions, resetPose);
+            setFusedPose(resetPose);
+            fusedHistory.clear();
+            fusedHistory.add(time, resetPose);
+            hasPreviousPose = false;
+            fieldToVehicle.clear();
+            fieldToVehicle.add(time, resetPose);
+            vehicleVelocityMeasured.set(0.0, 0.0, 0.0);
+            vehicleVelocityMeasuredPose = null;
+            vehicleVelocityMeasuredFilter.clear();
+            vehicleAccelerationMeasured.set(0.0, 0.0, 0.0);
+            vehicleAccelerationMeasuredPose = null;
+            vehicleAccelerationMeasuredFilter.clear();
+            vehicleVelocityPredictedFilter.clear();
  
             vehicleVelocityMeasuredFilter.add(new Pose2d());
             vehicleAccelerationMeasuredFilter.add(new Pose2d());
         }
     }
-}
\ No newline at end of file
+ 
+    // How vision measurements are combined with odometry
+    public enum FusionMode {
+        // Forward measurements to the WPILib pose estimator
+        POSE_ESTIMATOR,
+        // Fuse measurements at their capture time against the buffered fused history
+        LATENCY_COMPENSATED
+    }
+}
@@ -0,0 +1,103 @@
+package org.frcteam6941.localization;
+
+import com.team254.lib.geometry.MutPose2d;
+import com.team254.lib.geometry.Twist2dMath;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+// Swerve odometry on primitives, integrating the same way as WPILib's SwerveDriveOdometry: module displacements
+// through forward kinematics for the translation, the gyro for the heading, then the SE(2) exponential
+// Updates take module distances and angles as arrays, so a 250 Hz sample builds no Rotation2d,
+// SwerveModulePosition or Twist2d objects
+public class SwerveOdometryEngine {
+    private final int moduleCount;
+    // Forward kinematics rows for the chassis x and y, two columns per module for the x and y of its displacement
+    private final double[] forwardX;
+    private final double[] forwardY;
+    private final double[] previousDistances;
+    private final MutPose2d step = new MutPose2d();
+    // Added to the gyro angle to get the field heading
+    private double gyroOffset = 0.0;
+    private double x = 0.0;
+    private double y = 0.0;
+    private double theta = 0.0;
+
+    public SwerveOdometryEngine(SwerveDriveKinematics kinematics, int moduleCount) {
+        this.moduleCount = moduleCount;
+        forwardX = new double[2 * moduleCount];
+        forwardY = new double[2 * moduleCount];
+        previousDistances = new double[moduleCount];
+        // Read the forward kinematics column by column off unit displacements of one module at a time
+        SwerveModulePosition[] deltas = new SwerveModulePosition[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            deltas[i] = new SwerveModulePosition();
+        }
+        Rotation2d[] axes = {new Rotation2d(1.0, 0.0), new Rotation2d(0.0, 1.0)};
+        for (int i = 0; i < moduleCount; i++) {
+            deltas[i].distanceMeters = 1.0;
+            for (int axis = 0; axis < 2; axis++) {
+                deltas[i].angle = axes[axis];
+                Twist2d column = kinematics.toTwist2d(deltas);
+                forwardX[2 * i + axis] = column.dx;
+                forwardY[2 * i + axis] = column.dy;
+            }
+            deltas[i].distanceMeters = 0.0;
+        }
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    // Sets the pose, taking the gyro reading and module distances at that pose as the new references
+    public void resetPosition(double gyroRadians, SwerveModulePosition[] positions, Pose2d pose) {
+        for (int i = 0; i < moduleCount; i++) {
+            previousDistances[i] = positions[i].distanceMeters;
+        }
+        x = pose.getX();
+        y = pose.getY();
+        theta = pose.getRotation().getRadians();
+        gyroOffset = MathUtil.angleModulus(theta - gyroRadians);
+    }
+
+    // Integrates one sample, module i reads distances[offset + i] and anglesRadians[offset + i]
+    public void update(double gyroRadians, double[] distances, double[] anglesRadians, int offset) {
+        double chassisX = 0.0;
+        double chassisY = 0.0;
+        for (int i = 0; i < moduleCount; i++) {
+            double distance = distances[offset + i];
+            double angle = anglesRadians[offset + i];
+            double delta = distance - previousDistances[i];
+            double moduleX = delta * Math.cos(angle);
+            double moduleY = delta * Math.sin(angle);
+            chassisX += forwardX[2 * i] * moduleX + forwardX[2 * i + 1] * moduleY;
+            chassisY += forwardY[2 * i] * moduleX + forwardY[2 * i + 1] * moduleY;
+            previousDistances[i] = distance;
+        }
+        double heading = MathUtil.angleModulus(gyroRadians + gyroOffset);
+        Twist2dMath.expInto(chassisX, chassisY, MathUtil.angleModulus(heading - theta), step);
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        x += cos * step.x() - sin * step.y();
+        y += sin * step.x() + cos * step.y();
+        theta = heading;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    // Heading in radians, bounded to +/- pi after the first update
+    public double getTheta() {
+        return theta;
+    }
+}
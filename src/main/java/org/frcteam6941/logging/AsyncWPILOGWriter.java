@@ -0,0 +1,537 @@
+package org.frcteam6941.logging;
+
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.LogTable.LogValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// AdvantageKit receiver that writes WPILOG files without blocking on storage
+// Each cycle is encoded on the receiver thread into fixed-size chunks taken from a preallocated pool and handed to a
+// writer thread through a lock-free ring; the writer gathers every queued chunk into one sequential FileChannel write
+// Memory is bounded by the pool: under pressure low priority fields are dropped, and a cycle that still does not fit
+// is dropped whole, so a slow USB stick never stalls the loop
+public class AsyncWPILOGWriter implements LogDataReceiver {
+    private static final String DEFAULT_PATH_RIO = "/U/logs";
+    private static final String DEFAULT_PATH_RIO_FALLBACK = "/home/lvuser/logs";
+    private static final String EXTRA_HEADER = "AdvantageKit";
+    private static final String ENTRY_METADATA = "{\"source\":\"AdvantageKit\"}";
+    private static final String TIMESTAMP_KEY = "/Timestamp";
+    private static final int CONTROL_START = 0;
+    // Cycles a partly filled chunk may wait before it is handed to the writer anyway
+    private static final int MAX_CYCLES_PER_CHUNK = 25;
+
+    private final Path file;
+    private final int chunkBytes;
+    private final long flushPeriodNanos;
+    // Chunks travel free -> receiver -> filled -> writer -> free, so at most poolSize chunks ever exist
+    private final ChunkRing freeChunks;
+    private final ChunkRing filledChunks;
+    private final int poolSize;
+    private final ByteBuffer[] batch;
+
+    // Receiver thread state
+    private final Map<String, Integer> entryIds = new HashMap<>();
+    private final Map<String, LogValue> lastValues = new HashMap<>();
+    private final Map<String, LogValue> pendingValues = new HashMap<>();
+    private final Map<String, Integer> pendingEntries = new HashMap<>();
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer openChunk;
+    private int openChunkCycles = 0;
+    private int nextEntryId = 1;
+    private long lastTimestamp = -1;
+    private volatile Set<String> lowPriorityKeys = Set.of();
+
+    private Thread writer;
+    private volatile boolean running = false;
+
+    // Statistics
+    private final AtomicLong droppedCycles = new AtomicLong();
+    private final AtomicLong droppedFields = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private volatile double lastWriteMillis = 0.0;
+
+    // Writes to the USB stick when one is mounted, otherwise to the rio's own storage
+    public AsyncWPILOGWriter() {
+        this(Files.isDirectory(Paths.get(DEFAULT_PATH_RIO)) ? DEFAULT_PATH_RIO : DEFAULT_PATH_RIO_FALLBACK);
+    }
+
+    // Writes to a new file in the given folder, or to the given file if the path ends in .wpilog
+    public AsyncWPILOGWriter(String path) {
+        this(path, 64 * 1024, 64, 0.1);
+    }
+
+    // chunkBytes * poolSize is all the memory the writer will ever hold for queued cycles
+    public AsyncWPILOGWriter(String path, int chunkBytes, int poolSize, double flushPeriodSeconds) {
+        if (path.endsWith(".wpilog")) {
+            file = Paths.get(path);
+        } else {
+            String name = "akit_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yy-MM-dd_HH-mm-ss"))
+                    + ".wpilog";
+            file = Paths.get(path, name);
+        }
+        this.chunkBytes = chunkBytes;
+        this.poolSize = poolSize;
+        this.flushPeriodNanos = (long) (flushPeriodSeconds * 1e9);
+        freeChunks = new ChunkRing(poolSize);
+        filledChunks = new ChunkRing(poolSize);
+        batch = new ByteBuffer[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            freeChunks.offer(ByteBuffer.allocateDirect(chunkBytes).order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    // Sets the output keys, as passed to Logger.recordOutput, that are dropped first under pressure
+    // Called from the main thread, the receiver picks the new set up on its next cycle
+    public void setLowPriorityKeys(Collection<String> keys) {
+        lowPriorityKeys = Set.copyOf(keys);
+    }
+
+    // Returns the number of chunks waiting for the writer thread
+    public int getQueueDepth() {
+        return filledChunks.size();
+    }
+
+    // Returns the number of chunks the writer may hold at most
+    public int getQueueCapacity() {
+        return poolSize;
+    }
+
+    // Returns the number of whole cycles dropped because the pool was exhausted
+    public long getDroppedCycles() {
+        return droppedCycles.get();
+    }
+
+    // Returns the number of low priority field values dropped under pressure
+    public long getDroppedFields() {
+        return droppedFields.get();
+    }
+
+    // Returns the number of bytes written to the file so far
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    // Returns the number of failed file writes, the data of a failed write is lost
+    public long getWriteErrors() {
+        return writeErrors.get();
+    }
+
+    // Duration of the last batched write in milliseconds
+    public double getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    @Override
+    public void start() {
+        FileChannel channel;
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("AsyncWPILOGWriter failed to open " + file + ": " + e.getMessage());
+            return;
+        }
+
+        // File header: magic, version 1.0 and the extra header string
+        byte[] extraHeader = EXTRA_HEADER.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(12 + extraHeader.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("WPILOG".getBytes(StandardCharsets.US_ASCII));
+        header.putShort((short) 0x0100);
+        header.putInt(extraHeader.length);
+        header.put(extraHeader);
+        header.flip();
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+        }
+
+        running = true;
+        writer = new Thread(() -> runWriter(channel), "AsyncWPILOGWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void end() {
+        if (writer == null) {
+            return;
+        }
+        publishOpenChunk();
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public void putTable(LogTable table) {
+        if (!running) {
+            return;
+        }
+        Set<String> lowPriority = lowPriorityKeys;
+        // Under pressure once half the pool is queued, the low priority fields are skipped right away
+        boolean pressure = filledChunks.size() * 2 >= poolSize;
+        if (!encode(table, lowPriority, pressure) && !pressure) {
+            // Did not fit, try once more without the low priority fields
+            encode(table, lowPriority, true);
+        }
+    }
+
+    // Encodes the changed fields of a cycle and commits them to the pool, returns false when they did not fit
+    private boolean encode(LogTable table, Set<String> lowPriority, boolean skipLowPriority) {
+        scratch.clear();
+        pendingValues.clear();
+        pendingEntries.clear();
+        int nextId = nextEntryId;
+        long timestamp = table.getTimestamp();
+        int skipped = 0;
+
+        if (timestamp != lastTimestamp) {
+            int id = entryIds.getOrDefault(TIMESTAMP_KEY, 0);
+            if (id == 0) {
+                id = nextId++;
+                pendingEntries.put(TIMESTAMP_KEY, id);
+                writeStart(id, TIMESTAMP_KEY, "int64", timestamp);
+            }
+            ensureScratch(32);
+            writeRecordHeader(id, Long.BYTES, timestamp);
+            scratch.putLong(timestamp);
+        }
+
+        for (Map.Entry<String, LogValue> field : table.getAll(false).entrySet()) {
+            String key = field.getKey();
+            LogValue value = field.getValue();
+            if (value.equals(lastValues.get(key))) {
+                continue;
+            }
+            if (skipLowPriority && isLowPriority(key, lowPriority)) {
+                skipped++;
+                continue;
+            }
+            int id = entryIds.getOrDefault(key, 0);
+            if (id == 0) {
+                id = nextId++;
+                pendingEntries.put(key, id);
+                writeStart(id, key, value.getWPILOGType(), timestamp);
+            }
+            writeValue(id, value, timestamp);
+            pendingValues.put(key, value);
+        }
+
+        scratch.flip();
+        if (!commit(scratch)) {
+            if (skipLowPriority) {
+                droppedCycles.incrementAndGet();
+            }
+            return false;
+        }
+        // Only committed cycles update the entry and change tracking, a dropped cycle is resent in full later
+        entryIds.putAll(pendingEntries);
+        lastValues.putAll(pendingValues);
+        nextEntryId = nextId;
+        lastTimestamp = timestamp;
+        droppedFields.addAndGet(skipped);
+        return true;
+    }
+
+    // Keys arrive as "/RealOutputs/<key>", "/ReplayOutputs/<key>" or "/<inputs>"
+    private static boolean isLowPriority(String key, Set<String> lowPriority) {
+        if (lowPriority.isEmpty()) {
+            return false;
+        }
+        int start = key.startsWith("/") ? 1 : 0;
+        int slash = key.indexOf('/', start);
+        if (slash < 0) {
+            return false;
+        }
+        String table = key.substring(start, slash);
+        if (!table.equals("RealOutputs") && !table.equals("ReplayOutputs")) {
+            return false;
+        }
+        return lowPriority.contains(key.substring(slash + 1));
+    }
+
+    // Copies an encoded cycle into the open chunk and as many free chunks as it needs, all or nothing
+    private boolean commit(ByteBuffer data) {
+        int needed = data.remaining();
+        int available = (openChunk != null ? openChunk.remaining() : 0) + freeChunks.size() * chunkBytes;
+        if (needed > available) {
+            return false;
+        }
+        while (data.hasRemaining()) {
+            if (openChunk == null || !openChunk.hasRemaining()) {
+                publishOpenChunk();
+                openChunk = freeChunks.poll();
+            }
+            int length = Math.min(openChunk.remaining(), data.remaining());
+            openChunk.put(data.array(), data.position(), length);
+            data.position(data.position() + length);
+        }
+        if (++openChunkCycles >= MAX_CYCLES_PER_CHUNK) {
+            publishOpenChunk();
+        }
+        return true;
+    }
+
+    private void publishOpenChunk() {
+        if (openChunk != null && openChunk.position() > 0) {
+            openChunk.flip();
+            filledChunks.offer(openChunk);
+            openChunk = null;
+            LockSupport.unpark(writer);
+        }
+        openChunkCycles = 0;
+    }
+
+    private void runWriter(FileChannel channel) {
+        try (channel) {
+            while (true) {
+                boolean stopping = !running;
+                int count = 0;
+                ByteBuffer chunk;
+                while (count < batch.length && (chunk = filledChunks.poll()) != null) {
+                    batch[count++] = chunk;
+                }
+                if (count > 0) {
+                    long start = System.nanoTime();
+                    long written = 0;
+                    try {
+                        long remaining = 0;
+                        for (int i = 0; i < count; i++) {
+                            remaining += batch[i].remaining();
+                        }
+                        while (written < remaining) {
+                            written += channel.write(batch, 0, count);
+                        }
+                    } catch (IOException e) {
+                        writeErrors.incrementAndGet();
+                    }
+                    bytesWritten.addAndGet(written);
+                    lastWriteMillis = (System.nanoTime() - start) / 1e6;
+                    for (int i = 0; i < count; i++) {
+                        batch[i].clear();
+                        freeChunks.offer(batch[i]);
+                        batch[i] = null;
+                    }
+                } else if (stopping) {
+                    return;
+                } else {
+                    LockSupport.parkNanos(flushPeriodNanos);
+                }
+            }
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+        }
+    }
+
+    private void writeStart(int id, String key, String type, long timestamp) {
+        byte[] name = key.getBytes(StandardCharsets.UTF_8);
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        byte[] metadata = ENTRY_METADATA.getBytes(StandardCharsets.UTF_8);
+        int size = 1 + 4 + 4 + name.length + 4 + typeBytes.length + 4 + metadata.length;
+        ensureScratch(size + 32);
+        writeRecordHeader(0, size, timestamp);
+        scratch.put((byte) CONTROL_START);
+        scratch.putInt(id);
+        scratch.putInt(name.length);
+        scratch.put(name);
+        scratch.putInt(typeBytes.length);
+        scratch.put(typeBytes);
+        scratch.putInt(metadata.length);
+        scratch.put(metadata);
+    }
+
+    private void writeValue(int id, LogValue value, long timestamp) {
+        switch (value.type) {
+            case Raw:
+                writeBytes(id, value.getRaw(), timestamp);
+                break;
+            case Boolean: {
+                ensureScratch(32);
+                writeRecordHeader(id, 1, timestamp);
+                scratch.put((byte) (value.getBoolean() ? 1 : 0));
+                break;
+            }
+            case Integer: {
+                ensureScratch(32);
+                writeRecordHeader(id, Long.BYTES, timestamp);
+                scratch.putLong(value.getInteger());
+                break;
+            }
+            case Float: {
+                ensureScratch(32);
+                writeRecordHeader(id, Float.BYTES, timestamp);
+                scratch.putFloat(value.getFloat());
+                break;
+            }
+            case Double: {
+                ensureScratch(32);
+                writeRecordHeader(id, Double.BYTES, timestamp);
+                scratch.putDouble(value.getDouble());
+                break;
+            }
+            case String:
+                writeBytes(id, value.getString().getBytes(StandardCharsets.UTF_8), timestamp);
+                break;
+            case BooleanArray: {
+                boolean[] array = value.getBooleanArray();
+                ensureScratch(array.length + 32);
+                writeRecordHeader(id, array.length, timestamp);
+                for (boolean element : array) {
+                    scratch.put((byte) (element ? 1 : 0));
+                }
+                break;
+            }
+            case IntegerArray: {
+                long[] array = value.getIntegerArray();
+                ensureScratch(array.length * Long.BYTES + 32);
+                writeRecordHeader(id, array.length * Long.BYTES, timestamp);
+                for (long element : array) {
+                    scratch.putLong(element);
+                }
+                break;
+            }
+            case FloatArray: {
+                float[] array = value.getFloatArray();
+                ensureScratch(array.length * Float.BYTES + 32);
+                writeRecordHeader(id, array.length * Float.BYTES, timestamp);
+                for (float element : array) {
+                    scratch.putFloat(element);
+                }
+                break;
+            }
+            case DoubleArray: {
+                double[] array = value.getDoubleArray();
+                ensureScratch(array.length * Double.BYTES + 32);
+                writeRecordHeader(id, array.length * Double.BYTES, timestamp);
+                for (double element : array) {
+                    scratch.putDouble(element);
+                }
+                break;
+            }
+            case StringArray: {
+                String[] array = value.getStringArray();
+                byte[][] encoded = new byte[array.length][];
+                int size = 4;
+                for (int i = 0; i < array.length; i++) {
+                    encoded[i] = array[i].getBytes(StandardCharsets.UTF_8);
+                    size += 4 + encoded[i].length;
+                }
+                ensureScratch(size + 32);
+                writeRecordHeader(id, size, timestamp);
+                scratch.putInt(array.length);
+                for (byte[] element : encoded) {
+                    scratch.putInt(element.length);
+                    scratch.put(element);
+                }
+                break;
+            }
+        }
+    }
+
+    private void writeBytes(int id, byte[] payload, long timestamp) {
+        ensureScratch(payload.length + 32);
+        writeRecordHeader(id, payload.length, timestamp);
+        scratch.put(payload);
+    }
+
+    // Record header: a length byte, then the entry id, payload size and timestamp in as few bytes as they need
+    private void writeRecordHeader(int id, int payloadSize, long timestamp) {
+        int idLength = byteLength(id & 0xffffffffL, 4);
+        int sizeLength = byteLength(payloadSize & 0xffffffffL, 4);
+        int timestampLength = byteLength(timestamp, 8);
+        scratch.put((byte) ((idLength - 1) | ((sizeLength - 1) << 2) | ((timestampLength - 1) << 4)));
+        writeVariable(id & 0xffffffffL, idLength);
+        writeVariable(payloadSize & 0xffffffffL, sizeLength);
+        writeVariable(timestamp, timestampLength);
+    }
+
+    private static int byteLength(long value, int max) {
+        int length = 1;
+        while (length < max && (value >>> (length * 8)) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private void writeVariable(long value, int length) {
+        for (int i = 0; i < length; i++) {
+            scratch.put((byte) (value >>> (i * 8)));
+        }
+    }
+
+    // Grows the scratch buffer so another bytes fit, only happens while the set of fields grows
+    private void ensureScratch(int bytes) {
+        if (scratch.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        scratch.flip();
+        grown.put(scratch);
+        scratch = grown;
+    }
+
+    // Lock-free single-producer single-consumer ring of chunks
+    private static final class ChunkRing {
+        private final ByteBuffer[] slots;
+        private final int mask;
+        private final AtomicLong writeIndex = new AtomicLong();
+        private final AtomicLong readIndex = new AtomicLong();
+
+        ChunkRing(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            slots = new ByteBuffer[size];
+            mask = size - 1;
+        }
+
+        // Never full, the ring holds at least as many slots as there are chunks
+        void offer(ByteBuffer chunk) {
+            long write = writeIndex.get();
+            slots[(int) (write & mask)] = chunk;
+            writeIndex.lazySet(write + 1);
+        }
+
+        ByteBuffer poll() {
+            long read = readIndex.get();
+            if (read >= writeIndex.get()) {
+                return null;
+            }
+            int slot = (int) (read & mask);
+            ByteBuffer chunk = slots[slot];
+            slots[slot] = null;
+            readIndex.lazySet(read + 1);
+            return chunk;
+        }
+
+        int size() {
+            return (int) (writeIndex.get() - readIndex.get());
+        }
+    }
+}
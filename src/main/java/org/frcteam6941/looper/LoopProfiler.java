@@ -0,0 +1,180 @@
+package org.frcteam6941.looper;
+
+import frc.robot.RobotConstants;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Collects per-updatable, per-phase loop timings for UpdateManager and publishes summaries at a throttled rate
+public class LoopProfiler {
+    public enum Phase {
+        READ, UPDATE, WRITE, TELEMETRY, SIMULATE
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final String LOG_PREFIX = "UpdateManager/Timing/";
+
+    // Number of cycles summarized by each published window
+    private final int windowCycles;
+    // Cycles longer than this count as overruns, in nanoseconds
+    private final long overrunThresholdNanos;
+
+    private final List<String> taskNames = new ArrayList<>();
+    // histograms[task][phase], cleared at the end of every window
+    private final List<LoopTimingHistogram[]> histograms = new ArrayList<>();
+    // Precomputed log keys, keys[task][phase][p50, p99, max]
+    private final List<String[][]> keys = new ArrayList<>();
+    // Summary of the last published window, summaries[task][phase][p50, p99, max] in nanoseconds
+    private final List<long[][]> summaries = new ArrayList<>();
+    // Time spent by each task in the current cycle, and its worst cycle in the current window
+    private long[] cycleTaskNanos = new long[0];
+    private long[] windowTaskWorstNanos = new long[0];
+
+    private final LoopTimingHistogram cycleHistogram = new LoopTimingHistogram();
+    private long cycleStartNanos = 0;
+    private int cyclesInWindow = 0;
+    private long windowOverruns = 0;
+    private long totalOverruns = 0;
+    private String lastWorstOffender = "";
+    private long lastWorstOffenderNanos = 0;
+
+    public LoopProfiler(int windowCycles, double overrunThresholdSeconds) {
+        this.windowCycles = Math.max(1, windowCycles);
+        this.overrunThresholdNanos = (long) (overrunThresholdSeconds * 1e9);
+    }
+
+    // Publishes once per second at the default loop rate, counting overruns of LOOPER_DT
+    public LoopProfiler() {
+        this((int) Math.round(1.0 / RobotConstants.LOOPER_DT), RobotConstants.LOOPER_DT);
+    }
+
+    // Adds a task and returns its index, names are used for log keys and worst offender reports
+    public synchronized int addTask(String name) {
+        int index = taskNames.size();
+        taskNames.add(name);
+        LoopTimingHistogram[] taskHistograms = new LoopTimingHistogram[PHASES.length];
+        String[][] taskKeys = new String[PHASES.length][];
+        for (Phase phase : PHASES) {
+            taskHistograms[phase.ordinal()] = new LoopTimingHistogram();
+            String base = LOG_PREFIX + name + "/" + phase.name() + "/";
+            taskKeys[phase.ordinal()] = new String[]{base + "P50Us", base + "P99Us", base + "MaxUs"};
+        }
+        histograms.add(taskHistograms);
+        keys.add(taskKeys);
+        summaries.add(new long[PHASES.length][3]);
+        cycleTaskNanos = new long[taskNames.size()];
+        windowTaskWorstNanos = new long[taskNames.size()];
+        return index;
+    }
+
+    // Marks the start of a scheduler cycle
+    public synchronized void beginCycle() {
+        cycleStartNanos = System.nanoTime();
+        for (int i = 0; i < cycleTaskNanos.length; i++) {
+            cycleTaskNanos[i] = 0;
+        }
+    }
+
+    // Records how long one phase of one task took
+    public synchronized void record(int task, Phase phase, long nanos) {
+        histograms.get(task)[phase.ordinal()].record(nanos);
+        cycleTaskNanos[task] += nanos;
+    }
+
+    // Marks the end of a scheduler cycle, publishing the window summary when it is complete
+    public synchronized void endCycle() {
+        long cycleNanos = System.nanoTime() - cycleStartNanos;
+        cycleHistogram.record(cycleNanos);
+        if (cycleNanos > overrunThresholdNanos) {
+            windowOverruns++;
+            totalOverruns++;
+        }
+        for (int i = 0; i < cycleTaskNanos.length; i++) {
+            if (cycleTaskNanos[i] > windowTaskWorstNanos[i]) {
+                windowTaskWorstNanos[i] = cycleTaskNanos[i];
+            }
+        }
+        if (++cyclesInWindow >= windowCycles) {
+            publishWindow();
+        }
+    }
+
+    // Returns the median of a task phase in the last published window, in nanoseconds
+    public synchronized long getP50(String task, Phase phase) {
+        return getSummary(task, phase, 0);
+    }
+
+    // Returns the 99th percentile of a task phase in the last published window, in nanoseconds
+    public synchronized long getP99(String task, Phase phase) {
+        return getSummary(task, phase, 1);
+    }
+
+    // Returns the largest duration of a task phase in the last published window, in nanoseconds
+    public synchronized long getMax(String task, Phase phase) {
+        return getSummary(task, phase, 2);
+    }
+
+    // Returns the number of cycles that overran the threshold since start
+    public synchronized long getTotalOverruns() {
+        return totalOverruns;
+    }
+
+    // Returns the task with the largest single-cycle time in the last published window
+    public synchronized String getWorstOffender() {
+        return lastWorstOffender;
+    }
+
+    // Returns the single-cycle time of the worst offender in the last published window, in nanoseconds
+    public synchronized long getWorstOffenderNanos() {
+        return lastWorstOffenderNanos;
+    }
+
+    private long getSummary(String task, Phase phase, int statistic) {
+        int index = taskNames.indexOf(task);
+        return index < 0 ? 0 : summaries.get(index)[phase.ordinal()][statistic];
+    }
+
+    private void publishWindow() {
+        int worst = -1;
+        for (int i = 0; i < taskNames.size(); i++) {
+            if (worst < 0 || windowTaskWorstNanos[i] > windowTaskWorstNanos[worst]) {
+                worst = i;
+            }
+            LoopTimingHistogram[] taskHistograms = histograms.get(i);
+            String[][] taskKeys = keys.get(i);
+            long[][] taskSummaries = summaries.get(i);
+            for (int p = 0; p < PHASES.length; p++) {
+                LoopTimingHistogram histogram = taskHistograms[p];
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                taskSummaries[p][0] = histogram.getPercentile(0.5);
+                taskSummaries[p][1] = histogram.getPercentile(0.99);
+                taskSummaries[p][2] = histogram.getMax();
+                Logger.recordOutput(taskKeys[p][0], taskSummaries[p][0] / 1e3);
+                Logger.recordOutput(taskKeys[p][1], taskSummaries[p][1] / 1e3);
+                Logger.recordOutput(taskKeys[p][2], taskSummaries[p][2] / 1e3);
+                histogram.reset();
+            }
+        }
+        if (worst >= 0) {
+            lastWorstOffender = taskNames.get(worst);
+            lastWorstOffenderNanos = windowTaskWorstNanos[worst];
+        }
+        Logger.recordOutput(LOG_PREFIX + "Cycle/P50Us", cycleHistogram.getPercentile(0.5) / 1e3);
+        Logger.recordOutput(LOG_PREFIX + "Cycle/P99Us", cycleHistogram.getPercentile(0.99) / 1e3);
+        Logger.recordOutput(LOG_PREFIX + "Cycle/MaxUs", cycleHistogram.getMax() / 1e3);
+        Logger.recordOutput(LOG_PREFIX + "WindowOverruns", windowOverruns);
+        Logger.recordOutput(LOG_PREFIX + "TotalOverruns", totalOverruns);
+        Logger.recordOutput(LOG_PREFIX + "WorstOffender", lastWorstOffender);
+        Logger.recordOutput(LOG_PREFIX + "WorstOffenderUs", lastWorstOffenderNanos / 1e3);
+
+        cycleHistogram.reset();
+        for (int i = 0; i < windowTaskWorstNanos.length; i++) {
+            windowTaskWorstNanos[i] = 0;
+        }
+        windowOverruns = 0;
+        cyclesInWindow = 0;
+    }
+}
@@ -0,0 +1,95 @@
+package org.frcteam6941.looper;
+
+import java.util.Arrays;
+
+// Fixed-size log-linear histogram of durations in nanoseconds that never allocates after construction
+public class LoopTimingHistogram {
+    // Each power of two is split into 2^SUB_BUCKET_BITS linear buckets, giving ~12% relative error
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Largest tracked power of two, 2^31 ns is just over two seconds
+    private static final int MAX_EXPONENT = 31;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long max = 0;
+    private long total = 0;
+
+    // Adds one duration sample to the histogram
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketIndex(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    // Returns the smallest bucket bound that at least the given fraction of samples fall under
+    public long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.min(Math.max(fraction, 0.0), 1.0) * count);
+        if (target < 1) {
+            target = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Returns the largest recorded sample
+    public long getMax() {
+        return max;
+    }
+
+    // Returns the number of recorded samples
+    public long getCount() {
+        return count;
+    }
+
+    // Returns the mean of the recorded samples
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) total / count;
+    }
+
+    // Clears all samples while keeping the bucket storage
+    public void reset() {
+        Arrays.fill(buckets, 0L);
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+
+    private static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKET_COUNT;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKET_COUNT + sub) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
@@ -0,0 +1,211 @@
+package org.frcteam6941.looper;
+
+import frc.robot.RobotConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Per-cycle budget for AdvantageKit outputs recorded through TelemetryKey handles
+// Keys are created once with a rate class and a priority; every cycle the recorded bytes are charged against a
+// global budget, and when the budget ran out or the loop left little time for telemetry the low priority keys are
+// demoted: first slowed down, then suppressed, then the normal priority keys are slowed down as well
+// High priority keys are never demoted. Everything runs on the main thread
+public class TelemetryBudget {
+    // Cycles between records of a 10 Hz key
+    static final int TEN_HZ_DIVISOR = Math.max(1, (int) Math.round(0.1 / RobotConstants.LOOPER_DT));
+    // Factor a demoted key's divisor is multiplied by
+    static final int DEMOTION_FACTOR = 5;
+    // Highest demotion level, see demotionDivisor
+    static final int MAX_LEVEL = 3;
+    // Fractions of the loop period used before telemetry that raise the demotion level
+    private static final double[] LOOP_PRESSURE_LEVELS = {0.5, 0.65, 0.8};
+    // Cycles within budget before the byte pressure level is lowered again
+    private static final int RECOVERY_CYCLES = 50;
+
+    private static TelemetryBudget instance;
+
+    private final List<TelemetryKey> keys = new ArrayList<>();
+    private final List<TelemetryKey> keysView = Collections.unmodifiableList(keys);
+    // Bytes the keys may record per cycle
+    private int byteBudget = 4096;
+    private long cycle = 0;
+    private int level = 0;
+    private int byteLevel = 0;
+    private int cleanCycles = 0;
+
+    // Counters of the current cycle
+    private int cycleBytes = 0;
+    private int cycleRecorded = 0;
+    private int cycleDeduplicated = 0;
+    private int cycleDenied = 0;
+    private int cycleDemoted = 0;
+    // Totals since startup
+    private long totalBytes = 0;
+    private long totalDenied = 0;
+    private long totalDemoted = 0;
+    private int peakCycleBytes = 0;
+
+    // The budget's own statistics, recorded through keys like everything else; the level is what shows demotion, so
+    // it is never demoted itself
+    private final TelemetryKey levelKey;
+    private final TelemetryKey byteBudgetKey;
+    private final TelemetryKey keyCountKey;
+    private final TelemetryKey cycleBytesKey;
+    private final TelemetryKey peakCycleBytesKey;
+    private final TelemetryKey cycleRecordedKey;
+    private final TelemetryKey cycleDeduplicatedKey;
+    private final TelemetryKey cycleDeniedKey;
+    private final TelemetryKey cycleDemotedKey;
+    private final TelemetryKey totalBytesKey;
+    private final TelemetryKey totalDeniedKey;
+    private final TelemetryKey totalDemotedKey;
+
+    TelemetryBudget() {
+        levelKey = key("Telemetry/Level", TelemetryKey.Rate.ON_CHANGE, TelemetryKey.Priority.HIGH);
+        byteBudgetKey = key("Telemetry/ByteBudget", TelemetryKey.Rate.ON_CHANGE, TelemetryKey.Priority.LOW);
+        keyCountKey = key("Telemetry/KeyCount", TelemetryKey.Rate.ON_CHANGE, TelemetryKey.Priority.LOW);
+        cycleBytesKey = key("Telemetry/CycleBytes", TelemetryKey.Rate.TEN_HZ, TelemetryKey.Priority.LOW);
+        peakCycleBytesKey = key("Telemetry/PeakCycleBytes", TelemetryKey.Rate.ON_CHANGE, TelemetryKey.Priority.LOW);
+        cycleRecordedKey = key("Telemetry/CycleRecorded", TelemetryKey.Rate.TEN_HZ, TelemetryKey.Priority.LOW);
+        cycleDeduplicatedKey = key("Telemetry/CycleDeduplicated", TelemetryKey.Rate.TEN_HZ,
+                TelemetryKey.Priority.LOW);
+        cycleDeniedKey = key("Telemetry/CycleDenied", TelemetryKey.Rate.TEN_HZ, TelemetryKey.Priority.LOW);
+        cycleDemotedKey = key("Telemetry/CycleDemoted", TelemetryKey.Rate.TEN_HZ, TelemetryKey.Priority.LOW);
+        totalBytesKey = key("Telemetry/TotalBytes", TelemetryKey.Rate.TEN_HZ, TelemetryKey.Priority.LOW);
+        totalDeniedKey = key("Telemetry/TotalDenied", TelemetryKey.Rate.ON_CHANGE, TelemetryKey.Priority.LOW);
+        totalDemotedKey = key("Telemetry/TotalDemoted", TelemetryKey.Rate.ON_CHANGE, TelemetryKey.Priority.LOW);
+    }
+
+    // Returns the singleton instance of the budget
+    public static synchronized TelemetryBudget getInstance() {
+        if (instance == null) {
+            instance = new TelemetryBudget();
+        }
+        return instance;
+    }
+
+    // Creates a key, meant to be called once per key when the owner is constructed
+    public TelemetryKey key(String name, TelemetryKey.Rate rate, TelemetryKey.Priority priority) {
+        TelemetryKey key = new TelemetryKey(this, name, rate, priority, keys.size());
+        keys.add(key);
+        return key;
+    }
+
+    // Sets the bytes the keys may record per cycle
+    public void setByteBudget(int bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Telemetry byte budget must be positive, got " + bytes);
+        }
+        byteBudget = bytes;
+    }
+
+    // Returns every key created so far
+    public List<TelemetryKey> getKeys() {
+        return keysView;
+    }
+
+    // Returns the names of every key created so far with the given priority
+    public List<String> getKeyNames(TelemetryKey.Priority priority) {
+        List<String> names = new ArrayList<>();
+        for (TelemetryKey key : keys) {
+            if (key.getPriority() == priority) {
+                names.add(key.getName());
+            }
+        }
+        return names;
+    }
+
+    // Returns the current demotion level, 0 when nothing is demoted
+    public int getLevel() {
+        return level;
+    }
+
+    // Closes the current cycle and opens the next one; loopFraction is the share of the loop period already used
+    // when telemetry starts, 1 or more when the telemetry stage is skipped
+    // The statistics of the closed cycle are recorded at the start of the new one and charged to it
+    public void beginCycle(double loopFraction) {
+        int closedBytes = cycleBytes;
+        int closedRecorded = cycleRecorded;
+        int closedDeduplicated = cycleDeduplicated;
+        int closedDenied = cycleDenied;
+        int closedDemoted = cycleDemoted;
+
+        if (cycleDenied > 0) {
+            byteLevel = Math.min(MAX_LEVEL, byteLevel + 1);
+            cleanCycles = 0;
+        } else if (byteLevel > 0 && ++cleanCycles >= RECOVERY_CYCLES) {
+            byteLevel--;
+            cleanCycles = 0;
+        }
+        int loopLevel = 0;
+        while (loopLevel < LOOP_PRESSURE_LEVELS.length && loopFraction > LOOP_PRESSURE_LEVELS[loopLevel]) {
+            loopLevel++;
+        }
+        level = Math.max(byteLevel, loopLevel);
+
+        totalBytes += cycleBytes;
+        totalDenied += cycleDenied;
+        totalDemoted += cycleDemoted;
+        peakCycleBytes = Math.max(peakCycleBytes, cycleBytes);
+        cycleBytes = 0;
+        cycleRecorded = 0;
+        cycleDeduplicated = 0;
+        cycleDenied = 0;
+        cycleDemoted = 0;
+        cycle++;
+
+        levelKey.record(level);
+        byteBudgetKey.record(byteBudget);
+        keyCountKey.record(keys.size());
+        cycleBytesKey.record(closedBytes);
+        peakCycleBytesKey.record(peakCycleBytes);
+        cycleRecordedKey.record(closedRecorded);
+        cycleDeduplicatedKey.record(closedDeduplicated);
+        cycleDeniedKey.record(closedDenied);
+        cycleDemotedKey.record(closedDemoted);
+        totalBytesKey.record(totalBytes);
+        totalDeniedKey.record(totalDenied);
+        totalDemotedKey.record(totalDemoted);
+    }
+
+    // Returns how many cycles apart records of a key with this priority and base divisor are at the current level,
+    // or 0 when the key is suppressed
+    int demotionDivisor(TelemetryKey.Priority priority, int divisor) {
+        switch (priority) {
+            case LOW:
+                // Level 1 slows low priority keys, level 2 and up suppresses them
+                if (level >= 2) {
+                    return 0;
+                }
+                return level == 1 ? divisor * DEMOTION_FACTOR : divisor;
+            case NORMAL:
+                return level >= 3 ? divisor * DEMOTION_FACTOR : divisor;
+            default:
+                return divisor;
+        }
+    }
+
+    long getCycle() {
+        return cycle;
+    }
+
+    // Charges a record against the budget, returns false when it does not fit; high priority keys always fit
+    boolean charge(TelemetryKey.Priority priority, int bytes) {
+        if (priority != TelemetryKey.Priority.HIGH && cycleBytes + bytes > byteBudget) {
+            cycleDenied++;
+            return false;
+        }
+        cycleBytes += bytes;
+        cycleRecorded++;
+        return true;
+    }
+
+    void countDemoted() {
+        cycleDemoted++;
+    }
+
+    void countDeduplicated() {
+        cycleDeduplicated++;
+    }
+}
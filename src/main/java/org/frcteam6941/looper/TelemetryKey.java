@@ -0,0 +1,231 @@
+package org.frcteam6941.looper;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// Pre-interned AdvantageKit output key with a rate class and a priority, created through TelemetryBudget
+// Every record method returns whether the value was recorded; isDue lets callers skip computing values that would
+// not be recorded this cycle anyway
+public class TelemetryKey {
+    // How often a key is recorded
+    public enum Rate {
+        EVERY_CYCLE,
+        TEN_HZ,
+        // Every cycle, but only when the value differs from the last one recorded
+        ON_CHANGE
+    }
+
+    // Which keys are demoted first when telemetry is over budget
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    // Estimated serialized sizes in bytes
+    private static final int NUMBER_BYTES = 8;
+    private static final int BOOLEAN_BYTES = 1;
+    private static final int ROTATION2D_BYTES = 8;
+    private static final int POSE2D_BYTES = 24;
+    private static final int POSE3D_BYTES = 56;
+
+    private final TelemetryBudget budget;
+    private final String name;
+    private final Rate rate;
+    private final Priority priority;
+    // Offsets slower keys so they do not all land on the same cycle
+    private final int stagger;
+
+    // Last recorded value, used by ON_CHANGE keys
+    private boolean hasLast = false;
+    private double lastNumber;
+    private long lastInteger;
+    private boolean lastBoolean;
+    private Object lastObject;
+    // Copies of the last long[] and Pose2d[] recorded, so a caller reusing its array cannot change the comparison
+    // base of an ON_CHANGE key; they are also what the logger is handed
+    private long[] lastLongs;
+    private Pose2d[] lastPose2ds;
+    // Exact-length arrays handed to the logger by the Pose3d[] records, indexed by length
+    private Pose3d[][] pose3dArrays = new Pose3d[0][];
+
+    TelemetryKey(TelemetryBudget budget, String name, Rate rate, Priority priority, int stagger) {
+        this.budget = budget;
+        this.name = name;
+        this.rate = rate;
+        this.priority = priority;
+        this.stagger = stagger;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Rate getRate() {
+        return rate;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    // Returns true when the key's rate and the current demotion level let it record this cycle
+    public boolean isDue() {
+        int divisor = budget.demotionDivisor(priority, rate == Rate.TEN_HZ ? TelemetryBudget.TEN_HZ_DIVISOR : 1);
+        return divisor != 0 && (budget.getCycle() + stagger) % divisor == 0;
+    }
+
+    public boolean record(double value) {
+        if (!admit(NUMBER_BYTES, rate == Rate.ON_CHANGE && hasLast && Double.compare(lastNumber, value) == 0)) {
+            return false;
+        }
+        lastNumber = value;
+        hasLast = true;
+        Logger.recordOutput(name, value);
+        return true;
+    }
+
+    public boolean record(long value) {
+        if (!admit(NUMBER_BYTES, rate == Rate.ON_CHANGE && hasLast && lastInteger == value)) {
+            return false;
+        }
+        lastInteger = value;
+        hasLast = true;
+        Logger.recordOutput(name, value);
+        return true;
+    }
+
+    public boolean record(boolean value) {
+        if (!admit(BOOLEAN_BYTES, rate == Rate.ON_CHANGE && hasLast && lastBoolean == value)) {
+            return false;
+        }
+        lastBoolean = value;
+        hasLast = true;
+        Logger.recordOutput(name, value);
+        return true;
+    }
+
+    // value is copied, so the caller may reuse it
+    public boolean record(long[] value) {
+        if (!admit(NUMBER_BYTES * value.length,
+                rate == Rate.ON_CHANGE && hasLast && lastLongs != null && Arrays.equals(lastLongs, value))) {
+            return false;
+        }
+        if (lastLongs == null || lastLongs.length != value.length) {
+            lastLongs = Arrays.copyOf(value, value.length);
+        } else {
+            System.arraycopy(value, 0, lastLongs, 0, value.length);
+        }
+        hasLast = true;
+        Logger.recordOutput(name, lastLongs);
+        return true;
+    }
+
+    public boolean record(String value) {
+        if (!admit(value.length(), unchanged(value))) {
+            return false;
+        }
+        remember(value);
+        Logger.recordOutput(name, value);
+        return true;
+    }
+
+    public boolean record(Rotation2d value) {
+        if (!admit(ROTATION2D_BYTES, unchanged(value))) {
+            return false;
+        }
+        remember(value);
+        Logger.recordOutput(name, value);
+        return true;
+    }
+
+    public boolean record(Pose2d value) {
+        if (!admit(POSE2D_BYTES, unchanged(value))) {
+            return false;
+        }
+        remember(value);
+        Logger.recordOutput(name, value);
+        return true;
+    }
+
+    public boolean record(Pose3d value) {
+        if (!admit(POSE3D_BYTES, unchanged(value))) {
+            return false;
+        }
+        remember(value);
+        Logger.recordOutput(name, value);
+        return true;
+    }
+
+    // value is copied, so the caller may reuse it
+    public boolean record(Pose2d[] value) {
+        if (!admit(POSE2D_BYTES * value.length,
+                rate == Rate.ON_CHANGE && hasLast && lastPose2ds != null && Arrays.equals(lastPose2ds, value))) {
+            return false;
+        }
+        if (lastPose2ds == null || lastPose2ds.length != value.length) {
+            lastPose2ds = Arrays.copyOf(value, value.length);
+        } else {
+            System.arraycopy(value, 0, lastPose2ds, 0, value.length);
+        }
+        hasLast = true;
+        Logger.recordOutput(name, lastPose2ds);
+        return true;
+    }
+
+    // value is copied, so the caller may reuse it
+    public boolean record(Pose3d[] value) {
+        return record(value, value.length);
+    }
+
+    // Records the first length entries of value, which the caller may reuse; they are copied into an array the key
+    // owns, which also stays the comparison base for ON_CHANGE until the next record of the same length
+    public boolean record(Pose3d[] value, int length) {
+        if (!admit(POSE3D_BYTES * length, rate == Rate.ON_CHANGE && hasLast && lastObject instanceof Pose3d[] last
+                && Arrays.equals(last, 0, last.length, value, 0, length))) {
+            return false;
+        }
+        if (pose3dArrays.length <= length) {
+            pose3dArrays = Arrays.copyOf(pose3dArrays, length + 1);
+        }
+        Pose3d[] exact = pose3dArrays[length];
+        if (exact == null) {
+            exact = new Pose3d[length];
+            pose3dArrays[length] = exact;
+        }
+        System.arraycopy(value, 0, exact, 0, length);
+        remember(exact);
+        Logger.recordOutput(name, exact);
+        return true;
+    }
+
+    private boolean unchanged(Object value) {
+        return rate == Rate.ON_CHANGE && hasLast && Objects.equals(lastObject, value);
+    }
+
+    private void remember(Object value) {
+        lastObject = value;
+        hasLast = true;
+    }
+
+    // Checks rate, demotion, change and budget in that order and counts why a record was dropped
+    private boolean admit(int bytes, boolean unchanged) {
+        if (!isDue()) {
+            if (budget.demotionDivisor(priority, 1) != 1) {
+                budget.countDemoted();
+            }
+            return false;
+        }
+        if (unchanged) {
+            budget.countDeduplicated();
+            return false;
+        }
+        return budget.charge(priority, bytes);
+    }
+}
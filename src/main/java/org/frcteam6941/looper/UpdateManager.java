@@ -1,38 +1,55 @@
 package org.frcteam6941.looper;
- 
+
 import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Subsystem;
- 
+
 import frc.robot.RobotConstants;
- 
+import lombok.Getter;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
- 
+
 public class UpdateManager {
+    // Upper bound of the schedule horizon, the least common multiple of every task divisor
+    private static final int MAX_SCHEDULE_HORIZON = 1000;
+    // Share of the base period a phase-separated cycle may spend before telemetry is skipped
+    private static final double TELEMETRY_BUDGET_FRACTION = 0.8;
+
     // List to hold all updatables that need to be managed
     public final List<Updatable> updatables = new ArrayList<>();
+    // Scheduled tasks, one per updatable, in registration order
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    // Per-task, per-phase timing collected on every cycle
+    @Getter
+    private final LoopProfiler profiler = new LoopProfiler();
     // Lock object to synchronize access to the updatables list during updates
     private final Object taskRunningLock_ = new Object();
     // Timestamp of the last update loop execution
     private double lastTimestamp = 0.0;
+    // Period of one scheduler cycle, every task period is rounded to a multiple of it
+    private double basePeriod = RobotConstants.LOOPER_DT;
+    // Number of scheduler cycles executed so far
+    private long cycle = 0;
+    // Whether every read runs before any update, and every update before any write
+    private boolean phaseSeparated = false;
+    // Time a phase-separated cycle may spend before telemetry is skipped in seconds, NaN to follow the base period
+    private double telemetryBudget = Double.NaN;
+    // Number of cycles whose telemetry stage was skipped because the loop overran
+    private long skippedTelemetryCycles = 0;
+    // Duration of the last interleaved cycle in seconds, used as its telemetry loop pressure
+    private double lastCycleSeconds = 0.0;
+    // Per-cycle scratch state of the phase-separated pipeline, indexed like tasks
+    private boolean[] due = new boolean[0];
+    private double[] dts = new double[0];
     // Runnable task for simulation mode updates
     private final Runnable simulationRunnable = () -> {
         synchronized (taskRunningLock_) {
-            // Iterate over each updatable and perform simulation, update, write, and telemetry tasks
-            updatables.forEach(s -> {
-                double fpgaTime = Timer.getFPGATimestamp();
-                final double timestamp = fpgaTime != 0.0 ? fpgaTime : lastTimestamp;
-                final double dt = timestamp - lastTimestamp > 10e-5 ? timestamp - lastTimestamp
-                        : RobotConstants.LOOPER_DT;
-                lastTimestamp = timestamp;
-                s.simulate(timestamp, dt);
-                s.update(timestamp, dt);
-                s.write(timestamp, dt);
-                s.telemetry();
-            });
+            double fpgaTime = Timer.getFPGATimestamp();
+            final double timestamp = fpgaTime != 0.0 ? fpgaTime : lastTimestamp;
+            runCycle(timestamp, true);
         }
     };
     // Notifier to manage the periodic execution of the simulation update task
@@ -42,74 +59,139 @@ public class UpdateManager {
         @Override
         public void run() {
             synchronized (taskRunningLock_) {
-                // Iterate over each updatable and perform read, update, write, and telemetry tasks
-                updatables.forEach(s -> {
-                    double fpgaTime = Timer.getFPGATimestamp();
-                    final double timestamp = fpgaTime > 10e-5 ? fpgaTime : lastTimestamp;
-                    final double dt = timestamp - lastTimestamp > 10e-5 ? timestamp - lastTimestamp
-                            : RobotConstants.LOOPER_DT;
-                    lastTimestamp = timestamp;
-                    s.read(timestamp, dt);
-                    s.update(timestamp, dt);
-                    s.write(timestamp, dt);
-                    s.telemetry();
-                });
+                double fpgaTime = Timer.getFPGATimestamp();
+                final double timestamp = fpgaTime > 10e-5 ? fpgaTime : lastTimestamp;
+                runCycle(timestamp, false);
             }
         }
     };
     // Notifier to manage the periodic execution of the enabled update task
     private final Notifier updaterEnableThread = new Notifier(enableRunnable);
- 
+
     // Constructor to initialize the update manager with an array of updatables
     public UpdateManager(Updatable... updatables) {
         this(Arrays.asList(updatables));
     }
- 
+
     // Constructor to initialize the update manager with a list of updatables
     public UpdateManager(List<Updatable> updatables) {
-        this.updatables.addAll(updatables);
+        updatables.forEach(this::register);
+    }
+
+    // Method to register an updatable that runs every scheduler cycle
+    public void register(Updatable updatable) {
+        register(updatable, basePeriod);
+    }
+
+    // Method to register an updatable that runs at its own period, rounded to a multiple of the base period
+    public void register(Updatable updatable, double period) {
+        if (period <= 0.0) {
+            throw new IllegalArgumentException("Update period must be positive, got " + period);
+        }
+        synchronized (taskRunningLock_) {
+            ScheduledTask task = new ScheduledTask(updatable, period);
+            String name = updatable.getClass().getSimpleName();
+            boolean duplicateName = tasks.stream().anyMatch(t -> t.name.equals(name));
+            tasks.add(task);
+            try {
+                rebuildSchedule();
+            } catch (IllegalArgumentException e) {
+                tasks.remove(task);
+                rebuildSchedule();
+                throw e;
+            }
+            task.profilerIndex = profiler.addTask(duplicateName ? name + (tasks.size() - 1) : name);
+            task.name = name;
+            updatables.add(updatable);
+        }
+    }
+
+    // Method to get the effective period of a registered updatable, or NaN if it is not registered
+    public double getPeriod(Updatable updatable) {
+        synchronized (taskRunningLock_) {
+            for (ScheduledTask task : tasks) {
+                if (task.updatable == updatable) {
+                    return task.divisor * basePeriod;
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
+    // Method to run all reads, then all updates, then all writes, with telemetry as a skippable last stage
+    public void setPhaseSeparated(boolean phaseSeparated) {
+        synchronized (taskRunningLock_) {
+            this.phaseSeparated = phaseSeparated;
+        }
     }
- 
+
+    // Method to set how long a cycle may run before its telemetry stage is skipped, overriding the default share of
+    // the base period
+    public void setTelemetryBudget(double seconds) {
+        if (!(seconds > 0.0)) {
+            throw new IllegalArgumentException("Telemetry budget must be positive, got " + seconds);
+        }
+        synchronized (taskRunningLock_) {
+            telemetryBudget = seconds;
+        }
+    }
+
+    // Method to get how long a cycle may run before its telemetry stage is skipped
+    public double getTelemetryBudget() {
+        synchronized (taskRunningLock_) {
+            return Double.isNaN(telemetryBudget) ? basePeriod * TELEMETRY_BUDGET_FRACTION : telemetryBudget;
+        }
+    }
+
+    // Method to get the number of cycles whose telemetry was skipped due to overruns
+    public long getSkippedTelemetryCycles() {
+        synchronized (taskRunningLock_) {
+            return skippedTelemetryCycles;
+        }
+    }
+
     // Method to start the periodic update loop for enabled mode
     public void startEnableLoop(double period) {
+        setBasePeriod(period);
         updaterEnableThread.startPeriodic(period);
     }
- 
+
     // Method to run a single update cycle for enabled mode
     public void runEnableSingle() {
         enableRunnable.run();
     }
- 
+
     // Method to stop the periodic update loop for enabled mode
     public void stopEnableLoop() {
         updaterEnableThread.stop();
     }
- 
+
     // Method to start the periodic update loop for simulation mode
     public void startSimulateLoop(double period) {
+        setBasePeriod(period);
         updaterSimulationThread.startPeriodic(period);
     }
- 
+
     // Method to run a single update cycle for simulation mode
     public void runSimulateSingle() {
         simulationRunnable.run();
     }
- 
+
     // Method to stop the periodic update loop for simulation mode
     public void stopSimulateLoop() {
         updaterSimulationThread.stop();
     }
- 
+
     // Method to invoke the start method on all registered updatables
     public void invokeStart() {
         updatables.forEach(Updatable::start);
     }
- 
+
     // Method to invoke the stop method on all registered updatables
     public void invokeStop() {
         updatables.forEach(Updatable::stop);
     }
- 
+
     // Method to register all subsystems among the updatables with the command scheduler
     public void registerAll() {
         updatables.forEach((Updatable u) -> {
@@ -118,4 +200,199 @@ public class UpdateManager {
             }
         });
     }
-}
\ No newline at end of file
+
+    // Runs every task that is due in this cycle, all of them seeing the same timestamp
+    private void runCycle(double timestamp, boolean simulation) {
+        profiler.beginCycle();
+        if (phaseSeparated) {
+            runPhaseSeparatedCycle(timestamp, simulation);
+        } else {
+            runInterleavedCycle(timestamp, simulation);
+        }
+        profiler.endCycle();
+        lastTimestamp = timestamp;
+        cycle++;
+    }
+
+    // Runs read, update, write and telemetry for one task before moving to the next
+    private void runInterleavedCycle(double timestamp, boolean simulation) {
+        // Telemetry is spread over the cycle here, so the previous cycle's duration stands in for loop pressure
+        TelemetryBudget.getInstance().beginCycle(lastCycleSeconds / basePeriod);
+        final long start = System.nanoTime();
+        for (int i = 0; i < tasks.size(); i++) {
+            ScheduledTask task = tasks.get(i);
+            if (cycle % task.divisor != task.phase) {
+                continue;
+            }
+            final double dt = task.advance(timestamp, basePeriod);
+            runInput(task, timestamp, dt, simulation);
+            runUpdate(task, timestamp, dt);
+            runWrite(task, timestamp, dt);
+            runTelemetry(task);
+        }
+        lastCycleSeconds = (System.nanoTime() - start) * 1e-9;
+    }
+
+    // Runs each stage across every due task before starting the next stage, so all reads form one snapshot
+    private void runPhaseSeparatedCycle(double timestamp, boolean simulation) {
+        final long start = System.nanoTime();
+        final int count = tasks.size();
+        for (int i = 0; i < count; i++) {
+            ScheduledTask task = tasks.get(i);
+            due[i] = cycle % task.divisor == task.phase;
+            if (due[i]) {
+                dts[i] = task.advance(timestamp, basePeriod);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (due[i]) runInput(tasks.get(i), timestamp, dts[i], simulation);
+        }
+        for (int i = 0; i < count; i++) {
+            if (due[i]) runUpdate(tasks.get(i), timestamp, dts[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            if (due[i]) runWrite(tasks.get(i), timestamp, dts[i]);
+        }
+        final double elapsed = (System.nanoTime() - start) * 1e-9;
+        if (elapsed > getTelemetryBudget()) {
+            skippedTelemetryCycles++;
+            TelemetryBudget.getInstance().beginCycle(Math.max(1.0, elapsed / basePeriod));
+            return;
+        }
+        TelemetryBudget.getInstance().beginCycle(elapsed / basePeriod);
+        for (int i = 0; i < count; i++) {
+            if (due[i]) runTelemetry(tasks.get(i));
+        }
+    }
+
+    private void runInput(ScheduledTask task, double timestamp, double dt, boolean simulation) {
+        long start = System.nanoTime();
+        if (simulation) {
+            task.updatable.simulate(timestamp, dt);
+            profiler.record(task.profilerIndex, LoopProfiler.Phase.SIMULATE, System.nanoTime() - start);
+        } else {
+            task.updatable.read(timestamp, dt);
+            profiler.record(task.profilerIndex, LoopProfiler.Phase.READ, System.nanoTime() - start);
+        }
+    }
+
+    private void runUpdate(ScheduledTask task, double timestamp, double dt) {
+        long start = System.nanoTime();
+        task.updatable.update(timestamp, dt);
+        profiler.record(task.profilerIndex, LoopProfiler.Phase.UPDATE, System.nanoTime() - start);
+    }
+
+    private void runWrite(ScheduledTask task, double timestamp, double dt) {
+        long start = System.nanoTime();
+        task.updatable.write(timestamp, dt);
+        profiler.record(task.profilerIndex, LoopProfiler.Phase.WRITE, System.nanoTime() - start);
+    }
+
+    private void runTelemetry(ScheduledTask task) {
+        long start = System.nanoTime();
+        task.updatable.telemetry();
+        profiler.record(task.profilerIndex, LoopProfiler.Phase.TELEMETRY, System.nanoTime() - start);
+    }
+
+    // Changes the scheduler cycle period and recomputes the divisor of every task
+    private void setBasePeriod(double period) {
+        synchronized (taskRunningLock_) {
+            double previousPeriod = basePeriod;
+            basePeriod = period;
+            try {
+                rebuildSchedule();
+            } catch (IllegalArgumentException e) {
+                basePeriod = previousPeriod;
+                rebuildSchedule();
+                throw e;
+            }
+        }
+    }
+
+    // Recomputes divisors and staggers phases so slower tasks land on the least loaded cycles
+    // Staggering is only valid over a common multiple of every divisor, so periods that need a longer horizon are
+    // rejected before anything changes
+    private void rebuildSchedule() {
+        long horizon = 1;
+        for (ScheduledTask task : tasks) {
+            long divisor = divisorOf(task.period);
+            horizon = horizon / gcd(horizon, divisor) * divisor;
+            if (horizon > MAX_SCHEDULE_HORIZON) {
+                throw new IllegalArgumentException("Update periods need a schedule horizon of more than "
+                        + MAX_SCHEDULE_HORIZON + " cycles of " + basePeriod + " s, got a period of " + task.period);
+            }
+        }
+        due = new boolean[tasks.size()];
+        dts = new double[tasks.size()];
+        for (ScheduledTask task : tasks) {
+            task.divisor = divisorOf(task.period);
+        }
+
+        // Place tasks with the largest divisor last so they can fill the gaps left by faster ones
+        List<ScheduledTask> ordered = new ArrayList<>(tasks);
+        ordered.sort((a, b) -> Integer.compare(a.divisor, b.divisor));
+        int[] load = new int[(int) horizon];
+        for (ScheduledTask task : ordered) {
+            int bestPhase = 0;
+            int bestLoad = Integer.MAX_VALUE;
+            for (int phase = 0; phase < task.divisor; phase++) {
+                int worst = 0;
+                for (int slot = phase; slot < horizon; slot += task.divisor) {
+                    worst = Math.max(worst, load[slot]);
+                }
+                if (worst < bestLoad) {
+                    bestLoad = worst;
+                    bestPhase = phase;
+                }
+            }
+            task.phase = bestPhase;
+            for (int slot = bestPhase; slot < horizon; slot += task.divisor) {
+                load[slot]++;
+            }
+        }
+    }
+
+    // Number of scheduler cycles between two runs of a task with the given period
+    private int divisorOf(double period) {
+        return Math.max(1, (int) Math.round(period / basePeriod));
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // Scheduling state of one updatable
+    private static final class ScheduledTask {
+        private final Updatable updatable;
+        // Requested update period in seconds
+        private final double period;
+        // Task runs once every divisor scheduler cycles
+        private int divisor = 1;
+        // Cycle offset within the divisor at which the task runs
+        private int phase = 0;
+        // Timestamp the task was last run at, used to compute its own dt
+        private double lastTimestamp = 0.0;
+        // Class name of the updatable and its slot in the profiler
+        private String name = "";
+        private int profilerIndex = 0;
+
+        private ScheduledTask(Updatable updatable, double period) {
+            this.updatable = updatable;
+            this.period = period;
+        }
+
+        // Marks the task as run at the given timestamp and returns the time since its previous run
+        private double advance(double timestamp, double basePeriod) {
+            final double dt = timestamp - lastTimestamp > 10e-5 && lastTimestamp > 0.0
+                    ? timestamp - lastTimestamp
+                    : divisor * basePeriod;
+            lastTimestamp = timestamp;
+            return dt;
+        }
+    }
+}
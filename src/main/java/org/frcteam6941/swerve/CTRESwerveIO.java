@@ -19,8 +19,11 @@ import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Current;
+import edu.wpi.first.units.measure.Voltage;
 import frc.robot.RobotConstants;
 import lombok.Getter;
+import org.frcteam6941.drivers.StatusSignalRegistry;
 
 // Represents the input/output operations for a swerve module using CTRE hardware
 public class CTRESwerveIO {
@@ -32,6 +35,20 @@ public class CTRESwerveIO {
     private final StatusSignal<AngularVelocity> sigDriveVelocity;
     private final StatusSignal<Angle> sigSteerPosition;
     private final StatusSignal<AngularVelocity> sigSteerVelocity;
+    private final StatusSignal<Current> sigDriveCurrent;
+    private final StatusSignal<Voltage> sigDriveVoltage;
+    private final StatusSignal<Current> sigSteerCurrent;
+    private final StatusSignal<Voltage> sigSteerVoltage;
+    // Separate clones owned by the odometry thread, so it never races the main loop refresh
+    private final StatusSignal<Angle> odoDrivePosition;
+    private final StatusSignal<AngularVelocity> odoDriveVelocity;
+    private final StatusSignal<Angle> odoSteerPosition;
+    private final StatusSignal<AngularVelocity> odoSteerVelocity;
+    // Logged with every odometry sample by ModuleSignalLog, also owned by the odometry thread
+    private final StatusSignal<Current> odoDriveCurrent;
+    private final StatusSignal<Voltage> odoDriveVoltage;
+    private final StatusSignal<Current> odoSteerCurrent;
+    private final StatusSignal<Voltage> odoSteerVoltage;
 
     private final double driveRotationsPerMeter;
     private final double couplingRatioDriveRotorToCANCoder;
@@ -64,6 +81,21 @@ public class CTRESwerveIO {
         sigDriveVelocity = driveMotor.getVelocity().clone();
         sigSteerPosition = steerMotor.getPosition().clone();
         sigSteerVelocity = steerMotor.getVelocity().clone();
+        sigDriveCurrent = driveMotor.getStatorCurrent().clone();
+        sigDriveVoltage = driveMotor.getMotorVoltage().clone();
+        sigSteerCurrent = steerMotor.getStatorCurrent().clone();
+        sigSteerVoltage = steerMotor.getMotorVoltage().clone();
+        StatusSignalRegistry.getInstance().register(canbusName,
+                sigDrivePosition, sigDriveVelocity, sigSteerPosition, sigSteerVelocity,
+                sigDriveCurrent, sigDriveVoltage, sigSteerCurrent, sigSteerVoltage);
+        odoDrivePosition = driveMotor.getPosition().clone();
+        odoDriveVelocity = driveMotor.getVelocity().clone();
+        odoSteerPosition = steerMotor.getPosition().clone();
+        odoSteerVelocity = steerMotor.getVelocity().clone();
+        odoDriveCurrent = driveMotor.getStatorCurrent().clone();
+        odoDriveVoltage = driveMotor.getMotorVoltage().clone();
+        odoSteerCurrent = steerMotor.getStatorCurrent().clone();
+        odoSteerVoltage = steerMotor.getMotorVoltage().clone();
 
         // constants
         double rotationsPerWheelRotation = constants.DriveMotorGearRatio;
@@ -85,12 +117,10 @@ public class CTRESwerveIO {
     }
 
     // Retrieves the current position of the swerve module, optionally refreshing the status signals
+    // Signals are normally refreshed in bulk by StatusSignalRegistry, so the main loop passes false
     public SwerveModulePosition getPosition(boolean refreshSignals) {
         if (refreshSignals) {
-            sigDrivePosition.refresh();
-            sigDriveVelocity.refresh();
-            sigSteerPosition.refresh();
-            sigSteerVelocity.refresh();
+            BaseStatusSignal.refreshAll(sigDrivePosition, sigDriveVelocity, sigSteerPosition, sigSteerVelocity);
         }
 
         double drive_rot = BaseStatusSignal.getLatencyCompensatedValueAsDouble(sigDrivePosition, sigDriveVelocity);
@@ -101,6 +131,60 @@ public class CTRESwerveIO {
         return internalState;
     }
 
+    // Returns the signals sampled by the odometry thread
+    public BaseStatusSignal[] getOdometrySignals() {
+        return new BaseStatusSignal[]{odoDrivePosition, odoDriveVelocity, odoSteerPosition, odoSteerVelocity};
+    }
+
+    // Computes the latency compensated module position from the odometry thread signals
+    // Writes the distance in meters and the angle in radians into the given slot of the output arrays
+    public void sampleOdometry(double[] distancesMeters, double[] anglesRadians, int index) {
+        double drive_rot = BaseStatusSignal.getLatencyCompensatedValueAsDouble(odoDrivePosition, odoDriveVelocity);
+        double angle_rot = BaseStatusSignal.getLatencyCompensatedValueAsDouble(odoSteerPosition, odoSteerVelocity);
+        drive_rot -= angle_rot * couplingRatioDriveRotorToCANCoder;
+        distancesMeters[index] = drive_rot / driveRotationsPerMeter;
+        anglesRadians[index] = Units.rotationsToRadians(angle_rot);
+    }
+
+    // Returns the extra signals the odometry thread samples for ModuleSignalLog
+    public BaseStatusSignal[] getSignalLogSignals() {
+        return new BaseStatusSignal[]{odoDriveCurrent, odoDriveVoltage, odoSteerCurrent, odoSteerVoltage};
+    }
+
+    // Writes this module's ModuleSignalLog group from the odometry thread signals into the given module slot
+    public void sampleSignals(double[] signals, int index) {
+        writeSignals(signals, index * ModuleSignalLog.SIGNALS_PER_MODULE,
+                odoDrivePosition.getValueAsDouble(), odoDriveVelocity.getValueAsDouble(),
+                odoDriveCurrent.getValueAsDouble(), odoDriveVoltage.getValueAsDouble(),
+                odoSteerPosition.getValueAsDouble(), odoSteerVelocity.getValueAsDouble(),
+                odoSteerCurrent.getValueAsDouble(), odoSteerVoltage.getValueAsDouble());
+    }
+
+    // Same layout as sampleSignals, from the main loop signals StatusSignalRegistry refreshed this cycle
+    public void sampleMainLoopSignals(double[] signals, int index) {
+        writeSignals(signals, index * ModuleSignalLog.SIGNALS_PER_MODULE,
+                sigDrivePosition.getValueAsDouble(), sigDriveVelocity.getValueAsDouble(),
+                sigDriveCurrent.getValueAsDouble(), sigDriveVoltage.getValueAsDouble(),
+                sigSteerPosition.getValueAsDouble(), sigSteerVelocity.getValueAsDouble(),
+                sigSteerCurrent.getValueAsDouble(), sigSteerVoltage.getValueAsDouble());
+    }
+
+    // Converts raw rotor signals into one ModuleSignalLog group, removing the steer coupling from the drive
+    private void writeSignals(double[] signals, int offset, double driveRot, double driveRps, double driveCurrent,
+                              double driveVoltage, double steerRot, double steerRps, double steerCurrent,
+                              double steerVoltage) {
+        double drive_rot = driveRot - steerRot * couplingRatioDriveRotorToCANCoder;
+        double drive_rps = driveRps - steerRps * couplingRatioDriveRotorToCANCoder;
+        signals[offset] = drive_rot / driveRotationsPerMeter;
+        signals[offset + 1] = drive_rps / driveRotationsPerMeter;
+        signals[offset + 2] = driveCurrent;
+        signals[offset + 3] = driveVoltage;
+        signals[offset + 4] = Units.rotationsToRadians(steerRot);
+        signals[offset + 5] = Units.rotationsToRadians(steerRps);
+        signals[offset + 6] = steerCurrent;
+        signals[offset + 7] = steerVoltage;
+    }
+
     // Applies the given swerve module state to the hardware using default drive request type
     public void apply(SwerveModuleState state, LegacySwerveModule.DriveRequestType driveRequestType) {
         apply(state, driveRequestType, LegacySwerveModule.SteerRequestType.MotionMagic);
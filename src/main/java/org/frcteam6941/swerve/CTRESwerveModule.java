@@ -1,17 +1,17 @@
 package org.frcteam6941.swerve;
  
-import com.ctre.phoenix6.configs.Slot0Configs;
 import com.ctre.phoenix6.mechanisms.swerve.LegacySwerveModule.DriveRequestType;
 import com.ctre.phoenix6.mechanisms.swerve.LegacySwerveModuleConstants;
  
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
  
-import frc.robot.RobotConstants;
+import lombok.Getter;
  
 // Represents a swerve module using CTRE hardware components
 public class CTRESwerveModule implements SwerveModuleBase {
     private final int moduleNumber;
+    @Getter
     private final CTRESwerveIO module;
  
     // Constructor to initialize the swerve module with an ID, constants, and CAN bus name
@@ -38,42 +38,17 @@ public class CTRESwerveModule implements SwerveModuleBase {
         return module.getInternalState();
     }
  
-    // Updates the signals for the swerve module, typically called in a periodic loop
+    // Updates the module position from signals already refreshed by StatusSignalRegistry this cycle
     @Override
     public void updateSignals() {
-        // module.getPosition(true);
-        SwerveModulePosition pos = module.getPosition(true);
+        module.getPosition(false);
     }
  
     // Sets the desired state for the swerve module, including speed and angle, with options for open loop control and motion override
+    // Gains are not applied here, SwerveGainManager writes them only when they change
     @Override
     public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop, boolean overrideMotion) {
-        module.getSteerMotor().getConfigurator().apply(new Slot0Configs()
-                .withKP(RobotConstants.SwerveConstants.steerGainsClass.STEER_KP.get())
-                .withKI(RobotConstants.SwerveConstants.steerGainsClass.STEER_KI.get())
-                .withKD(RobotConstants.SwerveConstants.steerGainsClass.STEER_KD.get())
-                .withKA(RobotConstants.SwerveConstants.steerGainsClass.STEER_KA.get())
-                .withKV(RobotConstants.SwerveConstants.steerGainsClass.STEER_KV.get())
-                .withKS(RobotConstants.SwerveConstants.steerGainsClass.STEER_KS.get()));
-        module.getDriveMotor().getConfigurator().apply(new Slot0Configs()
-                .withKP(RobotConstants.SwerveConstants.driveGainsClass.DRIVE_KP.get())
-                .withKI(RobotConstants.SwerveConstants.driveGainsClass.DRIVE_KI.get())
-                .withKD(RobotConstants.SwerveConstants.driveGainsClass.DRIVE_KD.get())
-                .withKA(RobotConstants.SwerveConstants.driveGainsClass.DRIVE_KA.get())
-                .withKV(RobotConstants.SwerveConstants.driveGainsClass.DRIVE_KV.get())
-                .withKS(RobotConstants.SwerveConstants.driveGainsClass.DRIVE_KS.get()));
- 
         module.apply(desiredState, isOpenLoop ? DriveRequestType.OpenLoopVoltage : DriveRequestType.Velocity);
-        // System.out.println(moduleNumber + " = " + desiredState.speedMetersPerSecond + " = "
-        // 		+ module.getDriveMotor().getMotorVoltage() + " " + module.getSteerMotor().getMotorVoltage());//speed output
-  /*
-  SmartDashboard.putNumber("Speed m/s", desiredState.speedMetersPerSecond);
-  SmartDashboard.putString("Drive Motor Voltage", module.getDriveMotor().getMotorVoltage());
-  SmartDashboard.putNumber("Steer Motor Voltage", module.getSteerMotor().getMotorVoltage());
-  */
-        // cnt++;
-        // if (cnt % 50 == 0) {
-        // 	System.out.println(desiredState.speedMetersPerSecond);
-        // }
+        // Drive and steer signals are logged at the odometry rate by ModuleSignalLog, not here
     }
 }
\ No newline at end of file
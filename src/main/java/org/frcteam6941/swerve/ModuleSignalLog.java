@@ -0,0 +1,134 @@
+package org.frcteam6941.swerve;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.RawLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// High-rate log of every module's drive and steer signals, one fixed-layout struct record per odometry sample
+// The odometry thread packs records into a preallocated lock-free ring, a background thread appends them to a raw
+// struct entry of the WPILib data log, so neither the odometry thread nor the main loop ever touches the file
+public class ModuleSignalLog {
+    // Signals stored per module, in the order they appear in the struct
+    public static final int SIGNALS_PER_MODULE = 8;
+    private static final String[] SIGNAL_NAMES = {
+            "drive_position_m", "drive_velocity_mps", "drive_current_a", "drive_voltage_v",
+            "steer_angle_rad", "steer_velocity_radps", "steer_current_a", "steer_voltage_v"
+    };
+    private static final String STRUCT_NAME = "SwerveModuleSignals";
+
+    private final int capacity;
+    private final int mask;
+    private final int recordBytes;
+    private final int signalCount;
+    // Packed records, little endian like every WPILib struct
+    private final ByteBuffer ring;
+    private final long[] timestampsMicros;
+    // Monotonic record counters, the slot of a record is its counter masked by the capacity
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private final String entryName;
+    private final long flushPeriodNanos;
+    private volatile boolean running = true;
+
+    // Creates a log holding at least the given number of records, rounded up to a power of two, and starts its writer
+    public ModuleSignalLog(String entryName, int moduleCount, int capacity, double flushPeriodSeconds) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.signalCount = moduleCount * SIGNALS_PER_MODULE;
+        this.recordBytes = signalCount * Double.BYTES;
+        this.ring = ByteBuffer.allocate(size * recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        this.timestampsMicros = new long[size];
+        this.entryName = entryName;
+        this.flushPeriodNanos = (long) (flushPeriodSeconds * 1e9);
+
+        Thread writer = new Thread(this::run, "ModuleSignalLog");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Producer side: packs one record of module signals, laid out module by module in SIGNALS_PER_MODULE groups
+    // Drops the record when the writer has fallen a full buffer behind
+    public boolean offer(double timestampSeconds, double[] signals) {
+        long write = writeIndex.get();
+        if (write - readIndex.get() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) (write & mask);
+        int offset = slot * recordBytes;
+        for (int i = 0; i < signalCount; i++) {
+            ring.putDouble(offset + i * Double.BYTES, signals[i]);
+        }
+        timestampsMicros[slot] = (long) (timestampSeconds * 1e6);
+        writeIndex.lazySet(write + 1);
+        return true;
+    }
+
+    // Returns the number of records dropped because the ring was full
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Returns the number of records appended to the data log
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    // Number of doubles a record holds, the size of the array passed to offer
+    public int getSignalCount() {
+        return signalCount;
+    }
+
+    // Stops the writer after its next flush
+    public void shutdown() {
+        running = false;
+    }
+
+    // Builds the struct schema, one group of named doubles per module
+    private String buildSchema() {
+        StringBuilder schema = new StringBuilder();
+        for (int module = 0; module < signalCount / SIGNALS_PER_MODULE; module++) {
+            for (String signal : SIGNAL_NAMES) {
+                schema.append("double m").append(module).append('_').append(signal).append(';');
+            }
+        }
+        return schema.toString();
+    }
+
+    private void run() {
+        // AdvantageKit already records NetworkTables, starting the manager with its NT mirror would write every
+        // topic a second time into this file
+        DataLogManager.logNetworkTables(false);
+        DataLog log = DataLogManager.getLog();
+        log.addSchema("struct:" + STRUCT_NAME, "structschema", buildSchema());
+        RawLogEntry entry = new RawLogEntry(log, entryName, "", "struct:" + STRUCT_NAME);
+        byte[] record = new byte[recordBytes];
+        byte[] backing = ring.array();
+
+        while (true) {
+            long read = readIndex.get();
+            long write = writeIndex.get();
+            for (; read < write; read++) {
+                int slot = (int) (read & mask);
+                System.arraycopy(backing, slot * recordBytes, record, 0, recordBytes);
+                long timestamp = timestampsMicros[slot];
+                readIndex.lazySet(read + 1);
+                entry.append(record, timestamp);
+                written.incrementAndGet();
+            }
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(flushPeriodNanos);
+        }
+    }
+}
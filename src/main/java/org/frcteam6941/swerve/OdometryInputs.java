@@ -0,0 +1,64 @@
+package org.frcteam6941.swerve;
+
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+import java.util.Arrays;
+
+// The odometry samples drained from an OdometrySampleQueue in one cycle, logged as AdvantageKit inputs so the
+// localizer can be fed from a log in replay instead of from the odometry thread
+// Module values are flattened sample by sample, moduleCount values per sample
+public class OdometryInputs implements LoggableInputs {
+    public final int moduleCount;
+    public int sampleCount = 0;
+    public double[] timestamps = new double[0];
+    public double[] yawDegrees = new double[0];
+    public double[] distancesMeters = new double[0];
+    public double[] anglesRadians = new double[0];
+
+    public OdometryInputs(int moduleCount) {
+        this.moduleCount = moduleCount;
+    }
+
+    // Replaces the samples with every sample currently queued, polled through the given holder
+    public void drain(OdometrySampleQueue queue, OdometrySampleQueue.Sample sample) {
+        sampleCount = 0;
+        while (queue.poll(sample)) {
+            ensureCapacity(sampleCount + 1);
+            timestamps[sampleCount] = sample.timestamp;
+            yawDegrees[sampleCount] = sample.yawDegrees;
+            System.arraycopy(sample.distancesMeters, 0, distancesMeters, sampleCount * moduleCount, moduleCount);
+            System.arraycopy(sample.anglesRadians, 0, anglesRadians, sampleCount * moduleCount, moduleCount);
+            sampleCount++;
+        }
+    }
+
+    private void ensureCapacity(int samples) {
+        if (timestamps.length >= samples) {
+            return;
+        }
+        int size = Math.max(samples, timestamps.length * 2);
+        timestamps = Arrays.copyOf(timestamps, size);
+        yawDegrees = Arrays.copyOf(yawDegrees, size);
+        distancesMeters = Arrays.copyOf(distancesMeters, size * moduleCount);
+        anglesRadians = Arrays.copyOf(anglesRadians, size * moduleCount);
+    }
+
+    // Logs only the filled part of the arrays
+    @Override
+    public void toLog(LogTable table) {
+        table.put("Timestamps", Arrays.copyOf(timestamps, sampleCount));
+        table.put("YawDegrees", Arrays.copyOf(yawDegrees, sampleCount));
+        table.put("DistancesMeters", Arrays.copyOf(distancesMeters, sampleCount * moduleCount));
+        table.put("AnglesRadians", Arrays.copyOf(anglesRadians, sampleCount * moduleCount));
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+        timestamps = table.get("Timestamps", new double[0]);
+        yawDegrees = table.get("YawDegrees", new double[0]);
+        distancesMeters = table.get("DistancesMeters", new double[0]);
+        anglesRadians = table.get("AnglesRadians", new double[0]);
+        sampleCount = timestamps.length;
+    }
+}
@@ -0,0 +1,89 @@
+package org.frcteam6941.swerve;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free single-producer single-consumer ring of timestamped odometry samples stored in primitive arrays
+public class OdometrySampleQueue {
+    private final int capacity;
+    private final int mask;
+    private final int moduleCount;
+    private final double[] timestamps;
+    private final double[] yawDegrees;
+    private final double[] distancesMeters;
+    private final double[] anglesRadians;
+    // Monotonic sample counters, the slot of a sample is its counter masked by the capacity
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Creates a queue holding at least the given number of samples, rounded up to a power of two
+    public OdometrySampleQueue(int capacity, int moduleCount) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.moduleCount = moduleCount;
+        timestamps = new double[size];
+        yawDegrees = new double[size];
+        distancesMeters = new double[size * moduleCount];
+        anglesRadians = new double[size * moduleCount];
+    }
+
+    // Producer side: stores one sample, dropping it when the consumer has fallen a full buffer behind
+    public boolean offer(double timestamp, double yaw, double[] moduleDistances, double[] moduleAngles) {
+        long write = writeIndex.get();
+        if (write - readIndex.get() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) (write & mask);
+        timestamps[slot] = timestamp;
+        yawDegrees[slot] = yaw;
+        System.arraycopy(moduleDistances, 0, distancesMeters, slot * moduleCount, moduleCount);
+        System.arraycopy(moduleAngles, 0, anglesRadians, slot * moduleCount, moduleCount);
+        writeIndex.lazySet(write + 1);
+        return true;
+    }
+
+    // Consumer side: copies the oldest sample into out, returns false when the queue is empty
+    public boolean poll(Sample out) {
+        long read = readIndex.get();
+        if (read >= writeIndex.get()) {
+            return false;
+        }
+        int slot = (int) (read & mask);
+        out.timestamp = timestamps[slot];
+        out.yawDegrees = yawDegrees[slot];
+        System.arraycopy(distancesMeters, slot * moduleCount, out.distancesMeters, 0, moduleCount);
+        System.arraycopy(anglesRadians, slot * moduleCount, out.anglesRadians, 0, moduleCount);
+        readIndex.lazySet(read + 1);
+        return true;
+    }
+
+    // Consumer side: discards every sample currently queued
+    public void clear() {
+        readIndex.lazySet(writeIndex.get());
+    }
+
+    // Returns the number of samples dropped because the queue was full
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Returns the number of modules each sample holds
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    // Consumer-owned holder a sample is copied into, reused across polls
+    public static final class Sample {
+        public double timestamp;
+        public double yawDegrees;
+        public final double[] distancesMeters;
+        public final double[] anglesRadians;
+
+        public Sample(int moduleCount) {
+            distancesMeters = new double[moduleCount];
+            anglesRadians = new double[moduleCount];
+        }
+    }
+}
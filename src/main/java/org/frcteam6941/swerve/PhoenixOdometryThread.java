@@ -0,0 +1,111 @@
+package org.frcteam6941.swerve;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.CANBus;
+
+import edu.wpi.first.wpilibj.Threads;
+import edu.wpi.first.wpilibj.Timer;
+
+import org.frcteam6941.drivers.Pigeon2Gyro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Samples swerve module positions and gyro yaw at a high rate on its own thread
+// On a CANivore the thread waits for the synchronized frames, on the rio bus it sleeps between refreshes
+public class PhoenixOdometryThread extends Thread {
+    private final CTRESwerveIO[] modules;
+    private final Pigeon2Gyro gyro;
+    private final OdometrySampleQueue queue;
+    // Optional, receives every module's drive and steer signals with each sample
+    private final ModuleSignalLog signalLog;
+    private final double frequency;
+    private final boolean synchronizedWait;
+    private final BaseStatusSignal[] signals;
+    // Leading entries of signals that the sample timestamp is averaged over
+    private final int odometrySignalCount;
+
+    // Scratch arrays filled for every sample before being copied into the queue
+    private final double[] distances;
+    private final double[] angles;
+    private final double[] moduleSignals;
+
+    private volatile boolean running = true;
+
+    public PhoenixOdometryThread(CTRESwerveIO[] modules, Pigeon2Gyro gyro, String canbus, double frequency,
+                                 OdometrySampleQueue queue) {
+        this(modules, gyro, canbus, frequency, queue, null);
+    }
+
+    public PhoenixOdometryThread(CTRESwerveIO[] modules, Pigeon2Gyro gyro, String canbus, double frequency,
+                                 OdometrySampleQueue queue, ModuleSignalLog signalLog) {
+        this.modules = modules;
+        this.gyro = gyro;
+        this.queue = queue;
+        this.signalLog = signalLog;
+        this.frequency = frequency;
+        this.synchronizedWait = new CANBus(canbus).isNetworkFD();
+
+        List<BaseStatusSignal> allSignals = new ArrayList<>();
+        for (CTRESwerveIO module : modules) {
+            allSignals.addAll(Arrays.asList(module.getOdometrySignals()));
+        }
+        allSignals.addAll(Arrays.asList(gyro.getOdometrySignals()));
+        odometrySignalCount = allSignals.size();
+        if (signalLog != null) {
+            for (CTRESwerveIO module : modules) {
+                allSignals.addAll(Arrays.asList(module.getSignalLogSignals()));
+            }
+        }
+        signals = allSignals.toArray(new BaseStatusSignal[0]);
+        BaseStatusSignal.setUpdateFrequencyForAll(frequency, signals);
+
+        distances = new double[modules.length];
+        angles = new double[modules.length];
+        moduleSignals = new double[modules.length * ModuleSignalLog.SIGNALS_PER_MODULE];
+
+        setName("PhoenixOdometryThread");
+        setDaemon(true);
+    }
+
+    // Stops the sampling loop after the current sample
+    public void shutdown() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        Threads.setCurrentThreadPriority(true, 1);
+        while (running) {
+            if (synchronizedWait) {
+                BaseStatusSignal.waitForAll(2.0 / frequency, signals);
+            } else {
+                try {
+                    Thread.sleep((long) (1000.0 / frequency));
+                } catch (InterruptedException e) {
+                    return;
+                }
+                BaseStatusSignal.refreshAll(signals);
+            }
+
+            // Stamp the sample with the average time the frames were actually captured
+            double latency = 0.0;
+            for (int i = 0; i < odometrySignalCount; i++) {
+                latency += signals[i].getTimestamp().getLatency();
+            }
+            double timestamp = Timer.getFPGATimestamp() - latency / odometrySignalCount;
+
+            for (int i = 0; i < modules.length; i++) {
+                modules[i].sampleOdometry(distances, angles, i);
+            }
+            queue.offer(timestamp, gyro.sampleOdometryYawDegrees(), distances, angles);
+            if (signalLog != null) {
+                for (int i = 0; i < modules.length; i++) {
+                    modules[i].sampleSignals(moduleSignals, i);
+                }
+                signalLog.offer(timestamp, moduleSignals);
+            }
+        }
+    }
+}
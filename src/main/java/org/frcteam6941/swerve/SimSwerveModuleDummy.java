@@ -10,7 +10,7 @@ import frc.robot.RobotConstants;
 // A dummy implementation of the SimSwerveModuleBase interface, used for simulation purposes.
 public class SimSwerveModuleDummy implements SwerveModuleBase {
     private final int moduleNumber;
-    private SwerveModuleState currentState;
+    private final SwerveModuleState currentState;
     private final SwerveModulePosition currentPosition;
  
     // Constructor to initialize the module with an ID and constants.
@@ -32,9 +32,11 @@ public class SimSwerveModuleDummy implements SwerveModuleBase {
     }
  
     // Sets the desired state for the module, updating the current state and position accordingly.
+    // The state is copied since callers reuse their setpoint objects between cycles.
     @Override
     public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop, boolean overrideMotion) {
-        currentState = desiredState;
+        currentState.speedMetersPerSecond = desiredState.speedMetersPerSecond;
+        currentState.angle = desiredState.angle;
         currentPosition.distanceMeters += desiredState.speedMetersPerSecond * RobotConstants.LOOPER_DT;
         currentPosition.angle = desiredState.angle;
     }
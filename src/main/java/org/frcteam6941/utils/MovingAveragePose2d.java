@@ -1,56 +1,105 @@
 package org.frcteam6941.utils;
 
+import com.team254.lib.geometry.MutPose2d;
+import com.team254.lib.util.CompensatedSum;
+
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 
-import java.util.concurrent.CopyOnWriteArrayList;
-
 /**
  * Helper class for storing and calculating a moving average of the Pose2d class
  */
 public class MovingAveragePose2d {
     private final int maxSize;
-    CopyOnWriteArrayList<Pose2d> poses = new CopyOnWriteArrayList<>();
+    // Components of the stored poses in a ring, rotation kept in degrees like the average is computed
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] degrees;
+    private final CompensatedSum xSum = new CompensatedSum();
+    private final CompensatedSum ySum = new CompensatedSum();
+    private final CompensatedSum degreeSum = new CompensatedSum();
+    private int next = 0;
+    private int size = 0;
+    // Average built on the first read after a change
+    private Pose2d average = null;
 
     public MovingAveragePose2d(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("MovingAveragePose2d size must be positive, got " + maxSize);
+        }
         this.maxSize = maxSize;
+        xs = new double[maxSize];
+        ys = new double[maxSize];
+        degrees = new double[maxSize];
     }
 
     public synchronized void add(Pose2d pose) {
-        // Adds a new pose to the list and removes the oldest pose if the list exceeds the maximum size
-        poses.add(pose);
-        if (poses.size() > maxSize) {
-            poses.remove(0);
+        add(pose.getX(), pose.getY(), pose.getRotation().getDegrees());
+    }
+
+    public synchronized void add(double x, double y, double rotationDegrees) {
+        // Adds a new pose to the ring, replacing the oldest pose once the ring is full
+        if (size == maxSize) {
+            xSum.add(-xs[next]);
+            ySum.add(-ys[next]);
+            degreeSum.add(-degrees[next]);
+        } else {
+            size++;
         }
+        xs[next] = x;
+        ys[next] = y;
+        degrees[next] = rotationDegrees;
+        xSum.add(x);
+        ySum.add(y);
+        degreeSum.add(rotationDegrees);
+        // A NaN or infinite component poisons its running sum for good, rebuild it from the ring
+        if (!xSum.isFinite()) {
+            xSum.resum(xs, size);
+        }
+        if (!ySum.isFinite()) {
+            ySum.resum(ys, size);
+        }
+        if (!degreeSum.isFinite()) {
+            degreeSum.resum(degrees, size);
+        }
+        next = next + 1 == maxSize ? 0 : next + 1;
+        average = null;
     }
 
     public synchronized Pose2d getAverage() {
-        // Calculates the average of all stored poses and returns it as a new Pose2d
-        double x = 0.0, y = 0.0, t = 0.0;
-
-        for (Pose2d pose : poses) {
-            x += pose.getX();
-            y += pose.getY();
-            t += pose.getRotation().getDegrees();
+        // Returns the average of all stored poses, reusing the last result while nothing was added
+        if (average == null) {
+            double count = size;
+            average = new Pose2d(xSum.get() / count, ySum.get() / count,
+                    Rotation2d.fromDegrees(degreeSum.get() / count));
         }
+        return average;
+    }
 
-        double size = getSize();
-        return new Pose2d(x / size, y / size, Rotation2d.fromDegrees(t / size));
+    public synchronized MutPose2d getAverageInto(MutPose2d out) {
+        // Writes the average of all stored poses into out without allocating
+        double count = size;
+        return out.set(xSum.get() / count, ySum.get() / count, Math.toRadians(degreeSum.get() / count));
     }
 
-    public int getSize() {
-        // Returns the current number of poses stored in the list
-        return poses.size();
+    public synchronized int getSize() {
+        // Returns the current number of poses stored in the ring
+        return size;
     }
 
-    public boolean isUnderMaxSize() {
+    public synchronized boolean isUnderMaxSize() {
         // Checks if the number of stored poses is less than the maximum size
-        return getSize() < maxSize;
+        return size < maxSize;
     }
 
-    public void clear() {
-        // Clears all stored poses from the list
-        poses.clear();
+    public synchronized void clear() {
+        // Clears all stored poses
+        next = 0;
+        size = 0;
+        xSum.reset();
+        ySum.reset();
+        degreeSum.reset();
+        average = null;
     }
 
-}
\ No newline at end of file
+}
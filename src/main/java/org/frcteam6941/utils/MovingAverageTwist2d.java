@@ -0,0 +1,102 @@
+package org.frcteam6941.utils;
+
+import com.team254.lib.util.CompensatedSum;
+
+import edu.wpi.first.math.geometry.Twist2d;
+
+/**
+ * Helper class for storing and calculating a moving average of the Twist2d class
+ */
+public class MovingAverageTwist2d {
+    private final int maxSize;
+    private final double[] dxs;
+    private final double[] dys;
+    private final double[] dthetas;
+    private final CompensatedSum dxSum = new CompensatedSum();
+    private final CompensatedSum dySum = new CompensatedSum();
+    private final CompensatedSum dthetaSum = new CompensatedSum();
+    private int next = 0;
+    private int size = 0;
+
+    public MovingAverageTwist2d(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("MovingAverageTwist2d size must be positive, got " + maxSize);
+        }
+        this.maxSize = maxSize;
+        dxs = new double[maxSize];
+        dys = new double[maxSize];
+        dthetas = new double[maxSize];
+    }
+
+    public void add(Twist2d twist) {
+        add(twist.dx, twist.dy, twist.dtheta);
+    }
+
+    public void add(double dx, double dy, double dtheta) {
+        // Adds a new twist to the ring, replacing the oldest twist once the ring is full
+        if (size == maxSize) {
+            dxSum.add(-dxs[next]);
+            dySum.add(-dys[next]);
+            dthetaSum.add(-dthetas[next]);
+        } else {
+            size++;
+        }
+        dxs[next] = dx;
+        dys[next] = dy;
+        dthetas[next] = dtheta;
+        dxSum.add(dx);
+        dySum.add(dy);
+        dthetaSum.add(dtheta);
+        // A NaN or infinite component poisons its running sum for good, rebuild it from the ring
+        if (!dxSum.isFinite()) {
+            dxSum.resum(dxs, size);
+        }
+        if (!dySum.isFinite()) {
+            dySum.resum(dys, size);
+        }
+        if (!dthetaSum.isFinite()) {
+            dthetaSum.resum(dthetas, size);
+        }
+        next = next + 1 == maxSize ? 0 : next + 1;
+    }
+
+    public double getAverageDx() {
+        return dxSum.get() / size;
+    }
+
+    public double getAverageDy() {
+        return dySum.get() / size;
+    }
+
+    public double getAverageDtheta() {
+        return dthetaSum.get() / size;
+    }
+
+    public void getAverage(Twist2d out) {
+        // Writes the average into an existing twist so the caller can reuse it
+        out.dx = getAverageDx();
+        out.dy = getAverageDy();
+        out.dtheta = getAverageDtheta();
+    }
+
+    public Twist2d getAverage() {
+        return new Twist2d(getAverageDx(), getAverageDy(), getAverageDtheta());
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isUnderMaxSize() {
+        return size < maxSize;
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+        dxSum.reset();
+        dySum.reset();
+        dthetaSum.reset();
+    }
+
+}
@@ -0,0 +1,278 @@
+package org.frcteam6941.utils;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fixed capacity time series of 2d poses stored as parallel primitive arrays in a ring
+// Samples are kept sorted by time, lookups binary search and interpolate without allocating
+// A single thread writes, other threads read through sampleConcurrent or snapshotTo, which retry while a write is in
+// progress
+public class PoseTimeSeries {
+    private final int capacity;
+    private final double[] t;
+    private final double[] x;
+    private final double[] y;
+    private final double[] theta;
+    // Physical slot of the oldest sample and number of samples held
+    private int head = 0;
+    private int size = 0;
+    // Odd while a write is in progress, bumped twice per write
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PoseTimeSeries(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("PoseTimeSeries capacity must be positive, got " + capacity);
+        }
+        this.capacity = capacity;
+        t = new double[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        theta = new double[capacity];
+    }
+
+    // Returns the maximum number of samples held before the oldest is overwritten
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Returns the number of samples held
+    public int size() {
+        return size;
+    }
+
+    // Returns true when no samples are held
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Removes every sample
+    public void clear() {
+        beginWrite();
+        head = 0;
+        size = 0;
+        endWrite();
+    }
+
+    // Adds a sample, overwriting the oldest one when full
+    // Samples older than the newest one are inserted in order, shifting only the newer samples
+    public void add(double time, double poseX, double poseY, double poseTheta) {
+        beginWrite();
+        if (size > 0 && time < t[slot(size - 1)]) {
+            insert(time, poseX, poseY, poseTheta);
+        } else {
+            if (size == capacity) {
+                head = (head + 1) % capacity;
+                size--;
+            }
+            int slot = slot(size);
+            t[slot] = time;
+            x[slot] = poseX;
+            y[slot] = poseY;
+            theta[slot] = poseTheta;
+            size++;
+        }
+        endWrite();
+    }
+
+    // Adds a sample from a pose
+    public void add(double time, Pose2d pose) {
+        add(time, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+    }
+
+    // Returns the time of the i-th oldest sample
+    public double getTime(int index) {
+        return t[slot(index)];
+    }
+
+    // Returns the x of the i-th oldest sample
+    public double getX(int index) {
+        return x[slot(index)];
+    }
+
+    // Returns the y of the i-th oldest sample
+    public double getY(int index) {
+        return y[slot(index)];
+    }
+
+    // Returns the heading in radians of the i-th oldest sample
+    public double getTheta(int index) {
+        return theta[slot(index)];
+    }
+
+    // Returns the time of the oldest sample
+    public double getOldestTime() {
+        return t[slot(0)];
+    }
+
+    // Returns the time of the newest sample
+    public double getLatestTime() {
+        return t[slot(size - 1)];
+    }
+
+    // Returns the index of the newest sample at or before time, or -1 when every sample is newer
+    public int floorIndex(double time) {
+        int low = 0;
+        int high = size - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (t[slot(mid)] <= time) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    // Writes the pose interpolated at time into out as x, y, theta, clamping to the oldest and newest samples
+    // Returns false when the series is empty
+    public boolean sample(double time, double[] out) {
+        if (size == 0) {
+            return false;
+        }
+        int floor = floorIndex(time);
+        if (floor < 0) {
+            readInto(0, out);
+            return true;
+        }
+        if (floor == size - 1) {
+            readInto(floor, out);
+            return true;
+        }
+        int lower = slot(floor);
+        int upper = slot(floor + 1);
+        double span = t[upper] - t[lower];
+        double fraction = span <= 0.0 ? 0.0 : (time - t[lower]) / span;
+        out[0] = x[lower] + (x[upper] - x[lower]) * fraction;
+        out[1] = y[lower] + (y[upper] - y[lower]) * fraction;
+        out[2] = theta[lower] + MathUtil.angleModulus(theta[upper] - theta[lower]) * fraction;
+        return true;
+    }
+
+    // Same as sample, but safe to call while another thread writes, retries when a write overlapped the read
+    public boolean sampleConcurrent(double time, double[] out) {
+        while (true) {
+            long before = sequence.get();
+            if ((before & 1L) != 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+            boolean found = sample(time, out);
+            VarHandle.acquireFence();
+            if (sequence.get() == before) {
+                return found;
+            }
+        }
+    }
+
+    // Returns the pose interpolated at time, or null when the series is empty
+    public Pose2d getInterpolated(double time) {
+        double[] out = new double[3];
+        if (!sample(time, out)) {
+            return null;
+        }
+        return new Pose2d(out[0], out[1], new Rotation2d(out[2]));
+    }
+
+    // Applies the rigid motion p' = (translation, rotation) * p to every sample at or after time
+    public void transformFrom(double time, double cos, double sin, double translationX, double translationY,
+                              double rotation) {
+        beginWrite();
+        int start = floorIndex(time);
+        if (start < 0 || t[slot(start)] < time) {
+            start++;
+        }
+        for (int i = start; i < size; i++) {
+            int slot = slot(i);
+            double px = x[slot];
+            double py = y[slot];
+            x[slot] = translationX + cos * px - sin * py;
+            y[slot] = translationY + sin * px + cos * py;
+            theta[slot] += rotation;
+        }
+        endWrite();
+    }
+
+    // Copies a consistent view of this series into target, safe to call while another thread writes
+    public void snapshotTo(PoseTimeSeries target) {
+        if (target.capacity != capacity) {
+            throw new IllegalArgumentException("Snapshot target capacity " + target.capacity
+                    + " does not match " + capacity);
+        }
+        while (true) {
+            long before = sequence.get();
+            if ((before & 1L) != 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int snapshotHead = head;
+            int snapshotSize = size;
+            System.arraycopy(t, 0, target.t, 0, capacity);
+            System.arraycopy(x, 0, target.x, 0, capacity);
+            System.arraycopy(y, 0, target.y, 0, capacity);
+            System.arraycopy(theta, 0, target.theta, 0, capacity);
+            VarHandle.acquireFence();
+            if (sequence.get() == before) {
+                target.beginWrite();
+                target.head = snapshotHead;
+                target.size = snapshotSize;
+                target.endWrite();
+                return;
+            }
+        }
+    }
+
+    private void insert(double time, double poseX, double poseY, double poseTheta) {
+        int position = floorIndex(time) + 1;
+        if (size == capacity) {
+            if (position == 0) {
+                // Older than everything in a full series, nothing to keep
+                return;
+            }
+            head = (head + 1) % capacity;
+            size--;
+            position--;
+        }
+        for (int i = size; i > position; i--) {
+            int to = slot(i);
+            int from = slot(i - 1);
+            t[to] = t[from];
+            x[to] = x[from];
+            y[to] = y[from];
+            theta[to] = theta[from];
+        }
+        int slot = slot(position);
+        t[slot] = time;
+        x[slot] = poseX;
+        y[slot] = poseY;
+        theta[slot] = poseTheta;
+        size++;
+    }
+
+    private void readInto(int index, double[] out) {
+        int slot = slot(index);
+        out[0] = x[slot];
+        out[1] = y[slot];
+        out[2] = theta[slot];
+    }
+
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+
+    private void beginWrite() {
+        sequence.set(sequence.get() + 1);
+        VarHandle.storeStoreFence();
+    }
+
+    private void endWrite() {
+        sequence.set(sequence.get() + 1);
+    }
+}
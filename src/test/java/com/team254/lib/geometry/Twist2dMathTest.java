@@ -0,0 +1,115 @@
+package com.team254.lib.geometry;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sweeps the rotation across the series switch at 1e-2 rad and compares the maps with WPILib's Pose2d.exp, Pose2d.log
+// and ChassisSpeeds.discretize, and with cancellation-free forms of the closed expressions
+class Twist2dMathTest {
+    private static final double THRESHOLD = 1e-2;
+    // Agreement with the cancellation-free references, for inputs of order one
+    private static final double EXACT_TOLERANCE = 1e-14;
+    private static final double WPILIB_TOLERANCE = 1e-12;
+    private static final double DT = 0.02;
+
+    private final MutPose2d pose = new MutPose2d();
+    private final MutTwist2d twist = new MutTwist2d();
+
+    // Both signs of every rotation from 1e-8 to 1 rad, densest around the switch, including its neighbouring doubles
+    private static double[] sweep() {
+        double[] magnitudes = new double[400];
+        int count = 0;
+        for (int i = 0; i < 160; i++) {
+            magnitudes[count++] = Math.pow(10.0, -8.0 + 8.0 * i / 159.0);
+        }
+        for (int i = 0; i < 236; i++) {
+            magnitudes[count++] = THRESHOLD * (0.5 + 1.5 * i / 235.0);
+        }
+        magnitudes[count++] = THRESHOLD;
+        magnitudes[count++] = Math.nextDown(THRESHOLD);
+        magnitudes[count++] = Math.nextUp(THRESHOLD);
+        magnitudes[count++] = 0.0;
+        double[] thetas = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            thetas[2 * i] = magnitudes[i];
+            thetas[2 * i + 1] = -magnitudes[i];
+        }
+        return thetas;
+    }
+
+    // Error WPILib's closed forms carry from 1 - cos, which Twist2dMath avoids; zero where WPILib takes its own series
+    private static double cancellation(boolean wpilibSeries, double divisor) {
+        return wpilibSeries ? 0.0 : 4e-16 / divisor;
+    }
+
+    @Test
+    void expMatchesClosedFormAcrossSeriesThreshold() {
+        double dx = 0.8;
+        double dy = -0.6;
+        for (double theta : sweep()) {
+            Twist2dMath.expInto(dx, dy, theta, pose);
+            double s = theta == 0.0 ? 1.0 : Math.sin(theta) / theta;
+            double halfSin = Math.sin(theta / 2.0);
+            double c = theta == 0.0 ? 0.0 : 2.0 * halfSin * halfSin / theta;
+            assertEquals(dx * s - dy * c, pose.x(), EXACT_TOLERANCE, "x at " + theta);
+            assertEquals(dx * c + dy * s, pose.y(), EXACT_TOLERANCE, "y at " + theta);
+
+            Pose2d expected = new Pose2d().exp(new edu.wpi.first.math.geometry.Twist2d(dx, dy, theta));
+            double tolerance = WPILIB_TOLERANCE + cancellation(Math.abs(theta) < 1e-9, Math.abs(theta));
+            assertEquals(expected.getX(), pose.x(), tolerance, "x against WPILib at " + theta);
+            assertEquals(expected.getY(), pose.y(), tolerance, "y against WPILib at " + theta);
+            assertEquals(expected.getRotation().getRadians(), pose.getRotation().getRadians(), WPILIB_TOLERANCE);
+        }
+    }
+
+    @Test
+    void logMatchesClosedFormAcrossSeriesThreshold() {
+        double x = 0.8;
+        double y = -0.6;
+        for (double theta : sweep()) {
+            Twist2dMath.logInto(x, y, theta, twist);
+            double halfTheta = theta / 2.0;
+            double a = theta == 0.0 ? 1.0 : halfTheta * Math.cos(halfTheta) / Math.sin(halfTheta);
+            assertEquals(x * a + y * halfTheta, twist.dx, EXACT_TOLERANCE, "dx at " + theta);
+            assertEquals(-x * halfTheta + y * a, twist.dy, EXACT_TOLERANCE, "dy at " + theta);
+            assertEquals(theta, twist.dtheta, 0.0);
+
+            edu.wpi.first.math.geometry.Twist2d expected = new Pose2d().log(new Pose2d(x, y, new Rotation2d(theta)));
+            double tolerance = WPILIB_TOLERANCE + cancellation(1.0 - Math.cos(theta) < 1e-9, theta * theta);
+            assertEquals(expected.dx, twist.dx, tolerance, "dx against WPILib at " + theta);
+            assertEquals(expected.dy, twist.dy, tolerance, "dy against WPILib at " + theta);
+            assertEquals(expected.dtheta, twist.dtheta, WPILIB_TOLERANCE);
+        }
+    }
+
+    @Test
+    void logInvertsExp() {
+        for (double theta : sweep()) {
+            Twist2dMath.expInto(0.8, -0.6, theta, pose);
+            Twist2dMath.logInto(pose, twist);
+            assertEquals(0.8, twist.dx, EXACT_TOLERANCE, "dx at " + theta);
+            assertEquals(-0.6, twist.dy, EXACT_TOLERANCE, "dy at " + theta);
+            assertEquals(theta, twist.dtheta, EXACT_TOLERANCE);
+        }
+    }
+
+    @Test
+    void discretizeMatchesChassisSpeeds() {
+        double vx = 3.0;
+        double vy = -2.0;
+        for (double theta : sweep()) {
+            double omega = theta / DT;
+            Twist2dMath.discretizeInto(vx, vy, omega, DT, twist);
+            ChassisSpeeds expected = ChassisSpeeds.discretize(vx, vy, omega, DT);
+            // Errors in the pose step come back divided by dt
+            double tolerance = (WPILIB_TOLERANCE + cancellation(1.0 - Math.cos(theta) < 1e-9, theta * theta)) / DT;
+            assertEquals(expected.vxMetersPerSecond, twist.dx, tolerance, "vx at " + omega);
+            assertEquals(expected.vyMetersPerSecond, twist.dy, tolerance, "vy at " + omega);
+            assertEquals(expected.omegaRadiansPerSecond, twist.dtheta, WPILIB_TOLERANCE / DT);
+        }
+    }
+}
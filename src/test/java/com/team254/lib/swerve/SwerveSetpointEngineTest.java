@@ -0,0 +1,208 @@
+package com.team254.lib.swerve;
+
+import com.team254.lib.util.Util;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks the iterative solvers against the recursive regula falsi they replaced. The drive solver has to match it bit
+// for bit, speeding up and slowing down, since it sets how hard the wheels accelerate. The opt-in closed form for
+// wheels speeding up is checked on its own
+class SwerveSetpointEngineTest {
+    private static final int CASES = 20000;
+    private static final int STEERING_ITERATIONS = 8;
+    private static final int DRIVE_ITERATIONS = 10;
+
+    @FunctionalInterface
+    private interface Function2d {
+        double f(double x, double y);
+    }
+
+    // The recursive solvers as they were before the engine, kept here as the reference
+    private static double findRoot(Function2d func, double x_0, double y_0, double f_0, double x_1, double y_1,
+                                   double f_1, int iterations_left) {
+        if (iterations_left < 0 || Util.epsilonEquals(f_0, f_1)) {
+            return 1.0;
+        }
+        double s_guess = Math.max(0.0, Math.min(1.0, -f_0 / (f_1 - f_0)));
+        double x_guess = (x_1 - x_0) * s_guess + x_0;
+        double y_guess = (y_1 - y_0) * s_guess + y_0;
+        double f_guess = func.f(x_guess, y_guess);
+        if (Math.signum(f_0) == Math.signum(f_guess)) {
+            return s_guess + (1.0 - s_guess) * findRoot(func, x_guess, y_guess, f_guess, x_1, y_1, f_1, iterations_left - 1);
+        } else {
+            return s_guess * findRoot(func, x_0, y_0, f_0, x_guess, y_guess, f_guess, iterations_left - 1);
+        }
+    }
+
+    private static double unwrapAngle(double ref, double angle) {
+        double diff = angle - ref;
+        if (diff > Math.PI) {
+            return angle - 2.0 * Math.PI;
+        } else if (diff < -Math.PI) {
+            return angle + 2.0 * Math.PI;
+        } else {
+            return angle;
+        }
+    }
+
+    private static double recursiveSteeringMaxS(double x_0, double y_0, double f_0, double x_1, double y_1, double f_1,
+                                                double max_deviation, int max_iterations) {
+        f_1 = unwrapAngle(f_0, f_1);
+        double diff = f_1 - f_0;
+        if (Math.abs(diff) <= max_deviation) {
+            return 1.0;
+        }
+        double offset = f_0 + Math.signum(diff) * max_deviation;
+        Function2d func = (x, y) -> unwrapAngle(f_0, Math.atan2(y, x)) - offset;
+        return findRoot(func, x_0, y_0, f_0 - offset, x_1, y_1, f_1 - offset, max_iterations);
+    }
+
+    private static double recursiveDriveMaxS(double x_0, double y_0, double f_0, double x_1, double y_1, double f_1,
+                                             double max_vel_step, int max_iterations) {
+        double diff = f_1 - f_0;
+        if (Math.abs(diff) <= max_vel_step) {
+            return 1.0;
+        }
+        double offset = f_0 + Math.signum(diff) * max_vel_step;
+        Function2d func = (x, y) -> Math.hypot(x, y) - offset;
+        return findRoot(func, x_0, y_0, f_0 - offset, x_1, y_1, f_1 - offset, max_iterations);
+    }
+
+    @Test
+    void steeringMatchesRecursiveSolver() {
+        Random random = new Random(6941);
+        for (int i = 0; i < CASES; i++) {
+            double x_0 = random.nextGaussian() * 3.0;
+            double y_0 = random.nextGaussian() * 3.0;
+            double x_1 = random.nextGaussian() * 3.0;
+            double y_1 = random.nextGaussian() * 3.0;
+            double maxDeviation = 0.01 + random.nextDouble() * 0.5;
+            double f_0 = Math.atan2(y_0, x_0);
+            double f_1 = Math.atan2(y_1, x_1);
+            assertEquals(recursiveSteeringMaxS(x_0, y_0, f_0, x_1, y_1, f_1, maxDeviation, STEERING_ITERATIONS),
+                    SwerveSetpointEngine.findSteeringMaxS(x_0, y_0, f_0, x_1, y_1, f_1, maxDeviation, STEERING_ITERATIONS),
+                    1e-9);
+        }
+    }
+
+    @Test
+    void driveMatchesRecursiveSolverExactly() {
+        Random random = new Random(254);
+        double[] guesses = new double[DRIVE_ITERATIONS + 1];
+        boolean[] upper = new boolean[DRIVE_ITERATIONS + 1];
+        for (int i = 0; i < CASES; i++) {
+            double x_0 = random.nextGaussian() * 3.0;
+            double y_0 = random.nextGaussian() * 3.0;
+            double x_1 = random.nextGaussian() * 3.0;
+            double y_1 = random.nextGaussian() * 3.0;
+            // Every fourth case starts from a stopped wheel or ends on one, as the generator sees on every stop
+            if (i % 4 == 1) {
+                x_0 = 0.0;
+                y_0 = 0.0;
+            } else if (i % 4 == 2) {
+                x_1 = 0.0;
+                y_1 = 0.0;
+            }
+            double step = random.nextDouble() < 0.1 ? 1e-12 : 0.02 + random.nextDouble() * 0.3;
+            double f_0 = Math.hypot(x_0, y_0);
+            double f_1 = Math.hypot(x_1, y_1);
+            double expected = recursiveDriveMaxS(x_0, y_0, f_0, x_1, y_1, f_1, step, DRIVE_ITERATIONS);
+            double actual = SwerveSetpointEngine.findDriveMaxS(x_0, y_0, f_0, x_1, y_1, f_1, step,
+                    DRIVE_ITERATIONS, guesses, upper);
+            assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual),
+                    "case " + i + " expected " + expected + " got " + actual);
+        }
+    }
+
+    private static double speedAt(double x_0, double y_0, double x_1, double y_1, double s) {
+        return Math.hypot(x_0 + (x_1 - x_0) * s, y_0 + (y_1 - y_0) * s);
+    }
+
+    @Test
+    void speedingUpClosedFormStopsOnTheLimit() {
+        Random random = new Random(1678);
+        double[] guesses = new double[DRIVE_ITERATIONS + 1];
+        boolean[] upper = new boolean[DRIVE_ITERATIONS + 1];
+        int checked = 0;
+        int overshoots = 0;
+        while (checked < CASES) {
+            double x_0 = random.nextGaussian() * 3.0;
+            double y_0 = random.nextGaussian() * 3.0;
+            double x_1 = random.nextGaussian() * 3.0;
+            double y_1 = random.nextGaussian() * 3.0;
+            double step = 0.02 + random.nextDouble() * 0.3;
+            double f_0 = Math.hypot(x_0, y_0);
+            double f_1 = Math.hypot(x_1, y_1);
+            if (f_1 - f_0 <= step) {
+                continue;
+            }
+            checked++;
+            double closed = SwerveSetpointEngine.findDriveMaxSSpeedingUp(x_0, y_0, f_0, x_1, y_1, f_1, step);
+            double legacy = SwerveSetpointEngine.findDriveMaxS(x_0, y_0, f_0, x_1, y_1, f_1, step,
+                    DRIVE_ITERATIONS, guesses, upper);
+            assertEquals(f_0 + step, speedAt(x_0, y_0, x_1, y_1, closed), 1e-9);
+            assertTrue(closed <= legacy + 1e-12);
+            if (speedAt(x_0, y_0, x_1, y_1, legacy) > f_0 + 1.5 * step) {
+                overshoots++;
+            }
+        }
+        // What the option changes: the regula falsi lets most of these through well past the limit
+        assertTrue(overshoots > CASES / 2, "expected the regula falsi to overshoot, got " + overshoots);
+    }
+
+    // Drives the engine towards a new random goal every half second and returns the largest amount any wheel sped up
+    // by in one cycle beyond the acceleration limit
+    private static double worstAccelerationExcess(boolean limitWhileSpeedingUp) {
+        double[] moduleX = {0.3, 0.3, -0.3, -0.3};
+        double[] moduleY = {0.3, -0.3, 0.3, -0.3};
+        double maxVelocity = 4.5;
+        double maxAcceleration = 10.0;
+        double maxSteering = 12.0;
+        double dt = 0.02;
+        SwerveSetpointEngine engine = new SwerveSetpointEngine(moduleX, moduleY, Util.kEpsilon, false);
+        engine.setLimitAccelerationWhileSpeedingUp(limitWhileSpeedingUp);
+        double[] speed = new double[4];
+        double[] radians = new double[4];
+        double vx = 0.0;
+        double vy = 0.0;
+        double omega = 0.0;
+        double worst = Double.NEGATIVE_INFINITY;
+        for (int cycle = 0; cycle < CASES; cycle++) {
+            engine.setPreviousChassisSpeeds(vx, vy, omega);
+            for (int i = 0; i < 4; i++) {
+                engine.setPreviousModuleState(i, speed[i], Math.cos(radians[i]), Math.sin(radians[i]), radians[i]);
+            }
+            Random goal = new Random(cycle / 25);
+            engine.generate(maxVelocity, maxAcceleration, maxSteering,
+                    goal.nextGaussian() * 3.0, goal.nextGaussian() * 3.0, goal.nextGaussian() * 4.0, dt);
+            for (int i = 0; i < 4; i++) {
+                double next = engine.getModuleSpeed(i);
+                assertTrue(Math.abs(next) <= maxVelocity + 1e-9);
+                worst = Math.max(worst, Math.abs(next) - Math.abs(speed[i]) - maxAcceleration * dt);
+                speed[i] = next;
+                radians[i] = Math.atan2(engine.getModuleSin(i), engine.getModuleCos(i));
+            }
+            vx = engine.getVx();
+            vy = engine.getVy();
+            omega = engine.getOmega();
+        }
+        return worst;
+    }
+
+    @Test
+    void byDefaultWheelsMaySpeedUpPastTheAccelerationLimit() {
+        // Without the option the velocity limit still holds, but wheels speed up past the acceleration limit as they
+        // always have
+        assertTrue(worstAccelerationExcess(false) > 1e-3);
+    }
+
+    @Test
+    void limitingWhileSpeedingUpHoldsTheAccelerationLimit() {
+        // Wheel speed is convex along the interpolation, so a module lowering s later never undoes the limit an
+        // earlier module enforced while speeding up
+        assertTrue(worstAccelerationExcess(true) <= 1e-9, "wheel sped up by more than the acceleration limit allows");
+    }
+}
@@ -0,0 +1,82 @@
+package com.team254.lib.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks the running sum filters against a plain re-sum of the window, including non-finite samples
+class MovingAverageTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesWindowMean() {
+        MovingAverage average = new MovingAverage(5);
+        for (int i = 0; i < 100; i++) {
+            average.addNumber(i * 0.1);
+            int first = Math.max(0, i - 4);
+            double expected = 0.0;
+            for (int j = first; j <= i; j++) {
+                expected += j * 0.1;
+            }
+            assertEquals(expected / (i - first + 1), average.getAverage(), EPSILON);
+        }
+    }
+
+    @Test
+    void recoversOnceNaNLeavesWindow() {
+        MovingAverage average = new MovingAverage(3);
+        average.addNumber(1.0);
+        average.addNumber(Double.NaN);
+        assertTrue(Double.isNaN(average.getAverage()));
+        average.addNumber(2.0);
+        average.addNumber(3.0);
+        assertTrue(Double.isNaN(average.getAverage()));
+        average.addNumber(4.0);
+        assertEquals(3.0, average.getAverage(), EPSILON);
+    }
+
+    @Test
+    void recoversOnceInfinityLeavesWindow() {
+        MovingAverage average = new MovingAverage(2);
+        average.addNumber(Double.POSITIVE_INFINITY);
+        average.addNumber(1.0);
+        assertEquals(Double.POSITIVE_INFINITY, average.getAverage());
+        average.addNumber(Double.NEGATIVE_INFINITY);
+        assertEquals(Double.NEGATIVE_INFINITY, average.getAverage());
+        average.addNumber(2.0);
+        average.addNumber(3.0);
+        assertEquals(2.5, average.getAverage(), EPSILON);
+    }
+
+    @Test
+    void circularBufferRecoversOnceNaNLeavesWindow() {
+        CircularBuffer buffer = new CircularBuffer(2);
+        buffer.addValue(Double.NaN);
+        buffer.addValue(1.0);
+        assertTrue(Double.isNaN(buffer.getAverage()));
+        buffer.addValue(3.0);
+        assertEquals(2.0, buffer.getAverage(), EPSILON);
+    }
+
+    @Test
+    void varianceRecoversFromNaNFirstSample() {
+        MovingVariance variance = new MovingVariance(3);
+        variance.addNumber(Double.NaN);
+        variance.addNumber(1.0);
+        variance.addNumber(2.0);
+        assertTrue(Double.isNaN(variance.getMean()));
+        variance.addNumber(3.0);
+        assertEquals(2.0, variance.getMean(), EPSILON);
+        assertEquals(1.0, variance.getVariance(), EPSILON);
+    }
+
+    @Test
+    void exponentialIgnoresNonFinite() {
+        ExponentialMovingAverage average = new ExponentialMovingAverage(0.5);
+        average.addNumber(Double.NaN);
+        average.addNumber(2.0);
+        average.addNumber(Double.POSITIVE_INFINITY);
+        average.addNumber(4.0);
+        assertEquals(3.0, average.getAverage(), EPSILON);
+    }
+}
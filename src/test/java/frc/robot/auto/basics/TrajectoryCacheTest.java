@@ -0,0 +1,91 @@
+package frc.robot.auto.basics;
+
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Generates the example path from src/main/deploy into a temporary cache directory and checks which requests are
+// served the cached entry and which are generated live
+class TrajectoryCacheTest {
+    private static final String PATH = "Example Path";
+    // The example path's ideal starting rotation
+    private static final Rotation2d START = Rotation2d.kZero;
+    private static final double EPSILON = 1e-9;
+
+    @TempDir
+    Path directory;
+    private TrajectoryCache cache;
+
+    @BeforeEach
+    void setup() {
+        assertTrue(HAL.initialize(500, 0));
+        cache = new TrajectoryCache(directory);
+    }
+
+    @Test
+    void atRestRequestIsServedFromThePathStart() throws Exception {
+        PathPlannerTrajectory generated = cache.get(PATH, false);
+        assertEquals(START.getRadians(), generated.getInitialState().pose.getRotation().getRadians(), EPSILON);
+        assertTrue(Files.isRegularFile(directory.resolve(PATH + ".blue.traj")));
+        assertSame(generated, cache.get(PATH, false));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // A live heading within the tolerance is served the same entry
+        assertSame(generated, cache.get(PATH, false, new ChassisSpeeds(), Rotation2d.fromDegrees(1.0)));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void liveStartOffThePathStartIsGeneratedAndNotStored() throws Exception {
+        PathPlannerTrajectory cached = cache.get(PATH, false);
+
+        Rotation2d turned = Rotation2d.fromDegrees(30.0);
+        PathPlannerTrajectory turnedStart = cache.get(PATH, false, new ChassisSpeeds(), turned);
+        assertNotSame(cached, turnedStart);
+        assertEquals(turned.getRadians(), turnedStart.getInitialState().pose.getRotation().getRadians(), 1e-6);
+        assertEquals(2, cache.getMissCount());
+
+        PathPlannerTrajectory moving = cache.get(PATH, false, new ChassisSpeeds(1.0, 0.0, 0.0), START);
+        assertNotSame(cached, moving);
+        assertEquals(3, cache.getMissCount());
+
+        // Neither live start replaced the entry
+        assertSame(cached, cache.get(PATH, false));
+        assertSame(cached, cache.get(PATH, false, new ChassisSpeeds(), START));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void liveStartOnAColdCacheIsNotStored() throws Exception {
+        PathPlannerTrajectory turned = cache.get(PATH, true, new ChassisSpeeds(), Rotation2d.fromDegrees(45.0));
+        assertEquals(1, cache.getMissCount());
+        assertFalse(Files.exists(directory.resolve(PATH + ".red.traj")));
+
+        PathPlannerTrajectory stored = cache.get(PATH, true);
+        assertNotSame(turned, stored);
+        assertEquals(2, cache.getMissCount());
+        assertTrue(Files.isRegularFile(directory.resolve(PATH + ".red.traj")));
+    }
+
+    @Test
+    void storedEntriesAreDecodedByANewCache() throws Exception {
+        PathPlannerTrajectory generated = cache.get(PATH, false);
+
+        TrajectoryCache reopened = new TrajectoryCache(directory);
+        PathPlannerTrajectory decoded = reopened.get(PATH, false);
+        assertEquals(0, reopened.getMissCount());
+        assertEquals(1, reopened.getHitCount());
+        assertEquals(generated.getStates().size(), decoded.getStates().size());
+        assertEquals(generated.getTotalTimeSeconds(), decoded.getTotalTimeSeconds(), EPSILON);
+    }
+}
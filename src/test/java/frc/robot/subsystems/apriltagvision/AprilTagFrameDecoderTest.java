@@ -0,0 +1,155 @@
+package frc.robot.subsystems.apriltagvision;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Quaternion;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import frc.robot.FieldConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks the primitive decoder against the Pose3d/Transform3d chain it replaced
+class AprilTagFrameDecoderTest {
+    private static final double EPSILON = 1e-9;
+    private static final int TAG_ID = 7;
+
+    private double referenceYaw = 0.0;
+    private AprilTagFrameDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new AprilTagFrameDecoder(AprilTagVisionConstants.cameraPoses.length, timestamp -> referenceYaw);
+        Pose3d tagPose = new Pose3d(FieldConstants.fieldLength / 2.0, FieldConstants.fieldWidth / 2.0, 1.0,
+                new Rotation3d());
+        decoder.setLayout(new AprilTagFieldLayout(List.of(new AprilTag(TAG_ID, tagPose)),
+                FieldConstants.fieldLength, FieldConstants.fieldWidth));
+    }
+
+    // Camera pose the given camera would report for a robot at robotPose
+    private static Pose3d cameraPose(int instance, Pose3d robotPose) {
+        return robotPose.transformBy(new Transform3d(new Pose3d(), AprilTagVisionConstants.cameraPoses[instance]));
+    }
+
+    // Robot pose the replaced Pose3d chain solved from a camera pose
+    private static Pose3d solveWithPose3d(int instance, Pose3d cameraPose) {
+        return cameraPose.transformBy(
+                new Transform3d(new Pose3d(), AprilTagVisionConstants.cameraPoses[instance]).inverse());
+    }
+
+    private static void putPose(double[] frame, int offset, double error, Pose3d pose) {
+        Quaternion q = pose.getRotation().getQuaternion();
+        frame[offset] = error;
+        frame[offset + 1] = pose.getX();
+        frame[offset + 2] = pose.getY();
+        frame[offset + 3] = pose.getZ();
+        frame[offset + 4] = q.getW();
+        frame[offset + 5] = q.getX();
+        frame[offset + 6] = q.getY();
+        frame[offset + 7] = q.getZ();
+    }
+
+    private static double[] singlePoseFrame(Pose3d cameraPose, int... tagIds) {
+        double[] frame = new double[9 + tagIds.length];
+        frame[0] = 1;
+        putPose(frame, 1, 0.0, cameraPose);
+        for (int i = 0; i < tagIds.length; i++) {
+            frame[9 + i] = tagIds[i];
+        }
+        return frame;
+    }
+
+    @Test
+    void singlePoseMatchesPose3dChain() {
+        Pose3d robotPose = new Pose3d(4.0, 3.0, 0.0, new Rotation3d(0.0, 0.0, 0.7));
+        for (int instance = 0; instance < AprilTagVisionConstants.cameraPoses.length; instance++) {
+            Pose3d camera = cameraPose(instance, robotPose);
+            Pose3d expected = solveWithPose3d(instance, camera);
+            AprilTagFrameDecoder.Observation out = new AprilTagFrameDecoder.Observation();
+
+            assertTrue(decoder.decode(instance, 1.0, singlePoseFrame(camera, TAG_ID), 2.0, out));
+            assertEquals(expected.getX(), out.robotX, EPSILON);
+            assertEquals(expected.getY(), out.robotY, EPSILON);
+            assertEquals(expected.getZ(), out.robotZ, EPSILON);
+            assertEquals(expected.getRotation().getZ(), out.robotYaw, EPSILON);
+            assertTrue(out.useVisionRotation);
+            assertEquals(instance, out.instanceIndex);
+            assertEquals(1.0, out.timestamp);
+            assertEquals(1, out.tagCount);
+            assertEquals(TAG_ID, out.tagIds[0]);
+            Pose3d tagPose = decoder.getTagPose(TAG_ID);
+            assertEquals(camera.getTranslation().getDistance(tagPose.getTranslation()), out.averageTagDistance,
+                    EPSILON);
+        }
+        assertEquals(2.0, decoder.getLastDetectionTime(TAG_ID));
+    }
+
+    @Test
+    void ambiguousFramePicksPoseClosestToReferenceYaw() {
+        Pose3d facingX = new Pose3d(4.0, 3.0, 0.0, new Rotation3d(0.0, 0.0, 0.0));
+        Pose3d facingY = new Pose3d(4.0, 3.0, 0.0, new Rotation3d(0.0, 0.0, Math.PI / 2.0));
+        double[] frame = new double[18];
+        frame[0] = 2;
+        putPose(frame, 1, 0.1, cameraPose(0, facingX));
+        putPose(frame, 9, 1.0, cameraPose(0, facingY));
+        frame[17] = TAG_ID;
+        AprilTagFrameDecoder.Observation out = new AprilTagFrameDecoder.Observation();
+
+        referenceYaw = Math.PI / 2.0;
+        assertTrue(decoder.decode(0, 1.0, frame, 1.0, out));
+        assertEquals(Math.PI / 2.0, out.robotYaw, EPSILON);
+        assertFalse(out.useVisionRotation);
+        assertEquals(Double.POSITIVE_INFINITY, out.thetaStdDev);
+
+        referenceYaw = 0.1;
+        assertTrue(decoder.decode(0, 1.0, frame, 1.0, out));
+        assertEquals(0.0, out.robotYaw, EPSILON);
+    }
+
+    @Test
+    void rejectsUnusableFrames() {
+        AprilTagFrameDecoder.Observation out = new AprilTagFrameDecoder.Observation();
+        Pose3d inField = cameraPose(0, new Pose3d(4.0, 3.0, 0.0, new Rotation3d()));
+        Pose3d outOfField = cameraPose(0, new Pose3d(-5.0, 3.0, 0.0, new Rotation3d()));
+
+        assertFalse(decoder.decode(0, 1.0, new double[0], 1.0, out));
+        assertFalse(decoder.decode(0, 1.0, new double[]{0}, 1.0, out));
+        assertFalse(decoder.decode(0, 1.0, new double[]{1, 0.0, 1.0}, 1.0, out));
+        assertFalse(decoder.decode(0, 1.0, singlePoseFrame(outOfField, TAG_ID), 1.0, out));
+        // A tag missing from the layout is still recorded as seen, but gives the frame nothing to trust
+        assertFalse(decoder.decode(0, 1.0, singlePoseFrame(inField, 40), 3.0, out));
+        assertEquals(3.0, decoder.getLastDetectionTime(40));
+
+        double[] unresolved = new double[18];
+        unresolved[0] = 2;
+        putPose(unresolved, 1, 0.5, inField);
+        putPose(unresolved, 9, 0.6, inField);
+        unresolved[17] = TAG_ID;
+        assertFalse(decoder.decode(0, 1.0, unresolved, 1.0, out));
+    }
+
+    @Test
+    void poolReusesObservationsAcrossCycles() {
+        AprilTagFrameDecoder.Observation first = decoder.next();
+        decoder.commit();
+        AprilTagFrameDecoder.Observation second = decoder.next();
+        assertNotSame(first, second);
+        assertEquals(1, decoder.getObservationCount());
+
+        decoder.resetPool();
+        assertEquals(0, decoder.getObservationCount());
+        assertSame(first, decoder.next());
+
+        for (int i = 0; i < 100; i++) {
+            decoder.next();
+            decoder.commit();
+        }
+        assertEquals(100, decoder.getObservationCount());
+        assertSame(first, decoder.getObservation(0));
+    }
+}
@@ -0,0 +1,76 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.RobotConstants;
+import org.frcteam6941.looper.Updatable;
+import org.frcteam6941.looper.UpdateManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the simulated swerve through the loop the way Robot does, the read cycle of robotPeriodic before the simulate
+// cycle of simulationPeriodic, and checks the updates of the read cycle see odometry up to that cycle's own time
+class SwerveSimulationTest {
+    private static final double PERIOD = RobotConstants.LOOPER_DT;
+    private static final double EPSILON = 1e-9;
+
+    // Registered after the swerve, records what its localizer held when the updates of a cycle ran
+    private static final class Probe implements Updatable {
+        private final Swerve swerve;
+        private double time = Double.NaN;
+        private double odometryTime = Double.NaN;
+        private Pose2d pose;
+
+        private Probe(Swerve swerve) {
+            this.swerve = swerve;
+        }
+
+        @Override
+        public void update(double time, double dt) {
+            this.time = time;
+            odometryTime = swerve.getLastOdometryTimestamp();
+            pose = swerve.getLocalizer().getLatestPose();
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        assertTrue(HAL.initialize(500, 0));
+        SimHooks.pauseTiming();
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+    }
+
+    @AfterEach
+    void teardown() {
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+        SimHooks.resumeTiming();
+    }
+
+    @Test
+    void readCycleUpdatesSeeTheCurrentCycle() {
+        Swerve swerve = Swerve.getInstance();
+        Probe probe = new Probe(swerve);
+        UpdateManager manager = new UpdateManager(swerve, probe);
+        swerve.resetPose(new Pose2d());
+
+        for (int loop = 0; loop < 50; loop++) {
+            SimHooks.stepTiming(PERIOD);
+            swerve.drive(1.0, 0.0, 0.0, false, false);
+            manager.runEnableSingle();
+            // The first loop has nothing simulated yet, from then on the samples reach the read cycle's time
+            if (loop > 0) {
+                assertEquals(probe.time, probe.odometryTime, EPSILON, "loop " + loop);
+            }
+            manager.runSimulateSingle();
+        }
+        assertTrue(probe.pose.getX() > 0.1, "the simulated robot did not drive: " + probe.pose);
+        assertEquals(0.0, probe.pose.getY(), 1e-3);
+    }
+}
@@ -0,0 +1,152 @@
+package org.frcteam6941.control;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.RobotConstants.ReefAimConstants;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Plans the reef alignment profile from random start states and checks that it ends at rest on the goal without
+// exceeding its limits on the way, that re-planning from a point of the profile keeps the arrival time, and that a
+// plan stays well under the re-planner's budget
+class HolonomicMotionProfileTest {
+    private static final double MAX_VELOCITY = ReefAimConstants.MAX_VELOCITY;
+    private static final double MAX_ACCELERATION = ReefAimConstants.MAX_ACCELERATION;
+    private static final double MAX_ANGULAR_VELOCITY = ReefAimConstants.MAX_ANGULAR_VELOCITY;
+    private static final double MAX_ANGULAR_ACCELERATION = ReefAimConstants.MAX_ANGULAR_ACCELERATION;
+    private static final int CASES = 2000;
+    private static final double DT = 1e-3;
+    private static final double EPSILON = 1e-9;
+
+    private final HolonomicMotionProfile profile = new HolonomicMotionProfile();
+
+    // x0, y0, theta0, vx0, vy0, omega0, xf, yf, thetaf; fixed edge cases first, then random starts within the limits
+    private static double[][] starts() {
+        double[][] starts = new double[CASES][];
+        starts[0] = new double[]{1.0, 2.0, 0.5, 0.0, 0.0, 0.0, 1.0, 2.0, 0.5};
+        starts[1] = new double[]{1.0, 2.0, 0.5, 2.0, -1.0, 3.0, 1.0, 2.0, 0.5};
+        starts[2] = new double[]{0.0, 0.0, 3.1, 0.0, 0.0, 0.0, 4.0, 0.0, -3.1};
+        starts[3] = new double[]{0.0, 0.0, -3.1, 0.0, 0.0, -2.0, 0.0, 4.0, 3.1};
+        starts[4] = new double[]{0.0, 0.0, 0.0, MAX_VELOCITY, 0.0, 0.0, -1.0, 0.0, 0.0};
+        starts[5] = new double[]{0.0, 0.0, 0.0, 0.0, MAX_VELOCITY, 0.0, 5.0, 0.0, Math.PI};
+        Random random = new Random(6941);
+        for (int i = 6; i < CASES; i++) {
+            double speed = MAX_VELOCITY * random.nextDouble();
+            double direction = 2.0 * Math.PI * random.nextDouble();
+            starts[i] = new double[]{
+                    10.0 * random.nextDouble() - 5.0, 10.0 * random.nextDouble() - 5.0,
+                    2.0 * Math.PI * random.nextDouble() - Math.PI,
+                    speed * Math.cos(direction), speed * Math.sin(direction),
+                    MAX_ANGULAR_VELOCITY * (2.0 * random.nextDouble() - 1.0),
+                    10.0 * random.nextDouble() - 5.0, 10.0 * random.nextDouble() - 5.0,
+                    2.0 * Math.PI * random.nextDouble() - Math.PI
+            };
+        }
+        return starts;
+    }
+
+    private void plan(double[] start) {
+        profile.plan(start[0], start[1], start[2], start[3], start[4], start[5], start[6], start[7], start[8],
+                MAX_VELOCITY, MAX_ACCELERATION, MAX_ANGULAR_VELOCITY, MAX_ANGULAR_ACCELERATION);
+    }
+
+    @Test
+    void reachesGoalAtRestWithinLimits() {
+        for (double[] start : starts()) {
+            plan(start);
+            String description = Arrays.toString(start);
+            double speedLimit = Math.max(MAX_VELOCITY, Math.hypot(start[3], start[4])) + EPSILON;
+            double omegaLimit = Math.max(MAX_ANGULAR_VELOCITY, Math.abs(start[5])) + EPSILON;
+            double totalTime = profile.getTotalTime();
+            assertTrue(Double.isFinite(totalTime) && totalTime >= 0.0, description);
+            assertEquals(0.0, MathUtil.angleModulus(profile.getGoalTheta() - start[8]), EPSILON, description);
+            assertTrue(Math.abs(profile.getGoalTheta() - start[2]) <= Math.PI + EPSILON,
+                    "rotates the long way round: " + description);
+
+            profile.sample(0.0);
+            double x = profile.getX();
+            double y = profile.getY();
+            double theta = profile.getTheta();
+            double vx = profile.getVx();
+            double vy = profile.getVy();
+            double omega = profile.getOmega();
+            assertEquals(start[0], x, EPSILON, description);
+            assertEquals(start[1], y, EPSILON, description);
+            assertEquals(start[2], theta, EPSILON, description);
+            for (double time = DT; time <= totalTime + 10.0 * DT; time += DT) {
+                profile.sample(time);
+                assertTrue(Math.hypot(profile.getVx(), profile.getVy()) <= speedLimit, description + " at " + time);
+                assertTrue(Math.hypot(profile.getAx(), profile.getAy()) <= MAX_ACCELERATION + EPSILON,
+                        description + " at " + time);
+                assertTrue(Math.abs(profile.getOmega()) <= omegaLimit, description + " at " + time);
+
+                // No jumps: every step moves and changes speed only as far as the limits allow
+                assertTrue(Math.hypot(profile.getX() - x, profile.getY() - y) <= speedLimit * DT + EPSILON,
+                        description + " at " + time);
+                assertTrue(Math.hypot(profile.getVx() - vx, profile.getVy() - vy) <= MAX_ACCELERATION * DT + EPSILON,
+                        description + " at " + time);
+                assertTrue(Math.abs(profile.getTheta() - theta) <= omegaLimit * DT + EPSILON,
+                        description + " at " + time);
+                assertTrue(Math.abs(profile.getOmega() - omega) <= MAX_ANGULAR_ACCELERATION * DT + EPSILON,
+                        description + " at " + time);
+                x = profile.getX();
+                y = profile.getY();
+                theta = profile.getTheta();
+                vx = profile.getVx();
+                vy = profile.getVy();
+                omega = profile.getOmega();
+            }
+            assertEquals(start[6], x, EPSILON, description);
+            assertEquals(start[7], y, EPSILON, description);
+            assertEquals(profile.getGoalTheta(), theta, EPSILON, description);
+            assertEquals(0.0, vx, 0.0, description);
+            assertEquals(0.0, vy, 0.0, description);
+            assertEquals(0.0, omega, 0.0, description);
+        }
+    }
+
+    // Each axis is time-optimal, so a plan from any point of it arrives when the original would have; this is what
+    // keeps the re-planned profile from drifting while the pose estimate agrees with it
+    @Test
+    void replanningAlongAnAxisKeepsTheArrivalTime() {
+        HolonomicMotionProfile.Axis axis = new HolonomicMotionProfile.Axis();
+        HolonomicMotionProfile.Axis replanned = new HolonomicMotionProfile.Axis();
+        Random random = new Random(254);
+        for (int i = 0; i < CASES; i++) {
+            double p0 = 10.0 * random.nextDouble() - 5.0;
+            double v0 = MAX_VELOCITY * (2.0 * random.nextDouble() - 1.0);
+            double pf = 10.0 * random.nextDouble() - 5.0;
+            axis.plan(p0, v0, pf, MAX_VELOCITY, MAX_ACCELERATION);
+            for (int step = 1; step < 10; step++) {
+                double time = axis.totalTime * step / 10.0;
+                axis.sample(time);
+                replanned.plan(axis.position, axis.velocity, pf, MAX_VELOCITY, MAX_ACCELERATION);
+                assertEquals(axis.totalTime - time, replanned.totalTime, 1e-6,
+                        "from " + p0 + " at " + v0 + " to " + pf + ", replanned at " + time);
+            }
+        }
+    }
+
+    @Test
+    void planStaysUnderReplanBudget() {
+        double[][] starts = starts();
+        // Let the JIT compile plan before timing it, as it is by the time the robot aligns
+        for (int i = 0; i < 20 * CASES; i++) {
+            plan(starts[i % CASES]);
+        }
+        long[] nanos = new long[CASES];
+        for (int i = 0; i < CASES; i++) {
+            long begin = System.nanoTime();
+            plan(starts[i]);
+            profile.sample(0.5 * profile.getTotalTime());
+            nanos[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(nanos);
+        long budget = (long) (ReefAimConstants.REPLAN_BUDGET * 1e9);
+        long p99 = nanos[(int) (0.99 * (CASES - 1))];
+        assertTrue(p99 < budget, "99th percentile plan took " + p99 + " ns against a budget of " + budget + " ns");
+    }
+}
@@ -0,0 +1,181 @@
+package org.frcteam6941.control;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
+import com.pathplanner.lib.util.DriveFeedforwards;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Samples trajectories through the view and through PathPlannerTrajectory.sample at the same times, in order, out of
+// order and outside the trajectory, and checks the two agree
+class TrajectoryViewTest {
+    private static final double EPSILON = 1e-9;
+    private static final int MODULES = 4;
+
+    private static PathPlannerTrajectoryState state(double time, double x, double y, double rotation, double speed,
+                                                    double heading, double omega) {
+        PathPlannerTrajectoryState state = new PathPlannerTrajectoryState();
+        state.timeSeconds = time;
+        state.pose = new Pose2d(x, y, new Rotation2d(rotation));
+        state.heading = new Rotation2d(heading);
+        state.linearVelocity = speed;
+        state.fieldSpeeds = new ChassisSpeeds(speed * Math.cos(heading), speed * Math.sin(heading), omega);
+        state.feedforwards = new DriveFeedforwards(new double[MODULES], new double[MODULES], new double[MODULES],
+                new double[MODULES], new double[MODULES]);
+        return state;
+    }
+
+    // A winding path with uneven spacing, one repeated time and one segment shorter than a millisecond
+    private static PathPlannerTrajectory winding() {
+        Random random = new Random(6941);
+        List<PathPlannerTrajectoryState> states = new ArrayList<>();
+        double time = 0.0;
+        double x = 1.0;
+        double y = 2.0;
+        double heading = 0.3;
+        double speed = 0.0;
+        for (int i = 0; i < 200; i++) {
+            double rotation = MathUtil.angleModulus(0.05 * i);
+            states.add(state(time, x, y, rotation, speed, heading, 0.5));
+            double dt = i == 60 ? 0.0 : i == 120 ? 0.0005 : 0.005 + random.nextDouble() * 0.06;
+            x += speed * Math.cos(heading) * dt;
+            y += speed * Math.sin(heading) * dt;
+            heading = MathUtil.angleModulus(heading + (random.nextDouble() - 0.3) * 0.2);
+            speed = Math.min(4.0, speed + random.nextDouble() * 0.3);
+            time += dt;
+        }
+        return new PathPlannerTrajectory(states, new ArrayList<>());
+    }
+
+    private static void assertMatches(PathPlannerTrajectory trajectory, TrajectoryView view, double time) {
+        PathPlannerTrajectoryState expected = trajectory.sample(time);
+        view.sample(time);
+        String at = "at t=" + time;
+        assertEquals(expected.pose.getX(), view.getX(), EPSILON, at);
+        assertEquals(expected.pose.getY(), view.getY(), EPSILON, at);
+        assertEquals(0.0, MathUtil.angleModulus(expected.pose.getRotation().getRadians() - view.getRotation()),
+                EPSILON, at);
+        assertEquals(0.0, MathUtil.angleModulus(expected.heading.getRadians() - view.getHeading()), EPSILON, at);
+        assertEquals(expected.linearVelocity, view.getVelocity(), EPSILON, at);
+        assertEquals(expected.fieldSpeeds.vxMetersPerSecond, view.getVx(), EPSILON, at);
+        assertEquals(expected.fieldSpeeds.vyMetersPerSecond, view.getVy(), EPSILON, at);
+        assertEquals(expected.fieldSpeeds.omegaRadiansPerSecond, view.getOmega(), EPSILON, at);
+    }
+
+    // Every state time, the middle of every segment and a fine sweep from before the start to past the end
+    private static List<Double> sampleTimes(PathPlannerTrajectory trajectory) {
+        List<Double> times = new ArrayList<>();
+        List<PathPlannerTrajectoryState> states = trajectory.getStates();
+        for (int i = 0; i < states.size(); i++) {
+            times.add(states.get(i).timeSeconds);
+            if (i + 1 < states.size()) {
+                times.add(0.5 * (states.get(i).timeSeconds + states.get(i + 1).timeSeconds));
+            }
+        }
+        for (double time = -0.5; time < trajectory.getTotalTimeSeconds() + 0.5; time += 0.003) {
+            times.add(time);
+        }
+        Collections.sort(times);
+        return times;
+    }
+
+    private static void assertMatchesEverywhere(PathPlannerTrajectory trajectory) {
+        List<Double> times = sampleTimes(trajectory);
+        TrajectoryView view = new TrajectoryView(trajectory);
+        for (double time : times) {
+            assertMatches(trajectory, view, time);
+        }
+        // Out of order, so the cursor has to seek backwards and jump ahead
+        Collections.shuffle(times, new Random(254));
+        for (double time : times) {
+            assertMatches(trajectory, view, time);
+        }
+    }
+
+    @Test
+    void matchesSampleOnAGeneratedPath() throws Exception {
+        PathPlannerPath path = PathPlannerPath.fromPathFile("Example Path");
+        RobotConfig config = RobotConfig.fromGUISettings();
+        assertMatchesEverywhere(new PathPlannerTrajectory(path, new ChassisSpeeds(), Rotation2d.kZero, config));
+        assertMatchesEverywhere(new PathPlannerTrajectory(path.flipPath(), new ChassisSpeeds(), Rotation2d.k180deg,
+                config));
+    }
+
+    @Test
+    void matchesSampleOnUnevenSegments() {
+        assertMatchesEverywhere(winding());
+    }
+
+    @Test
+    void clampsOutsideTheTrajectory() {
+        PathPlannerTrajectory trajectory = winding();
+        TrajectoryView view = new TrajectoryView(trajectory);
+        PathPlannerTrajectoryState first = trajectory.getInitialState();
+        PathPlannerTrajectoryState last = trajectory.getEndState();
+
+        view.sample(-1.0);
+        assertEquals(0, view.getCursor());
+        assertEquals(first.pose.getX(), view.getX(), 0.0);
+        assertEquals(first.pose.getY(), view.getY(), 0.0);
+
+        view.sample(trajectory.getTotalTimeSeconds() + 1.0);
+        assertEquals(view.size() - 1, view.getCursor());
+        assertEquals(last.pose.getX(), view.getX(), 0.0);
+        assertEquals(last.linearVelocity, view.getVelocity(), 0.0);
+
+        // Back inside from either end
+        assertMatches(trajectory, view, 0.5 * trajectory.getTotalTimeSeconds());
+        view.sample(-1.0);
+        assertMatches(trajectory, view, 0.25 * trajectory.getTotalTimeSeconds());
+    }
+
+    @Test
+    void seeksBackwards() {
+        PathPlannerTrajectory trajectory = winding();
+        TrajectoryView view = new TrajectoryView(trajectory);
+        double total = trajectory.getTotalTimeSeconds();
+        assertMatches(trajectory, view, 0.9 * total);
+        int late = view.getCursor();
+        assertMatches(trajectory, view, 0.1 * total);
+        assertTrue(view.getCursor() < late);
+        view.resetCursor();
+        assertEquals(0, view.getCursor());
+        assertMatches(trajectory, view, 0.6 * total);
+    }
+
+    @Test
+    void singleStateTrajectory() {
+        List<PathPlannerTrajectoryState> states = new ArrayList<>();
+        states.add(state(0.0, 3.0, 4.0, 1.0, 0.0, 0.5, 0.0));
+        PathPlannerTrajectory trajectory = new PathPlannerTrajectory(states, new ArrayList<>());
+        TrajectoryView view = new TrajectoryView(trajectory);
+        for (double time : new double[]{-1.0, 0.0, 1.0}) {
+            assertMatches(trajectory, view, time);
+            assertEquals(0, view.getCursor());
+        }
+    }
+
+    @Test
+    void twoStateTrajectory() {
+        List<PathPlannerTrajectoryState> states = new ArrayList<>();
+        states.add(state(0.0, 0.0, 0.0, 0.0, 1.0, 0.2, 1.0));
+        states.add(state(0.35, 0.34, 0.07, 0.35, 2.0, 0.25, 1.0));
+        PathPlannerTrajectory trajectory = new PathPlannerTrajectory(states, new ArrayList<>());
+        TrajectoryView view = new TrajectoryView(trajectory);
+        for (double time : new double[]{-0.1, 0.0, 0.005, 0.01, 0.015, 0.02, 0.1, 0.3449, 0.35, 0.4, 0.2, 0.0}) {
+            assertMatches(trajectory, view, time);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.frcteam6941.drivers;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import edu.wpi.first.hal.HAL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives the keyed Slot0 path the way the mechanisms do, submitting every cycle, with the worker's applies run by hand
+class DeviceConfiguratorTest {
+    private static final String KEY = "Swerve/Drive0/Slot0";
+    private static final double[] A = {0.03, 0.0, 0.0001, 0.0, 0.12, 0.045};
+    private static final double[] B = {0.05, 0.0, 0.0002, 0.0, 0.13, 0.05};
+
+    private DeviceConfigurator configurator;
+    // kP of every Slot0 the fake device received, and the statuses its next applies return, OK once empty
+    private final List<Double> appliedKp = new ArrayList<>();
+    private final Deque<StatusCode> statuses = new ArrayDeque<>();
+    // Runs inside the next apply, standing in for the main thread submitting while the worker applies
+    private Runnable duringApply = null;
+
+    private StatusCode apply(Slot0Configs configs) {
+        if (duringApply != null) {
+            Runnable action = duringApply;
+            duringApply = null;
+            action.run();
+        }
+        StatusCode status = statuses.isEmpty() ? StatusCode.OK : statuses.poll();
+        if (status.isOK()) {
+            appliedKp.add(configs.kP);
+        }
+        return status;
+    }
+
+    private void submit(double[] gains) {
+        configurator.submitSlot0(KEY, this::apply, gains[0], gains[1], gains[2], gains[3], gains[4], gains[5]);
+    }
+
+    private void applyAll() {
+        boolean applied;
+        do {
+            applied = configurator.applyNext();
+        } while (applied);
+    }
+
+    @BeforeEach
+    void setup() {
+        assertTrue(HAL.initialize(500, 0));
+        configurator = new DeviceConfigurator(false);
+    }
+
+    @Test
+    void unchangedGainsAreSubmittedOnce() {
+        for (int cycle = 0; cycle < 10; cycle++) {
+            submit(A);
+            applyAll();
+        }
+        assertEquals(List.of(A[0]), appliedKp);
+    }
+
+    @Test
+    void failedApplyIsRetriedOnTheNextCycle() {
+        statuses.add(StatusCode.GeneralError);
+        submit(A);
+        applyAll();
+        assertTrue(appliedKp.isEmpty());
+        assertEquals(1, configurator.getFailureCount());
+
+        // The next cycle submits the same gains again, which are no longer taken as already submitted
+        submit(A);
+        assertEquals(1, configurator.getPendingCount());
+        applyAll();
+        assertEquals(List.of(A[0]), appliedKp);
+
+        submit(A);
+        assertEquals(0, configurator.getPendingCount());
+    }
+
+    @Test
+    void failureKeepsANewerSubmission() {
+        // B is submitted while A is being applied, A then fails
+        statuses.add(StatusCode.GeneralError);
+        duringApply = () -> submit(B);
+        submit(A);
+        assertTrue(configurator.applyNext());
+        assertEquals(1, configurator.getPendingCount());
+
+        // B is still the last submission, so the next cycle does not queue it twice
+        submit(B);
+        assertEquals(1, configurator.getPendingCount());
+        applyAll();
+        assertEquals(List.of(B[0]), appliedKp);
+    }
+
+    @Test
+    void editBackWhileQueuedEndsOnTheLastGains() {
+        submit(A);
+        applyAll();
+
+        // A to B to A before the worker gets to B
+        submit(B);
+        submit(A);
+        assertEquals(1, configurator.getPendingCount());
+        applyAll();
+        assertEquals(List.of(A[0], A[0]), appliedKp);
+    }
+
+    @Test
+    void editBackWhileApplyingIsQueued() {
+        submit(A);
+        applyAll();
+
+        // The device is being written with B when the gains go back to A
+        duringApply = () -> submit(A);
+        submit(B);
+        applyAll();
+        assertEquals(List.of(A[0], B[0], A[0]), appliedKp);
+    }
+}
@@ -0,0 +1,117 @@
+package org.frcteam6941.localization;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import org.frcteam6941.localization.SwerveDeltaCoarseLocalizer.FusionMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Toggles the fusion mode while driving and checks that the coarse field pose carries on from where the mode that
+// was running left it, even after vision moved the two modes' estimates apart
+class SwerveDeltaCoarseLocalizerTest {
+    private static final Translation2d[] PLACEMENTS = {
+            new Translation2d(0.3, 0.3), new Translation2d(0.3, -0.3),
+            new Translation2d(-0.3, 0.3), new Translation2d(-0.3, -0.3)
+    };
+    private static final double DT = 1.0 / 250.0;
+    private static final double SPEED = 1.0;
+    private static final double EPSILON = 1e-9;
+    // Standard deviations of the vision measurements, x y and theta
+    private static final Pose2d VISION_STD_DEVS = new Pose2d(0.05, 0.05, new Rotation2d(1.0));
+
+    private final double[] distances = new double[PLACEMENTS.length];
+    private final double[] angles = new double[PLACEMENTS.length];
+    private double time = 0.0;
+    private SwerveDeltaCoarseLocalizer localizer;
+
+    @BeforeEach
+    void setup() {
+        SwerveModulePosition[] positions = new SwerveModulePosition[PLACEMENTS.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new SwerveModulePosition();
+        }
+        localizer = new SwerveDeltaCoarseLocalizer(new SwerveDriveKinematics(PLACEMENTS), 50, 5, 5, positions);
+        localizer.reset(time, new Pose2d(), new Rotation2d(), positions);
+    }
+
+    // Drives every module forward along the field x axis, one odometry sample at a time
+    private void drive(int samples) {
+        for (int sample = 0; sample < samples; sample++) {
+            time += DT;
+            for (int i = 0; i < distances.length; i++) {
+                distances[i] += SPEED * DT;
+            }
+            localizer.updateWithTime(time, DT, 0.0, distances, angles, 0);
+        }
+    }
+
+    // Feeds vision that keeps placing the robot half a meter to the left of the current estimate
+    private void driveWithVisionOffset(int cycles) {
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            drive(5);
+            Pose2d estimate = localizer.getCoarseFieldPose(time);
+            localizer.addMeasurement(time,
+                    new Pose2d(estimate.getX(), estimate.getY() + 0.5, estimate.getRotation()), VISION_STD_DEVS);
+        }
+    }
+
+    private static void assertPose(Pose2d expected, Pose2d actual, double tolerance) {
+        assertEquals(expected.getX(), actual.getX(), tolerance, "x");
+        assertEquals(expected.getY(), actual.getY(), tolerance, "y");
+        assertEquals(expected.getRotation().getRadians(), actual.getRotation().getRadians(), tolerance, "theta");
+    }
+
+    // The pose one sample after the given one, driving straight along x
+    private static Pose2d stepped(Pose2d pose) {
+        return new Pose2d(pose.getX() + SPEED * DT, pose.getY(), pose.getRotation());
+    }
+
+    @Test
+    void switchingModesKeepsTheCoarsePose() {
+        drive(250);
+        Pose2d estimated = localizer.getCoarseFieldPose(time);
+        assertEquals(1.0, estimated.getX(), 1e-6);
+
+        localizer.setFusionMode(FusionMode.LATENCY_COMPENSATED);
+        assertPose(estimated, localizer.getCoarseFieldPose(time), EPSILON);
+
+        // The pose estimator is idle from here on, so it falls behind while vision moves the fused pose sideways
+        driveWithVisionOffset(50);
+        Pose2d fused = localizer.getCoarseFieldPose(time);
+        assertTrue(fused.getY() > 0.1, "vision did not move the fused pose: " + fused);
+
+        localizer.setFusionMode(FusionMode.POSE_ESTIMATOR);
+        assertPose(fused, localizer.getCoarseFieldPose(time), EPSILON);
+        drive(1);
+        Pose2d resumed = localizer.getCoarseFieldPose(time);
+        assertPose(stepped(fused), resumed, 1e-6);
+
+        // The estimator moves sideways under vision now, and the fused pose has to pick up from there
+        driveWithVisionOffset(50);
+        estimated = localizer.getCoarseFieldPose(time);
+        assertTrue(estimated.getY() > fused.getY() + 0.1, "vision did not move the estimate: " + estimated);
+
+        localizer.setFusionMode(FusionMode.LATENCY_COMPENSATED);
+        assertPose(estimated, localizer.getCoarseFieldPose(time), EPSILON);
+        drive(1);
+        assertPose(stepped(estimated), localizer.getCoarseFieldPose(time), 1e-6);
+    }
+
+    @Test
+    void settingTheSameModeChangesNothing() {
+        localizer.setFusionMode(FusionMode.LATENCY_COMPENSATED);
+        driveWithVisionOffset(50);
+        Pose2d fused = localizer.getCoarseFieldPose(time);
+        localizer.setFusionMode(FusionMode.LATENCY_COMPENSATED);
+        assertPose(fused, localizer.getCoarseFieldPose(time), 0.0);
+
+        localizer.setFusionMode(FusionMode.POSE_ESTIMATOR);
+        localizer.setFusionMode(FusionMode.POSE_ESTIMATOR);
+        assertPose(fused, localizer.getCoarseFieldPose(time), EPSILON);
+    }
+}
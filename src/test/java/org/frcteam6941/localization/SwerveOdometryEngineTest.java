@@ -0,0 +1,60 @@
+package org.frcteam6941.localization;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks the primitive odometry against WPILib's SwerveDriveOdometry fed the same samples
+class SwerveOdometryEngineTest {
+    private static final Translation2d[] PLACEMENTS = {
+            new Translation2d(0.3, 0.3), new Translation2d(0.3, -0.3),
+            new Translation2d(-0.3, 0.3), new Translation2d(-0.3, -0.3)
+    };
+    private static final int SAMPLES = 2000;
+    private static final double TOLERANCE = 1e-8;
+
+    @Test
+    void matchesWpilibOdometry() {
+        SwerveDriveKinematics kinematics = new SwerveDriveKinematics(PLACEMENTS);
+        int modules = PLACEMENTS.length;
+        SwerveModulePosition[] positions = new SwerveModulePosition[modules];
+        for (int i = 0; i < modules; i++) {
+            positions[i] = new SwerveModulePosition();
+        }
+        Pose2d start = new Pose2d(2.0, 1.0, Rotation2d.fromDegrees(150.0));
+        double startGyro = 0.4;
+        SwerveDriveOdometry reference = new SwerveDriveOdometry(kinematics, new Rotation2d(startGyro), positions,
+                start);
+        SwerveOdometryEngine engine = new SwerveOdometryEngine(kinematics, modules);
+        engine.resetPosition(startGyro, positions, start);
+
+        double[] distances = new double[SAMPLES * modules];
+        double[] angles = new double[SAMPLES * modules];
+        double distance = 0.0;
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            double phase = sample * 0.004;
+            // Sweeps the heading across the +/- pi wrap and through near-zero rotation steps
+            double gyro = startGyro + 6.0 * Math.sin(0.5 * phase);
+            distance += 0.01 * (1.0 + Math.sin(phase));
+            for (int i = 0; i < modules; i++) {
+                int index = sample * modules + i;
+                distances[index] = distance * (1.0 + 0.05 * i);
+                angles[index] = Math.sin(phase + i);
+                positions[i] = new SwerveModulePosition(distances[index], new Rotation2d(angles[index]));
+            }
+            Pose2d expected = reference.update(new Rotation2d(gyro), positions);
+            engine.update(gyro, distances, angles, sample * modules);
+
+            assertEquals(expected.getX(), engine.getX(), TOLERANCE);
+            assertEquals(expected.getY(), engine.getY(), TOLERANCE);
+            assertEquals(0.0, expected.getRotation().minus(new Rotation2d(engine.getTheta())).getRadians(),
+                    TOLERANCE);
+        }
+    }
+}
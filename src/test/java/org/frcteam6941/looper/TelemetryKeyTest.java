@@ -0,0 +1,75 @@
+package org.frcteam6941.looper;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import org.frcteam6941.looper.TelemetryKey.Priority;
+import org.frcteam6941.looper.TelemetryKey.Rate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Records arrays the caller keeps reusing through ON_CHANGE keys, one record per cycle, and checks a change made in
+// place is recorded while an unchanged array is not
+class TelemetryKeyTest {
+    private TelemetryBudget budget;
+
+    @BeforeEach
+    void setup() {
+        budget = new TelemetryBudget();
+    }
+
+    private TelemetryKey key(String name) {
+        return budget.key(name, Rate.ON_CHANGE, Priority.HIGH);
+    }
+
+    @Test
+    void longArrayChangedInPlaceIsRecorded() {
+        TelemetryKey key = key("Test/Longs");
+        long[] values = {1, 2, 3};
+        assertTrue(key.record(values));
+        budget.beginCycle(0.0);
+        assertFalse(key.record(values));
+
+        values[1] = 5;
+        budget.beginCycle(0.0);
+        assertTrue(key.record(values));
+        budget.beginCycle(0.0);
+        assertFalse(key.record(values));
+    }
+
+    @Test
+    void pose2dArrayChangedInPlaceIsRecorded() {
+        TelemetryKey key = key("Test/Pose2ds");
+        Pose2d[] poses = {new Pose2d(), new Pose2d(1.0, 2.0, new Rotation2d(0.5))};
+        assertTrue(key.record(poses));
+        budget.beginCycle(0.0);
+        assertFalse(key.record(poses));
+
+        poses[0] = new Pose2d(3.0, 0.0, new Rotation2d());
+        budget.beginCycle(0.0);
+        assertTrue(key.record(poses));
+        budget.beginCycle(0.0);
+        assertFalse(key.record(poses));
+    }
+
+    @Test
+    void pose3dArrayChangedInPlaceIsRecorded() {
+        TelemetryKey key = key("Test/Pose3ds");
+        Pose3d[] poses = {new Pose3d(), new Pose3d()};
+        assertTrue(key.record(poses));
+        budget.beginCycle(0.0);
+        assertFalse(key.record(poses));
+
+        poses[1] = new Pose3d(1.0, 0.0, 0.0, new Rotation3d());
+        budget.beginCycle(0.0);
+        assertTrue(key.record(poses));
+
+        // The prefix overload shares the comparison base
+        budget.beginCycle(0.0);
+        assertFalse(key.record(poses, poses.length));
+        assertTrue(key.record(poses, 1));
+    }
+}
@@ -0,0 +1,211 @@
+package org.frcteam6941.looper;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.RobotConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks how UpdateManager rounds task periods, staggers tasks sharing a period and skips telemetry on overruns,
+// stepping simulated time by one base period per cycle
+class UpdateManagerTest {
+    private static final double BASE_PERIOD = RobotConstants.LOOPER_DT;
+    private static final double EPSILON = 1e-12;
+
+    private int cycle;
+
+    // Records the cycles each stage of an updatable ran in
+    private final class Recorder implements Updatable {
+        private final List<Integer> updates = new ArrayList<>();
+        private final List<Integer> telemetries = new ArrayList<>();
+        // Busy time spent in update, in nanoseconds
+        private final long updateNanos;
+
+        private Recorder(long updateNanos) {
+            this.updateNanos = updateNanos;
+        }
+
+        private Recorder() {
+            this(0);
+        }
+
+        @Override
+        public void update(double time, double dt) {
+            updates.add(cycle);
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < updateNanos) {
+                Thread.onSpinWait();
+            }
+        }
+
+        @Override
+        public void telemetry() {
+            telemetries.add(cycle);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        assertTrue(HAL.initialize(500, 0));
+        SimHooks.pauseTiming();
+        cycle = 0;
+    }
+
+    @AfterEach
+    void teardown() {
+        SimHooks.resumeTiming();
+    }
+
+    private void run(UpdateManager manager, int cycles) {
+        for (int i = 0; i < cycles; i++) {
+            SimHooks.stepTiming(BASE_PERIOD);
+            manager.runEnableSingle();
+            cycle++;
+        }
+    }
+
+    @Test
+    void periodsRoundToMultiplesOfTheBasePeriod() {
+        Recorder every = new Recorder();
+        Recorder rounded = new Recorder();
+        Recorder faster = new Recorder();
+        Recorder tenth = new Recorder();
+        UpdateManager manager = new UpdateManager(every);
+        manager.register(rounded, 1.6 * BASE_PERIOD);
+        manager.register(faster, 0.25 * BASE_PERIOD);
+        manager.register(tenth, 5.0 * BASE_PERIOD);
+
+        assertEquals(BASE_PERIOD, manager.getPeriod(every), EPSILON);
+        assertEquals(2.0 * BASE_PERIOD, manager.getPeriod(rounded), EPSILON);
+        assertEquals(BASE_PERIOD, manager.getPeriod(faster), EPSILON, "periods below the base period run every cycle");
+        assertEquals(5.0 * BASE_PERIOD, manager.getPeriod(tenth), EPSILON);
+        assertTrue(Double.isNaN(manager.getPeriod(new Recorder())));
+    }
+
+    @Test
+    void registerRejectsPeriodsBeyondTheScheduleHorizon() {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        UpdateManager manager = new UpdateManager();
+        assertThrows(IllegalArgumentException.class, () -> manager.register(first, 0.0));
+        manager.register(first, 31 * BASE_PERIOD);
+        // 31 and 37 cycles only line up again after 1147 cycles
+        assertThrows(IllegalArgumentException.class, () -> manager.register(second, 37 * BASE_PERIOD));
+        assertTrue(Double.isNaN(manager.getPeriod(second)));
+        assertEquals(31 * BASE_PERIOD, manager.getPeriod(first), EPSILON);
+        assertEquals(1, manager.updatables.size());
+    }
+
+    @Test
+    void tasksRunOnceEveryDivisorCycles() {
+        Recorder every = new Recorder();
+        Recorder second = new Recorder();
+        Recorder fifth = new Recorder();
+        UpdateManager manager = new UpdateManager(every);
+        manager.register(second, 2 * BASE_PERIOD);
+        manager.register(fifth, 5 * BASE_PERIOD);
+        run(manager, 20);
+
+        assertEquals(20, every.updates.size());
+        assertEquals(10, second.updates.size());
+        assertEquals(4, fifth.updates.size());
+        for (int i = 1; i < fifth.updates.size(); i++) {
+            assertEquals(5, fifth.updates.get(i) - fifth.updates.get(i - 1));
+        }
+        for (int i = 1; i < second.updates.size(); i++) {
+            assertEquals(2, second.updates.get(i) - second.updates.get(i - 1));
+        }
+    }
+
+    @Test
+    void tasksSharingAPeriodAreStaggered() {
+        Recorder[] recorders = new Recorder[4];
+        UpdateManager manager = new UpdateManager();
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder();
+            manager.register(recorders[i], 4 * BASE_PERIOD);
+        }
+        run(manager, 8);
+
+        // Four tasks every fourth cycle fill the four phases, one task per cycle
+        int[] perCycle = new int[8];
+        for (Recorder recorder : recorders) {
+            assertEquals(2, recorder.updates.size());
+            for (int ran : recorder.updates) {
+                perCycle[ran]++;
+            }
+        }
+        for (int count : perCycle) {
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    void slowerTasksFillTheLeastLoadedCycles() {
+        Recorder every = new Recorder();
+        Recorder firstHalf = new Recorder();
+        Recorder secondHalf = new Recorder();
+        UpdateManager manager = new UpdateManager(every);
+        manager.register(firstHalf, 2 * BASE_PERIOD);
+        manager.register(secondHalf, 2 * BASE_PERIOD);
+        run(manager, 10);
+
+        assertEquals(5, firstHalf.updates.size());
+        assertEquals(5, secondHalf.updates.size());
+        assertNotEquals(firstHalf.updates.get(0) % 2, secondHalf.updates.get(0) % 2);
+    }
+
+    @Test
+    void telemetryBudgetFollowsTheBasePeriodUntilSet() {
+        UpdateManager manager = new UpdateManager(new Recorder());
+        assertEquals(0.8 * BASE_PERIOD, manager.getTelemetryBudget(), EPSILON);
+
+        // Timing is paused, so the loop never fires between start and stop
+        manager.startEnableLoop(0.5 * BASE_PERIOD);
+        manager.stopEnableLoop();
+        assertEquals(0.4 * BASE_PERIOD, manager.getTelemetryBudget(), EPSILON);
+
+        manager.setTelemetryBudget(0.005);
+        manager.startEnableLoop(BASE_PERIOD);
+        manager.stopEnableLoop();
+        assertEquals(0.005, manager.getTelemetryBudget(), EPSILON);
+        assertThrows(IllegalArgumentException.class, () -> manager.setTelemetryBudget(0.0));
+        assertThrows(IllegalArgumentException.class, () -> manager.setTelemetryBudget(Double.NaN));
+    }
+
+    @Test
+    void phaseSeparatedCyclesSkipTelemetryOnlyWhenOverBudget() {
+        // Each cycle busies update for 2 ms
+        Recorder slow = new Recorder(2_000_000);
+        UpdateManager manager = new UpdateManager(slow);
+        manager.setPhaseSeparated(true);
+
+        manager.setTelemetryBudget(0.001);
+        run(manager, 5);
+        assertEquals(5, slow.updates.size());
+        assertEquals(0, slow.telemetries.size());
+        assertEquals(5, manager.getSkippedTelemetryCycles());
+
+        manager.setTelemetryBudget(1.0);
+        run(manager, 5);
+        assertEquals(10, slow.updates.size());
+        assertEquals(List.of(5, 6, 7, 8, 9), slow.telemetries);
+        assertEquals(5, manager.getSkippedTelemetryCycles());
+    }
+
+    @Test
+    void interleavedCyclesNeverSkipTelemetry() {
+        Recorder slow = new Recorder(2_000_000);
+        UpdateManager manager = new UpdateManager(slow);
+        manager.setTelemetryBudget(0.001);
+        run(manager, 5);
+        assertEquals(5, slow.telemetries.size());
+        assertEquals(0, manager.getSkippedTelemetryCycles());
+    }
+}
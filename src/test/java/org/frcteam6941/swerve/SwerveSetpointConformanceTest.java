@@ -0,0 +1,164 @@
+package org.frcteam6941.swerve;
+
+import com.team254.lib.swerve.SwerveDriveKinematics;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the WPILib and 254 setpoint generators side by side over the same corpus of driver inputs and checks that
+// they produce the same setpoints every cycle. The corpus stays clear of the two places the adapters are meant to
+// differ: desired speeds between the two stop thresholds, and module speeds too small to have a heading
+class SwerveSetpointConformanceTest {
+    private static final double EPSILON = 1e-9;
+    private static final double DT = 0.02;
+    private static final double[][] MODULES = {{0.3, 0.3}, {0.3, -0.3}, {-0.3, 0.3}, {-0.3, -0.3}};
+
+    // Cycles to hold, then desired vx, vy and omega
+    private static final double[][] CORPUS = {
+            {10, 0.0, 0.0, 0.0},
+            {40, 3.0, 0.0, 0.0},
+            {30, 3.0, 1.5, 0.0},
+            {25, -2.5, 0.4, 0.0},
+            {30, 0.0, 0.0, 4.0},
+            {30, 1.2, -2.2, 2.5},
+            {20, 6.0, 6.0, 0.0},
+            {25, -1.0, -1.0, -6.0},
+            {30, 0.0, 0.0, 0.0},
+            {15, 0.0, 2.0, 0.0},
+            {15, 0.0, -2.0, 0.0},
+            {20, 0.8, 0.1, -1.3},
+            {30, 0.0, 0.0, 0.0},
+    };
+
+    // Kinematic limits as drive velocity, acceleration and steering velocity
+    private static final double[][] LIMITS = {
+            {4.5, 30.0, 200.0},
+            {2.0, 10.0, 1200.0},
+            {2.0, 5.0, 1500.0},
+            {4.5, 8.0, 10.0},
+    };
+
+    @Test
+    void adaptersAgreeOnCorpus() {
+        for (double[] limit : LIMITS) {
+            runCorpus(limit[0], limit[1], limit[2]);
+        }
+    }
+
+    private static void runCorpus(double maxVelocity, double maxAcceleration, double maxSteering) {
+        Translation2d[] wpiModules = new Translation2d[MODULES.length];
+        com.team254.lib.geometry.Translation2d[] lib254Modules =
+                new com.team254.lib.geometry.Translation2d[MODULES.length];
+        for (int i = 0; i < MODULES.length; i++) {
+            wpiModules[i] = new Translation2d(MODULES[i][0], MODULES[i][1]);
+            lib254Modules[i] = new com.team254.lib.geometry.Translation2d(MODULES[i][0], MODULES[i][1]);
+        }
+        SwerveSetpointGenerator wpiGenerator = new SwerveSetpointGenerator(wpiModules);
+        com.team254.lib.swerve.SwerveSetpointGenerator lib254Generator =
+                new com.team254.lib.swerve.SwerveSetpointGenerator(new SwerveDriveKinematics(lib254Modules));
+
+        SwerveSetpointGenerator.KinematicLimits wpiLimits =
+                new SwerveSetpointGenerator.KinematicLimits(maxVelocity, maxAcceleration, maxSteering);
+        com.team254.lib.swerve.SwerveSetpointGenerator.KinematicLimits lib254Limits =
+                new com.team254.lib.swerve.SwerveSetpointGenerator.KinematicLimits();
+        lib254Limits.kMaxDriveVelocity = maxVelocity;
+        lib254Limits.kMaxDriveAcceleration = maxAcceleration;
+        lib254Limits.kMaxSteeringVelocity = maxSteering;
+
+        SwerveSetpoint wpiPrevious = wpiSetpoint();
+        SwerveSetpoint wpiNext = wpiSetpoint();
+        com.team254.lib.swerve.SwerveSetpoint lib254Previous = lib254Setpoint();
+        com.team254.lib.swerve.SwerveSetpoint lib254Next = lib254Setpoint();
+        ChassisSpeeds wpiDesired = new ChassisSpeeds();
+        com.team254.lib.swerve.ChassisSpeeds lib254Desired = new com.team254.lib.swerve.ChassisSpeeds();
+
+        // The recorded previous setpoint, fed to both adapters as the same angles in radians each cycle. Feeding each
+        // adapter its own output would let the rounding of the two Rotation2d types drift apart, and the steering
+        // solve is sensitive enough to turn that into visible differences
+        double[] chassis = new double[3];
+        double[] speed = new double[MODULES.length];
+        double[] radians = new double[MODULES.length];
+
+        int cycle = 0;
+        for (double[] segment : CORPUS) {
+            for (int step = 0; step < segment[0]; step++, cycle++) {
+                load(wpiPrevious, chassis, speed, radians);
+                load(lib254Previous, chassis, speed, radians);
+                wpiDesired.vxMetersPerSecond = segment[1];
+                wpiDesired.vyMetersPerSecond = segment[2];
+                wpiDesired.omegaRadiansPerSecond = segment[3];
+                lib254Desired.vxMetersPerSecond = segment[1];
+                lib254Desired.vyMetersPerSecond = segment[2];
+                lib254Desired.omegaRadiansPerSecond = segment[3];
+                wpiGenerator.generateSetpoint(wpiLimits, wpiPrevious, wpiDesired, DT, wpiNext);
+                lib254Generator.generateSetpoint(lib254Limits, lib254Previous, lib254Desired, DT, lib254Next);
+                assertAgree("limits " + maxVelocity + ", " + maxAcceleration + ", " + maxSteering + " cycle " + cycle,
+                        wpiNext, lib254Next);
+
+                chassis[0] = wpiNext.mChassisSpeeds.vxMetersPerSecond;
+                chassis[1] = wpiNext.mChassisSpeeds.vyMetersPerSecond;
+                chassis[2] = wpiNext.mChassisSpeeds.omegaRadiansPerSecond;
+                for (int i = 0; i < MODULES.length; i++) {
+                    speed[i] = wpiNext.mModuleStates[i].speedMetersPerSecond;
+                    radians[i] = wpiNext.mModuleStates[i].angle.getRadians();
+                }
+            }
+        }
+    }
+
+    private static void load(SwerveSetpoint setpoint, double[] chassis, double[] speed, double[] radians) {
+        setpoint.mChassisSpeeds.vxMetersPerSecond = chassis[0];
+        setpoint.mChassisSpeeds.vyMetersPerSecond = chassis[1];
+        setpoint.mChassisSpeeds.omegaRadiansPerSecond = chassis[2];
+        for (int i = 0; i < MODULES.length; i++) {
+            setpoint.mModuleStates[i].speedMetersPerSecond = speed[i];
+            setpoint.mModuleStates[i].angle = new Rotation2d(radians[i]);
+        }
+    }
+
+    private static void load(com.team254.lib.swerve.SwerveSetpoint setpoint, double[] chassis, double[] speed,
+                             double[] radians) {
+        setpoint.mChassisSpeeds.vxMetersPerSecond = chassis[0];
+        setpoint.mChassisSpeeds.vyMetersPerSecond = chassis[1];
+        setpoint.mChassisSpeeds.omegaRadiansPerSecond = chassis[2];
+        for (int i = 0; i < MODULES.length; i++) {
+            setpoint.mModuleStates[i].speedMetersPerSecond = speed[i];
+            setpoint.mModuleStates[i].angle = com.team254.lib.geometry.Rotation2d.fromRadians(radians[i]);
+        }
+    }
+
+    private static void assertAgree(String where, SwerveSetpoint wpi, com.team254.lib.swerve.SwerveSetpoint lib254) {
+        assertEquals(lib254.mChassisSpeeds.vxMetersPerSecond, wpi.mChassisSpeeds.vxMetersPerSecond, EPSILON, where);
+        assertEquals(lib254.mChassisSpeeds.vyMetersPerSecond, wpi.mChassisSpeeds.vyMetersPerSecond, EPSILON, where);
+        assertEquals(lib254.mChassisSpeeds.omegaRadiansPerSecond, wpi.mChassisSpeeds.omegaRadiansPerSecond, EPSILON,
+                where);
+        for (int i = 0; i < MODULES.length; i++) {
+            String module = where + " module " + i;
+            assertEquals(lib254.mModuleStates[i].speedMetersPerSecond, wpi.mModuleStates[i].speedMetersPerSecond,
+                    EPSILON, module);
+            assertEquals(lib254.mModuleStates[i].angle.cos(), wpi.mModuleStates[i].angle.getCos(), EPSILON, module);
+            assertEquals(lib254.mModuleStates[i].angle.sin(), wpi.mModuleStates[i].angle.getSin(), EPSILON, module);
+        }
+    }
+
+    private static SwerveSetpoint wpiSetpoint() {
+        SwerveModuleState[] states = new SwerveModuleState[MODULES.length];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new SwerveModuleState(0.0, new Rotation2d());
+        }
+        return new SwerveSetpoint(new ChassisSpeeds(), states);
+    }
+
+    private static com.team254.lib.swerve.SwerveSetpoint lib254Setpoint() {
+        com.team254.lib.swerve.SwerveModuleState[] states =
+                new com.team254.lib.swerve.SwerveModuleState[MODULES.length];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new com.team254.lib.swerve.SwerveModuleState(0.0, new com.team254.lib.geometry.Rotation2d());
+        }
+        return new com.team254.lib.swerve.SwerveSetpoint(new com.team254.lib.swerve.ChassisSpeeds(), states);
+    }
+}